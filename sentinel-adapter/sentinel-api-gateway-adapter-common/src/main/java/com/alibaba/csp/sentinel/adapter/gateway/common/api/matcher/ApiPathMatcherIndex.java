@@ -0,0 +1,471 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPathPredicateItem;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPredicateItem;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+/**
+ * <p>Compiled index of the path predicates of all gateway API definitions, so that the matching
+ * APIs of a request path can be picked in one pass rather than testing every API matcher.</p>
+ *
+ * <ul>
+ * <li>exact items are kept in a hash map of the full path;</li>
+ * <li>prefix items in the form of {@code /literal/segments/**} are kept in a trie of path segments,
+ * which is walked once along the request path;</li>
+ * <li>regex items are bucketed into the trie node of their literal leading segments, so that only
+ * the regexes whose literal prefix matches the request path are evaluated;</li>
+ * <li>other prefix (Ant-style) items are tested by the predicates created by the adapter.</li>
+ * </ul>
+ *
+ * <p>The index is immutable, and should be rebuilt when API definitions change.</p>
+ *
+ * @since 1.8.9
+ */
+public final class ApiPathMatcherIndex {
+
+    public static final ApiPathMatcherIndex EMPTY = new ApiPathMatcherIndex(new String[0],
+        Collections.<String, int[]>emptyMap(), new TrieNode(), new PredicateEntry[0]);
+
+    private static final String PATH_SEPARATOR = "/";
+    private static final String MATCH_ALL_SUFFIX = "/**";
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+    private static final String REGEX_QUANTIFIERS = "?*+{";
+
+    private static final ThreadLocal<MatchScratch> SCRATCH = new ThreadLocal<MatchScratch>() {
+        @Override
+        protected MatchScratch initialValue() {
+            return new MatchScratch();
+        }
+    };
+
+    private final String[] apiNames;
+    private final Map<String, int[]> exactPaths;
+    private final TrieNode root;
+    private final PredicateEntry[] predicates;
+
+    private ApiPathMatcherIndex(String[] apiNames, Map<String, int[]> exactPaths, TrieNode root,
+                                PredicateEntry[] predicates) {
+        this.apiNames = apiNames;
+        this.exactPaths = exactPaths;
+        this.root = root;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Build the index of given API definitions.
+     *
+     * @param definitions          valid API definitions
+     * @param antPredicateFactory  creates the predicate of a prefix (Ant-style) pattern which cannot be
+     *                             resolved by the trie, should be consistent with the API matchers of the adapter
+     * @return the compiled index
+     */
+    public static ApiPathMatcherIndex build(Collection<ApiDefinition> definitions,
+                                            Function<String, Predicate<String>> antPredicateFactory) {
+        if (definitions == null || definitions.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, Integer> ordinals = new LinkedHashMap<>();
+        Map<String, List<Integer>> exactPaths = new HashMap<>();
+        TrieNodeBuilder rootBuilder = new TrieNodeBuilder();
+        List<PredicateEntry> predicates = new ArrayList<>();
+
+        for (ApiDefinition definition : definitions) {
+            if (definition == null || StringUtil.isBlank(definition.getApiName())
+                || definition.getPredicateItems() == null) {
+                continue;
+            }
+            Integer ordinal = ordinals.get(definition.getApiName());
+            if (ordinal == null) {
+                ordinal = ordinals.size();
+                ordinals.put(definition.getApiName(), ordinal);
+            }
+            for (ApiPredicateItem item : definition.getPredicateItems()) {
+                if (!(item instanceof ApiPathPredicateItem)) {
+                    continue;
+                }
+                String pattern = ((ApiPathPredicateItem)item).getPattern();
+                if (StringUtil.isBlank(pattern)) {
+                    continue;
+                }
+                switch (((ApiPathPredicateItem)item).getMatchStrategy()) {
+                    case SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX:
+                        addRegex(rootBuilder, pattern, ordinal, definition.getApiName());
+                        break;
+                    case SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX:
+                        if (isTriePrefixPattern(pattern)) {
+                            rootBuilder.descend(literalSegments(pattern, pattern.length() - 2)).prefixApis.add(ordinal);
+                        } else if (antPredicateFactory != null) {
+                            predicates.add(new PredicateEntry(antPredicateFactory.apply(pattern), ordinal));
+                        }
+                        break;
+                    default:
+                        List<Integer> list = exactPaths.get(pattern);
+                        if (list == null) {
+                            list = new ArrayList<>(1);
+                            exactPaths.put(pattern, list);
+                        }
+                        list.add(ordinal);
+                }
+            }
+        }
+
+        Map<String, int[]> exactMap = new HashMap<>(exactPaths.size());
+        for (Map.Entry<String, List<Integer>> e : exactPaths.entrySet()) {
+            exactMap.put(e.getKey(), toArray(e.getValue()));
+        }
+        return new ApiPathMatcherIndex(ordinals.keySet().toArray(new String[0]), exactMap,
+            rootBuilder.build(), predicates.toArray(new PredicateEntry[0]));
+    }
+
+    /**
+     * Pick names of the APIs matching the request path.
+     *
+     * @param exactPath the path to match exact items, which may differ from the path for other items
+     *                  in some adapters
+     * @param path      the path to match prefix and regex items
+     * @return names of the matching APIs
+     */
+    public Set<String> match(String exactPath, String path) {
+        if (apiNames.length == 0 || path == null) {
+            return Collections.emptySet();
+        }
+        MatchScratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(apiNames.length);
+        try {
+            collect(exactPath, path, scratch);
+            switch (scratch.size) {
+                case 0:
+                    return Collections.emptySet();
+                case 1:
+                    return Collections.singleton(apiNames[scratch.matched[0]]);
+                default:
+                    Set<String> set = new HashSet<>(scratch.size * 2);
+                    for (int i = 0; i < scratch.size; i++) {
+                        set.add(apiNames[scratch.matched[i]]);
+                    }
+                    return set;
+            }
+        } finally {
+            scratch.reset();
+        }
+    }
+
+    /**
+     * Pick names of the APIs matching the request path.
+     *
+     * @param path the request path
+     * @return names of the matching APIs
+     */
+    public Set<String> match(String path) {
+        return match(path, path);
+    }
+
+    public int getApiCount() {
+        return apiNames.length;
+    }
+
+    private void collect(String exactPath, String path, MatchScratch scratch) {
+        if (exactPath != null) {
+            int[] exact = exactPaths.get(exactPath);
+            if (exact != null) {
+                scratch.addAll(exact);
+            }
+        }
+
+        TrieNode node = root;
+        node.testRegexes(path, scratch);
+        if (path.startsWith(PATH_SEPARATOR)) {
+            scratch.addAll(node.prefixApis);
+            int length = path.length();
+            int start = 0;
+            while (node != null) {
+                // Skip empty segments as AntPathMatcher does.
+                while (start < length && path.charAt(start) == '/') {
+                    start++;
+                }
+                if (start >= length) {
+                    break;
+                }
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = length;
+                }
+                node = node.child(path, start, end);
+                if (node != null) {
+                    scratch.addAll(node.prefixApis);
+                    node.testRegexes(path, scratch);
+                }
+                start = end;
+            }
+        }
+
+        for (PredicateEntry entry : predicates) {
+            if (!scratch.contains(entry.ordinal) && entry.predicate.test(path)) {
+                scratch.add(entry.ordinal);
+            }
+        }
+    }
+
+    /**
+     * Test whether the pattern is like {@code /literal/segments/**}, which matches the literal segments
+     * and anything under them.
+     */
+    static boolean isTriePrefixPattern(String pattern) {
+        if (!pattern.startsWith(PATH_SEPARATOR) || !pattern.endsWith(MATCH_ALL_SUFFIX)) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length() - MATCH_ALL_SUFFIX.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addRegex(TrieNodeBuilder rootBuilder, String pattern, int ordinal, String apiName) {
+        Pattern regex;
+        try {
+            regex = Pattern.compile(pattern);
+        } catch (Exception ex) {
+            RecordLog.warn("[ApiPathMatcherIndex] Invalid regex pattern of API <{}>: {}", apiName, pattern);
+            return;
+        }
+        String literal = literalPrefixOf(pattern);
+        // Only the segments completed by a separator are certain.
+        int end = literal.lastIndexOf('/');
+        List<String> segments = literal.startsWith(PATH_SEPARATOR) && end > 0
+            ? literalSegments(literal, end) : Collections.<String>emptyList();
+        rootBuilder.descend(segments).regexes.add(new RegexEntry(regex, ordinal));
+    }
+
+    /**
+     * Get the leading literal characters of the regex which every matching path must start with.
+     * The prefix is empty if the regex contains alternations, as the literal prefix of the first
+     * alternative does not apply to the others.
+     */
+    static String literalPrefixOf(String regex) {
+        if (regex.indexOf('|') >= 0) {
+            return "";
+        }
+        int i = 0;
+        while (i < regex.length() && REGEX_META_CHARS.indexOf(regex.charAt(i)) < 0) {
+            i++;
+        }
+        // The last literal character is optional or repeated if followed by a quantifier.
+        if (i < regex.length() && i > 0 && REGEX_QUANTIFIERS.indexOf(regex.charAt(i)) >= 0) {
+            i--;
+        }
+        return regex.substring(0, i);
+    }
+
+    private static List<String> literalSegments(String path, int end) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.substring(0, end).split(PATH_SEPARATOR)) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class TrieNode {
+
+        private static final int[] NO_APIS = new int[0];
+        private static final RegexEntry[] NO_REGEXES = new RegexEntry[0];
+
+        /**
+         * Open-addressing table of the children, so that a child can be looked up by a region of
+         * the path without creating a substring.
+         */
+        private String[] childKeys = new String[0];
+        private TrieNode[] children = new TrieNode[0];
+        private int[] prefixApis = NO_APIS;
+        private RegexEntry[] regexes = NO_REGEXES;
+
+        TrieNode child(String path, int start, int end) {
+            if (childKeys.length == 0) {
+                return null;
+            }
+            int len = end - start;
+            int mask = childKeys.length - 1;
+            int i = hash(path, start, end) & mask;
+            String key;
+            while ((key = childKeys[i]) != null) {
+                if (key.length() == len && path.regionMatches(start, key, 0, len)) {
+                    return children[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        void testRegexes(String path, MatchScratch scratch) {
+            for (RegexEntry entry : regexes) {
+                if (!scratch.contains(entry.ordinal) && entry.regex.matcher(path).matches()) {
+                    scratch.add(entry.ordinal);
+                }
+            }
+        }
+    }
+
+    private static final class TrieNodeBuilder {
+        private final Map<String, TrieNodeBuilder> children = new HashMap<>();
+        private final List<Integer> prefixApis = new ArrayList<>();
+        private final List<RegexEntry> regexes = new ArrayList<>();
+
+        TrieNodeBuilder descend(List<String> segments) {
+            TrieNodeBuilder builder = this;
+            for (String segment : segments) {
+                TrieNodeBuilder child = builder.children.get(segment);
+                if (child == null) {
+                    child = new TrieNodeBuilder();
+                    builder.children.put(segment, child);
+                }
+                builder = child;
+            }
+            return builder;
+        }
+
+        TrieNode build() {
+            TrieNode node = new TrieNode();
+            if (!prefixApis.isEmpty()) {
+                node.prefixApis = toArray(prefixApis);
+            }
+            if (!regexes.isEmpty()) {
+                node.regexes = regexes.toArray(new RegexEntry[0]);
+            }
+            if (!children.isEmpty()) {
+                // Keep the load factor under 0.5.
+                int capacity = 2;
+                while (capacity < children.size() * 2) {
+                    capacity <<= 1;
+                }
+                node.childKeys = new String[capacity];
+                node.children = new TrieNode[capacity];
+                for (Map.Entry<String, TrieNodeBuilder> e : children.entrySet()) {
+                    String key = e.getKey();
+                    int i = hash(key, 0, key.length()) & (capacity - 1);
+                    while (node.childKeys[i] != null) {
+                        i = (i + 1) & (capacity - 1);
+                    }
+                    node.childKeys[i] = key;
+                    node.children[i] = e.getValue().build();
+                }
+            }
+            return node;
+        }
+    }
+
+    private static final class RegexEntry {
+        private final Pattern regex;
+        private final int ordinal;
+
+        RegexEntry(Pattern regex, int ordinal) {
+            this.regex = regex;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final class PredicateEntry {
+        private final Predicate<String> predicate;
+        private final int ordinal;
+
+        PredicateEntry(Predicate<String> predicate, int ordinal) {
+            this.predicate = predicate;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /**
+     * Per-thread scratch of the matching API ordinals, de-duplicated by a bitmap.
+     */
+    private static final class MatchScratch {
+        private long[] bits = new long[1];
+        private int[] matched = new int[8];
+        private int size;
+
+        void ensureCapacity(int apiCount) {
+            int words = (apiCount + 63) >>> 6;
+            if (bits.length < words) {
+                bits = new long[words];
+            }
+        }
+
+        boolean contains(int ordinal) {
+            return (bits[ordinal >>> 6] & (1L << ordinal)) != 0;
+        }
+
+        void add(int ordinal) {
+            bits[ordinal >>> 6] |= 1L << ordinal;
+            if (size == matched.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(matched, 0, grown, 0, size);
+                matched = grown;
+            }
+            matched[size++] = ordinal;
+        }
+
+        void addAll(int[] ordinals) {
+            for (int ordinal : ordinals) {
+                if (!contains(ordinal)) {
+                    add(ordinal);
+                }
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < size; i++) {
+                bits[matched[i] >>> 6] = 0;
+            }
+            size = 0;
+        }
+    }
+}
@@ -15,12 +15,11 @@
  */
 package com.alibaba.csp.sentinel.adapter.gateway.common.param;
 
-import java.util.HashSet;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
 import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayFlowRule;
+import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayParamExtractionPlan;
 import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayParamFlowItem;
 import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayRuleManager;
 import com.alibaba.csp.sentinel.util.AssertUtil;
@@ -33,6 +32,8 @@ import com.alibaba.csp.sentinel.util.function.Predicate;
  */
 public class GatewayParamParser<T> {
 
+    private static final Object[] EMPTY_PARAMS = new Object[0];
+
     private final RequestItemParser<T> requestItemParser;
 
     public GatewayParamParser(RequestItemParser<T> requestItemParser) {
@@ -49,108 +50,87 @@ public class GatewayParamParser<T> {
      * @return the parameter array
      */
     public Object[] parseParameterFor(String resource, T request, Predicate<GatewayFlowRule> rulePredicate) {
+        return parseParameterFor(resource, request, rulePredicate, null);
+    }
+
+    /**
+     * Parse parameters for given resource from the request entity on condition of the rule predicate.
+     * Request fields are cached in the given cache, so that they could be shared with other resources
+     * (e.g. the route and matching APIs) of the same request.
+     *
+     * @param resource      valid resource name
+     * @param request       valid request
+     * @param rulePredicate rule predicate indicating the rules to refer
+     * @param fieldCache    cache of the parsed request fields of this request, or null to parse without caching
+     * @return the parameter array
+     * @since 1.8.9
+     */
+    public Object[] parseParameterFor(String resource, T request, Predicate<GatewayFlowRule> rulePredicate,
+                                      RequestFieldCache fieldCache) {
         if (StringUtil.isEmpty(resource) || request == null || rulePredicate == null) {
-            return new Object[0];
+            return EMPTY_PARAMS;
         }
-        Set<GatewayFlowRule> gatewayRules = new HashSet<>();
-        Set<Boolean> predSet = new HashSet<>();
-        boolean hasNonParamRule = false;
-        for (GatewayFlowRule rule : GatewayRuleManager.getRulesForResource(resource)) {
-            if (rule.getParamItem() != null) {
-                gatewayRules.add(rule);
-                predSet.add(rulePredicate.test(rule));
-            } else {
-                hasNonParamRule = true;
-            }
+        GatewayParamExtractionPlan plan = GatewayRuleManager.getParamExtractionPlan(resource);
+        if (plan == null) {
+            return EMPTY_PARAMS;
         }
-        if (!hasNonParamRule && gatewayRules.isEmpty()) {
-            return new Object[0];
+        GatewayFlowRule[] paramRules = plan.getParamRules();
+        for (GatewayFlowRule rule : paramRules) {
+            if (!rulePredicate.test(rule)) {
+                return EMPTY_PARAMS;
+            }
         }
-        if (predSet.size() > 1 || predSet.contains(false)) {
-            return new Object[0];
+        Object[] arr = new Object[plan.getParamCount()];
+        if (fieldCache != null && paramRules.length > 0) {
+            fieldCache.prepare(plan);
         }
-        int size = hasNonParamRule ? gatewayRules.size() + 1 : gatewayRules.size();
-        Object[] arr = new Object[size];
-        for (GatewayFlowRule rule : gatewayRules) {
-            GatewayParamFlowItem paramItem = rule.getParamItem();
-            int idx = paramItem.getIndex();
-            String param = parseInternal(paramItem, request);
-            arr[idx] = param;
+        for (int i = 0; i < paramRules.length; i++) {
+            GatewayParamFlowItem paramItem = paramRules[i].getParamItem();
+            String value;
+            if (fieldCache == null) {
+                value = parseField(paramItem, request);
+            } else {
+                int slot = plan.getFieldSlot(i);
+                if (fieldCache.isParsed(slot)) {
+                    value = fieldCache.get(slot);
+                } else {
+                    value = parseField(paramItem, request);
+                    fieldCache.put(slot, value);
+                }
+            }
+            arr[paramItem.getIndex()] = matchValue(paramItem, value);
         }
-        if (hasNonParamRule) {
-            arr[size - 1] = SentinelGatewayConstants.GATEWAY_DEFAULT_PARAM;
+        if (plan.hasNonParamRule()) {
+            arr[arr.length - 1] = SentinelGatewayConstants.GATEWAY_DEFAULT_PARAM;
         }
         return arr;
     }
 
-    private String parseInternal(GatewayParamFlowItem item, T request) {
+    private String parseField(/*@Valid*/ GatewayParamFlowItem item, T request) {
         switch (item.getParseStrategy()) {
             case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_CLIENT_IP:
-                return parseClientIp(item, request);
+                return requestItemParser.getRemoteAddress(request);
             case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_HOST:
-                return parseHost(item, request);
+                return requestItemParser.getHeader(request, "Host");
             case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_HEADER:
-                return parseHeader(item, request);
+                // TODO: what if the header has multiple values?
+                return requestItemParser.getHeader(request, item.getFieldName());
             case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_URL_PARAM:
-                return parseUrlParameter(item, request);
+                return requestItemParser.getUrlParam(request, item.getFieldName());
             case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_COOKIE:
-                return parseCookie(item, request);
+                return requestItemParser.getCookieValue(request, item.getFieldName());
             default:
                 return null;
         }
     }
 
-    private String parseClientIp(/*@Valid*/ GatewayParamFlowItem item, T request) {
-        String clientIp = requestItemParser.getRemoteAddress(request);
-        String pattern = item.getPattern();
-        if (StringUtil.isEmpty(pattern)) {
-            return clientIp;
-        }
-        return parseWithMatchStrategyInternal(item.getMatchStrategy(), clientIp, pattern);
-    }
-
-    private String parseHeader(/*@Valid*/ GatewayParamFlowItem item, T request) {
-        String headerKey = item.getFieldName();
-        String pattern = item.getPattern();
-        // TODO: what if the header has multiple values?
-        String headerValue = requestItemParser.getHeader(request, headerKey);
-        if (StringUtil.isEmpty(pattern)) {
-            return headerValue;
-        }
-        // Match value according to regex pattern or exact mode.
-        return parseWithMatchStrategyInternal(item.getMatchStrategy(), headerValue, pattern);
-    }
-
-    private String parseHost(/*@Valid*/ GatewayParamFlowItem item, T request) {
-        String pattern = item.getPattern();
-        String host = requestItemParser.getHeader(request, "Host");
-        if (StringUtil.isEmpty(pattern)) {
-            return host;
-        }
-        // Match value according to regex pattern or exact mode.
-        return parseWithMatchStrategyInternal(item.getMatchStrategy(), host, pattern);
-    }
-
-    private String parseUrlParameter(/*@Valid*/ GatewayParamFlowItem item, T request) {
-        String paramName = item.getFieldName();
-        String pattern = item.getPattern();
-        String param = requestItemParser.getUrlParam(request, paramName);
-        if (StringUtil.isEmpty(pattern)) {
-            return param;
-        }
-        // Match value according to regex pattern or exact mode.
-        return parseWithMatchStrategyInternal(item.getMatchStrategy(), param, pattern);
-    }
-
-    private String parseCookie(/*@Valid*/ GatewayParamFlowItem item, T request) {
-        String cookieName = item.getFieldName();
+    private String matchValue(/*@Valid*/ GatewayParamFlowItem item, String value) {
         String pattern = item.getPattern();
-        String param = requestItemParser.getCookieValue(request, cookieName);
         if (StringUtil.isEmpty(pattern)) {
-            return param;
+            return value;
         }
         // Match value according to regex pattern or exact mode.
-        return parseWithMatchStrategyInternal(item.getMatchStrategy(), param, pattern);
+        return parseWithMatchStrategyInternal(item.getMatchStrategy(), value, pattern);
     }
 
     private String parseWithMatchStrategyInternal(int matchStrategy, String value, String pattern) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.gateway.common.param;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.rule.GatewayParamExtractionPlan;
+
+/**
+ * <p>Cache of the request fields parsed by {@link GatewayParamParser} during a single request,
+ * so that each field (e.g. a header or URL parameter) is parsed at most once for the route
+ * and all the matching APIs.</p>
+ *
+ * <p>A cache should be created per request and must not be shared among requests or threads.
+ * The slots are allocated lazily when the first parameter rule is met.</p>
+ *
+ * @since 1.8.9
+ */
+public final class RequestFieldCache {
+
+    private int generation = -1;
+    private String[] values;
+    private boolean[] parsed;
+
+    /**
+     * Prepare the slots for the plan. Cached values are dropped if rules have been reloaded during the request,
+     * as the slots are not compatible between generations.
+     */
+    void prepare(GatewayParamExtractionPlan plan) {
+        if (generation == plan.getGeneration() && values != null) {
+            return;
+        }
+        generation = plan.getGeneration();
+        values = new String[plan.getFieldCount()];
+        parsed = new boolean[plan.getFieldCount()];
+    }
+
+    boolean isParsed(int slot) {
+        return parsed[slot];
+    }
+
+    String get(int slot) {
+        return values[slot];
+    }
+
+    void put(int slot, String value) {
+        values[slot] = value;
+        parsed[slot] = true;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.gateway.common.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
+
+/**
+ * <p>Precompiled plan of extracting gateway parameters for a resource, which is built by
+ * {@link GatewayRuleManager} when rules are loaded.</p>
+ *
+ * <p>Parameter rules are sorted by their parameter index, and each of them refers to a slot of the request
+ * field (e.g. a header or URL parameter) it needs. Slots are shared by all resources of the same rule
+ * generation, so that a request field could be parsed once per request for the route and all the
+ * matching APIs.</p>
+ *
+ * @since 1.8.9
+ */
+public final class GatewayParamExtractionPlan {
+
+    private final GatewayFlowRule[] paramRules;
+    private final int[] fieldSlots;
+    private final boolean hasNonParamRule;
+    private final int paramCount;
+    private final int generation;
+    private final int fieldCount;
+
+    private GatewayParamExtractionPlan(GatewayFlowRule[] paramRules, int[] fieldSlots, boolean hasNonParamRule,
+                                       int generation, int fieldCount) {
+        this.paramRules = paramRules;
+        this.fieldSlots = fieldSlots;
+        this.hasNonParamRule = hasNonParamRule;
+        this.paramCount = hasNonParamRule ? paramRules.length + 1 : paramRules.length;
+        this.generation = generation;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Build the plan of a resource.
+     *
+     * @param rules      valid rules of the resource, of which parameter indexes have been applied
+     * @param slotMap    map of the request field key to the slot, new fields will be put into it
+     * @param generation generation of the rules
+     * @return the plan
+     */
+    static GatewayParamExtractionPlan build(Collection<GatewayFlowRule> rules, Map<String, Integer> slotMap,
+                                            int generation) {
+        List<GatewayFlowRule> paramRules = new ArrayList<>();
+        boolean hasNonParamRule = false;
+        for (GatewayFlowRule rule : rules) {
+            if (rule.getParamItem() != null) {
+                paramRules.add(rule);
+            } else {
+                hasNonParamRule = true;
+            }
+        }
+        Collections.sort(paramRules, new Comparator<GatewayFlowRule>() {
+            @Override
+            public int compare(GatewayFlowRule o1, GatewayFlowRule o2) {
+                return Integer.compare(o1.getParamItem().getIndex(), o2.getParamItem().getIndex());
+            }
+        });
+        int[] fieldSlots = new int[paramRules.size()];
+        for (int i = 0; i < fieldSlots.length; i++) {
+            String key = fieldKeyOf(paramRules.get(i).getParamItem());
+            Integer slot = slotMap.get(key);
+            if (slot == null) {
+                slot = slotMap.size();
+                slotMap.put(key, slot);
+            }
+            fieldSlots[i] = slot;
+        }
+        return new GatewayParamExtractionPlan(paramRules.toArray(new GatewayFlowRule[0]), fieldSlots,
+            hasNonParamRule, generation, 0);
+    }
+
+    /**
+     * Get the plan with the final amount of field slots of the generation.
+     */
+    GatewayParamExtractionPlan withFieldCount(int fieldCount) {
+        return new GatewayParamExtractionPlan(paramRules, fieldSlots, hasNonParamRule, generation, fieldCount);
+    }
+
+    static String fieldKeyOf(/*@Valid*/ GatewayParamFlowItem item) {
+        switch (item.getParseStrategy()) {
+            case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_CLIENT_IP:
+                return "ip";
+            case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_HOST:
+                // Host is read from the header.
+                return "header:Host";
+            case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_HEADER:
+                return "header:" + item.getFieldName();
+            case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_URL_PARAM:
+                return "param:" + item.getFieldName();
+            case SentinelGatewayConstants.PARAM_PARSE_STRATEGY_COOKIE:
+                return "cookie:" + item.getFieldName();
+            default:
+                return "unknown:" + item.getParseStrategy();
+        }
+    }
+
+    /**
+     * @return the parameter rules sorted by parameter index, callers SHOULD NOT modify the array
+     */
+    public GatewayFlowRule[] getParamRules() {
+        return paramRules;
+    }
+
+    /**
+     * @param i position of the parameter rule in {@link #getParamRules()}
+     * @return slot of the request field needed by the parameter rule
+     */
+    public int getFieldSlot(int i) {
+        return fieldSlots[i];
+    }
+
+    public boolean hasNonParamRule() {
+        return hasNonParamRule;
+    }
+
+    /**
+     * @return length of the parameter array
+     */
+    public int getParamCount() {
+        return paramCount;
+    }
+
+    /**
+     * @return generation of the rules, which changes every time rules are loaded
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return amount of distinct request fields needed by all resources of the generation
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+}
@@ -45,6 +45,12 @@ public final class GatewayRuleManager {
 
     private static final Map<String, List<ParamFlowRule>> CONVERTED_PARAM_RULE_MAP = new ConcurrentHashMap<>();
 
+    /**
+     * Parameter extraction plan map: (resource, plan)
+     */
+    private static volatile Map<String, GatewayParamExtractionPlan> paramPlanMap = new HashMap<>();
+    private static int planGeneration = 0;
+
     private static final GatewayRulePropertyListener LISTENER = new GatewayRulePropertyListener();
     private static final Set<Integer> FIELD_REQUIRED_SET = new HashSet<>(
             Arrays.asList(SentinelGatewayConstants.PARAM_PARSE_STRATEGY_URL_PARAM,
@@ -100,6 +106,20 @@ public final class GatewayRuleManager {
         return new HashSet<>(set);
     }
 
+    /**
+     * Get the precompiled parameter extraction plan of the resource.
+     *
+     * @param resourceName valid resource name
+     * @return the plan, or null if the resource has no gateway rules
+     * @since 1.8.9
+     */
+    public static GatewayParamExtractionPlan getParamExtractionPlan(String resourceName) {
+        if (resourceName == null) {
+            return null;
+        }
+        return paramPlanMap.get(resourceName);
+    }
+
     /**
      * <p>Get all converted parameter rules.</p>
      * <p>Note: caller SHOULD NOT modify the list and rules.</p>
@@ -180,6 +200,7 @@ public final class GatewayRuleManager {
             if (conf == null || conf.isEmpty()) {
                 applyToConvertedParamMap(new HashSet<ParamFlowRule>());
                 GATEWAY_RULE_MAP.clear();
+                applyToParamPlanMap(GATEWAY_RULE_MAP);
                 return;
             }
             Map<String, Set<GatewayFlowRule>> gatewayRuleMap = new ConcurrentHashMap<>();
@@ -234,6 +255,21 @@ public final class GatewayRuleManager {
 
             GATEWAY_RULE_MAP.clear();
             GATEWAY_RULE_MAP.putAll(gatewayRuleMap);
+            applyToParamPlanMap(gatewayRuleMap);
+        }
+
+        private void applyToParamPlanMap(Map<String, Set<GatewayFlowRule>> gatewayRuleMap) {
+            int generation = ++planGeneration;
+            Map<String, Integer> slotMap = new HashMap<>();
+            Map<String, GatewayParamExtractionPlan> planMap = new HashMap<>();
+            for (Map.Entry<String, Set<GatewayFlowRule>> e : gatewayRuleMap.entrySet()) {
+                planMap.put(e.getKey(), GatewayParamExtractionPlan.build(e.getValue(), slotMap, generation));
+            }
+            // Field slots are shared by all resources, so the amount is known after all plans are built.
+            for (Map.Entry<String, GatewayParamExtractionPlan> e : planMap.entrySet()) {
+                e.setValue(e.getValue().withFieldCount(slotMap.size()));
+            }
+            paramPlanMap = planMap;
         }
 
         private void applyToConvertedParamMap(Set<ParamFlowRule> paramFlowRules) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPathPredicateItem;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPredicateItem;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ApiPathMatcherIndexTest {
+
+    /**
+     * A naive matcher of the patterns ending with "*" for the test, as the module does not depend on
+     * AntPathMatcher.
+     */
+    private static final Function<String, Predicate<String>> WILDCARD_FACTORY
+        = new Function<String, Predicate<String>>() {
+            @Override
+            public Predicate<String> apply(final String pattern) {
+                return new Predicate<String>() {
+                    @Override
+                    public boolean test(String path) {
+                        return pattern.endsWith("*")
+                            && path.startsWith(pattern.substring(0, pattern.indexOf('*')));
+                    }
+                };
+            }
+        };
+
+    @Test
+    public void testMatch() {
+        List<ApiDefinition> definitions = Arrays.asList(
+            api("exact", item("/product/list", SentinelGatewayConstants.URL_MATCH_STRATEGY_EXACT)),
+            api("prefix", item("/product/**", SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX)),
+            api("deepPrefix", item("/product/detail/**", SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX),
+                item("/product/detail", SentinelGatewayConstants.URL_MATCH_STRATEGY_EXACT)),
+            api("all", item("/**", SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX)),
+            api("wildcard", item("/order/*", SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX)),
+            api("noWildcard", item("/order/list", SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX)),
+            api("regex", item("/user/\\d+/profile", SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX)),
+            api("rootRegex", item(".*/admin", SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX)),
+            api("invalidRegex", item("/user/[", SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX))
+        );
+        ApiPathMatcherIndex index = ApiPathMatcherIndex.build(definitions, WILDCARD_FACTORY);
+        assertThat(index.getApiCount()).isEqualTo(9);
+
+        assertThat(index.match("/product/list")).containsOnly("exact", "prefix", "all");
+        assertThat(index.match("/product")).containsOnly("prefix", "all");
+        assertThat(index.match("//product//detail/3")).containsOnly("prefix", "deepPrefix", "all");
+        assertThat(index.match("/product/detail")).containsOnly("prefix", "deepPrefix", "all");
+        assertThat(index.match("/products")).containsOnly("all");
+        assertThat(index.match("/order/list")).containsOnly("wildcard", "all");
+        assertThat(index.match("/user/42/profile")).containsOnly("regex", "all");
+        assertThat(index.match("/user/abc/profile")).containsOnly("all");
+        assertThat(index.match("/user/42/admin")).containsOnly("rootRegex", "all");
+        assertThat(index.match("product")).isEmpty();
+
+        // Exact items match the exact path only.
+        assertThat(index.match("/product/list", "/ctx/product/list")).containsOnly("exact", "all");
+        assertThat(index.match("/list", "/product/list")).containsOnly("prefix", "all");
+    }
+
+    @Test
+    public void testLiteralPrefixOf() {
+        assertThat(ApiPathMatcherIndex.literalPrefixOf("/user/\\d+")).isEqualTo("/user/");
+        assertThat(ApiPathMatcherIndex.literalPrefixOf("/users?/list")).isEqualTo("/user");
+        assertThat(ApiPathMatcherIndex.literalPrefixOf("/a/b.*")).isEqualTo("/a/b");
+        assertThat(ApiPathMatcherIndex.literalPrefixOf("^/a")).isEmpty();
+        assertThat(ApiPathMatcherIndex.literalPrefixOf("/foo/bar|/baz/.*")).isEmpty();
+
+        assertThat(ApiPathMatcherIndex.isTriePrefixPattern("/a/b/**")).isTrue();
+        assertThat(ApiPathMatcherIndex.isTriePrefixPattern("/a/*/b/**")).isFalse();
+        assertThat(ApiPathMatcherIndex.isTriePrefixPattern("/a/{id}/**")).isFalse();
+        assertThat(ApiPathMatcherIndex.isTriePrefixPattern("/a/b")).isFalse();
+    }
+
+    @Test
+    public void testRegexWithAlternationsConsistentWithPattern() {
+        String[] patterns = {"/foo/bar|/baz/.*", "/a/b/c|/a/d", "/x/(y|z)/\\d+", "/p/q/.*|.*/admin"};
+        String[] paths = {"/foo/bar", "/foo/bar/1", "/baz/x", "/baz", "/a/b/c", "/a/d", "/a/b", "/x/y/12",
+            "/x/z/3", "/x/w/3", "/p/q/r", "/user/admin", "/admin"};
+        for (int i = 0; i < patterns.length; i++) {
+            ApiPathMatcherIndex index = ApiPathMatcherIndex.build(Arrays.asList(
+                api("regex", item(patterns[i], SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX))), WILDCARD_FACTORY);
+            for (String path : paths) {
+                assertThat(index.match(path).contains("regex"))
+                    .as("pattern: %s, path: %s", patterns[i], path)
+                    .isEqualTo(Pattern.matches(patterns[i], path));
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(ApiPathMatcherIndex.build(null, WILDCARD_FACTORY).match("/a")).isEmpty();
+        assertThat(ApiPathMatcherIndex.EMPTY.match("/a")).isEmpty();
+    }
+
+    private static ApiDefinition api(String name, ApiPredicateItem... items) {
+        return new ApiDefinition(name).setPredicateItems(new HashSet<>(Arrays.asList(items)));
+    }
+
+    private static ApiPathPredicateItem item(String pattern, int strategy) {
+        return new ApiPathPredicateItem().setPattern(pattern).setMatchStrategy(strategy);
+    }
+}
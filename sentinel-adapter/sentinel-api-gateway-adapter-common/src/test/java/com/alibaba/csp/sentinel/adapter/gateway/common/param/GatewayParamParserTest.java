@@ -36,6 +36,8 @@ import org.junit.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -305,6 +307,54 @@ public class GatewayParamParserTest {
             .isEqualTo(SentinelGatewayConstants.GATEWAY_NOT_MATCH_PARAM);
     }
 
+    @Test
+    public void testParseParametersWithSharedFieldCache() {
+        RequestItemParser<Object> itemParser = mock(RequestItemParser.class);
+        GatewayParamParser<Object> paramParser = new GatewayParamParser<>(itemParser);
+        Object request = new Object();
+
+        final String routeId = "my_test_route_cache";
+        final String api = "my_test_api_cache";
+        final String paramName = "p";
+        Set<GatewayFlowRule> rules = new HashSet<>();
+        GatewayFlowRule routeRule = new GatewayFlowRule(routeId)
+            .setCount(10)
+            .setParamItem(new GatewayParamFlowItem()
+                .setParseStrategy(SentinelGatewayConstants.PARAM_PARSE_STRATEGY_URL_PARAM)
+                .setFieldName(paramName)
+            );
+        GatewayFlowRule apiRule = new GatewayFlowRule(api)
+            .setResourceMode(SentinelGatewayConstants.RESOURCE_MODE_CUSTOM_API_NAME)
+            .setCount(5)
+            .setParamItem(new GatewayParamFlowItem()
+                .setParseStrategy(SentinelGatewayConstants.PARAM_PARSE_STRATEGY_URL_PARAM)
+                .setFieldName(paramName)
+                .setPattern("\\d+")
+                .setMatchStrategy(SentinelGatewayConstants.PARAM_MATCH_STRATEGY_REGEX)
+            );
+        rules.add(routeRule);
+        rules.add(apiRule);
+        rules.add(new GatewayFlowRule(api)
+            .setResourceMode(SentinelGatewayConstants.RESOURCE_MODE_CUSTOM_API_NAME)
+            .setCount(100));
+        GatewayRuleManager.loadRules(rules);
+
+        mockSingleUrlParam(itemParser, paramName, "23");
+        RequestFieldCache fieldCache = new RequestFieldCache();
+        Object[] params = paramParser.parseParameterFor(routeId, request, routeIdPredicate, fieldCache);
+        assertThat(params).containsExactly("23");
+        params = paramParser.parseParameterFor(api, request, apiNamePredicate, fieldCache);
+        assertThat(params.length).isEqualTo(2);
+        assertThat(params[apiRule.getParamItem().getIndex()]).isEqualTo("23");
+        assertThat(params[1]).isEqualTo(SentinelGatewayConstants.GATEWAY_DEFAULT_PARAM);
+        // The field should be parsed only once for the request.
+        verify(itemParser, times(1)).getUrlParam(any(), eq(paramName));
+
+        // Rules of other resource modes are not referred.
+        assertThat(paramParser.parseParameterFor(api, request, routeIdPredicate, fieldCache)).isEmpty();
+        assertThat(paramParser.parseParameterFor("absent", request, routeIdPredicate, fieldCache)).isEmpty();
+    }
+
     private void mockClientHostAddress(/*@Mock*/ RequestItemParser parser, String address) {
         when(parser.getRemoteAddress(any())).thenReturn(address);
     }
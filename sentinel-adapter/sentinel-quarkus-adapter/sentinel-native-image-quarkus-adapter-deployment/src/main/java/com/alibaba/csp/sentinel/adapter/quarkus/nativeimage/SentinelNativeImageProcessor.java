@@ -21,11 +21,18 @@ import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.annotations.ExecutionTime;
 import io.quarkus.deployment.annotations.Record;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
+import io.quarkus.deployment.builditem.nativeimage.NativeImageResourceBuildItem;
 import io.quarkus.deployment.builditem.nativeimage.ReflectiveClassBuildItem;
 import io.quarkus.deployment.builditem.nativeimage.RuntimeInitializedClassBuildItem;
 import io.quarkus.deployment.pkg.steps.NativeBuild;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
 
 /**
@@ -35,6 +42,9 @@ class SentinelNativeImageProcessor {
 
     private static final String FEATURE_NATIVE_IMAGE = "sentinel-native-image";
 
+    private static final String SPI_INDEX_FILE = "META-INF/sentinel/spi.index";
+    private static final String SPI_INDEX_FACTORY_PREFIX = "@factory=";
+
     @BuildStep
     void feature(BuildProducer<FeatureBuildItem> featureProducer) {
         featureProducer.produce(new FeatureBuildItem(FEATURE_NATIVE_IMAGE));
@@ -65,6 +75,30 @@ class SentinelNativeImageProcessor {
                 DefaultSlotChainBuilder.class.getName());
     }
 
+    /**
+     * Include the static SPI index and register the generated factories, so that the indexed SPI providers
+     * are created without reflection in the native image.
+     */
+    @BuildStep(onlyIf = NativeBuild.class)
+    void registerSpiIndex(BuildProducer<NativeImageResourceBuildItem> resourceProducer,
+                          BuildProducer<ReflectiveClassBuildItem> reflectiveClassProducer) throws IOException {
+        resourceProducer.produce(new NativeImageResourceBuildItem(SPI_INDEX_FILE));
+        Enumeration<URL> urls = Thread.currentThread().getContextClassLoader().getResources(SPI_INDEX_FILE);
+        while (urls.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(urls.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.startsWith(SPI_INDEX_FACTORY_PREFIX)) {
+                        String factory = line.substring(SPI_INDEX_FACTORY_PREFIX.length()).trim();
+                        reflectiveClassProducer.produce(new ReflectiveClassBuildItem(true, false, factory));
+                    }
+                }
+            }
+        }
+    }
+
     @BuildStep(onlyIf = NativeBuild.class)
     @Record(ExecutionTime.STATIC_INIT)
     void record(SentinelRecorder recorder) {
@@ -203,11 +203,22 @@ abstract class InheritableBaseSubscriber<T> implements CoreSubscriber<T>, Subscr
         if (Operators.validate(n)) {
             Subscription s = this.subscription;
             if (s != null) {
-                s.request(n);
+                requestUpstream(s, n);
             }
         }
     }
 
+    /**
+     * Hook for passing the request of downstream to the upstream subscription.
+     * Sub-classes may override this method to defer the request.
+     *
+     * @param s the upstream subscription
+     * @param n the requested amount
+     */
+    protected void requestUpstream(Subscription s, long n) {
+        s.request(n);
+    }
+
     /**
      * {@link #request(long) Request} an unbounded amount.
      */
@@ -16,7 +16,9 @@
 package com.alibaba.csp.sentinel.adapter.reactor;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import com.alibaba.csp.sentinel.AsyncEntry;
 import com.alibaba.csp.sentinel.SphU;
@@ -28,6 +30,9 @@ import com.alibaba.csp.sentinel.util.function.Supplier;
 
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.context.Context;
 
 /**
@@ -44,6 +49,16 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
     private volatile AsyncEntry currentEntry;
     private final AtomicBoolean entryExited = new AtomicBoolean(false);
 
+    /**
+     * Whether the admission delay of the entry (e.g. queueing in the rate limiter) has elapsed.
+     * Requests to the upstream are held in {@link #pendingRequested} until then.
+     */
+    private volatile boolean delayElapsed = true;
+    private volatile Disposable delayTask;
+    private volatile long pendingRequested;
+    private static final AtomicLongFieldUpdater<SentinelReactorSubscriber> PENDING_REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(SentinelReactorSubscriber.class, "pendingRequested");
+
     public SentinelReactorSubscriber(EntryConfig entryConfig,
                                      CoreSubscriber<? super T> actual,
                                      boolean unary) {
@@ -89,9 +104,17 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             ContextUtil.enter(sentinelContextConfig.getContextName(), sentinelContextConfig.getOrigin());
         }
         try {
-            AsyncEntry entry = SphU.asyncEntry(entryConfig.getResourceName(), entryConfig.getResourceType(),
-                entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs());
+            // Do not block the subscribing thread (usually an event loop) while waiting for admission.
+            AsyncEntry entry = SphU.asyncEntryWithoutBlocking(entryConfig.getResourceName(),
+                entryConfig.getResourceType(), entryConfig.getEntryType(), entryConfig.getAcquireCount(),
+                entryConfig.getArgs());
             this.currentEntry = entry;
+            long delayNanos = entry.getAdmissionDelayNanos();
+            if (delayNanos > 0) {
+                this.delayElapsed = false;
+                this.delayTask = Schedulers.parallel().schedule(this::onDelayElapsed, delayNanos,
+                    TimeUnit.NANOSECONDS);
+            }
             actual.onSubscribe(this);
         } catch (BlockException ex) {
             // Mark as completed (exited) explicitly.
@@ -113,6 +136,32 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             this::entryWhenSubscribed);
     }
 
+    @Override
+    protected void requestUpstream(Subscription s, long n) {
+        if (delayElapsed) {
+            s.request(n);
+            return;
+        }
+        Operators.addCap(PENDING_REQUESTED, this, n);
+        if (delayElapsed) {
+            // The delay has elapsed concurrently, make sure the pending requests are not lost.
+            drainPendingRequested();
+        }
+    }
+
+    private void onDelayElapsed() {
+        this.delayElapsed = true;
+        drainPendingRequested();
+    }
+
+    private void drainPendingRequested() {
+        long n = PENDING_REQUESTED.getAndSet(this, 0);
+        Subscription s = upstream();
+        if (n > 0 && s != null) {
+            s.request(n);
+        }
+    }
+
     @Override
     protected void hookOnNext(T value) {
         if (isDisposed()) {
@@ -155,6 +204,10 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
 
     @Override
     protected void hookOnCancel() {
+        Disposable task = delayTask;
+        if (task != null) {
+            task.dispose();
+        }
         tryCompleteEntry();
     }
 
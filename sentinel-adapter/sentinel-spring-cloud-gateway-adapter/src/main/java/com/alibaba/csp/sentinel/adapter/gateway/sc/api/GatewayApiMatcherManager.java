@@ -16,7 +16,12 @@
 package com.alibaba.csp.sentinel.adapter.gateway.sc.api;
 
 import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher.ApiPathMatcherIndex;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.api.matcher.WebExchangeApiMatcher;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.springframework.util.AntPathMatcher;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +38,14 @@ public final class GatewayApiMatcherManager {
 
     private static volatile Map<String, WebExchangeApiMatcher> API_MATCHER_MAP = new HashMap<>();
 
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final Function<String, Predicate<String>> ANT_PATH_PREDICATE_FACTORY = pattern -> {
+        boolean canMatch = PATH_MATCHER.isPattern(pattern);
+        return path -> canMatch && PATH_MATCHER.match(pattern, path);
+    };
+
+    private static volatile ApiPathMatcherIndex apiMatcherIndex = ApiPathMatcherIndex.EMPTY;
+
     public static Map<String, WebExchangeApiMatcher> getApiMatcherMap() {
         return Collections.unmodifiableMap(API_MATCHER_MAP);
     }
@@ -42,6 +55,16 @@ public final class GatewayApiMatcherManager {
             .map(e -> API_MATCHER_MAP.get(apiName));
     }
 
+    /**
+     * Get the compiled index of path predicates of all API definitions.
+     *
+     * @return the compiled index
+     * @since 1.8.9
+     */
+    public static ApiPathMatcherIndex getApiMatcherIndex() {
+        return apiMatcherIndex;
+    }
+
     public static Set<ApiDefinition> getApiDefinitionSet() {
         return API_MATCHER_MAP.values()
             .stream()
@@ -56,6 +79,7 @@ public final class GatewayApiMatcherManager {
         }
 
         API_MATCHER_MAP = apiMatcherMap;
+        apiMatcherIndex = ApiPathMatcherIndex.build(definitions, ANT_PATH_PREDICATE_FACTORY);
     }
 
     private GatewayApiMatcherManager() {}
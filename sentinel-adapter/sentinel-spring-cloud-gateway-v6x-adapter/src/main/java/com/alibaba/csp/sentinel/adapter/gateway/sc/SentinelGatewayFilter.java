@@ -19,9 +19,9 @@ import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.ResourceTypeConstants;
 import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
 import com.alibaba.csp.sentinel.adapter.gateway.common.param.GatewayParamParser;
+import com.alibaba.csp.sentinel.adapter.gateway.common.param.RequestFieldCache;
 import com.alibaba.csp.sentinel.adapter.gateway.common.param.RequestItemParser;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.api.GatewayApiMatcherManager;
-import com.alibaba.csp.sentinel.adapter.gateway.sc.api.matcher.WebExchangeApiMatcher;
 import com.alibaba.csp.sentinel.adapter.gateway.sc.callback.GatewayCallbackManager;
 import com.alibaba.csp.sentinel.adapter.reactor.ContextConfig;
 import com.alibaba.csp.sentinel.adapter.reactor.EntryConfig;
@@ -38,7 +38,6 @@ import reactor.core.publisher.Mono;
 
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * @author Eric Zhao
@@ -73,10 +72,12 @@ public class SentinelGatewayFilter implements GatewayFilter, GlobalFilter, Order
         Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
 
         Mono<Void> asyncResult = chain.filter(exchange);
+        // Request fields are parsed once and shared by the route and matching APIs.
+        RequestFieldCache fieldCache = new RequestFieldCache();
         if (route != null) {
             String routeId = route.getId();
             Object[] params = paramParser.parseParameterFor(routeId, exchange,
-                r -> r.getResourceMode() == SentinelGatewayConstants.RESOURCE_MODE_ROUTE_ID);
+                r -> r.getResourceMode() == SentinelGatewayConstants.RESOURCE_MODE_ROUTE_ID, fieldCache);
             String origin = Optional.ofNullable(GatewayCallbackManager.getRequestOriginParser())
                 .map(f -> f.apply(exchange))
                 .orElse("");
@@ -89,7 +90,7 @@ public class SentinelGatewayFilter implements GatewayFilter, GlobalFilter, Order
         Set<String> matchingApis = pickMatchingApiDefinitions(exchange);
         for (String apiName : matchingApis) {
             Object[] params = paramParser.parseParameterFor(apiName, exchange,
-                r -> r.getResourceMode() == SentinelGatewayConstants.RESOURCE_MODE_CUSTOM_API_NAME);
+                r -> r.getResourceMode() == SentinelGatewayConstants.RESOURCE_MODE_CUSTOM_API_NAME, fieldCache);
             asyncResult = asyncResult.transform(
                 new SentinelReactorTransformer<>(new EntryConfig(apiName, ResourceTypeConstants.COMMON_API_GATEWAY,
                     EntryType.IN, 1, params))
@@ -104,11 +105,7 @@ public class SentinelGatewayFilter implements GatewayFilter, GlobalFilter, Order
     }
 
     Set<String> pickMatchingApiDefinitions(ServerWebExchange exchange) {
-        return GatewayApiMatcherManager.getApiMatcherMap().values()
-            .stream()
-            .filter(m -> m.test(exchange))
-            .map(WebExchangeApiMatcher::getApiName)
-            .collect(Collectors.toSet());
+        return GatewayApiMatcherManager.getApiMatcherIndex().match(exchange.getRequest().getPath().value());
     }
 
     @Override
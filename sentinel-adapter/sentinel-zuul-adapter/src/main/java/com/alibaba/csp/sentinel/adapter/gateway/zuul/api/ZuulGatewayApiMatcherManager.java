@@ -22,7 +22,12 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher.ApiPathMatcherIndex;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul.api.matcher.RequestContextApiMatcher;
+import com.alibaba.csp.sentinel.util.function.Function;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.springframework.util.AntPathMatcher;
 
 /**
  * @author Eric Zhao
@@ -32,6 +37,23 @@ public final class ZuulGatewayApiMatcherManager {
 
     private static final Map<String, RequestContextApiMatcher> API_MATCHER_MAP = new ConcurrentHashMap<>();
 
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final Function<String, Predicate<String>> ANT_PATH_PREDICATE_FACTORY
+        = new Function<String, Predicate<String>>() {
+            @Override
+            public Predicate<String> apply(final String pattern) {
+                final boolean canMatch = PATH_MATCHER.isPattern(pattern);
+                return new Predicate<String>() {
+                    @Override
+                    public boolean test(String path) {
+                        return canMatch && PATH_MATCHER.match(pattern, path);
+                    }
+                };
+            }
+        };
+
+    private static volatile ApiPathMatcherIndex apiMatcherIndex = ApiPathMatcherIndex.EMPTY;
+
     public static Map<String, RequestContextApiMatcher> getApiMatcherMap() {
         return Collections.unmodifiableMap(API_MATCHER_MAP);
     }
@@ -43,6 +65,16 @@ public final class ZuulGatewayApiMatcherManager {
         return API_MATCHER_MAP.get(apiName);
     }
 
+    /**
+     * Get the compiled index of path predicates of all API definitions.
+     *
+     * @return the compiled index
+     * @since 1.8.9
+     */
+    public static ApiPathMatcherIndex getApiMatcherIndex() {
+        return apiMatcherIndex;
+    }
+
     public static Set<ApiDefinition> getApiDefinitionSet() {
         Set<ApiDefinition> set = new HashSet<>();
         for (RequestContextApiMatcher matcher : API_MATCHER_MAP.values()) {
@@ -54,11 +86,13 @@ public final class ZuulGatewayApiMatcherManager {
     static synchronized void loadApiDefinitions(/*@Valid*/ Set<ApiDefinition> definitions) {
         if (definitions == null || definitions.isEmpty()) {
             API_MATCHER_MAP.clear();
+            apiMatcherIndex = ApiPathMatcherIndex.EMPTY;
             return;
         }
         for (ApiDefinition definition : definitions) {
             addApiDefinition(definition);
         }
+        apiMatcherIndex = ApiPathMatcherIndex.build(getApiDefinitionSet(), ANT_PATH_PREDICATE_FACTORY);
     }
 
     static void addApiDefinition(ApiDefinition definition) {
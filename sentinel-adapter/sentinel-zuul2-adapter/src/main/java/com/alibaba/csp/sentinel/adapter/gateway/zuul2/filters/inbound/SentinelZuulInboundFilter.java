@@ -17,7 +17,6 @@ package com.alibaba.csp.sentinel.adapter.gateway.zuul2.filters.inbound;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
@@ -27,10 +26,10 @@ import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.ResourceTypeConstants;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.adapter.gateway.common.param.GatewayParamParser;
+import com.alibaba.csp.sentinel.adapter.gateway.common.param.RequestFieldCache;
 import com.alibaba.csp.sentinel.adapter.gateway.common.param.RequestItemParser;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul2.HttpRequestMessageItemParser;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul2.api.ZuulGatewayApiMatcherManager;
-import com.alibaba.csp.sentinel.adapter.gateway.zuul2.api.matcher.HttpRequestMessageApiMatcher;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul2.constants.SentinelZuul2Constants;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul2.filters.EntryHolder;
 import com.alibaba.csp.sentinel.adapter.gateway.zuul2.filters.endpoint.SentinelZuulEndpoint;
@@ -131,12 +130,14 @@ public class SentinelZuulInboundFilter extends HttpInboundFilter {
     private Observable<HttpRequestMessage> apply(HttpRequestMessage request) {
         SessionContext context = request.getContext();
         Deque<EntryHolder> holders = new ArrayDeque<>();
+        // Request fields are parsed once and shared by the route and matching APIs.
+        RequestFieldCache fieldCache = new RequestFieldCache();
         String routeId = routeExtractor.apply(request);
         String fallBackRoute = routeId;
         try {
             if (StringUtil.isNotBlank(routeId)) {
                 ContextUtil.enter(GATEWAY_CONTEXT_ROUTE_PREFIX + routeId);
-                doSentinelEntry(routeId, RESOURCE_MODE_ROUTE_ID, request, holders);
+                doSentinelEntry(routeId, RESOURCE_MODE_ROUTE_ID, request, fieldCache, holders);
             }
             Set<String> matchingApis = pickMatchingApiDefinitions(request);
             if (!matchingApis.isEmpty() && ContextUtil.getContext() == null) {
@@ -144,7 +145,7 @@ public class SentinelZuulInboundFilter extends HttpInboundFilter {
             }
             for (String apiName : matchingApis) {
                 fallBackRoute = apiName;
-                doSentinelEntry(apiName, RESOURCE_MODE_CUSTOM_API_NAME, request, holders);
+                doSentinelEntry(apiName, RESOURCE_MODE_CUSTOM_API_NAME, request, fieldCache, holders);
             }
             return Observable.just(request);
         } catch (BlockException t) {
@@ -166,20 +167,16 @@ public class SentinelZuulInboundFilter extends HttpInboundFilter {
         }
     }
 
-    private void doSentinelEntry(String resourceName, final int resType, HttpRequestMessage input, Deque<EntryHolder> holders) throws BlockException {
-        Object[] params = paramParser.parseParameterFor(resourceName, input, r -> r.getResourceMode() == resType);
+    private void doSentinelEntry(String resourceName, final int resType, HttpRequestMessage input,
+                                 RequestFieldCache fieldCache, Deque<EntryHolder> holders) throws BlockException {
+        Object[] params = paramParser.parseParameterFor(resourceName, input, r -> r.getResourceMode() == resType,
+            fieldCache);
         AsyncEntry entry = SphU.asyncEntry(resourceName, ResourceTypeConstants.COMMON_API_GATEWAY, EntryType.IN, params);
         holders.push(new EntryHolder(entry, params));
     }
 
     private Set<String> pickMatchingApiDefinitions(HttpRequestMessage message) {
-        Set<String> apis = new HashSet<>();
-        for (HttpRequestMessageApiMatcher matcher : ZuulGatewayApiMatcherManager.getApiMatcherMap().values()) {
-            if (matcher.test(message)) {
-                apis.add(matcher.getApiName());
-            }
-        }
-        return apis;
+        return ZuulGatewayApiMatcherManager.getApiMatcherIndex().match(message.getPath());
     }
 
     @Override
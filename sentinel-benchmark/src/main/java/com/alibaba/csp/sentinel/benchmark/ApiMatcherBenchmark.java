@@ -0,0 +1,171 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.alibaba.csp.sentinel.adapter.gateway.common.SentinelGatewayConstants;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiDefinition;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPathPredicateItem;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.ApiPredicateItem;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher.AbstractApiMatcher;
+import com.alibaba.csp.sentinel.adapter.gateway.common.api.matcher.ApiPathMatcherIndex;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for picking the matching gateway APIs of a request path with lots of API definitions.
+ * The linear scan of API matchers (as the adapters did) is compared with the {@link ApiPathMatcherIndex}.
+ * Prefix patterns are matched by a simplified predicate in the linear scan, so the real cost of
+ * the scan with {@code AntPathMatcher} is even higher.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ApiMatcherBenchmark {
+
+    @Param({"100", "500", "2000"})
+    private int apiCount;
+
+    private List<StringApiMatcher> matchers;
+    private ApiPathMatcherIndex index;
+    private String[] paths;
+    private int cursor;
+
+    @Setup
+    public void prepare() {
+        List<ApiDefinition> definitions = new ArrayList<>(apiCount);
+        for (int i = 0; i < apiCount; i++) {
+            Set<ApiPredicateItem> items = new HashSet<>();
+            switch (i % 3) {
+                case 0:
+                    items.add(new ApiPathPredicateItem().setPattern("/service" + i + "/api/**")
+                        .setMatchStrategy(SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX));
+                    break;
+                case 1:
+                    items.add(new ApiPathPredicateItem().setPattern("/service" + i + "/item/\\d+")
+                        .setMatchStrategy(SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX));
+                    break;
+                default:
+                    items.add(new ApiPathPredicateItem().setPattern("/service" + i + "/list")
+                        .setMatchStrategy(SentinelGatewayConstants.URL_MATCH_STRATEGY_EXACT));
+            }
+            definitions.add(new ApiDefinition("api-" + i).setPredicateItems(items));
+        }
+        matchers = new ArrayList<>(apiCount);
+        for (ApiDefinition definition : definitions) {
+            matchers.add(new StringApiMatcher(definition));
+        }
+        index = ApiPathMatcherIndex.build(definitions, null);
+
+        paths = new String[64];
+        for (int i = 0; i < paths.length; i++) {
+            int api = (i * 7919) % apiCount;
+            switch (i % 4) {
+                case 0:
+                    paths[i] = "/service" + api + "/api/orders/" + i;
+                    break;
+                case 1:
+                    paths[i] = "/service" + api + "/item/" + i;
+                    break;
+                case 2:
+                    paths[i] = "/service" + api + "/list";
+                    break;
+                default:
+                    paths[i] = "/unknown/" + i;
+            }
+        }
+    }
+
+    private String nextPath() {
+        cursor = (cursor + 1) & (paths.length - 1);
+        return paths[cursor];
+    }
+
+    @Benchmark
+    public Set<String> linearScan() {
+        String path = nextPath();
+        Set<String> apis = new HashSet<>();
+        for (StringApiMatcher matcher : matchers) {
+            if (matcher.test(path)) {
+                apis.add(matcher.getApiName());
+            }
+        }
+        return apis;
+    }
+
+    @Benchmark
+    public Set<String> indexMatch() {
+        return index.match(nextPath());
+    }
+
+    private static class StringApiMatcher extends AbstractApiMatcher<String> {
+
+        StringApiMatcher(ApiDefinition apiDefinition) {
+            super(apiDefinition);
+        }
+
+        @Override
+        protected void initializeMatchers() {
+            for (ApiPredicateItem item : apiDefinition.getPredicateItems()) {
+                final ApiPathPredicateItem pathItem = (ApiPathPredicateItem)item;
+                switch (pathItem.getMatchStrategy()) {
+                    case SentinelGatewayConstants.URL_MATCH_STRATEGY_REGEX:
+                        final Pattern regex = Pattern.compile(pathItem.getPattern());
+                        matchers.add(new Predicate<String>() {
+                            @Override
+                            public boolean test(String path) {
+                                return regex.matcher(path).matches();
+                            }
+                        });
+                        break;
+                    case SentinelGatewayConstants.URL_MATCH_STRATEGY_PREFIX:
+                        final String prefix = pathItem.getPattern().substring(0, pathItem.getPattern().length() - 3);
+                        matchers.add(new Predicate<String>() {
+                            @Override
+                            public boolean test(String path) {
+                                return path.startsWith(prefix) && (path.length() == prefix.length()
+                                    || path.charAt(prefix.length()) == '/');
+                            }
+                        });
+                        break;
+                    default:
+                        matchers.add(new Predicate<String>() {
+                            @Override
+                            public boolean test(String path) {
+                                return path.equals(pathItem.getPattern());
+                            }
+                        });
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for async entries compared with the sync entry. The async entry clones the current context,
+ * so {@link #nestedAsyncEntry(Blackhole)} (an async invocation inside a sync entry, completed after the sync
+ * entry exits, as in a typical RPC filter) measures the cost of the context cloning.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AsyncEntryBenchmark {
+
+    private static final String RESOURCE = "benchmark-async";
+    private static final String OUTER_RESOURCE = "benchmark-async-outer";
+
+    @Benchmark
+    public void syncEntry(Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    public void asyncEntry(Blackhole bh) {
+        try {
+            AsyncEntry e = SphU.asyncEntry(RESOURCE);
+            bh.consume(e);
+            e.exit();
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void asyncEntryWithoutBlocking(Blackhole bh) {
+        try {
+            AsyncEntry e = SphU.asyncEntryWithoutBlocking(RESOURCE);
+            bh.consume(e.getAdmissionDelayNanos());
+            e.exit();
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void nestedAsyncEntry(Blackhole bh) {
+        AsyncEntry inner = null;
+        Entry outer = null;
+        try {
+            outer = SphU.entry(OUTER_RESOURCE);
+            inner = SphU.asyncEntry(RESOURCE);
+            bh.consume(inner);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (outer != null) {
+                outer.exit();
+            }
+        }
+        if (inner != null) {
+            inner.exit();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRule;
+import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for entries with an origin under a white-list authority rule of different sizes.
+ * The allowed origin is the last app of the list.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class AuthorityCheckBenchmark {
+
+    private static final String RESOURCE = "benchmark-authority";
+    private static final String CONTEXT = "benchmark-authority-context";
+    private static final String BLOCKED_ORIGIN = "app-not-allowed";
+
+    @Param({"10", "100", "1000"})
+    private int appCount;
+
+    private String allowedOrigin;
+
+    @Setup
+    public void prepare() {
+        StringBuilder limitApp = new StringBuilder();
+        for (int i = 0; i < appCount; i++) {
+            if (i > 0) {
+                limitApp.append(',');
+            }
+            limitApp.append("app-").append(i);
+        }
+        allowedOrigin = "app-" + (appCount - 1);
+        AuthorityRule rule = new AuthorityRule();
+        rule.setResource(RESOURCE);
+        rule.setLimitApp(limitApp.toString());
+        rule.setStrategy(RuleConstant.AUTHORITY_WHITE);
+        AuthorityRuleManager.loadRules(Arrays.asList(rule));
+    }
+
+    @TearDown
+    public void tearDown() {
+        AuthorityRuleManager.loadRules(null);
+    }
+
+    private static void entryAndExit(String origin, Blackhole bh) {
+        ContextUtil.enter(CONTEXT, origin);
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+            ContextUtil.exit();
+        }
+    }
+
+    @Benchmark
+    public void testAllowedOrigin(Blackhole bh) {
+        entryAndExit(allowedOrigin, bh);
+    }
+
+    @Benchmark
+    public void testBlockedOrigin(Blackhole bh) {
+        entryAndExit(BLOCKED_ORIGIN, bh);
+    }
+}
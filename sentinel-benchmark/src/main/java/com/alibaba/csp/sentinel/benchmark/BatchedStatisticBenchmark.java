@@ -0,0 +1,168 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.StatisticNode;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.DefaultController;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * Benchmark for the statistics write path of a single resource under high concurrency, with the thread-local
+ * batched statistics of the given batch size ({@code csp.sentinel.statistic.batch.size}),
+ * where the batch size 0 means not batched.
+ * </p>
+ * <p>
+ * The {@code entry} benchmarks run the whole slot chain of the resource, while the {@code nodeWrite}
+ * benchmarks only write the statistics of a pass-and-complete request to a {@link StatisticNode},
+ * which is the part affected by the batching. The {@code admission} benchmarks check the pass QPS of the node
+ * against a QPS threshold far from being reached (as {@link DefaultController} does) before the writes,
+ * where the pending counts of other threads need not be merged.
+ * </p>
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BatchedStatisticBenchmark {
+
+    private static final String RESOURCE_PREFIX = "benchmark-batched-statistic-";
+
+    @Param({"0", "16", "64"})
+    private int batchSize;
+
+    private String resource;
+    private StatisticNode node;
+    private DefaultController controller;
+
+    @Setup
+    public void prepare() {
+        // The batch size is resolved when the nodes are created.
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE, String.valueOf(batchSize));
+        resource = RESOURCE_PREFIX + batchSize;
+        node = new StatisticNode();
+        controller = new DefaultController(1e9, RuleConstant.FLOW_GRADE_QPS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nbatch size: %d, total pass of the node: %d%n", batchSize, node.totalPass());
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE,
+            String.valueOf(SentinelConfig.DEFAULT_STATISTIC_BATCH_SIZE));
+    }
+
+    private void entryAndExit(Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(resource);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    private void writeNode() {
+        node.increaseThreadNum();
+        node.addPassRequest(1);
+        node.addRtAndSuccess(1, 1);
+        node.decreaseThreadNum();
+    }
+
+    private boolean checkAndWriteNode() {
+        boolean pass = controller.canPass(node, 1);
+        writeNode();
+        return pass;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void entrySingleThread(Blackhole bh) {
+        entryAndExit(bh);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void entry32Threads(Blackhole bh) {
+        entryAndExit(bh);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void entry64Threads(Blackhole bh) {
+        entryAndExit(bh);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void nodeWriteSingleThread() {
+        writeNode();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void nodeWrite32Threads() {
+        writeNode();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void nodeWrite64Threads() {
+        writeNode();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean admissionSingleThread() {
+        return checkAndWriteNode();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean admission32Threads() {
+        return checkAndWriteNode();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean admission64Threads() {
+        return checkAndWriteNode();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.ProfilerConfig;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runner of the benchmark suite, which runs all the benchmarks in this package (or the ones matching
+ * the given regular expressions) with the GC profiler ({@code -prof gc}), so the allocation rate of each
+ * benchmark is reported along with the score. The results are written in JSON to
+ * {@value #DEFAULT_RESULT_FILE}, which could be compared with the results of another version.
+ * </p>
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar com.alibaba.csp.sentinel.benchmark.BenchmarkRunner [JMH options]}.
+ * All JMH command line options are accepted, e.g. {@code -rf csv -rff result.csv} for CSV results,
+ * or {@code -f 1 -wi 3 -i 5} for a quick run.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT_FILE = "sentinel-benchmark-result.json";
+    private static final String BENCHMARK_PACKAGE = BenchmarkRunner.class.getPackage().getName();
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            builder.include(BENCHMARK_PACKAGE.replace(".", "\\.") + "\\..*");
+        }
+        if (!hasGcProfiler(commandLineOptions)) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+            if (!commandLineOptions.getResult().hasValue()) {
+                builder.result(DEFAULT_RESULT_FILE);
+            }
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static boolean hasGcProfiler(CommandLineOptions options) {
+        for (ProfilerConfig profiler : options.getProfilers()) {
+            String name = profiler.getKlass();
+            if ("gc".equals(name) || GCProfiler.class.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BenchmarkRunner() {}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.Tracer;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the rejection path of Sentinel entries (100% block rate),
+ * compared with the pass path of a resource without any rules.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BlockedEntryBenchmark {
+
+    private static final String PASS_RESOURCE = "benchmark-pass";
+    private static final String FLOW_BLOCKED_RESOURCE = "benchmark-flow-blocked";
+    private static final String DEGRADE_BLOCKED_RESOURCE = "benchmark-degrade-blocked";
+
+    @Param({"false", "true"})
+    private String preallocated;
+
+    @Setup
+    public void prepare() {
+        SentinelConfig.setConfig(SentinelConfig.BLOCK_EXCEPTION_PREALLOCATED, preallocated);
+        // Threshold 0 means that all requests will be blocked.
+        FlowRuleManager.loadRules(Arrays.asList(new FlowRule(FLOW_BLOCKED_RESOURCE).setCount(0)));
+        DegradeRuleManager.loadRules(Arrays.asList(new DegradeRule(DEGRADE_BLOCKED_RESOURCE)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(1)
+            .setMinRequestAmount(1)
+            .setTimeWindow(3600)));
+        // Trip the circuit breaker so that it keeps open during the benchmark.
+        for (int i = 0; i < 3; i++) {
+            Entry e = null;
+            try {
+                e = SphU.entry(DEGRADE_BLOCKED_RESOURCE);
+                throw new IllegalStateException("trip");
+            } catch (BlockException ex) {
+                // Already open.
+            } catch (IllegalStateException ex) {
+                Tracer.traceEntry(ex, e);
+            } finally {
+                if (e != null) {
+                    e.exit();
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+        DegradeRuleManager.loadRules(null);
+        SentinelConfig.setConfig(SentinelConfig.BLOCK_EXCEPTION_PREALLOCATED,
+            SentinelConfig.DEFAULT_BLOCK_EXCEPTION_PREALLOCATED);
+    }
+
+    private static void entryAndExit(String resource, Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(resource);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadPass(Blackhole bh) {
+        entryAndExit(PASS_RESOURCE, bh);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadFlowBlocked(Blackhole bh) {
+        entryAndExit(FLOW_BLOCKED_RESOURCE, bh);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThreadDegradeBlocked(Blackhole bh) {
+        entryAndExit(DEGRADE_BLOCKED_RESOURCE, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsPass(Blackhole bh) {
+        entryAndExit(PASS_RESOURCE, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsFlowBlocked(Blackhole bh) {
+        entryAndExit(FLOW_BLOCKED_RESOURCE, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8ThreadsDegradeBlocked(Blackhole bh) {
+        entryAndExit(DEGRADE_BLOCKED_RESOURCE, bh);
+    }
+}
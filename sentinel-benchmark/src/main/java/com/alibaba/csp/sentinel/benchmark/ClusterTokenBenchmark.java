@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.ClientConstants;
+import com.alibaba.csp.sentinel.cluster.client.DefaultClusterTokenClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientAssignConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.SentinelDefaultTokenServer;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerFlowConfig;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmark for requesting cluster flow tokens from an embedded token server over loopback,
+ * i.e. the round trip of {@link DefaultClusterTokenClient} and {@code SentinelDefaultTokenServer}
+ * including the encoding, the Netty transport and the cluster flow checking on the server.
+ * </p>
+ * <p>
+ * The global threshold is high enough so that the tokens are always granted. The requests which are not
+ * granted (e.g. timed out) are reported as the {@code failed} counter.
+ * </p>
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ClusterTokenBenchmark {
+
+    private static final String NAMESPACE = "benchmark-cluster";
+    private static final String LOCALHOST = "127.0.0.1";
+    private static final long FLOW_ID = 1L;
+    private static final int REQUEST_TIMEOUT_MS = 1000;
+    private static final long START_TIMEOUT_MS = 10 * 1000;
+
+    private SentinelDefaultTokenServer server;
+    private DefaultClusterTokenClient client;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+        public long failed;
+    }
+
+    @Setup
+    public void prepare() throws Exception {
+        int port = freePort();
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig(port, 600));
+        ClusterServerConfigManager.loadGlobalFlowConfig(new ServerFlowConfig().setMaxAllowedQps(Integer.MAX_VALUE));
+        ClusterServerConfigManager.loadServerNamespaceSet(Collections.singleton(NAMESPACE));
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(new FlowRule("benchmark-cluster-flow")
+            .setCount(Integer.MAX_VALUE)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig().setFlowId(FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL))));
+        server = new SentinelDefaultTokenServer(true);
+        server.start();
+
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(REQUEST_TIMEOUT_MS));
+        ClusterClientConfigManager.applyNewAssignConfig(new ClusterClientAssignConfig(LOCALHOST, port));
+        client = new DefaultClusterTokenClient();
+        client.start();
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+        while (client.getState() != ClientConstants.CLIENT_STATUS_STARTED) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Token client is not connected to the server at port " + port);
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private TokenResult requestToken(Failures failures) {
+        TokenResult result = client.requestToken(FLOW_ID, 1, false);
+        if (result.getStatus() != TokenResultStatus.OK) {
+            failures.failed++;
+        }
+        return result;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TokenResult testSingleThread(Failures failures) {
+        return requestToken(failures);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TokenResult test8Threads(Failures failures) {
+        return requestToken(failures);
+    }
+}
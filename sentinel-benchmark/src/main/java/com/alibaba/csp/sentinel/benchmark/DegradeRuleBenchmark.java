@@ -0,0 +1,114 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.Tracer;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for entries under a degrade rule of each strategy (0: slow request ratio, 1: exception ratio,
+ * 2: exception count), in which 1% of the requests are traced with an exception. The circuit breaker
+ * is kept closed, so the cost of recording the request on completion is included.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DegradeRuleBenchmark {
+
+    private static final String RESOURCE = "benchmark-degrade";
+    private static final int ERROR_INTERVAL = 100;
+    private static final Exception ERROR = new IllegalStateException("benchmark");
+
+    @Param({"0", "1", "2"})
+    private int grade;
+
+    @State(Scope.Thread)
+    public static class Counter {
+        private int count;
+    }
+
+    @Setup
+    public void prepare() {
+        DegradeRule rule = new DegradeRule(RESOURCE)
+            .setGrade(grade)
+            .setTimeWindow(10)
+            .setMinRequestAmount(5);
+        if (grade == RuleConstant.DEGRADE_GRADE_RT) {
+            rule.setCount(1000).setSlowRatioThreshold(1.0d);
+        } else if (grade == RuleConstant.DEGRADE_GRADE_EXCEPTION_RATIO) {
+            rule.setCount(0.5d);
+        } else {
+            rule.setCount(Integer.MAX_VALUE);
+        }
+        DegradeRuleManager.loadRules(Collections.singletonList(rule));
+    }
+
+    @TearDown
+    public void tearDown() {
+        DegradeRuleManager.loadRules(null);
+    }
+
+    private static void entryAndExit(Counter counter, Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE);
+            if (++counter.count % ERROR_INTERVAL == 0) {
+                Tracer.traceEntry(ERROR, e);
+            }
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThread(Counter counter, Blackhole bh) {
+        entryAndExit(counter, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8Threads(Counter counter, Blackhole bh) {
+        entryAndExit(counter, bh);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * Benchmark for entries with an origin under flow rules of different origins and strategies:
+ * </p>
+ * <ul>
+ *     <li>{@code origin}: the rule limits the specific origin of the entries</li>
+ *     <li>{@code other}: the rule limits the origins other than the one limited by another rule</li>
+ *     <li>{@code relate}: the rule checks the statistics of a related resource</li>
+ *     <li>{@code chain}: the rule only limits the entries from the entrance context</li>
+ * </ul>
+ * <p>
+ * The threshold is high enough so that the requests always pass.
+ * </p>
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FlowStrategyBenchmark {
+
+    private static final String RESOURCE = "benchmark-flow-strategy";
+    private static final String REF_RESOURCE = "benchmark-flow-strategy-ref";
+    private static final String CONTEXT = "benchmark-flow-strategy-context";
+    private static final String ORIGIN = "app-a";
+
+    @Param({"origin", "other", "relate", "chain"})
+    private String strategy;
+
+    @Setup
+    public void prepare() {
+        List<FlowRule> rules = new ArrayList<>();
+        if ("origin".equals(strategy)) {
+            rules.add(newRule(ORIGIN));
+        } else if ("other".equals(strategy)) {
+            rules.add(newRule("app-b"));
+            rules.add(newRule(RuleConstant.LIMIT_APP_OTHER));
+        } else if ("relate".equals(strategy)) {
+            rules.add(newRule(RuleConstant.LIMIT_APP_DEFAULT).setStrategy(RuleConstant.STRATEGY_RELATE)
+                .setRefResource(REF_RESOURCE));
+        } else if ("chain".equals(strategy)) {
+            rules.add(newRule(RuleConstant.LIMIT_APP_DEFAULT).setStrategy(RuleConstant.STRATEGY_CHAIN)
+                .setRefResource(CONTEXT));
+        } else {
+            throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        FlowRuleManager.loadRules(rules);
+        // Create the cluster node of the related resource, otherwise the rule is skipped.
+        try {
+            SphU.entry(REF_RESOURCE).exit();
+        } catch (BlockException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+    }
+
+    private static FlowRule newRule(String limitApp) {
+        FlowRule rule = new FlowRule(RESOURCE).setCount(Integer.MAX_VALUE);
+        rule.setLimitApp(limitApp);
+        return rule;
+    }
+
+    private static void entryAndExit(Blackhole bh) {
+        ContextUtil.enter(CONTEXT, ORIGIN);
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+            ContextUtil.exit();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThread(Blackhole bh) {
+        entryAndExit(bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8Threads(Blackhole bh) {
+        entryAndExit(bh);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.metric.BucketLeapArray;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * Benchmark for the sliding window ({@link BucketLeapArray}) with explicit timestamps,
+ * so that the window boundaries are crossed at a controlled rate:
+ * </p>
+ * <ul>
+ *     <li>{@link #sameWindow()}: all updates fall into the same bucket (the common case)</li>
+ *     <li>{@link #crossEveryWindow()}: every update moves to the next bucket, so that a deprecated bucket
+ *     is reset under the update lock each time</li>
+ *     <li>{@link #sharedBoundary()}: 4 threads cross a boundary every {@value #UPDATES_PER_WINDOW} updates,
+ *     contending for resetting the same bucket</li>
+ *     <li>{@link #readValues(Blackhole)}: reads all the valid buckets, as when calculating the QPS</li>
+ * </ul>
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LeapArrayBenchmark {
+
+    private static final int INTERVAL_MS = 1000;
+    private static final int UPDATES_PER_WINDOW = 64;
+
+    @Param({"2", "20"})
+    private int sampleCount;
+
+    private BucketLeapArray leapArray;
+    private int windowLengthInMs;
+    private long baseTime;
+    private final AtomicLong sharedUpdates = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Clock {
+        private long time;
+    }
+
+    @Setup
+    public void prepare() {
+        leapArray = new BucketLeapArray(sampleCount, INTERVAL_MS);
+        windowLengthInMs = INTERVAL_MS / sampleCount;
+        baseTime = TimeUtil.currentTimeMillis();
+        // Fill all the buckets of the interval.
+        for (int i = 0; i < sampleCount; i++) {
+            addPass(leapArray.currentWindow(baseTime - (long)i * windowLengthInMs));
+        }
+    }
+
+    private static MetricBucket addPass(WindowWrap<MetricBucket> wrap) {
+        MetricBucket bucket = wrap.value();
+        bucket.addPass(1);
+        return bucket;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MetricBucket sameWindow() {
+        return addPass(leapArray.currentWindow(baseTime));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public MetricBucket crossEveryWindow(Clock clock) {
+        clock.time += windowLengthInMs;
+        return addPass(leapArray.currentWindow(baseTime + clock.time));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MetricBucket sharedBoundary() {
+        long window = sharedUpdates.getAndIncrement() / UPDATES_PER_WINDOW;
+        return addPass(leapArray.currentWindow(baseTime + window * windowLengthInMs));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void readValues(Blackhole bh) {
+        long pass = 0;
+        for (MetricBucket bucket : leapArray.values(baseTime)) {
+            pass += bucket.pass();
+        }
+        bh.consume(pass);
+    }
+}
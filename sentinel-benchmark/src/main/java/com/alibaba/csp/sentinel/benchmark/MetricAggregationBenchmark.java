@@ -0,0 +1,154 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.metric.MetricAggregator;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for the once-per-second metric aggregation of {@code MetricTimerListener} with lots of resources.
+ * The legacy aggregation (a map per node, then a {@link TreeMap} of all the seconds) is compared with
+ * the streaming {@link MetricAggregator}, either sequential or in parallel partitions.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MetricAggregationBenchmark {
+
+    @Param({"10000", "50000"})
+    private int resourceCount;
+
+    private ClusterNode[] nodes;
+    private ForkJoinPool pool;
+    private MetricAggregator sequentialAggregator;
+    private MetricAggregator parallelAggregator;
+
+    @Setup
+    public void prepare() {
+        pool = new ForkJoinPool(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+        sequentialAggregator = new MetricAggregator(null, MetricAggregator.DEFAULT_PARTITION_SIZE);
+        parallelAggregator = new MetricAggregator(pool, MetricAggregator.DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * Every resource has metrics of one second, as in the steady state.
+     */
+    @Setup(Level.Iteration)
+    public void prepareNodes() {
+        nodes = new ClusterNode[resourceCount];
+        for (int i = 0; i < resourceCount; i++) {
+            nodes[i] = new ClusterNode("benchmark-resource-" + i);
+            nodes[i].addPassRequest(1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public void legacyAggregation(Blackhole bh) {
+        Predicate<Long> timePredicate = timePredicate(currentTime());
+        Map<Long, List<MetricNode>> maps = new TreeMap<>();
+        for (ClusterNode node : nodes) {
+            // A map of the valid seconds per node as StatisticNode#metrics() builds, but the seconds are
+            // selected by the same time predicate as the streaming aggregation instead of the last fetch time.
+            Map<Long, MetricNode> metrics = new ConcurrentHashMap<>();
+            for (MetricNode metricNode : node.rawMetricsInMin(timePredicate)) {
+                if (isValidMetricNode(metricNode)) {
+                    metrics.put(metricNode.getTimestamp(), metricNode);
+                }
+            }
+            for (Map.Entry<Long, MetricNode> entry : metrics.entrySet()) {
+                MetricNode metricNode = entry.getValue();
+                metricNode.setResource(node.getName());
+                metricNode.setClassification(node.getResourceType());
+                maps.computeIfAbsent(entry.getKey(), k -> new ArrayList<MetricNode>()).add(metricNode);
+            }
+        }
+        for (Map.Entry<Long, List<MetricNode>> entry : maps.entrySet()) {
+            bh.consume(entry.getKey());
+            bh.consume(entry.getValue());
+        }
+    }
+
+    private static boolean isValidMetricNode(MetricNode node) {
+        return node.getPassQps() > 0 || node.getBlockQps() > 0 || node.getSuccessQps() > 0
+            || node.getExceptionQps() > 0 || node.getRt() > 0 || node.getOccupiedPassQps() > 0;
+    }
+
+    @Benchmark
+    public int sequentialAggregation(Blackhole bh) {
+        return sequentialAggregator.aggregate(nodes, -1, currentTime(), writer(bh));
+    }
+
+    @Benchmark
+    public int parallelAggregation(Blackhole bh) {
+        return parallelAggregator.aggregate(nodes, -1, currentTime(), writer(bh));
+    }
+
+    private static long currentTime() {
+        // Include the current second so that metrics of this iteration are always aggregated.
+        long now = TimeUtil.currentTimeMillis();
+        return now - now % 1000 + 1000;
+    }
+
+    private static Predicate<Long> timePredicate(final long currentTime) {
+        return new Predicate<Long>() {
+            @Override
+            public boolean test(Long time) {
+                return time < currentTime;
+            }
+        };
+    }
+
+    private static BiConsumer<Long, List<MetricNode>> writer(final Blackhole bh) {
+        return new BiConsumer<Long, List<MetricNode>>() {
+            @Override
+            public void accept(Long time, List<MetricNode> nodes) {
+                bh.consume(time);
+                bh.consume(nodes);
+            }
+        };
+    }
+}
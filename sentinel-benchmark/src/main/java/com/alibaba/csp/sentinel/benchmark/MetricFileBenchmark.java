@@ -0,0 +1,129 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
+import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+import com.alibaba.csp.sentinel.util.PidUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmark for the metric log files: {@link MetricWriter} writes the metrics of all resources of one second
+ * (as {@code MetricTimerListener} does every second), and {@link MetricSearcher} reads the metrics
+ * (as the dashboard fetches them via the {@code metric} command).
+ * </p>
+ * <p>
+ * The metrics of {@value #HISTORY_SECONDS} seconds are written before the benchmark. The files are written to
+ * the metric log directory with the name of current process, and they are deleted after the benchmark.
+ * </p>
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MetricFileBenchmark {
+
+    private static final long SINGLE_FILE_SIZE = 50 * 1024 * 1024;
+    private static final int TOTAL_FILE_COUNT = 6;
+    private static final int HISTORY_SECONDS = 300;
+    private static final int FETCH_SECONDS = 5;
+
+    @Param({"100", "1000"})
+    private int resourceCount;
+
+    private MetricWriter writer;
+    private MetricSearcher searcher;
+    private String baseFileName;
+    private List<MetricNode> nodes;
+    private long startTime;
+    private long nextTime;
+
+    @Setup
+    public void prepare() throws Exception {
+        nodes = new ArrayList<>(resourceCount);
+        for (int i = 0; i < resourceCount; i++) {
+            MetricNode node = new MetricNode();
+            node.setResource("benchmark-metric-" + i);
+            node.setPassQps(100);
+            node.setSuccessQps(100);
+            node.setBlockQps(10);
+            node.setRt(5);
+            nodes.add(node);
+        }
+        writer = new MetricWriter(SINGLE_FILE_SIZE, TOTAL_FILE_COUNT);
+        String appName = SentinelConfig.getAppName();
+        baseFileName = MetricWriter.formMetricFileName(appName == null ? "" : appName, PidUtil.getPid());
+        searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR, baseFileName);
+
+        // The writer ignores the seconds before its creation.
+        long now = TimeUtil.currentTimeMillis();
+        startTime = now - now % 1000 + 1000;
+        nextTime = startTime;
+        for (int i = 0; i < HISTORY_SECONDS; i++) {
+            write();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        writer.close();
+        File[] files = new File(MetricWriter.METRIC_BASE_DIR).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().startsWith(baseFileName)) {
+                file.delete();
+            }
+        }
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        writer.write(nextTime, nodes);
+        nextTime += 1000;
+    }
+
+    @Benchmark
+    public List<MetricNode> find() throws Exception {
+        return searcher.find(startTime + HISTORY_SECONDS / 2 * 1000, FETCH_SECONDS * resourceCount);
+    }
+
+    @Benchmark
+    public List<MetricNode> findByTimeAndResource() throws Exception {
+        long beginTime = startTime + HISTORY_SECONDS / 2 * 1000;
+        return searcher.findByTimeAndResource(beginTime, beginTime + FETCH_SECONDS * 1000, "benchmark-metric-0");
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for entries under a hot parameter flow rule, in which the parameters are drawn from
+ * a Zipf distribution over {@code keyCount} distinct keys (a few hot keys and a long tail of cold ones).
+ * The threshold is high enough so that the requests always pass.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ParamFlowBenchmark {
+
+    private static final String RESOURCE = "benchmark-param-flow";
+    private static final int SAMPLE_SIZE = 1 << 16;
+
+    @Param({"1000", "100000"})
+    private int keyCount;
+
+    /**
+     * Exponent of the Zipf distribution, the larger the more skewed.
+     */
+    @Param({"0.99", "1.2"})
+    private double exponent;
+
+    private String[] samples;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        @Setup
+        public void prepare() {
+            index = ThreadLocalRandom.current().nextInt(SAMPLE_SIZE);
+        }
+    }
+
+    @Setup
+    public void prepare() {
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+        }
+        samples = zipfSamples(keys, exponent, SAMPLE_SIZE, new Random(1));
+        ParamFlowRuleManager.loadRules(Collections.singletonList(new ParamFlowRule(RESOURCE)
+            .setParamIdx(0)
+            .setCount(Integer.MAX_VALUE)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ParamFlowRuleManager.loadRules(null);
+    }
+
+    static String[] zipfSamples(String[] keys, double exponent, int size, Random random) {
+        double[] cdf = new double[keys.length];
+        double sum = 0;
+        for (int i = 0; i < keys.length; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        String[] samples = new String[size];
+        for (int i = 0; i < size; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            if (rank < 0) {
+                rank = -rank - 1;
+            }
+            samples[i] = keys[Math.min(rank, keys.length - 1)];
+        }
+        return samples;
+    }
+
+    private void entryAndExit(Cursor cursor, Blackhole bh) {
+        String key = samples[cursor.index++ & (SAMPLE_SIZE - 1)];
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE, EntryType.IN, 1, key);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit(1, key);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThread(Cursor cursor, Blackhole bh) {
+        entryAndExit(cursor, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8Threads(Cursor cursor, Blackhole bh) {
+        entryAndExit(cursor, bh);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmark for the occupancy of worker threads when the requests are queueing in the rate limiter.
+ * </p>
+ * <p>
+ * Each invocation submits a burst of requests to a small worker pool. {@link #blockingEntry(Occupancy)}
+ * holds the worker thread until the request is admitted, while {@link #nonBlockingEntry(Occupancy)}
+ * releases the worker thread immediately and continues on the timer thread after the admission delay.
+ * The time of worker threads being occupied is reported as the {@code workerBusyMicros} counter.
+ * </p>
+ */
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 20, batchSize = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class QueueingEntryBenchmark {
+
+    private static final String RESOURCE = "benchmark-queueing";
+    private static final int WORKERS = 4;
+    private static final int REQUESTS = 200;
+    /**
+     * The interval of two passed requests is 100us.
+     */
+    private static final double QPS = 10000;
+
+    private ExecutorService workers;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Occupancy {
+        public long workerBusyMicros;
+        public long blocked;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            workerBusyMicros = 0;
+            blocked = 0;
+        }
+    }
+
+    @Setup
+    public void prepare() {
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(RESOURCE).setCount(QPS)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+            .setMaxQueueingTimeMs(1000)));
+        workers = Executors.newFixedThreadPool(WORKERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.shutdownNow();
+        FlowRuleManager.loadRules(null);
+    }
+
+    @Benchmark
+    public void blockingEntry(Occupancy occupancy) throws InterruptedException {
+        runBurst(occupancy, false);
+    }
+
+    @Benchmark
+    public void nonBlockingEntry(Occupancy occupancy) throws InterruptedException {
+        runBurst(occupancy, true);
+    }
+
+    private void runBurst(Occupancy occupancy, final boolean nonBlocking) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(REQUESTS);
+        final CountDownLatch released = new CountDownLatch(REQUESTS);
+        final AtomicLong busyNanos = new AtomicLong();
+        final AtomicLong blocked = new AtomicLong();
+        for (int i = 0; i < REQUESTS; i++) {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long start = System.nanoTime();
+                    try {
+                        if (nonBlocking) {
+                            SphU.asyncEntryWithDelay(RESOURCE).whenComplete((entry, ex) -> {
+                                complete(entry, ex, blocked);
+                                done.countDown();
+                            });
+                        } else {
+                            AsyncEntry entry = null;
+                            BlockException ex = null;
+                            try {
+                                entry = SphU.asyncEntry(RESOURCE);
+                            } catch (BlockException e) {
+                                ex = e;
+                            }
+                            complete(entry, ex, blocked);
+                            done.countDown();
+                        }
+                    } finally {
+                        busyNanos.addAndGet(System.nanoTime() - start);
+                        released.countDown();
+                    }
+                }
+            });
+        }
+        done.await();
+        released.await();
+        occupancy.workerBusyMicros = TimeUnit.NANOSECONDS.toMicros(busyNanos.get());
+        occupancy.blocked = blocked.get();
+    }
+
+    private static void complete(AsyncEntry entry, Throwable ex, AtomicLong blocked) {
+        if (entry != null) {
+            // The invocation of the resource.
+            entry.exit();
+        } else if (ex != null) {
+            blocked.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for pushing a full list of rules in which only one rule is changed,
+ * as data sources (e.g. config centers) always push all the rules.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RuleLoadBenchmark {
+
+    @Param({"20000"})
+    private int ruleCount;
+
+    @Param({"1", "20"})
+    private int flowRulesPerResource;
+
+    private List<FlowRule> flowRules;
+    private List<DegradeRule> degradeRules;
+    private int version;
+
+    @Setup
+    public void prepare() {
+        flowRules = new ArrayList<>(ruleCount);
+        degradeRules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            flowRules.add(flowRule(i, 100, flowRulesPerResource));
+            degradeRules.add(degradeRule(i, 100));
+        }
+        FlowRuleManager.loadRules(flowRules);
+        DegradeRuleManager.loadRules(degradeRules);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+        DegradeRuleManager.loadRules(null);
+    }
+
+    private static FlowRule flowRule(int i, double count, int rulesPerResource) {
+        FlowRule rule = new FlowRule("benchmark-resource-" + i / rulesPerResource).setCount(count);
+        if (i % rulesPerResource != 0) {
+            // Rules of the same resource are distinguished by the origin.
+            rule.setLimitApp("benchmark-app-" + i % rulesPerResource);
+        }
+        if (i % 2 == 0) {
+            rule.setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_WARM_UP).setWarmUpPeriodSec(10);
+        }
+        return rule;
+    }
+
+    private static DegradeRule degradeRule(int i, double count) {
+        return new DegradeRule("benchmark-resource-" + i)
+            .setGrade(RuleConstant.DEGRADE_GRADE_RT)
+            .setCount(count)
+            .setSlowRatioThreshold(0.5)
+            .setTimeWindow(10);
+    }
+
+    @Benchmark
+    public void loadFlowRulesWithOneChange() {
+        // A different rule is changed each time, and the rules are new instances as if decoded by data sources.
+        int changed = version++ % ruleCount;
+        List<FlowRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(flowRule(i, i == changed ? 200 : 100, flowRulesPerResource));
+        }
+        FlowRuleManager.loadRules(rules);
+    }
+
+    @Benchmark
+    public void loadDegradeRulesWithOneChange() {
+        int changed = version++ % ruleCount;
+        List<DegradeRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(degradeRule(i, i == changed ? 200 : 100));
+        }
+        DegradeRuleManager.loadRules(rules);
+    }
+}
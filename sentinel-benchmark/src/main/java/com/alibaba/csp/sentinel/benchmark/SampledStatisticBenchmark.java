@@ -0,0 +1,138 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.slots.statistic.StatisticSamplingManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * Benchmark for the throughput and accuracy of the sampled statistics mode
+ * (see {@link StatisticSamplingManager}) of a hot resource, where the sample rate 1 means not sampled.
+ * </p>
+ * <p>
+ * Each iteration uses a new resource, and the estimated total pass count of the resource is compared with
+ * the real count of passed entries after the iteration. The relative error is printed in the output of
+ * each iteration (the iterations are shorter than the 60-second window of the total count).
+ * </p>
+ */
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SampledStatisticBenchmark {
+
+    private static final String RESOURCE_PREFIX = "benchmark-sampled-";
+
+    @Param({"1", "16", "128"})
+    private int sampleRate;
+
+    private final List<Counter> counters = new CopyOnWriteArrayList<>();
+    private volatile String resource;
+    private int iteration;
+    private long passedBefore;
+
+    @State(Scope.Thread)
+    public static class Counter {
+        private long passed;
+
+        @Setup
+        public void prepare(SampledStatisticBenchmark benchmark) {
+            benchmark.counters.add(this);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareIteration() {
+        resource = RESOURCE_PREFIX + sampleRate + "-" + iteration++;
+        StatisticSamplingManager.loadSampleRates(Collections.singletonMap(resource, sampleRate));
+        passedBefore = totalPassed();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAccuracy() {
+        long passed = totalPassed() - passedBefore;
+        ClusterNode node = ClusterBuilderSlot.getClusterNode(resource);
+        long estimated = node == null ? 0 : node.totalPass();
+        System.out.printf("%nsample rate: %d, passed: %d, estimated: %d, relative error: %.4f%%%n",
+            sampleRate, passed, estimated, passed == 0 ? 0 : Math.abs(estimated - passed) * 100.0 / passed);
+    }
+
+    @TearDown
+    public void tearDown() {
+        StatisticSamplingManager.loadSampleRates(null);
+    }
+
+    private long totalPassed() {
+        long passed = 0;
+        for (Counter counter : counters) {
+            passed += counter.passed;
+        }
+        return passed;
+    }
+
+    private void entryAndExit(Counter counter, Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(resource);
+            counter.passed++;
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThread(Counter counter, Blackhole bh) {
+        entryAndExit(counter, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8Threads(Counter counter, Blackhole bh) {
+        entryAndExit(counter, bh);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.DefaultProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlot;
+import com.alibaba.csp.sentinel.slotchain.ProcessorSlotChain;
+import com.alibaba.csp.sentinel.slotchain.SlotChainProvider;
+import com.alibaba.csp.sentinel.spi.Spi;
+import com.alibaba.csp.sentinel.spi.SpiLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Benchmark for creating the slot chain of a new resource.
+ * </p>
+ * <p>
+ * {@link #newSlotChain()} creates the indexed slots with the factory generated by {@code sentinel-spi-processor},
+ * and {@link #newSlotChainReflectively()} creates the same chain reflectively as the baseline.
+ * </p>
+ *
+ * @see SlotChainColdStartBenchmark
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SlotChainBenchmark {
+
+    private final List<Class<?>> slotClasses = new ArrayList<>();
+    private final List<ProcessorSlot> singletonSlots = new ArrayList<>();
+
+    @Setup
+    public void prepare() {
+        for (ProcessorSlot slot : SpiLoader.of(ProcessorSlot.class).loadInstanceListSorted()) {
+            Spi spi = slot.getClass().getAnnotation(Spi.class);
+            slotClasses.add(slot.getClass());
+            singletonSlots.add(spi == null || spi.isSingleton() ? slot : null);
+        }
+    }
+
+    @Benchmark
+    public ProcessorSlotChain newSlotChain() {
+        return SlotChainProvider.newSlotChain();
+    }
+
+    @Benchmark
+    public ProcessorSlotChain newSlotChainReflectively() throws Exception {
+        ProcessorSlotChain chain = new DefaultProcessorSlotChain();
+        for (int i = 0; i < slotClasses.size(); i++) {
+            ProcessorSlot slot = singletonSlots.get(i);
+            if (slot == null) {
+                slot = (ProcessorSlot)slotClasses.get(i).newInstance();
+            }
+            chain.addLast((AbstractLinkedProcessorSlot<?>)slot);
+        }
+        return chain;
+    }
+}
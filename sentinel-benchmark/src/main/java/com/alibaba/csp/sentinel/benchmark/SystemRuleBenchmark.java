@@ -0,0 +1,108 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.system.SystemRule;
+import com.alibaba.csp.sentinel.slots.system.SystemRuleManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for inbound entries under a system rule of each metric ({@code none} means no system rule).
+ * The thresholds are high enough so that the requests always pass.
+ */
+@Warmup(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class SystemRuleBenchmark {
+
+    private static final String RESOURCE = "benchmark-system";
+
+    @Param({"none", "qps", "thread", "rt", "load", "cpu"})
+    private String metric;
+
+    @Setup
+    public void prepare() {
+        List<SystemRule> rules = new ArrayList<>();
+        SystemRule rule = new SystemRule();
+        if ("qps".equals(metric)) {
+            rule.setQps(Integer.MAX_VALUE);
+        } else if ("thread".equals(metric)) {
+            rule.setMaxThread(Integer.MAX_VALUE);
+        } else if ("rt".equals(metric)) {
+            rule.setAvgRt(Integer.MAX_VALUE);
+        } else if ("load".equals(metric)) {
+            rule.setHighestSystemLoad(Integer.MAX_VALUE);
+        } else if ("cpu".equals(metric)) {
+            rule.setHighestCpuUsage(1.0d);
+        }
+        if (!"none".equals(metric)) {
+            rules.add(rule);
+        }
+        SystemRuleManager.loadRules(rules);
+    }
+
+    @TearDown
+    public void tearDown() {
+        SystemRuleManager.loadRules(new ArrayList<SystemRule>());
+    }
+
+    private static void entryAndExit(Blackhole bh) {
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE, EntryType.IN);
+            bh.consume(e);
+        } catch (BlockException ex) {
+            bh.consume(ex);
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void testSingleThread(Blackhole bh) {
+        entryAndExit(bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void test8Threads(Blackhole bh) {
+        entryAndExit(bh);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>
+ * Multi-origin simulation of a shared resource: a noisy origin calls with 6 threads,
+ * while two other origins call with 1 thread each, all in a closed loop far beyond the threshold.
+ * </p>
+ * <p>
+ * With the default behavior (0), the passed requests are roughly in proportion to the threads of the origins.
+ * With the weighted fair behavior (4), the passed requests are in proportion to the weights of the origins
+ * (noisy: 1, quiet-a: 1, quiet-b: 2). The passed and blocked counts of each origin are reported
+ * as secondary results.
+ * </p>
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class WeightedFairBenchmark {
+
+    private static final String RESOURCE = "benchmark-weighted-fair";
+    private static final String CONTEXT = "benchmark-weighted-fair-context";
+
+    @Param({"0", "4"})
+    private int controlBehavior;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class NoisyCounters {
+        public long noisyPassed;
+        public long noisyBlocked;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QuietACounters {
+        public long quietAPassed;
+        public long quietABlocked;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QuietBCounters {
+        public long quietBPassed;
+        public long quietBBlocked;
+    }
+
+    @Setup
+    public void prepare() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("quiet-b", 2d);
+        FlowRuleManager.loadRules(Collections.singletonList(new FlowRule(RESOURCE).setCount(20000)
+            .setControlBehavior(controlBehavior)
+            .setOriginWeights(weights)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        FlowRuleManager.loadRules(null);
+    }
+
+    private static boolean entryAndExit(String origin) {
+        ContextUtil.enter(CONTEXT, origin);
+        Entry e = null;
+        try {
+            e = SphU.entry(RESOURCE);
+            return true;
+        } catch (BlockException ex) {
+            return false;
+        } finally {
+            if (e != null) {
+                e.exit();
+            }
+            ContextUtil.exit();
+        }
+    }
+
+    @Benchmark
+    @Group("origins")
+    @GroupThreads(6)
+    public void noisy(NoisyCounters counters) {
+        if (entryAndExit("noisy")) {
+            counters.noisyPassed++;
+        } else {
+            counters.noisyBlocked++;
+        }
+    }
+
+    @Benchmark
+    @Group("origins")
+    @GroupThreads(1)
+    public void quietA(QuietACounters counters) {
+        if (entryAndExit("quiet-a")) {
+            counters.quietAPassed++;
+        } else {
+            counters.quietABlocked++;
+        }
+    }
+
+    @Benchmark
+    @Group("origins")
+    @GroupThreads(1)
+    public void quietB(QuietBCounters counters) {
+        if (entryAndExit("quiet-b")) {
+            counters.quietBPassed++;
+        } else {
+            counters.quietBBlocked++;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+
+/**
+ * <p>
+ * Waiting for the admission of the current entry, e.g. queueing in the rate limiter or occupying
+ * the tokens of the future windows for prioritized requests.
+ * </p>
+ * <p>
+ * The current thread sleeps for the waiting time by default. For the entries created by
+ * {@link SphU#asyncEntryWithoutBlocking(String, int, EntryType, int, Object[])}, the waiting time is
+ * accumulated in {@link AsyncEntry#getAdmissionDelayNanos()} instead, and the caller should delay
+ * the invocation by itself, so that no worker thread or event loop is blocked.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public final class AdmissionDelay {
+
+    /**
+     * Wait for the admission of the current entry.
+     *
+     * @param delayNanos waiting time in nanoseconds
+     */
+    public static void delayNanos(long delayNanos) {
+        if (delayNanos <= 0 || deferToEntry(delayNanos)) {
+            return;
+        }
+        LockSupport.parkNanos(delayNanos);
+    }
+
+    /**
+     * Wait for the admission of the current entry.
+     *
+     * @param delayMs waiting time in milliseconds
+     * @return false if the current thread is interrupted while waiting, otherwise true
+     */
+    public static boolean delayMs(long delayMs) {
+        if (delayMs <= 0 || deferToEntry(TimeUnit.MILLISECONDS.toNanos(delayMs))) {
+            return true;
+        }
+        try {
+            Thread.sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private static boolean deferToEntry(long delayNanos) {
+        Context context = ContextUtil.getContext();
+        if (context == null) {
+            return false;
+        }
+        Entry entry = context.getCurEntry();
+        if (entry instanceof AsyncEntry && ((AsyncEntry)entry).isWaitDeferred()) {
+            ((AsyncEntry)entry).addAdmissionDelayNanos(delayNanos);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get a future which is completed with the entry after its admission delay, on the delay scheduler thread.
+     * If the future is cancelled or completed by others before the admission, the entry will be exited,
+     * since it will never be handed over to the caller.
+     */
+    static CompletableFuture<AsyncEntry> whenAdmitted(final AsyncEntry entry) {
+        final CompletableFuture<AsyncEntry> future = new CompletableFuture<>();
+        long delayNanos = entry.getAdmissionDelayNanos();
+        if (delayNanos <= 0) {
+            future.complete(entry);
+            return future;
+        }
+        final ScheduledFuture<?> task = SchedulerHolder.SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                future.complete(entry);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        future.whenComplete(new BiConsumer<AsyncEntry, Throwable>() {
+            @Override
+            public void accept(AsyncEntry admitted, Throwable ex) {
+                if (admitted != entry) {
+                    task.cancel(false);
+                    entry.exit();
+                }
+            }
+        });
+        return future;
+    }
+
+    private static class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("sentinel-admission-delay-task", true));
+    }
+
+    private AdmissionDelay() {}
+}
@@ -31,6 +31,12 @@ public class AsyncEntry extends CtEntry {
 
     private Context asyncContext;
 
+    /**
+     * Whether the waiting for admission is deferred to the caller instead of blocking the current thread.
+     */
+    private boolean waitDeferred = false;
+    private long admissionDelayNanos = 0;
+
     AsyncEntry(ResourceWrapper resourceWrapper, ProcessorSlot<Object> chain, Context context) {
         super(resourceWrapper, chain, context);
     }
@@ -69,6 +75,31 @@ public class AsyncEntry extends CtEntry {
         return asyncContext;
     }
 
+    /**
+     * Get the time that the invocation of the resource should be delayed, e.g. queueing in the rate limiter
+     * or occupying the tokens of the future windows. This is always 0 unless the entry is created by
+     * {@link SphU#asyncEntryWithoutBlocking(String, int, EntryType, int, Object[])}, which does not block
+     * the current thread for waiting.
+     *
+     * @return the delay of the admission in nanoseconds
+     * @since 1.8.9
+     */
+    public long getAdmissionDelayNanos() {
+        return admissionDelayNanos;
+    }
+
+    boolean isWaitDeferred() {
+        return waitDeferred;
+    }
+
+    void setWaitDeferred(boolean waitDeferred) {
+        this.waitDeferred = waitDeferred;
+    }
+
+    void addAdmissionDelayNanos(long delayNanos) {
+        this.admissionDelayNanos += delayNanos;
+    }
+
     /**
      * The async context should not be initialized until the node for current resource has been set to current entry.
      */
@@ -63,6 +63,11 @@ public class CtSph implements Sph {
 
     private AsyncEntry asyncEntryWithPriorityInternal(ResourceWrapper resourceWrapper, int count, boolean prioritized,
                                                       Object... args) throws BlockException {
+        return asyncEntryWithPriorityInternal(resourceWrapper, count, prioritized, false, args);
+    }
+
+    private AsyncEntry asyncEntryWithPriorityInternal(ResourceWrapper resourceWrapper, int count, boolean prioritized,
+                                                      boolean waitDeferred, Object[] args) throws BlockException {
         Context context = ContextUtil.getContext();
         if (context instanceof NullContext) {
             // The {@link NullContext} indicates that the amount of context has exceeded the threshold,
@@ -87,6 +92,7 @@ public class CtSph implements Sph {
         }
 
         AsyncEntry asyncEntry = new AsyncEntry(resourceWrapper, chain, context, count, args);
+        asyncEntry.setWaitDeferred(waitDeferred);
         try {
             chain.entry(context, resourceWrapper, null, count, prioritized, args);
             // Initiate the async context only when the entry successfully passed the slot chain.
@@ -105,6 +111,8 @@ public class CtSph implements Sph {
             RecordLog.warn("Sentinel unexpected exception in asyncEntryInternal", e1);
 
             asyncEntry.cleanCurrentEntryInLocal();
+        } finally {
+            asyncEntry.setWaitDeferred(false);
         }
         return asyncEntry;
     }
@@ -353,4 +361,11 @@ public class CtSph implements Sph {
         StringResourceWrapper resource = new StringResourceWrapper(name, entryType, resourceType);
         return asyncEntryWithPriorityInternal(resource, count, prioritized, args);
     }
+
+    @Override
+    public AsyncEntry asyncEntryWithoutBlocking(String name, int resourceType, EntryType entryType, int count,
+                                                boolean prioritized, Object[] args) throws BlockException {
+        StringResourceWrapper resource = new StringResourceWrapper(name, entryType, resourceType);
+        return asyncEntryWithPriorityInternal(resource, count, prioritized, true, args);
+    }
 }
@@ -74,4 +74,34 @@ public interface SphResourceTypeSupport {
     AsyncEntry asyncEntryWithType(String name, int resourceType, EntryType trafficType, int batchCount,
                                   boolean prioritized,
                                   Object[] args) throws BlockException;
+
+    /**
+     * <p>
+     * Record statistics and perform rule checking for the given resource that indicates an async invocation,
+     * without blocking the current thread when the entry has to wait for admission (e.g. queueing in the rate
+     * limiter). The waiting time is returned by {@link AsyncEntry#getAdmissionDelayNanos()} instead, and the caller
+     * should delay the invocation of the resource accordingly.
+     * </p>
+     * <p>
+     * By default, it falls back to {@link #asyncEntryWithType(String, int, EntryType, int, boolean, Object[])},
+     * which waits for the admission in the current thread, so that the existing implementations still work.
+     * </p>
+     *
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param prioritized  whether the entry is prioritized
+     * @param args         args for parameter flow control or customized slots
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met
+     * @since 1.8.9
+     */
+    default AsyncEntry asyncEntryWithoutBlocking(String name, int resourceType, EntryType trafficType,
+                                                 int batchCount, boolean prioritized, Object[] args)
+        throws BlockException {
+        return asyncEntryWithType(name, resourceType, trafficType, batchCount, prioritized, args);
+    }
 }
@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
@@ -365,4 +366,84 @@ public class SphU {
                                         Object[] args) throws BlockException {
         return Env.sph.asyncEntryWithType(name, resourceType, trafficType, batchCount, false, args);
     }
+
+    /**
+     * Record statistics and perform rule checking for the given resource that indicates an async invocation,
+     * without blocking the current thread when the invocation has to wait for admission (e.g. queueing in the
+     * rate limiter, or occupying the tokens of the future windows). The waiting time is returned by
+     * {@link AsyncEntry#getAdmissionDelayNanos()}, and the caller should delay the invocation accordingly.
+     *
+     * @param name the unique name for the protected resource
+     * @return the {@link AsyncEntry} of this invocation
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.9
+     */
+    public static AsyncEntry asyncEntryWithoutBlocking(String name) throws BlockException {
+        return asyncEntryWithoutBlocking(name, ResourceTypeConstants.COMMON, EntryType.OUT, 1, OBJECTS0);
+    }
+
+    /**
+     * Record statistics and perform rule checking for the given resource that indicates an async invocation,
+     * without blocking the current thread when the invocation has to wait for admission (e.g. queueing in the
+     * rate limiter, or occupying the tokens of the future windows). The waiting time is returned by
+     * {@link AsyncEntry#getAdmissionDelayNanos()}, and the caller should delay the invocation accordingly.
+     *
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args         args for parameter flow control or customized slots
+     * @return the {@link AsyncEntry} of this invocation
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.9
+     */
+    public static AsyncEntry asyncEntryWithoutBlocking(String name, int resourceType, EntryType trafficType,
+                                                       int batchCount, Object[] args) throws BlockException {
+        return Env.sph.asyncEntryWithoutBlocking(name, resourceType, trafficType, batchCount, false, args);
+    }
+
+    /**
+     * Same as {@link #asyncEntryWithoutBlocking(String)}, but the returned future is completed with the entry
+     * after the admission delay, or completed exceptionally with the {@link BlockException} if blocked.
+     * The future is completed on a shared timer thread, so the dependent actions which may take time should be
+     * executed asynchronously on other executors.
+     *
+     * @param name the unique name for the protected resource
+     * @return the future of the {@link AsyncEntry} of this invocation
+     * @since 1.8.9
+     */
+    public static CompletableFuture<AsyncEntry> asyncEntryWithDelay(String name) {
+        return asyncEntryWithDelay(name, ResourceTypeConstants.COMMON, EntryType.OUT, 1, OBJECTS0);
+    }
+
+    /**
+     * Same as {@link #asyncEntryWithoutBlocking(String, int, EntryType, int, Object[])}, but the returned future
+     * is completed with the entry after the admission delay, or completed exceptionally with
+     * the {@link BlockException} if blocked. The future is completed on a shared timer thread, so the dependent
+     * actions which may take time should be executed asynchronously on other executors.
+     *
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args         args for parameter flow control or customized slots
+     * @return the future of the {@link AsyncEntry} of this invocation
+     * @since 1.8.9
+     */
+    public static CompletableFuture<AsyncEntry> asyncEntryWithDelay(String name, int resourceType,
+                                                                    EntryType trafficType, int batchCount,
+                                                                    Object[] args) {
+        try {
+            return AdmissionDelay.whenAdmitted(
+                asyncEntryWithoutBlocking(name, resourceType, trafficType, batchCount, args));
+        } catch (BlockException ex) {
+            CompletableFuture<AsyncEntry> future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
+    }
 }
@@ -60,8 +60,17 @@ public final class SentinelConfig {
     public static final String COLD_FACTOR = "csp.sentinel.flow.cold.factor";
     public static final String STATISTIC_MAX_RT = "csp.sentinel.statistic.max.rt";
     public static final String SPI_CLASSLOADER = "csp.sentinel.spi.classloader";
+    public static final String SPI_INDEX_ONLY = "csp.sentinel.spi.index.only";
     public static final String METRIC_FLUSH_INTERVAL = "csp.sentinel.metric.flush.interval";
     public static final String SKIP_REGEX_IF_SIMPLE_RULE_MATCHED_KEY = "csp.sentinel.rule.regex.skip.if.simple.matched";
+    public static final String BLOCK_EXCEPTION_PREALLOCATED = "csp.sentinel.block.exception.preallocated";
+    public static final String BLOCK_LOG_AGGREGATED = "csp.sentinel.block.log.aggregated";
+    public static final String METRIC_FILE_FORMAT = "csp.sentinel.metric.file.format";
+    public static final String METRIC_MEMORY_RETENTION_SECONDS = "csp.sentinel.metric.memory.retention.seconds";
+    public static final String SYSTEM_METRICS_PROVIDER = "csp.sentinel.system.metrics.provider";
+    public static final String SYSTEM_STATUS_INTERVAL_MS = "csp.sentinel.system.status.interval.ms";
+    public static final String SYSTEM_CGROUP_ROOT = "csp.sentinel.system.cgroup.root";
+    public static final String STATISTIC_BATCH_SIZE = "csp.sentinel.statistic.batch.size";
 
     public static final String DEFAULT_CHARSET = "UTF-8";
     public static final long DEFAULT_SINGLE_METRIC_FILE_SIZE = 1024 * 1024 * 50;
@@ -70,6 +79,17 @@ public final class SentinelConfig {
     public static final int DEFAULT_STATISTIC_MAX_RT = 5000;
     public static final long DEFAULT_METRIC_FLUSH_INTERVAL = 1L;
     public static final String DEFAULT_SKIP_REGEX_IF_SIMPLE_RULE_MATCHED = "false";
+    public static final String DEFAULT_BLOCK_EXCEPTION_PREALLOCATED = "false";
+    public static final String DEFAULT_BLOCK_LOG_AGGREGATED = "true";
+    public static final String METRIC_FILE_FORMAT_TEXT = "text";
+    public static final String METRIC_FILE_FORMAT_BINARY = "binary";
+    public static final int DEFAULT_METRIC_MEMORY_RETENTION_SECONDS = 120;
+    public static final String SYSTEM_METRICS_PROVIDER_JMX = "jmx";
+    public static final String SYSTEM_METRICS_PROVIDER_CGROUP = "cgroup";
+    public static final long DEFAULT_SYSTEM_STATUS_INTERVAL_MS = 1000;
+    public static final String DEFAULT_SYSTEM_CGROUP_ROOT = "/sys/fs/cgroup";
+    public static final int DEFAULT_STATISTIC_BATCH_SIZE = 0;
+    public static final int MAX_STATISTIC_BATCH_SIZE = 1024;
 
     static {
         try {
@@ -109,6 +129,14 @@ public final class SentinelConfig {
         setConfig(STATISTIC_MAX_RT, String.valueOf(DEFAULT_STATISTIC_MAX_RT));
         setConfig(METRIC_FLUSH_INTERVAL, String.valueOf(DEFAULT_METRIC_FLUSH_INTERVAL));
         setConfig(SKIP_REGEX_IF_SIMPLE_RULE_MATCHED_KEY, DEFAULT_SKIP_REGEX_IF_SIMPLE_RULE_MATCHED);
+        setConfig(BLOCK_EXCEPTION_PREALLOCATED, DEFAULT_BLOCK_EXCEPTION_PREALLOCATED);
+        setConfig(BLOCK_LOG_AGGREGATED, DEFAULT_BLOCK_LOG_AGGREGATED);
+        setConfig(METRIC_FILE_FORMAT, METRIC_FILE_FORMAT_TEXT);
+        setConfig(METRIC_MEMORY_RETENTION_SECONDS, String.valueOf(DEFAULT_METRIC_MEMORY_RETENTION_SECONDS));
+        setConfig(SYSTEM_METRICS_PROVIDER, SYSTEM_METRICS_PROVIDER_JMX);
+        setConfig(SYSTEM_STATUS_INTERVAL_MS, String.valueOf(DEFAULT_SYSTEM_STATUS_INTERVAL_MS));
+        setConfig(SYSTEM_CGROUP_ROOT, DEFAULT_SYSTEM_CGROUP_ROOT);
+        setConfig(STATISTIC_BATCH_SIZE, String.valueOf(DEFAULT_STATISTIC_BATCH_SIZE));
     }
 
     private static void loadProps() {
@@ -224,6 +252,22 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * Get how many seconds of recent metrics are kept in memory, so that they can be served without
+     * reading the metric files. The in-memory metrics are disabled if not positive.
+     *
+     * @since 1.8.9
+     */
+    public static int metricMemoryRetentionSeconds() {
+        try {
+            return Integer.parseInt(props.get(METRIC_MEMORY_RETENTION_SECONDS));
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Parse metricMemoryRetentionSeconds fail, use default value: "
+                    + DEFAULT_METRIC_MEMORY_RETENTION_SECONDS, throwable);
+            return DEFAULT_METRIC_MEMORY_RETENTION_SECONDS;
+        }
+    }
+
     public static int coldFactor() {
         try {
             int coldFactor = Integer.parseInt(props.get(COLD_FACTOR));
@@ -262,6 +306,34 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * <p>Get the max count of statistic events (pass, block, success and exception) that each thread
+     * could batch locally for a node before flushing them to the shared sliding windows.</p>
+     * <p>The batching is disabled if the value is not larger than 1 (by default).</p>
+     *
+     * @return the batch size of statistics
+     * @since 1.8.9
+     */
+    public static int statisticBatchSize() {
+        String v = props.get(STATISTIC_BATCH_SIZE);
+        try {
+            if (StringUtil.isEmpty(v)) {
+                return DEFAULT_STATISTIC_BATCH_SIZE;
+            }
+            int batchSize = Integer.parseInt(v);
+            if (batchSize < 0 || batchSize > MAX_STATISTIC_BATCH_SIZE) {
+                RecordLog.warn("[SentinelConfig] Invalid statisticBatchSize value: {}, using the default value "
+                    + "instead: " + DEFAULT_STATISTIC_BATCH_SIZE, v);
+                return DEFAULT_STATISTIC_BATCH_SIZE;
+            }
+            return batchSize;
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Parse statisticBatchSize fail, use default value: "
+                + DEFAULT_STATISTIC_BATCH_SIZE, throwable);
+            return DEFAULT_STATISTIC_BATCH_SIZE;
+        }
+    }
+
     /**
      * Function for resolving project name. The order is elaborated below:
      *
@@ -344,6 +416,19 @@ public final class SentinelConfig {
         return CLASSLOADER_CONTEXT.equalsIgnoreCase(classloaderConf);
     }
 
+    /**
+     * Whether to load the Providers of the Services in the static SPI index (generated by {@code sentinel-spi-processor})
+     * only, without looking up the SPI configuration files. This should be enabled only if all the Providers of
+     * an indexed Service are in the index, e.g. in native images or serverless functions.
+     * Default: false.
+     *
+     * @return whether to load the indexed Services from the SPI index only
+     * @since 1.8.9
+     */
+    public static boolean shouldLoadSpiFromIndexOnly() {
+        return Boolean.parseBoolean(getConfig(SPI_INDEX_ONLY));
+    }
+
     /**
      * Return whether to skip regex matching when simple rules already matched.
      * Default: false (keeps backward compatibility).
@@ -352,5 +437,81 @@ public final class SentinelConfig {
         return Boolean.parseBoolean(getConfig(SKIP_REGEX_IF_SIMPLE_RULE_MATCHED_KEY));
     }
 
+    /**
+     * Return whether to throw a preallocated block exception per rule instead of creating a new one
+     * for every blocked request. The shared exception does not record suppressed exceptions.
+     * Default: false (keeps backward compatibility).
+     *
+     * @since 1.8.9
+     */
+    public static boolean shouldPreallocateBlockException() {
+        return Boolean.parseBoolean(getConfig(BLOCK_EXCEPTION_PREALLOCATED));
+    }
+
+    /**
+     * Return whether to aggregate block logs with the lock-free aggregation buffer (flushed by a
+     * background writer), rather than the legacy stat logger of EagleEye.
+     * Default: true.
+     *
+     * @since 1.8.9
+     */
+    public static boolean shouldAggregateBlockLog() {
+        return Boolean.parseBoolean(getConfig(BLOCK_LOG_AGGREGATED));
+    }
+
+    /**
+     * Return whether metrics are written in the binary metric file format (memory-mapped, fixed-width
+     * records) rather than the text format. Default: false ({@code text}).
+     *
+     * @since 1.8.9
+     */
+    public static boolean isBinaryMetricFileFormat() {
+        return METRIC_FILE_FORMAT_BINARY.equalsIgnoreCase(getConfig(METRIC_FILE_FORMAT));
+    }
+
+    /**
+     * Return whether the system metrics are read from the cgroup files ({@code cgroup})
+     * rather than JMX ({@code jmx}). Default: false ({@code jmx}).
+     *
+     * @since 1.8.9
+     */
+    public static boolean isCgroupSystemMetricsProvider() {
+        return SYSTEM_METRICS_PROVIDER_CGROUP.equalsIgnoreCase(getConfig(SYSTEM_METRICS_PROVIDER));
+    }
+
+    /**
+     * Get the interval (in milliseconds) of sampling the system metrics for system rules.
+     * Sub-second intervals are supported.
+     *
+     * @since 1.8.9
+     */
+    public static long systemStatusIntervalMs() {
+        String v = props.get(SYSTEM_STATUS_INTERVAL_MS);
+        try {
+            long interval = Long.parseLong(v);
+            if (interval <= 0) {
+                RecordLog.warn("[SentinelConfig] Invalid systemStatusIntervalMs value: {}, using the default value "
+                    + "instead: " + DEFAULT_SYSTEM_STATUS_INTERVAL_MS, v);
+                return DEFAULT_SYSTEM_STATUS_INTERVAL_MS;
+            }
+            return interval;
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Parse systemStatusIntervalMs fail, use default value: "
+                + DEFAULT_SYSTEM_STATUS_INTERVAL_MS, throwable);
+            return DEFAULT_SYSTEM_STATUS_INTERVAL_MS;
+        }
+    }
+
+    /**
+     * Get the root directory of the cgroup file system, which is read when the system metrics provider
+     * is {@code cgroup}.
+     *
+     * @since 1.8.9
+     */
+    public static String systemCgroupRoot() {
+        String root = getConfig(SYSTEM_CGROUP_ROOT);
+        return StringUtil.isBlank(root) ? DEFAULT_SYSTEM_CGROUP_ROOT : root;
+    }
+
     private SentinelConfig() {}
 }
@@ -198,6 +198,22 @@ public final class EagleEye {
         return new StatLoggerBuilder(loggerName);
     }
 
+    /**
+     * Create a rolling file appender, which is watched by the EagleEye log daemon for
+     * periodic flushing and rolling.
+     *
+     * @param filePath      path of the log file
+     * @param maxFileSizeMB max size of a single log file in MB
+     * @return the appender
+     * @since 1.8.9
+     */
+    public static EagleEyeAppender rollingFileAppender(String filePath, long maxFileSizeMB) {
+        EagleEyeCoreUtils.checkNotNullEmpty(filePath, "filePath");
+        EagleEyeAppender appender = new SyncAppender(
+            new EagleEyeRollingFileAppender(filePath, maxFileSizeMB * 1024 * 1024));
+        return EagleEyeLogDaemon.watch(appender);
+    }
+
     static void setEagleEyeSelfAppender(EagleEyeAppender appender) {
         selfAppender = appender;
     }
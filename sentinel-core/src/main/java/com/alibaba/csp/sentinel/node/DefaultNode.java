@@ -124,6 +124,12 @@ public class DefaultNode extends StatisticNode {
         this.clusterNode.addRtAndSuccess(rt, successCount);
     }
 
+    @Override
+    public void addRtAndSuccess(long rtSum, long minRt, int successCount) {
+        super.addRtAndSuccess(rtSum, minRt, successCount);
+        this.clusterNode.addRtAndSuccess(rtSum, minRt, successCount);
+    }
+
     @Override
     public void increaseThreadNum() {
         super.increaseThreadNum();
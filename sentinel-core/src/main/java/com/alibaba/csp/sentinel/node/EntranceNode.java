@@ -107,6 +107,16 @@ public class EntranceNode extends DefaultNode {
         return r;
     }
 
+    @Override
+    public double passQps(double threshold) {
+        double r = 0;
+        for (Node node : getChildList()) {
+            // A single child could not tell whether the sum exceeds the threshold, so each child should be precise.
+            r += node.passQps(0);
+        }
+        return r;
+    }
+
     @Override
     public long totalRequest() {
         long r = 0;
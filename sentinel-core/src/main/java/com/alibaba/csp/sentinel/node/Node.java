@@ -75,6 +75,19 @@ public interface Node extends OccupySupport, DebugSupport {
      */
     double passQps();
 
+    /**
+     * Get pass request per second for the admission check against the given threshold. Different from
+     * {@link #passQps()}, it is always precise enough to tell whether the QPS exceeds the threshold,
+     * even if the statistics of the node are batched.
+     *
+     * @param threshold the threshold which the pass QPS is checked against
+     * @return QPS of passed requests
+     * @since 1.8.9
+     */
+    default double passQps(double threshold) {
+        return passQps();
+    }
+
     /**
      * Get block request per second.
      *
@@ -172,6 +185,20 @@ public interface Node extends OccupySupport, DebugSupport {
      */
     void addRtAndSuccess(long rt, int success);
 
+    /**
+     * Add the RT sum and success count of several requests, e.g. the estimated statistics of sampled requests.
+     * Different from {@link #addRtAndSuccess(long, int)}, the min RT is updated with {@code minRt}
+     * rather than the RT sum.
+     *
+     * @param rtSum   sum of response time
+     * @param minRt   min response time of the requests
+     * @param success success count to add
+     * @since 1.8.9
+     */
+    default void addRtAndSuccess(long rtSum, long minRt, int success) {
+        addRtAndSuccess(rtSum, success);
+    }
+
     /**
      * Increase the block count.
      *
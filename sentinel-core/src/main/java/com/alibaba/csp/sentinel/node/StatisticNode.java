@@ -20,8 +20,11 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.LongAdder;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
 import com.alibaba.csp.sentinel.slots.statistic.metric.ArrayMetric;
+import com.alibaba.csp.sentinel.slots.statistic.metric.BatchedMetricWriter;
 import com.alibaba.csp.sentinel.slots.statistic.metric.Metric;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.Predicate;
@@ -84,6 +87,15 @@ import com.alibaba.csp.sentinel.util.function.Predicate;
  *                                                    request
  * </pre>
  *
+ * <p>
+ * When {@code csp.sentinel.statistic.batch.size} is larger than 1, the pass, block, success, RT and exception
+ * statistics are batched in thread-local buffers (see {@link BatchedMetricWriter}), which are flushed to the
+ * sliding windows when the bucket changes or the batch is full. The pending passed requests are merged into
+ * {@link #passQps(double)} only when they could make the pass QPS exceed the threshold of admission, and all
+ * pending statistics are flushed before reading the minute-level metrics. Other second-level statistics
+ * (including {@link #passQps()}) may miss less than {@code batchSize} events per thread of the current bucket.
+ * </p>
+ *
  * @author qinan.qn
  * @author jialiang.linjl
  */
@@ -107,13 +119,60 @@ public class StatisticNode implements Node {
      */
     private LongAdder curThreadNum = new LongAdder();
 
+    /**
+     * The thread-local batched writer of statistics, which is null if batching is disabled.
+     */
+    private final transient BatchedMetricWriter batchedWriter = newBatchedWriter();
+
     /**
      * The last timestamp when metrics were fetched.
      */
     private long lastFetchTime = -1;
 
+    private BatchedMetricWriter newBatchedWriter() {
+        int batchSize = SentinelConfig.statisticBatchSize();
+        if (batchSize <= 1) {
+            return null;
+        }
+        return new BatchedMetricWriter(batchSize, batchWindowLength(), new BatchedMetricWriter.Sink() {
+            @Override
+            public void flush(long windowStart, long[] counts, long minRt) {
+                rollingCounterInSecond.addBatch(windowStart, counts, minRt);
+                rollingCounterInMinute.addBatch(windowStart, counts, minRt);
+            }
+        });
+    }
+
+    /**
+     * The buffer window should fit in the buckets of both the second-level and the minute-level metrics.
+     */
+    private static int batchWindowLength() {
+        int a = IntervalProperty.INTERVAL / SampleCountProperty.SAMPLE_COUNT;
+        int b = 1000;
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * For unit test.
+     */
+    BatchedMetricWriter getBatchedWriter() {
+        return batchedWriter;
+    }
+
+    private void flushPending() {
+        if (batchedWriter != null) {
+            batchedWriter.flushAll();
+        }
+    }
+
     @Override
     public Map<Long, MetricNode> metrics() {
+        flushPending();
         // The fetch operation is thread-safe under a single-thread scheduler pool.
         long currentTime = TimeUtil.currentTimeMillis();
         currentTime = currentTime - currentTime % 1000;
@@ -134,6 +193,7 @@ public class StatisticNode implements Node {
 
     @Override
     public List<MetricNode> rawMetricsInMin(Predicate<Long> timePredicate) {
+        flushPending();
         return rollingCounterInMinute.detailsOnCondition(timePredicate);
     }
 
@@ -149,15 +209,20 @@ public class StatisticNode implements Node {
     @Override
     public void reset() {
         rollingCounterInSecond = new ArrayMetric(SampleCountProperty.SAMPLE_COUNT, IntervalProperty.INTERVAL);
+        if (batchedWriter != null) {
+            batchedWriter.setWindowLengthInMs(batchWindowLength());
+        }
     }
 
     @Override
     public long totalRequest() {
+        flushPending();
         return rollingCounterInMinute.pass() + rollingCounterInMinute.block();
     }
 
     @Override
     public long blockRequest() {
+        flushPending();
         return rollingCounterInMinute.block();
     }
 
@@ -183,6 +248,7 @@ public class StatisticNode implements Node {
 
     @Override
     public long totalSuccess() {
+        flushPending();
         return rollingCounterInMinute.success();
     }
 
@@ -193,6 +259,7 @@ public class StatisticNode implements Node {
 
     @Override
     public long totalException() {
+        flushPending();
         return rollingCounterInMinute.exception();
     }
 
@@ -201,8 +268,25 @@ public class StatisticNode implements Node {
         return rollingCounterInSecond.pass() / rollingCounterInSecond.getWindowIntervalInSec();
     }
 
+    @Override
+    public double passQps(double threshold) {
+        double qps = passQps();
+        if (batchedWriter == null) {
+            return qps;
+        }
+        double intervalInSec = rollingCounterInSecond.getWindowIntervalInSec();
+        if (qps + batchedWriter.maxPending() / intervalInSec > threshold) {
+            // Pending passed requests of all threads are merged only if they matter to the admission.
+            long intervalInMs = (long)(intervalInSec * 1000);
+            qps += batchedWriter.pending(MetricEvent.PASS, TimeUtil.currentTimeMillis() - intervalInMs)
+                / intervalInSec;
+        }
+        return qps;
+    }
+
     @Override
     public long totalPass() {
+        flushPending();
         return rollingCounterInMinute.pass();
     }
 
@@ -244,12 +328,20 @@ public class StatisticNode implements Node {
 
     @Override
     public void addPassRequest(int count) {
+        if (batchedWriter != null) {
+            batchedWriter.add(MetricEvent.PASS, count);
+            return;
+        }
         rollingCounterInSecond.addPass(count);
         rollingCounterInMinute.addPass(count);
     }
 
     @Override
     public void addRtAndSuccess(long rt, int successCount) {
+        if (batchedWriter != null) {
+            batchedWriter.addRtAndSuccess(rt, successCount);
+            return;
+        }
         rollingCounterInSecond.addSuccess(successCount);
         rollingCounterInSecond.addRT(rt);
 
@@ -257,14 +349,32 @@ public class StatisticNode implements Node {
         rollingCounterInMinute.addRT(rt);
     }
 
+    @Override
+    public void addRtAndSuccess(long rtSum, long minRt, int successCount) {
+        if (batchedWriter != null) {
+            batchedWriter.addRtAndSuccess(rtSum, minRt, successCount);
+            return;
+        }
+        rollingCounterInSecond.addRtAndSuccess(rtSum, minRt, successCount);
+        rollingCounterInMinute.addRtAndSuccess(rtSum, minRt, successCount);
+    }
+
     @Override
     public void increaseBlockQps(int count) {
+        if (batchedWriter != null) {
+            batchedWriter.add(MetricEvent.BLOCK, count);
+            return;
+        }
         rollingCounterInSecond.addBlock(count);
         rollingCounterInMinute.addBlock(count);
     }
 
     @Override
     public void increaseExceptionQps(int count) {
+        if (batchedWriter != null) {
+            batchedWriter.add(MetricEvent.EXCEPTION, count);
+            return;
+        }
         rollingCounterInSecond.addException(count);
         rollingCounterInMinute.addException(count);
     }
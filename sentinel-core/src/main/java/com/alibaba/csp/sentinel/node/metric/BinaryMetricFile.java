@@ -0,0 +1,243 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Layout of the binary metric file, shared by {@link BinaryMetricWriter} and {@link BinaryMetricSearcher}.</p>
+ *
+ * <p>A binary metric file is composed of a fixed-size header and fixed-width records sorted by timestamp:</p>
+ * <pre>
+ * header (32 bytes): magic(int) | version(int) | recordSize(int) | reserved(int) | recordCount(long) | reserved(long)
+ * record (72 bytes): timestamp(long) | resourceId(int) | classification(int) | passQps(long) | blockQps(long)
+ *                    | successQps(long) | exceptionQps(long) | rt(long) | occupiedPassQps(long) | concurrency(int)
+ *                    | reserved(int)
+ * </pre>
+ * <p>
+ * The {@code recordCount} is updated after the records have been written, so readers will never see
+ * partial records. Resource names are stored once in the accompanied dictionary file
+ * ({@code ${metricFileName}.dict}) as a sequence of {@code length(int) | utf8 bytes}, and records refer to
+ * them by ordinal. As records are fixed-width and sorted, records of a given time can be located by
+ * binary search without any extra index file.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+final class BinaryMetricFile {
+
+    static final int MAGIC = 0x534E544D;
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 72;
+
+    static final int RECORD_COUNT_OFFSET = 16;
+
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int RESOURCE_OFFSET = 8;
+    static final int CLASSIFICATION_OFFSET = 12;
+    static final int PASS_OFFSET = 16;
+    static final int BLOCK_OFFSET = 24;
+    static final int SUCCESS_OFFSET = 32;
+    static final int EXCEPTION_OFFSET = 40;
+    static final int RT_OFFSET = 48;
+    static final int OCCUPIED_PASS_OFFSET = 56;
+    static final int CONCURRENCY_OFFSET = 64;
+
+    static final String DICT_FILE_SUFFIX = ".dict";
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String fileName;
+    private final MappedByteBuffer buffer;
+    private final List<String> resources = new ArrayList<String>();
+    private long dictOffset = 0;
+
+    private BinaryMetricFile(String fileName, MappedByteBuffer buffer) {
+        this.fileName = fileName;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Map an existing binary metric file in read-only mode.
+     */
+    static BinaryMetricFile openReadOnly(String fileName) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(fileName, "r");
+        try {
+            long size = raf.length();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Invalid binary metric file: " + fileName);
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(8) != RECORD_SIZE) {
+                throw new IOException("Invalid binary metric file: " + fileName);
+            }
+            return new BinaryMetricFile(fileName, buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    static String formDictFileName(String metricFileName) {
+        return metricFileName + DICT_FILE_SUFFIX;
+    }
+
+    static int capacityOf(long fileSize) {
+        return (int)Math.min(Integer.MAX_VALUE, Math.max(1, (fileSize - HEADER_SIZE) / RECORD_SIZE));
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_SIZE);
+        buffer.putLong(RECORD_COUNT_OFFSET, 0);
+    }
+
+    static void writeRecord(ByteBuffer buffer, int index, MetricNode node, int resourceId) {
+        int pos = HEADER_SIZE + index * RECORD_SIZE;
+        buffer.putLong(pos + TIMESTAMP_OFFSET, node.getTimestamp());
+        buffer.putInt(pos + RESOURCE_OFFSET, resourceId);
+        buffer.putInt(pos + CLASSIFICATION_OFFSET, node.getClassification());
+        buffer.putLong(pos + PASS_OFFSET, node.getPassQps());
+        buffer.putLong(pos + BLOCK_OFFSET, node.getBlockQps());
+        buffer.putLong(pos + SUCCESS_OFFSET, node.getSuccessQps());
+        buffer.putLong(pos + EXCEPTION_OFFSET, node.getExceptionQps());
+        buffer.putLong(pos + RT_OFFSET, node.getRt());
+        buffer.putLong(pos + OCCUPIED_PASS_OFFSET, node.getOccupiedPassQps());
+        buffer.putInt(pos + CONCURRENCY_OFFSET, node.getConcurrency());
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    int recordCount() {
+        long count = buffer.getLong(RECORD_COUNT_OFFSET);
+        return (int)Math.min(count, (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    long timestampAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE + TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * Find the index of the first record whose timestamp is not less than the given time (binary search).
+     *
+     * @param timeMs    the time in milliseconds
+     * @param recordCount amount of the records
+     * @return index of the first matched record, or {@code recordCount} if absent
+     */
+    int lowerBound(long timeMs, int recordCount) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int resourceIdAt(int index) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + RESOURCE_OFFSET);
+    }
+
+    /**
+     * Read the record of given index into the given node.
+     */
+    MetricNode readRecord(int index, MetricNode node) throws IOException {
+        int pos = HEADER_SIZE + index * RECORD_SIZE;
+        node.setTimestamp(buffer.getLong(pos + TIMESTAMP_OFFSET));
+        node.setResource(resourceOf(buffer.getInt(pos + RESOURCE_OFFSET)));
+        node.setClassification(buffer.getInt(pos + CLASSIFICATION_OFFSET));
+        node.setPassQps(buffer.getLong(pos + PASS_OFFSET));
+        node.setBlockQps(buffer.getLong(pos + BLOCK_OFFSET));
+        node.setSuccessQps(buffer.getLong(pos + SUCCESS_OFFSET));
+        node.setExceptionQps(buffer.getLong(pos + EXCEPTION_OFFSET));
+        node.setRt(buffer.getLong(pos + RT_OFFSET));
+        node.setOccupiedPassQps(buffer.getLong(pos + OCCUPIED_PASS_OFFSET));
+        node.setConcurrency(buffer.getInt(pos + CONCURRENCY_OFFSET));
+        return node;
+    }
+
+    /**
+     * Get the resource name of the given id. The dictionary is loaded incrementally when absent.
+     */
+    synchronized String resourceOf(int id) throws IOException {
+        if (id >= resources.size()) {
+            loadDictionary();
+        }
+        if (id < 0 || id >= resources.size()) {
+            throw new IOException("Unknown resource id " + id + " in " + fileName);
+        }
+        return resources.get(id);
+    }
+
+    /**
+     * Get the id of given resource, or -1 if the resource is absent in this file.
+     */
+    synchronized int idOf(String resource) throws IOException {
+        loadDictionary();
+        return resources.indexOf(resource);
+    }
+
+    private void loadDictionary() throws IOException {
+        File dictFile = new File(formDictFileName(fileName));
+        if (!dictFile.exists() || dictFile.length() <= dictOffset) {
+            return;
+        }
+        FileInputStream fin = new FileInputStream(dictFile);
+        try {
+            fin.getChannel().position(dictOffset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(fin));
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] bytes = new byte[len];
+                try {
+                    in.readFully(bytes);
+                } catch (EOFException e) {
+                    // Partially written entry, retry next time.
+                    break;
+                }
+                resources.add(new String(bytes, UTF_8));
+                dictOffset += 4 + len;
+            }
+        } finally {
+            fin.close();
+        }
+    }
+}
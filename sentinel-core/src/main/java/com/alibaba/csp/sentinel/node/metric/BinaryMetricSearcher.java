@@ -0,0 +1,206 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>Searches metrics from binary metric files written by {@link BinaryMetricWriter}.
+ * Files are memory-mapped and cached, and the first record of the given time is located
+ * by binary search (O(log n)).</p>
+ *
+ * <p>Besides the methods returning {@code List<MetricNode>} (same as {@link MetricSearcher}),
+ * the {@code forEach} methods stream the matched records to a consumer. In streaming mode the
+ * same {@link MetricNode} instance is reused for all records, so the consumer should not hold it.</p>
+ *
+ * @since 1.8.9
+ */
+public class BinaryMetricSearcher {
+
+    /**
+     * Avoid OOM in any cases.
+     */
+    private static final int MAX_LINES_RETURN = 100000;
+
+    private final String baseDir;
+    private final String baseFileName;
+
+    private final Map<String, BinaryMetricFile> fileCache = new HashMap<String, BinaryMetricFile>();
+
+    public BinaryMetricSearcher(String baseDir, String baseFileName) {
+        if (baseDir == null) {
+            throw new IllegalArgumentException("baseDir can't be null");
+        }
+        if (baseFileName == null) {
+            throw new IllegalArgumentException("baseFileName can't be null");
+        }
+        this.baseDir = baseDir.endsWith(File.separator) ? baseDir : baseDir + File.separator;
+        this.baseFileName = baseFileName;
+    }
+
+    /**
+     * Find about {@code recommendLines} records from {@code beginTimeMs}. Records of the same second
+     * won't be split.
+     *
+     * @see MetricSearcher#find(long, int)
+     */
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+        final List<MetricNode> list = new ArrayList<MetricNode>();
+        forEach(beginTimeMs, recommendLines, new CopyingConsumer(list));
+        return list;
+    }
+
+    /**
+     * Find metric between [beginTimeMs, endTimeMs], both side inclusive.
+     * When identity is null, all metric between the time intervalMs will be read, otherwise, only the specific
+     * identity will be read.
+     *
+     * @see MetricSearcher#findByTimeAndResource(long, long, String)
+     */
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+        throws Exception {
+        final List<MetricNode> list = new ArrayList<MetricNode>();
+        forEach(beginTimeMs, endTimeMs, identity, new CopyingConsumer(list));
+        return list;
+    }
+
+    /**
+     * Stream about {@code recommendLines} records from {@code beginTimeMs} to the consumer.
+     * Records of the same second won't be split.
+     *
+     * @return amount of the records consumed
+     */
+    public synchronized int forEach(long beginTimeMs, int recommendLines, Consumer<MetricNode> consumer)
+        throws Exception {
+        long beginSecondMs = beginTimeMs / 1000 * 1000;
+        MetricNode node = new MetricNode();
+        int count = 0;
+        long lastSecond = -1;
+        for (BinaryMetricFile file : openFiles()) {
+            int total = file.recordCount();
+            if (total == 0 || file.timestampAt(total - 1) < beginSecondMs) {
+                continue;
+            }
+            for (int i = file.lowerBound(beginSecondMs, total); i < total; i++) {
+                long second = file.timestampAt(i) / 1000;
+                if (count >= recommendLines && second != lastSecond) {
+                    return count;
+                }
+                consumer.accept(file.readRecord(i, node));
+                count++;
+                lastSecond = second;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stream records between [beginTimeMs, endTimeMs] (both side inclusive) to the consumer.
+     * When identity is null, all records will be consumed, otherwise only the specific identity.
+     *
+     * @return amount of the records consumed
+     */
+    public synchronized int forEach(long beginTimeMs, long endTimeMs, String identity,
+                                    Consumer<MetricNode> consumer) throws Exception {
+        long beginSecondMs = beginTimeMs / 1000 * 1000;
+        long endSecond = endTimeMs / 1000;
+        MetricNode node = new MetricNode();
+        int count = 0;
+        for (BinaryMetricFile file : openFiles()) {
+            int total = file.recordCount();
+            if (total == 0 || file.timestampAt(total - 1) < beginSecondMs) {
+                continue;
+            }
+            int resourceId = -1;
+            if (identity != null) {
+                resourceId = file.idOf(identity);
+                if (resourceId < 0) {
+                    continue;
+                }
+            }
+            for (int i = file.lowerBound(beginSecondMs, total); i < total; i++) {
+                if (file.timestampAt(i) / 1000 > endSecond) {
+                    return count;
+                }
+                if (resourceId >= 0 && file.resourceIdAt(i) != resourceId) {
+                    continue;
+                }
+                consumer.accept(file.readRecord(i, node));
+                if (++count >= MAX_LINES_RETURN) {
+                    return count;
+                }
+            }
+        }
+        return count;
+    }
+
+    private List<BinaryMetricFile> openFiles() throws Exception {
+        List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
+        List<BinaryMetricFile> files = new ArrayList<BinaryMetricFile>(fileNames.size());
+        Set<String> alive = new HashSet<String>(fileNames);
+        fileCache.keySet().retainAll(alive);
+        for (String fileName : fileNames) {
+            BinaryMetricFile file = fileCache.get(fileName);
+            if (file == null) {
+                try {
+                    file = BinaryMetricFile.openReadOnly(fileName);
+                } catch (Exception ex) {
+                    // Maybe the file is being created or deleted.
+                    continue;
+                }
+                fileCache.put(fileName, file);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Copies every streamed (reused) node into the list.
+     */
+    static final class CopyingConsumer implements Consumer<MetricNode> {
+
+        private final List<MetricNode> list;
+
+        CopyingConsumer(List<MetricNode> list) {
+            this.list = list;
+        }
+
+        @Override
+        public void accept(MetricNode node) {
+            MetricNode copy = new MetricNode();
+            copy.setTimestamp(node.getTimestamp());
+            copy.setResource(node.getResource());
+            copy.setClassification(node.getClassification());
+            copy.setPassQps(node.getPassQps());
+            copy.setBlockQps(node.getBlockQps());
+            copy.setSuccessQps(node.getSuccessQps());
+            copy.setExceptionQps(node.getExceptionQps());
+            copy.setRt(node.getRt());
+            copy.setOccupiedPassQps(node.getOccupiedPassQps());
+            copy.setConcurrency(node.getConcurrency());
+            list.add(copy);
+        }
+    }
+}
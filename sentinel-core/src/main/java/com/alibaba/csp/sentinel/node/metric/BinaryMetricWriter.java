@@ -0,0 +1,235 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.LogBase;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.PidUtil;
+
+/**
+ * <p>Writes {@link MetricNode} to disk in the binary metric format (see {@link BinaryMetricFile}),
+ * as an alternative of the text format of {@link MetricWriter}.</p>
+ *
+ * <ol>
+ * <li>records are appended to a memory-mapped file without any string formatting;</li>
+ * <li>single file size must be controlled (the file is preallocated to the max size);</li>
+ * <li>file name is like: {@code ${appName}-metrics.bin.pid${pid}.yyyy-MM-dd.[number]}</li>
+ * <li>metric of different day should in different file;</li>
+ * <li>every metric file is accompanied with a resource dictionary file, which file name is
+ * {@code ${metricFileName}.dict}</li>
+ * </ol>
+ *
+ * @since 1.8.9
+ */
+public class BinaryMetricWriter {
+
+    public static final String METRIC_FILE = "metrics.bin";
+
+    private final String baseDir;
+    private final String baseFileName;
+    private final long singleFileSize;
+    private final int totalFileCount;
+
+    private String curFileName;
+    private MappedByteBuffer curBuffer;
+    private int curCapacity;
+    private int curCount;
+    private DataOutputStream outDict;
+    private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+
+    private long lastSecond = -1;
+
+    public BinaryMetricWriter(long singleFileSize, int totalFileCount) {
+        this(MetricWriter.METRIC_BASE_DIR, formMetricFileName(SentinelConfig.getAppName(), PidUtil.getPid()),
+            singleFileSize, totalFileCount);
+    }
+
+    public BinaryMetricWriter(String baseDir, String baseFileName, long singleFileSize, int totalFileCount) {
+        if (singleFileSize <= BinaryMetricFile.HEADER_SIZE || totalFileCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (baseDir == null || baseFileName == null) {
+            throw new IllegalArgumentException("baseDir and baseFileName can't be null");
+        }
+        RecordLog.info("[BinaryMetricWriter] Creating new BinaryMetricWriter, singleFileSize={}, totalFileCount={}",
+            singleFileSize, totalFileCount);
+        this.baseDir = baseDir.endsWith(File.separator) ? baseDir : baseDir + File.separator;
+        this.baseFileName = baseFileName;
+        this.singleFileSize = singleFileSize;
+        this.totalFileCount = totalFileCount;
+        File dir = new File(this.baseDir);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+    }
+
+    /**
+     * Write metric nodes of the same second. All the nodes will be regarded as at the given time.
+     *
+     * @param time  timestamp of the metric nodes
+     * @param nodes metric nodes
+     */
+    public synchronized void write(long time, List<MetricNode> nodes) throws Exception {
+        if (nodes == null || nodes.isEmpty()) {
+            return;
+        }
+        long second = time / 1000;
+        if (second < lastSecond) {
+            // Ignore the earlier ones, which should not happen.
+            return;
+        }
+        if (curBuffer == null || !new File(curFileName).exists() || isNewDay(lastSecond, second)) {
+            closeAndNewFile(time);
+        }
+        lastSecond = second;
+
+        for (MetricNode node : nodes) {
+            if (curCount >= curCapacity) {
+                commit();
+                closeAndNewFile(time);
+            }
+            node.setTimestamp(time);
+            BinaryMetricFile.writeRecord(curBuffer, curCount++, node, resourceIdOf(node.getResource()));
+        }
+        commit();
+    }
+
+    public synchronized void close() throws Exception {
+        if (outDict != null) {
+            outDict.close();
+            outDict = null;
+        }
+        if (curBuffer != null) {
+            curBuffer.force();
+            curBuffer = null;
+        }
+    }
+
+    private int resourceIdOf(String resource) throws Exception {
+        if (resource == null) {
+            resource = "";
+        }
+        Integer id = resourceIds.get(resource);
+        if (id == null) {
+            byte[] bytes = resource.getBytes(BinaryMetricFile.UTF_8);
+            outDict.writeInt(bytes.length);
+            outDict.write(bytes);
+            id = resourceIds.size();
+            resourceIds.put(resource, id);
+        }
+        return id;
+    }
+
+    /**
+     * Make the written records visible to readers. The dictionary must be flushed before the record count.
+     */
+    private void commit() throws Exception {
+        outDict.flush();
+        curBuffer.putLong(BinaryMetricFile.RECORD_COUNT_OFFSET, curCount);
+    }
+
+    private void closeAndNewFile(long time) throws Exception {
+        close();
+        removeMoreFiles();
+        String fileName = nextFileNameOfDay(time);
+        RandomAccessFile raf = new RandomAccessFile(fileName, "rw");
+        try {
+            curBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, singleFileSize);
+        } finally {
+            raf.close();
+        }
+        BinaryMetricFile.writeHeader(curBuffer);
+        curCapacity = BinaryMetricFile.capacityOf(singleFileSize);
+        curCount = 0;
+        curFileName = fileName;
+        resourceIds.clear();
+        outDict = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(BinaryMetricFile.formDictFileName(fileName), false)));
+        RecordLog.info("[BinaryMetricWriter] New metric file created: {}", fileName);
+    }
+
+    private String nextFileNameOfDay(long time) throws Exception {
+        DateFormat fileNameDf = new SimpleDateFormat("yyyy-MM-dd");
+        String fileNameModel = baseFileName + "." + fileNameDf.format(new Date(time));
+        int n = -1;
+        for (String file : MetricWriter.listMetricFiles(baseDir, baseFileName)) {
+            String name = new File(file).getName();
+            if (!name.startsWith(fileNameModel)) {
+                continue;
+            }
+            String suffix = name.substring(fileNameModel.length());
+            n = Math.max(n, suffix.isEmpty() ? 0 : Integer.parseInt(suffix.substring(1)));
+        }
+        if (n < 0) {
+            return baseDir + fileNameModel;
+        }
+        return baseDir + fileNameModel + "." + (n + 1);
+    }
+
+    private void removeMoreFiles() throws Exception {
+        List<String> list = MetricWriter.listMetricFiles(baseDir, baseFileName);
+        for (int i = 0; i < list.size() - totalFileCount + 1; i++) {
+            String fileName = list.get(i);
+            new File(fileName).delete();
+            new File(BinaryMetricFile.formDictFileName(fileName)).delete();
+            RecordLog.info("[BinaryMetricWriter] Removing metric file: {}", fileName);
+        }
+    }
+
+    private static boolean isNewDay(long lastSecond, long second) {
+        return lastSecond >= 0 && dayOf(lastSecond * 1000) != dayOf(second * 1000);
+    }
+
+    private static long dayOf(long timeMs) {
+        return (timeMs + TimeZone.getDefault().getOffset(timeMs)) / 86400000L;
+    }
+
+    /**
+     * Form binary metric file name use the specific appName and pid. Note that only
+     * form the file name, not include path.
+     *
+     * @param appName application name
+     * @param pid     process id
+     * @return binary metric file name
+     */
+    public static String formMetricFileName(String appName, int pid) {
+        if (appName == null) {
+            appName = "";
+        }
+        // dot is special char that should be replaced.
+        String name = appName.replace(".", "-") + "-" + METRIC_FILE;
+        if (LogBase.isLogNameUsePid()) {
+            name += ".pid" + pid;
+        }
+        return name;
+    }
+}
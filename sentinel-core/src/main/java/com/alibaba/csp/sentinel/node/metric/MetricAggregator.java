@@ -0,0 +1,178 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
+import com.alibaba.csp.sentinel.util.function.Predicate;
+
+/**
+ * <p>Aggregates the per-second metrics of {@link ClusterNode}s for {@link MetricTimerListener}.</p>
+ *
+ * <p>Nodes are split into partitions which are scanned in parallel by a fork-join pool (if any).
+ * Each partition collects the records into buckets indexed by the second in the minute, and buckets
+ * of partitions are concatenated when joined. Records are then emitted to the writer second by second
+ * in ascending order of time, without any intermediate map.</p>
+ *
+ * @since 1.8.9
+ */
+public class MetricAggregator {
+
+    /**
+     * Metrics of the recent 60 seconds are held by the nodes.
+     */
+    private static final int SECONDS_IN_MINUTE = 60;
+
+    public static final int DEFAULT_PARTITION_SIZE = 1024;
+
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+
+    /**
+     * @param pool          the pool to scan partitions in parallel, or null to scan sequentially
+     * @param partitionSize max amount of nodes of a partition
+     */
+    public MetricAggregator(ForkJoinPool pool, int partitionSize) {
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("partitionSize should be positive");
+        }
+        this.pool = pool;
+        this.partitionSize = partitionSize;
+    }
+
+    /**
+     * Aggregate metrics of the seconds between (lastFetchTime, currentTime) of the given nodes,
+     * and emit them to the writer second by second in ascending order of time.
+     *
+     * @param nodes         the nodes to aggregate
+     * @param lastFetchTime the end time of the last aggregation (exclusive)
+     * @param currentTime   start time of current second (exclusive)
+     * @param writer        consumer of the timestamp and records of every second
+     * @return amount of the emitted records
+     */
+    public int aggregate(ClusterNode[] nodes, final long lastFetchTime, final long currentTime,
+                         BiConsumer<Long, List<MetricNode>> writer) {
+        Predicate<Long> timePredicate = new Predicate<Long>() {
+            @Override
+            public boolean test(Long time) {
+                return time > lastFetchTime && time < currentTime;
+            }
+        };
+        PartitionTask task = new PartitionTask(nodes, 0, nodes.length, timePredicate, partitionSize);
+        List<MetricNode>[] buckets;
+        if (pool == null || nodes.length <= partitionSize) {
+            buckets = task.compute();
+        } else {
+            buckets = pool.invoke(task);
+        }
+
+        int count = 0;
+        long currentSecond = currentTime / 1000;
+        for (long second = currentSecond - SECONDS_IN_MINUTE; second < currentSecond; second++) {
+            List<MetricNode> list = buckets[(int)(second % SECONDS_IN_MINUTE)];
+            if (list == null || list.isEmpty()) {
+                continue;
+            }
+            long time = second * 1000;
+            // Buckets are indexed by the second in the minute, so records should be checked by timestamp.
+            if (list.get(0).getTimestamp() != time) {
+                continue;
+            }
+            writer.accept(time, list);
+            count += list.size();
+        }
+        return count;
+    }
+
+    static boolean isValidMetricNode(MetricNode node) {
+        return node.getPassQps() > 0 || node.getBlockQps() > 0 || node.getSuccessQps() > 0
+            || node.getExceptionQps() > 0 || node.getRt() > 0 || node.getOccupiedPassQps() > 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<MetricNode>[] newBuckets() {
+        return new List[SECONDS_IN_MINUTE];
+    }
+
+    private static final class PartitionTask extends RecursiveTask<List<MetricNode>[]> {
+
+        private final ClusterNode[] nodes;
+        private final int from;
+        private final int to;
+        private final Predicate<Long> timePredicate;
+        private final int partitionSize;
+
+        PartitionTask(ClusterNode[] nodes, int from, int to, Predicate<Long> timePredicate, int partitionSize) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+            this.timePredicate = timePredicate;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected List<MetricNode>[] compute() {
+            if (to - from <= partitionSize) {
+                return scan();
+            }
+            int mid = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(nodes, from, mid, timePredicate, partitionSize);
+            PartitionTask right = new PartitionTask(nodes, mid, to, timePredicate, partitionSize);
+            left.fork();
+            List<MetricNode>[] rightBuckets = right.compute();
+            List<MetricNode>[] leftBuckets = left.join();
+            // Keep the order of nodes.
+            for (int i = 0; i < SECONDS_IN_MINUTE; i++) {
+                if (rightBuckets[i] == null) {
+                    continue;
+                }
+                if (leftBuckets[i] == null) {
+                    leftBuckets[i] = rightBuckets[i];
+                } else {
+                    leftBuckets[i].addAll(rightBuckets[i]);
+                }
+            }
+            return leftBuckets;
+        }
+
+        private List<MetricNode>[] scan() {
+            List<MetricNode>[] buckets = newBuckets();
+            for (int i = from; i < to; i++) {
+                ClusterNode node = nodes[i];
+                for (MetricNode metricNode : node.rawMetricsInMin(timePredicate)) {
+                    if (!isValidMetricNode(metricNode)) {
+                        continue;
+                    }
+                    metricNode.setResource(node.getName());
+                    metricNode.setClassification(node.getResourceType());
+                    int index = (int)(metricNode.getTimestamp() / 1000 % SECONDS_IN_MINUTE);
+                    List<MetricNode> bucket = buckets[index];
+                    if (bucket == null) {
+                        bucket = new ArrayList<MetricNode>();
+                        buckets[index] = bucket;
+                    }
+                    bucket.add(metricNode);
+                }
+            }
+            return buckets;
+        }
+    }
+}
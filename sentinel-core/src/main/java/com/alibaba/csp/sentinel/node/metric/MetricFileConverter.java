@@ -0,0 +1,109 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+
+/**
+ * <p>Converts metric files of the text format (written by {@link MetricWriter}) into the binary
+ * format (see {@link BinaryMetricWriter}), so that history metrics can still be searched after
+ * switching {@code csp.sentinel.metric.file.format} to {@code binary}.</p>
+ *
+ * <p>Usage:</p>
+ * <pre>
+ * java -cp sentinel-core.jar com.alibaba.csp.sentinel.node.metric.MetricFileConverter
+ *     ${baseDir} ${textBaseFileName} ${binaryBaseFileName}
+ * </pre>
+ * e.g. {@code ~/logs/csp/ app-metrics.log.pid123 app-metrics.bin.pid123}. All the text metric files
+ * matching {@code textBaseFileName} are converted. The original files are kept untouched.
+ *
+ * @since 1.8.9
+ */
+public final class MetricFileConverter {
+
+    /**
+     * Convert all the text metric files of the given base file name.
+     *
+     * @param baseDir            directory of the metric files
+     * @param textBaseFileName   base file name of the text metric files
+     * @param binaryBaseFileName base file name of the binary metric files to write
+     * @return amount of the converted records
+     */
+    public static long convert(String baseDir, String textBaseFileName, String binaryBaseFileName)
+        throws Exception {
+        List<String> textFiles = MetricWriter.listMetricFiles(baseDir, textBaseFileName);
+        // Keep all the converted files.
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir, binaryBaseFileName,
+            SentinelConfig.singleMetricFileSize(), Integer.MAX_VALUE);
+        long count = 0;
+        try {
+            for (String textFile : textFiles) {
+                count += convertFile(textFile, writer);
+            }
+        } finally {
+            writer.close();
+        }
+        return count;
+    }
+
+    private static long convertFile(String textFile, BinaryMetricWriter writer) throws Exception {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(textFile),
+            SentinelConfig.charset()));
+        long count = 0;
+        try {
+            List<MetricNode> nodes = new ArrayList<MetricNode>();
+            long time = -1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                MetricNode node = MetricNode.fromFatString(line);
+                if (node.getTimestamp() != time && !nodes.isEmpty()) {
+                    writer.write(time, nodes);
+                    count += nodes.size();
+                    nodes.clear();
+                }
+                time = node.getTimestamp();
+                nodes.add(node);
+            }
+            if (!nodes.isEmpty()) {
+                writer.write(time, nodes);
+                count += nodes.size();
+            }
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: MetricFileConverter <baseDir> <textBaseFileName> <binaryBaseFileName>");
+            System.exit(1);
+        }
+        long count = convert(args[0], args[1], args[2]);
+        System.out.println("Converted " + count + " metric records");
+    }
+
+    private MetricFileConverter() {}
+}
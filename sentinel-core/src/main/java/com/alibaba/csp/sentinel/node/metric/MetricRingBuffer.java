@@ -0,0 +1,320 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>Bounded in-memory ring of the recent per-second {@link MetricNode} snapshots, which is populated
+ * by {@link MetricTimerListener} along with the metric files. Recent metrics can be served from
+ * the ring without any disk I/O or text parsing.</p>
+ *
+ * <p>The ring holds one slot for each second of the retention. Records of a slot are stored in
+ * primitive arrays (resource names are interned as ordinals), and the slot is reused when the
+ * ring wraps around. Readers copy the records of one second at a time and consume them out of the lock,
+ * so that a slow consumer (e.g. streaming to a stalled client) never blocks the writer.</p>
+ *
+ * <p>Everything written to the metric files is written to the ring as well, so metrics since
+ * {@link #coveredSince()} are complete in the ring, and only older metrics have to be read from disk.</p>
+ *
+ * @since 1.8.9
+ */
+public class MetricRingBuffer {
+
+    /**
+     * passQps, blockQps, successQps, exceptionQps, rt, occupiedPassQps, concurrency
+     */
+    private static final int VALUE_COUNT = 7;
+
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+
+    private static volatile MetricRingBuffer defaultBuffer;
+
+    private final int retentionSeconds;
+    private final Slot[] slots;
+
+    private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+    private final List<String> resources = new ArrayList<String>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long firstSecond = -1;
+    private long lastSecond = -1;
+
+    /**
+     * @param retentionSeconds how many seconds of metrics are kept; the ring is disabled if not positive
+     */
+    public MetricRingBuffer(int retentionSeconds) {
+        this.retentionSeconds = Math.max(0, retentionSeconds);
+        this.slots = new Slot[this.retentionSeconds];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Get the ring populated by {@link MetricTimerListener}, which retention is configured by
+     * {@link SentinelConfig#METRIC_MEMORY_RETENTION_SECONDS}.
+     */
+    public static MetricRingBuffer getDefault() {
+        if (defaultBuffer == null) {
+            synchronized (MetricRingBuffer.class) {
+                if (defaultBuffer == null) {
+                    defaultBuffer = new MetricRingBuffer(SentinelConfig.metricMemoryRetentionSeconds());
+                }
+            }
+        }
+        return defaultBuffer;
+    }
+
+    public boolean isEnabled() {
+        return retentionSeconds > 0;
+    }
+
+    public int getRetentionSeconds() {
+        return retentionSeconds;
+    }
+
+    /**
+     * Write metric nodes of the same second. All the nodes will be regarded as at the given time.
+     *
+     * @param time  timestamp of the metric nodes
+     * @param nodes metric nodes
+     */
+    public void write(long time, List<MetricNode> nodes) {
+        if (!isEnabled() || nodes == null || nodes.isEmpty()) {
+            return;
+        }
+        long second = time / 1000;
+        lock.writeLock().lock();
+        try {
+            if (second < lastSecond - retentionSeconds + 1) {
+                // Too old to be kept.
+                return;
+            }
+            Slot slot = slots[(int)(second % retentionSeconds)];
+            if (slot.second != second) {
+                slot.second = second;
+                slot.size = 0;
+            }
+            for (MetricNode node : nodes) {
+                slot.add(resourceIdOf(node.getResource()), node);
+            }
+            if (firstSecond < 0 || second < firstSecond) {
+                firstSecond = second;
+            }
+            lastSecond = Math.max(lastSecond, second);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the time (in milliseconds) since which metrics are completely kept in the ring.
+     * Metrics earlier than the time (if any) can only be found on disk.
+     *
+     * @return the time in milliseconds, or {@code Long.MAX_VALUE} if nothing has been written
+     */
+    public long coveredSince() {
+        lock.readLock().lock();
+        try {
+            if (lastSecond < 0) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(firstSecond, lastSecond - retentionSeconds + 1) * 1000;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stream records between [beginTimeMs, endTimeMs] (both side inclusive) to the consumer.
+     * When identity is null, all records will be consumed, otherwise only the specific identity.
+     * The same {@link MetricNode} instance is reused for all records, so the consumer should not hold it.
+     *
+     * @return amount of the records consumed
+     */
+    public int forEach(long beginTimeMs, long endTimeMs, String identity, Consumer<MetricNode> consumer) {
+        long begin;
+        long end;
+        int resourceId = -1;
+        lock.readLock().lock();
+        try {
+            if (lastSecond < 0) {
+                return 0;
+            }
+            if (identity != null) {
+                Integer id = resourceIds.get(identity);
+                if (id == null) {
+                    return 0;
+                }
+                resourceId = id;
+            }
+            begin = Math.max(beginTimeMs / 1000, lastSecond - retentionSeconds + 1);
+            end = Math.min(endTimeMs / 1000, lastSecond);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Snapshot snapshot = new Snapshot();
+        MetricNode node = new MetricNode();
+        int count = 0;
+        for (long second = begin; second <= end; second++) {
+            if (snapshot.copy(second, resourceId)) {
+                count += snapshot.emit(node, consumer);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stream about {@code recommendLines} records from {@code beginTimeMs} to the consumer.
+     * Records of the same second won't be split.
+     *
+     * @return amount of the records consumed
+     */
+    public int forEach(long beginTimeMs, int recommendLines, Consumer<MetricNode> consumer) {
+        long begin;
+        long end;
+        lock.readLock().lock();
+        try {
+            if (lastSecond < 0) {
+                return 0;
+            }
+            begin = Math.max(beginTimeMs / 1000, lastSecond - retentionSeconds + 1);
+            end = lastSecond;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Snapshot snapshot = new Snapshot();
+        MetricNode node = new MetricNode();
+        int count = 0;
+        for (long second = begin; second <= end && count < recommendLines; second++) {
+            if (snapshot.copy(second, -1)) {
+                count += snapshot.emit(node, consumer);
+            }
+        }
+        return count;
+    }
+
+    private int resourceIdOf(String resource) {
+        Integer id = resourceIds.get(resource);
+        if (id == null) {
+            id = resources.size();
+            resources.add(resource);
+            resourceIds.put(resource, id);
+        }
+        return id;
+    }
+
+    /**
+     * Records of one second copied out of the ring, so that the consumer (which may write to a slow
+     * client) is invoked without holding the lock, and the writer will never be blocked by it.
+     */
+    private final class Snapshot {
+        private long second;
+        private int size;
+        private String[] resourceNames = new String[INITIAL_SLOT_CAPACITY];
+        private int[] classifications = new int[INITIAL_SLOT_CAPACITY];
+        private long[] values = new long[INITIAL_SLOT_CAPACITY * VALUE_COUNT];
+
+        /**
+         * @return false if the second is no longer (or not yet) kept in the ring
+         */
+        boolean copy(long second, int resourceId) {
+            lock.readLock().lock();
+            try {
+                Slot slot = slots[(int)(second % retentionSeconds)];
+                if (slot.second != second) {
+                    return false;
+                }
+                this.second = second;
+                this.size = 0;
+                if (resourceNames.length < slot.size) {
+                    resourceNames = new String[slot.size];
+                    classifications = new int[slot.size];
+                    values = new long[slot.size * VALUE_COUNT];
+                }
+                for (int i = 0; i < slot.size; i++) {
+                    if (resourceId >= 0 && slot.resourceIds[i] != resourceId) {
+                        continue;
+                    }
+                    resourceNames[size] = resources.get(slot.resourceIds[i]);
+                    classifications[size] = slot.classifications[i];
+                    System.arraycopy(slot.values, i * VALUE_COUNT, values, size * VALUE_COUNT, VALUE_COUNT);
+                    size++;
+                }
+                return true;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int emit(MetricNode node, Consumer<MetricNode> consumer) {
+            for (int i = 0; i < size; i++) {
+                node.setTimestamp(second * 1000);
+                node.setResource(resourceNames[i]);
+                node.setClassification(classifications[i]);
+                int pos = i * VALUE_COUNT;
+                node.setPassQps(values[pos]);
+                node.setBlockQps(values[pos + 1]);
+                node.setSuccessQps(values[pos + 2]);
+                node.setExceptionQps(values[pos + 3]);
+                node.setRt(values[pos + 4]);
+                node.setOccupiedPassQps(values[pos + 5]);
+                node.setConcurrency((int)values[pos + 6]);
+                consumer.accept(node);
+            }
+            return size;
+        }
+    }
+
+    private final class Slot {
+        private long second = -1;
+        private int size;
+        private int[] resourceIds = new int[INITIAL_SLOT_CAPACITY];
+        private int[] classifications = new int[INITIAL_SLOT_CAPACITY];
+        private long[] values = new long[INITIAL_SLOT_CAPACITY * VALUE_COUNT];
+
+        void add(int resourceId, MetricNode node) {
+            if (size == resourceIds.length) {
+                int capacity = size << 1;
+                resourceIds = Arrays.copyOf(resourceIds, capacity);
+                classifications = Arrays.copyOf(classifications, capacity);
+                values = Arrays.copyOf(values, capacity * VALUE_COUNT);
+            }
+            resourceIds[size] = resourceId;
+            classifications[size] = node.getClassification();
+            int pos = size * VALUE_COUNT;
+            values[pos] = node.getPassQps();
+            values[pos + 1] = node.getBlockQps();
+            values[pos + 2] = node.getSuccessQps();
+            values[pos + 3] = node.getExceptionQps();
+            values[pos + 4] = node.getRt();
+            values[pos + 5] = node.getOccupiedPassQps();
+            values[pos + 6] = node.getConcurrency();
+            size++;
+        }
+    }
+}
@@ -15,57 +15,160 @@
  */
 package com.alibaba.csp.sentinel.node.metric;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.node.ClusterNode;
-import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
 
 /**
  * @author jialiang.linjl
  */
 public class MetricTimerListener implements Runnable {
 
-    private static final MetricWriter metricWriter = new MetricWriter(SentinelConfig.singleMetricFileSize(),
-        SentinelConfig.totalMetricFileCount());
+    private static final boolean binaryFormat = SentinelConfig.isBinaryMetricFileFormat();
+
+    private static final MetricWriter metricWriter = binaryFormat ? null
+        : new MetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount());
+
+    private static final BinaryMetricWriter binaryMetricWriter = binaryFormat
+        ? new BinaryMetricWriter(SentinelConfig.singleMetricFileSize(), SentinelConfig.totalMetricFileCount())
+        : null;
+
+    private static final MetricRingBuffer ringBuffer = MetricRingBuffer.getDefault();
+
+    /**
+     * Overrun warnings are logged at most once in the interval.
+     */
+    private static final long OVERRUN_LOG_INTERVAL_MS = 60 * 1000;
+
+    private static final AtomicLong runCount = new AtomicLong();
+    private static final AtomicLong overrunCount = new AtomicLong();
+    private static volatile long lastDurationMs;
+    private static volatile long maxDurationMs;
+
+    private final MetricAggregator aggregator = new MetricAggregator(newAggregationPool(),
+        MetricAggregator.DEFAULT_PARTITION_SIZE);
+
+    private final BiConsumer<Long, List<MetricNode>> writer = new BiConsumer<Long, List<MetricNode>>() {
+        @Override
+        public void accept(Long time, List<MetricNode> nodes) {
+            write(time, nodes);
+        }
+    };
+
+    /**
+     * The end time of the last aggregation. Only accessed by the scheduler thread.
+     */
+    private long lastFetchTime = -1;
+    private long lastOverrunLogTime = -1;
 
     @Override
     public void run() {
-        Map<Long, List<MetricNode>> maps = new TreeMap<>();
-        for (Entry<ResourceWrapper, ClusterNode> e : ClusterBuilderSlot.getClusterNodeMap().entrySet()) {
-            ClusterNode node = e.getValue();
-            Map<Long, MetricNode> metrics = node.metrics();
-            aggregate(maps, metrics, node);
+        long start = TimeUtil.currentTimeMillis();
+        long currentTime = start - start % 1000;
+
+        Collection<ClusterNode> clusterNodes = ClusterBuilderSlot.getClusterNodeMap().values();
+        ClusterNode[] nodes = clusterNodes.toArray(new ClusterNode[clusterNodes.size() + 1]);
+        nodes[nodes.length - 1] = Constants.ENTRY_NODE;
+        try {
+            aggregator.aggregate(nodes, lastFetchTime, currentTime, writer);
+        } catch (Throwable e) {
+            RecordLog.warn("[MetricTimerListener] Aggregate metric error", e);
         }
-        aggregate(maps, Constants.ENTRY_NODE.metrics(), Constants.ENTRY_NODE);
-        if (!maps.isEmpty()) {
-            for (Entry<Long, List<MetricNode>> entry : maps.entrySet()) {
-                try {
-                    metricWriter.write(entry.getKey(), entry.getValue());
-                } catch (Exception e) {
-                    RecordLog.warn("[MetricTimerListener] Write metric error", e);
-                }
+        lastFetchTime = currentTime - 1;
+
+        record(TimeUtil.currentTimeMillis() - start);
+    }
+
+    private void write(long time, List<MetricNode> nodes) {
+        ringBuffer.write(time, nodes);
+        try {
+            if (binaryFormat) {
+                binaryMetricWriter.write(time, nodes);
+            } else {
+                metricWriter.write(time, nodes);
             }
+        } catch (Exception e) {
+            RecordLog.warn("[MetricTimerListener] Write metric error", e);
         }
     }
 
-    private void aggregate(Map<Long, List<MetricNode>> maps, Map<Long, MetricNode> metrics, ClusterNode node) {
-        for (Entry<Long, MetricNode> entry : metrics.entrySet()) {
-            long time = entry.getKey();
-            MetricNode metricNode = entry.getValue();
-            metricNode.setResource(node.getName());
-            metricNode.setClassification(node.getResourceType());
-            maps.computeIfAbsent(time, k -> new ArrayList<MetricNode>());
-            List<MetricNode> nodes = maps.get(time);
-            nodes.add(entry.getValue());
+    private void record(long durationMs) {
+        runCount.incrementAndGet();
+        lastDurationMs = durationMs;
+        if (durationMs > maxDurationMs) {
+            maxDurationMs = durationMs;
         }
+        long periodMs = SentinelConfig.metricLogFlushIntervalSec() * 1000;
+        if (periodMs > 0 && durationMs > periodMs) {
+            long overruns = overrunCount.incrementAndGet();
+            long now = TimeUtil.currentTimeMillis();
+            if (lastOverrunLogTime < 0 || now - lastOverrunLogTime >= OVERRUN_LOG_INTERVAL_MS) {
+                lastOverrunLogTime = now;
+                RecordLog.warn("[MetricTimerListener] Metric aggregation took {} ms, exceeding the period of {} ms "
+                    + "(total overrun count: {})", durationMs, periodMs, overruns);
+            }
+        }
+    }
+
+    /**
+     * Get the amount of aggregation runs.
+     *
+     * @since 1.8.9
+     */
+    public static long getRunCount() {
+        return runCount.get();
     }
 
+    /**
+     * Get the amount of aggregation runs that took longer than the flush interval.
+     *
+     * @since 1.8.9
+     */
+    public static long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * Get the duration (in milliseconds) of the last aggregation run.
+     *
+     * @since 1.8.9
+     */
+    public static long getLastDurationMs() {
+        return lastDurationMs;
+    }
+
+    /**
+     * Get the max duration (in milliseconds) of all the aggregation runs.
+     *
+     * @since 1.8.9
+     */
+    public static long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+
+    private static ForkJoinPool newAggregationPool() {
+        int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors() / 2);
+        if (parallelism <= 1) {
+            return null;
+        }
+        return new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("sentinel-metric-aggregator-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, null, false);
+    }
 }
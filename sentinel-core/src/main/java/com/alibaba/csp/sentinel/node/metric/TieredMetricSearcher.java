@@ -0,0 +1,179 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.PidUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>Searches metrics from the in-memory {@link MetricRingBuffer} first, and falls back to the
+ * metric files (of either the text or the binary format) only for the time range older than
+ * {@link MetricRingBuffer#coveredSince()}.</p>
+ *
+ * <p>Records are streamed in ascending order of time. In streaming mode the same {@link MetricNode}
+ * instance may be reused for all records, so the consumer should not hold it.</p>
+ *
+ * @since 1.8.9
+ */
+public class TieredMetricSearcher {
+
+    private final MetricRingBuffer ringBuffer;
+    private final MetricSearcher textSearcher;
+    private final BinaryMetricSearcher binarySearcher;
+
+    /**
+     * Create a searcher of the default metric ring buffer and metric files of current application.
+     */
+    public TieredMetricSearcher() {
+        String appName = SentinelConfig.getAppName();
+        if (appName == null) {
+            appName = "";
+        }
+        this.ringBuffer = MetricRingBuffer.getDefault();
+        if (SentinelConfig.isBinaryMetricFileFormat()) {
+            this.textSearcher = null;
+            this.binarySearcher = new BinaryMetricSearcher(MetricWriter.METRIC_BASE_DIR,
+                BinaryMetricWriter.formMetricFileName(appName, PidUtil.getPid()));
+        } else {
+            this.textSearcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR,
+                MetricWriter.formMetricFileName(appName, PidUtil.getPid()));
+            this.binarySearcher = null;
+        }
+    }
+
+    public TieredMetricSearcher(MetricRingBuffer ringBuffer, MetricSearcher textSearcher) {
+        this.ringBuffer = ringBuffer;
+        this.textSearcher = textSearcher;
+        this.binarySearcher = null;
+    }
+
+    public TieredMetricSearcher(MetricRingBuffer ringBuffer, BinaryMetricSearcher binarySearcher) {
+        this.ringBuffer = ringBuffer;
+        this.textSearcher = null;
+        this.binarySearcher = binarySearcher;
+    }
+
+    /**
+     * Find metric between [beginTimeMs, endTimeMs], both side inclusive.
+     *
+     * @see MetricSearcher#findByTimeAndResource(long, long, String)
+     */
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+        throws Exception {
+        List<MetricNode> list = new ArrayList<MetricNode>();
+        forEach(beginTimeMs, endTimeMs, identity, new BinaryMetricSearcher.CopyingConsumer(list));
+        return list;
+    }
+
+    /**
+     * Find about {@code recommendLines} records from {@code beginTimeMs}.
+     *
+     * @see MetricSearcher#find(long, int)
+     */
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+        List<MetricNode> list = new ArrayList<MetricNode>();
+        forEach(beginTimeMs, recommendLines, new BinaryMetricSearcher.CopyingConsumer(list));
+        return list;
+    }
+
+    /**
+     * Stream records between [beginTimeMs, endTimeMs] (both side inclusive) to the consumer.
+     * When identity is null, all records will be consumed, otherwise only the specific identity.
+     *
+     * @return amount of the records consumed
+     */
+    public int forEach(long beginTimeMs, long endTimeMs, String identity, Consumer<MetricNode> consumer)
+        throws Exception {
+        long memorySince = memorySince();
+        int count = 0;
+        if (beginTimeMs < memorySince) {
+            long diskEndTimeMs = Math.min(endTimeMs, memorySince - 1);
+            if (binarySearcher != null) {
+                count += binarySearcher.forEach(beginTimeMs, diskEndTimeMs, identity, consumer);
+            } else if (textSearcher != null) {
+                List<MetricNode> nodes = textSearcher.findByTimeAndResource(beginTimeMs, diskEndTimeMs, identity);
+                if (nodes != null) {
+                    for (MetricNode node : nodes) {
+                        consumer.accept(node);
+                    }
+                    count += nodes.size();
+                }
+            }
+        }
+        if (endTimeMs >= memorySince) {
+            count += ringBuffer.forEach(Math.max(beginTimeMs, memorySince), endTimeMs, identity, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * Stream about {@code recommendLines} records from {@code beginTimeMs} to the consumer.
+     * Records of the same second won't be split.
+     *
+     * @return amount of the records consumed
+     */
+    public int forEach(long beginTimeMs, int recommendLines, Consumer<MetricNode> consumer) throws Exception {
+        long memorySince = memorySince();
+        int count = 0;
+        if (beginTimeMs < memorySince) {
+            BeforeTimeConsumer diskConsumer = new BeforeTimeConsumer(memorySince, consumer);
+            if (binarySearcher != null) {
+                binarySearcher.forEach(beginTimeMs, recommendLines, diskConsumer);
+            } else if (textSearcher != null) {
+                List<MetricNode> nodes = textSearcher.find(beginTimeMs, recommendLines);
+                if (nodes != null) {
+                    for (MetricNode node : nodes) {
+                        diskConsumer.accept(node);
+                    }
+                }
+            }
+            count += diskConsumer.count;
+            if (count >= recommendLines || memorySince == Long.MAX_VALUE) {
+                return count;
+            }
+        }
+        count += ringBuffer.forEach(Math.max(beginTimeMs, memorySince), recommendLines - count, consumer);
+        return count;
+    }
+
+    private long memorySince() {
+        return ringBuffer == null || !ringBuffer.isEnabled() ? Long.MAX_VALUE : ringBuffer.coveredSince();
+    }
+
+    private static final class BeforeTimeConsumer implements Consumer<MetricNode> {
+
+        private final long timeMs;
+        private final Consumer<MetricNode> delegate;
+        private int count;
+
+        BeforeTimeConsumer(long timeMs, Consumer<MetricNode> delegate) {
+            this.timeMs = timeMs;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void accept(MetricNode node) {
+            if (node.getTimestamp() < timeMs) {
+                delegate.accept(node);
+                count++;
+            }
+        }
+    }
+}
@@ -76,6 +76,22 @@ public abstract class BlockException extends Exception {
         this.rule = rule;
     }
 
+    /**
+     * Construct a block exception without stack trace. If {@code enableSuppression} is false, the exception
+     * will not record any suppressed exception and its cause cannot be initialized later, which makes it
+     * safe to be preallocated and shared among all requests blocked by the same rule.
+     *
+     * @param ruleLimitApp      limit app of the triggered rule
+     * @param rule              the triggered rule
+     * @param enableSuppression whether suppression is enabled
+     * @since 1.8.9
+     */
+    protected BlockException(String ruleLimitApp, AbstractRule rule, boolean enableSuppression) {
+        super(null, null, enableSuppression, false);
+        this.ruleLimitApp = ruleLimitApp;
+        this.rule = rule;
+    }
+
     @Override
     public Throwable fillInStackTrace() {
         return this;
@@ -25,6 +25,12 @@ public final class RuleConstant {
 
     public static final int FLOW_GRADE_THREAD = 0;
     public static final int FLOW_GRADE_QPS = 1;
+    /**
+     * Limit the concurrency with an adaptive limit estimated from the RT, bounded by the count of the rule.
+     *
+     * @since 1.8.9
+     */
+    public static final int FLOW_GRADE_ADAPTIVE_CONCURRENCY = 2;
 
     public static final int DEGRADE_GRADE_RT = 0;
     /**
@@ -36,6 +42,19 @@ public final class RuleConstant {
      */
     public static final int DEGRADE_GRADE_EXCEPTION_COUNT = 2;
 
+    /**
+     * The permitted ratio of requests grows linearly during the recovery ramp-up of circuit breakers.
+     *
+     * @since 1.8.9
+     */
+    public static final int DEGRADE_RAMP_UP_LINEAR = 0;
+    /**
+     * The permitted ratio of requests grows exponentially during the recovery ramp-up of circuit breakers.
+     *
+     * @since 1.8.9
+     */
+    public static final int DEGRADE_RAMP_UP_EXPONENTIAL = 1;
+
     public static final int DEGRADE_DEFAULT_SLOW_REQUEST_AMOUNT = 5;
     public static final int DEGRADE_DEFAULT_MIN_REQUEST_AMOUNT = 5;
 
@@ -50,6 +69,12 @@ public final class RuleConstant {
     public static final int CONTROL_BEHAVIOR_WARM_UP = 1;
     public static final int CONTROL_BEHAVIOR_RATE_LIMITER = 2;
     public static final int CONTROL_BEHAVIOR_WARM_UP_RATE_LIMITER = 3;
+    /**
+     * Share the QPS threshold among the origins in proportion to their weights.
+     *
+     * @since 1.8.9
+     */
+    public static final int CONTROL_BEHAVIOR_WEIGHTED_FAIR = 4;
 
     public static final int DEFAULT_BLOCK_STRATEGY = 0;
     public static final int TRY_AGAIN_BLOCK_STRATEGY = 1;
@@ -170,9 +170,29 @@ public class RuleManager<R> {
         return compilers;
     }
 
+    private boolean isSameRegexRules(Map<Pattern, List<R>> newRegexRules) {
+        if (newRegexRules.size() != regexRules.size()) {
+            return false;
+        }
+        Map<String, List<R>> rulesOfPattern = new HashMap<>(regexRules.size());
+        for (Map.Entry<Pattern, List<R>> entry : regexRules.entrySet()) {
+            rulesOfPattern.put(entry.getKey().pattern(), entry.getValue());
+        }
+        for (Map.Entry<Pattern, List<R>> entry : newRegexRules.entrySet()) {
+            if (!entry.getValue().equals(rulesOfPattern.get(entry.getKey().pattern()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private synchronized void setRules(Map<Pattern, List<R>> regexRules, Map<String, List<R>> simpleRules) {
-        this.regexRules = regexRules;
         this.simpleRules = simpleRules;
+        if (isSameRegexRules(regexRules)) {
+            // Keep the regex cache (and the rules generated for the matched resources) if regex rules remain unchanged.
+            return;
+        }
+        this.regexRules = regexRules;
         if (regexRules.isEmpty()) {
             this.regexCacheRules = Collections.emptyMap();
             return;
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.authority;
 
+import java.util.Set;
+
 import com.alibaba.csp.sentinel.slots.block.AbstractRule;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 
@@ -30,6 +32,27 @@ public class AuthorityRule extends AbstractRule {
      */
     private int strategy = RuleConstant.AUTHORITY_WHITE;
 
+    /**
+     * Immutable set of the origin apps in {@code limitApp}, compiled when the rule is loaded.
+     */
+    private volatile Set<String> limitAppSet;
+
+    @Override
+    public AbstractRule setLimitApp(String limitApp) {
+        super.setLimitApp(limitApp);
+        this.limitAppSet = null;
+        return this;
+    }
+
+    Set<String> getLimitAppSet() {
+        return limitAppSet;
+    }
+
+    AuthorityRule setLimitAppSet(Set<String> limitAppSet) {
+        this.limitAppSet = limitAppSet;
+        return this;
+    }
+
     public int getStrategy() {
         return strategy;
     }
@@ -15,6 +15,11 @@
  */
 package com.alibaba.csp.sentinel.slots.block.authority;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.util.StringUtil;
@@ -36,21 +41,13 @@ final class AuthorityRuleChecker {
         }
 
         // Do exact match with origin name.
-        int pos = rule.getLimitApp().indexOf(requester);
-        boolean contain = pos > -1;
-
-        if (contain) {
-            boolean exactlyMatch = false;
-            String[] appArray = rule.getLimitApp().split(",");
-            for (String app : appArray) {
-                if (requester.equals(app)) {
-                    exactlyMatch = true;
-                    break;
-                }
-            }
-
-            contain = exactlyMatch;
+        Set<String> limitApps = rule.getLimitAppSet();
+        if (limitApps == null) {
+            // The rule is not loaded by the rule manager.
+            limitApps = parseLimitApps(rule.getLimitApp(), null);
+            rule.setLimitAppSet(limitApps);
         }
+        boolean contain = limitApps.contains(requester);
 
         int strategy = rule.getStrategy();
         if (strategy == RuleConstant.AUTHORITY_BLACK && contain) {
@@ -64,5 +61,43 @@ final class AuthorityRuleChecker {
         return true;
     }
 
+    /**
+     * Parse the comma-separated origin apps into an immutable set.
+     *
+     * @param limitApp   comma-separated origin apps
+     * @param dictionary dictionary to share the same app name instances between rules, nullable
+     * @return immutable set of the origin apps
+     */
+    static Set<String> parseLimitApps(String limitApp, Map<String, String> dictionary) {
+        if (StringUtil.isEmpty(limitApp)) {
+            return Collections.emptySet();
+        }
+        Set<String> apps = new HashSet<>();
+        int start = 0;
+        while (start <= limitApp.length()) {
+            int end = limitApp.indexOf(',', start);
+            if (end < 0) {
+                end = limitApp.length();
+            }
+            if (end > start) {
+                apps.add(intern(limitApp.substring(start, end), dictionary));
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableSet(apps);
+    }
+
+    private static String intern(String app, Map<String, String> dictionary) {
+        if (dictionary == null) {
+            return app;
+        }
+        String existing = dictionary.get(app);
+        if (existing != null) {
+            return existing;
+        }
+        dictionary.put(app, app);
+        return app;
+    }
+
     private AuthorityRuleChecker() {}
 }
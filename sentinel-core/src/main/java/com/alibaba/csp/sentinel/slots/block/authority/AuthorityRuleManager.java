@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.slots.block.authority;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -105,6 +106,8 @@ public final class AuthorityRuleManager {
             if (list == null || list.isEmpty()) {
                 return newRuleMap;
             }
+            // Origin apps are shared between rules, as the same apps may be in the lists of many resources.
+            Map<String, String> originDictionary = new HashMap<>();
 
             for (AuthorityRule rule : list) {
                 if (!isValidRule(rule)) {
@@ -116,6 +119,8 @@ public final class AuthorityRuleManager {
                     rule.setLimitApp(RuleConstant.LIMIT_APP_DEFAULT);
                 }
 
+                rule.setLimitAppSet(AuthorityRuleChecker.parseLimitApps(rule.getLimitApp(), originDictionary));
+
                 String identity = rule.getResource();
                 List<AuthorityRule> ruleSet = newRuleMap.get(identity);
                 // putIfAbsent
@@ -59,7 +59,7 @@ public class DefaultCircuitBreakerSlot extends AbstractLinkedProcessorSlot<Defau
 
         for (CircuitBreaker cb : circuitBreakers) {
             if (!cb.tryPass(context)) {
-                throw new DegradeException(cb.getRule().getLimitApp(), cb.getRule());
+                throw DegradeSlot.newBlockException(cb.getRule());
             }
         }
     }
@@ -38,6 +38,21 @@ public class DegradeException extends BlockException {
         super(ruleLimitApp, message);
     }
 
+    private DegradeException(String ruleLimitApp, DegradeRule rule, boolean enableSuppression) {
+        super(ruleLimitApp, rule, enableSuppression);
+    }
+
+    /**
+     * Create an immutable exception that could be shared among all requests blocked by the given rule.
+     *
+     * @param rule the triggered rule
+     * @return the preallocated exception
+     * @since 1.8.9
+     */
+    static DegradeException preallocated(DegradeRule rule) {
+        return new DegradeException(rule.getLimitApp(), rule, false);
+    }
+
     @Override
     public Throwable fillInStackTrace() {
         return this;
@@ -95,6 +95,48 @@ public class DegradeRule extends AbstractRule {
      */
     private int statIntervalMs = 1000;
 
+    /**
+     * The max amount of probe requests in half-open state.
+     *
+     * @since 1.8.9
+     */
+    private int halfOpenProbeAmount = 1;
+
+    /**
+     * The ratio of successful probes (among {@link #halfOpenProbeAmount}) required to close the circuit breaker.
+     *
+     * @since 1.8.9
+     */
+    private double halfOpenProbeSuccessRatio = 1.0d;
+
+    /**
+     * The recovery period (in milliseconds) after the circuit breaker closes, during which the permitted ratio
+     * of requests grows to 100%. 0 means no ramp-up.
+     *
+     * @since 1.8.9
+     */
+    private int recoveryRampUpMs = 0;
+
+    /**
+     * The permitted ratio of requests at the beginning of the recovery ramp-up.
+     *
+     * @since 1.8.9
+     */
+    private double recoveryRampUpStartRatio = 0.1d;
+
+    /**
+     * The recovery ramp-up strategy ({@link RuleConstant#DEGRADE_RAMP_UP_LINEAR} or
+     * {@link RuleConstant#DEGRADE_RAMP_UP_EXPONENTIAL}).
+     *
+     * @since 1.8.9
+     */
+    private int recoveryRampUpStrategy = RuleConstant.DEGRADE_RAMP_UP_LINEAR;
+
+    /**
+     * The preallocated block exception (only used when preallocation is enabled).
+     */
+    private volatile DegradeException preallocatedException;
+
     public int getGrade() {
         return grade;
     }
@@ -149,6 +191,61 @@ public class DegradeRule extends AbstractRule {
         return this;
     }
 
+    public int getHalfOpenProbeAmount() {
+        return halfOpenProbeAmount;
+    }
+
+    public DegradeRule setHalfOpenProbeAmount(int halfOpenProbeAmount) {
+        this.halfOpenProbeAmount = halfOpenProbeAmount;
+        return this;
+    }
+
+    public double getHalfOpenProbeSuccessRatio() {
+        return halfOpenProbeSuccessRatio;
+    }
+
+    public DegradeRule setHalfOpenProbeSuccessRatio(double halfOpenProbeSuccessRatio) {
+        this.halfOpenProbeSuccessRatio = halfOpenProbeSuccessRatio;
+        return this;
+    }
+
+    public int getRecoveryRampUpMs() {
+        return recoveryRampUpMs;
+    }
+
+    public DegradeRule setRecoveryRampUpMs(int recoveryRampUpMs) {
+        this.recoveryRampUpMs = recoveryRampUpMs;
+        return this;
+    }
+
+    public double getRecoveryRampUpStartRatio() {
+        return recoveryRampUpStartRatio;
+    }
+
+    public DegradeRule setRecoveryRampUpStartRatio(double recoveryRampUpStartRatio) {
+        this.recoveryRampUpStartRatio = recoveryRampUpStartRatio;
+        return this;
+    }
+
+    public int getRecoveryRampUpStrategy() {
+        return recoveryRampUpStrategy;
+    }
+
+    public DegradeRule setRecoveryRampUpStrategy(int recoveryRampUpStrategy) {
+        this.recoveryRampUpStrategy = recoveryRampUpStrategy;
+        return this;
+    }
+
+    DegradeException getPreallocatedException() {
+        DegradeException e = preallocatedException;
+        if (e == null) {
+            // Benign race: concurrent callers may create different instances at the very beginning.
+            e = DegradeException.preallocated(this);
+            this.preallocatedException = e;
+        }
+        return e;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) { return true; }
@@ -160,13 +257,19 @@ public class DegradeRule extends AbstractRule {
             grade == rule.grade &&
             minRequestAmount == rule.minRequestAmount &&
             Double.compare(rule.slowRatioThreshold, slowRatioThreshold) == 0 &&
-            statIntervalMs == rule.statIntervalMs;
+            statIntervalMs == rule.statIntervalMs &&
+            halfOpenProbeAmount == rule.halfOpenProbeAmount &&
+            Double.compare(rule.halfOpenProbeSuccessRatio, halfOpenProbeSuccessRatio) == 0 &&
+            recoveryRampUpMs == rule.recoveryRampUpMs &&
+            Double.compare(rule.recoveryRampUpStartRatio, recoveryRampUpStartRatio) == 0 &&
+            recoveryRampUpStrategy == rule.recoveryRampUpStrategy;
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(super.hashCode(), count, timeWindow, grade, minRequestAmount,
-            slowRatioThreshold, statIntervalMs);
+            slowRatioThreshold, statIntervalMs, halfOpenProbeAmount, halfOpenProbeSuccessRatio, recoveryRampUpMs,
+            recoveryRampUpStartRatio, recoveryRampUpStrategy);
     }
 
     @Override
@@ -180,6 +283,11 @@ public class DegradeRule extends AbstractRule {
             ", minRequestAmount=" + minRequestAmount +
             ", slowRatioThreshold=" + slowRatioThreshold +
             ", statIntervalMs=" + statIntervalMs +
+            ", halfOpenProbeAmount=" + halfOpenProbeAmount +
+            ", halfOpenProbeSuccessRatio=" + halfOpenProbeSuccessRatio +
+            ", recoveryRampUpMs=" + recoveryRampUpMs +
+            ", recoveryRampUpStartRatio=" + recoveryRampUpStartRatio +
+            ", recoveryRampUpStrategy=" + recoveryRampUpStrategy +
             '}';
     }
 }
@@ -143,7 +143,8 @@ public final class DegradeRuleManager {
     }
 
     private static CircuitBreaker getExistingSameCbOrNew(/*@Valid*/ DegradeRule rule) {
-        List<CircuitBreaker> cbs = getCircuitBreakers(rule.getResource());
+        // Look up the original circuit breakers, as regex rules are not matched by the resource name itself.
+        List<CircuitBreaker> cbs = circuitBreakers.getOriginalRules().get(rule.getResource());
         if (cbs == null || cbs.isEmpty()) {
             return newCircuitBreakerFrom(rule);
         }
@@ -186,6 +187,9 @@ public final class DegradeRuleManager {
         if (!RuleManager.checkRegexResourceField(rule)) {
             return false;
         }
+        if (!checkRecoveryFields(rule)) {
+            return false;
+        }
         switch (rule.getGrade()) {
             case RuleConstant.DEGRADE_GRADE_RT:
                 return rule.getSlowRatioThreshold() >= 0 && rule.getSlowRatioThreshold() <= 1;
@@ -198,6 +202,21 @@ public final class DegradeRuleManager {
         }
     }
 
+    private static boolean checkRecoveryFields(/*@NonNull*/ DegradeRule rule) {
+        if (rule.getHalfOpenProbeAmount() <= 0 || rule.getHalfOpenProbeSuccessRatio() <= 0
+            || rule.getHalfOpenProbeSuccessRatio() > 1) {
+            return false;
+        }
+        if (rule.getRecoveryRampUpMs() < 0) {
+            return false;
+        }
+        if (rule.getRecoveryRampUpStartRatio() <= 0 || rule.getRecoveryRampUpStartRatio() > 1) {
+            return false;
+        }
+        return rule.getRecoveryRampUpStrategy() == RuleConstant.DEGRADE_RAMP_UP_LINEAR
+            || rule.getRecoveryRampUpStrategy() == RuleConstant.DEGRADE_RAMP_UP_EXPONENTIAL;
+    }
+
     private static List<CircuitBreaker> generateCbs(List<CircuitBreaker> cbs) {
         return cbs.stream().map(cb -> newCircuitBreakerFrom(cb.getRule())).collect(Collectors.toList());
     }
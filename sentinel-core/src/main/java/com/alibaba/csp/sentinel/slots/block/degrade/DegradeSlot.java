@@ -19,6 +19,7 @@ import java.util.List;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
@@ -52,11 +53,18 @@ public class DegradeSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         }
         for (CircuitBreaker cb : circuitBreakers) {
             if (!cb.tryPass(context)) {
-                throw new DegradeException(cb.getRule().getLimitApp(), cb.getRule());
+                throw newBlockException(cb.getRule());
             }
         }
     }
 
+    static DegradeException newBlockException(DegradeRule rule) {
+        if (SentinelConfig.shouldPreallocateBlockException()) {
+            return rule.getPreallocatedException();
+        }
+        return new DegradeException(rule.getLimitApp(), rule);
+    }
+
     @Override
     public void exit(Context context, ResourceWrapper r, int count, Object... args) {
         Entry curEntry = context.getCurEntry();
@@ -15,11 +15,14 @@
  */
 package com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.alibaba.csp.sentinel.Entry;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
 import com.alibaba.csp.sentinel.util.AssertUtil;
@@ -27,11 +30,28 @@ import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.BiConsumer;
 
 /**
+ * <p>
+ * In {@code HALF_OPEN} state, at most {@link DegradeRule#getHalfOpenProbeAmount()} probe requests are permitted.
+ * The circuit breaker closes once enough probes succeed (according to
+ * {@link DegradeRule#getHalfOpenProbeSuccessRatio()}), or re-opens once that is no longer possible.
+ * With the default single probe, the result of the probe decides directly.
+ * </p>
+ * <p>
+ * If {@link DegradeRule#getRecoveryRampUpMs()} is set, the permitted ratio of requests grows from
+ * {@link DegradeRule#getRecoveryRampUpStartRatio()} to 100% during the recovery period after the circuit breaker
+ * closes, so that the just-recovered resource is not overwhelmed at once.
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.8.0
  */
 public abstract class AbstractCircuitBreaker implements CircuitBreaker {
 
+    /**
+     * The ramp-up progress is reported to {@link CircuitBreakerRecoveryObserver} at every 10% of the recovery period.
+     */
+    private static final int RAMP_UP_REPORT_STEPS = 10;
+
     protected final DegradeRule rule;
     protected final int recoveryTimeoutMs;
 
@@ -40,6 +60,19 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
     protected final AtomicReference<State> currentState = new AtomicReference<>(State.CLOSED);
     protected volatile long nextRetryTimestamp;
 
+    private final int probeAmount;
+    private final int requiredProbeSuccess;
+    private final AtomicInteger admittedProbes = new AtomicInteger(0);
+    private final AtomicInteger probeSuccesses = new AtomicInteger(0);
+    private final AtomicInteger probeFailures = new AtomicInteger(0);
+
+    /**
+     * Start time of the recovery ramp-up, 0 if not ramping up.
+     */
+    private final AtomicLong rampUpStartTime = new AtomicLong(0);
+    private final AtomicLong rampUpRequests = new AtomicLong(0);
+    private final AtomicInteger rampUpReportedStep = new AtomicInteger(0);
+
     public AbstractCircuitBreaker(DegradeRule rule) {
         this(rule, EventObserverRegistry.getInstance());
     }
@@ -52,6 +85,8 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
         this.observerRegistry = observerRegistry;
         this.rule = rule;
         this.recoveryTimeoutMs = rule.getTimeWindow() * 1000;
+        this.probeAmount = rule.getHalfOpenProbeAmount();
+        this.requiredProbeSuccess = Math.max(1, (int)Math.ceil(probeAmount * rule.getHalfOpenProbeSuccessRatio()));
     }
 
     @Override
@@ -67,14 +102,105 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
     @Override
     public boolean tryPass(Context context) {
         // Template implementation.
-        if (currentState.get() == State.CLOSED) {
-            return true;
+        State state = currentState.get();
+        if (state == State.CLOSED) {
+            return rampUpStartTime.get() <= 0 || tryPassWhenRampingUp();
         }
-        if (currentState.get() == State.OPEN) {
+        if (state == State.OPEN) {
             // For half-open state we allow a request for probing.
             return retryTimeoutArrived() && fromOpenToHalfOpen(context);
         }
-        return false;
+        return probeAmount > 1 && tryAcquireProbe(context);
+    }
+
+    private boolean tryAcquireProbe(Context context) {
+        while (true) {
+            int admitted = admittedProbes.get();
+            if (admitted >= probeAmount) {
+                return false;
+            }
+            if (admittedProbes.compareAndSet(admitted, admitted + 1)) {
+                releaseProbeIfBlocked(context);
+                return true;
+            }
+        }
+    }
+
+    private void releaseProbeIfBlocked(Context context) {
+        context.getCurEntry().whenTerminate(new BiConsumer<Context, Entry>() {
+            @Override
+            public void accept(Context context, Entry entry) {
+                // The probe is blocked by upcoming rules, so it could be given to another request.
+                if (entry.getBlockError() != null) {
+                    admittedProbes.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private boolean tryPassWhenRampingUp() {
+        long start = rampUpStartTime.get();
+        if (start <= 0) {
+            return true;
+        }
+        int rampUpMs = rule.getRecoveryRampUpMs();
+        long elapsed = TimeUtil.currentTimeMillis() - start;
+        if (elapsed >= rampUpMs) {
+            if (rampUpStartTime.compareAndSet(start, 0)) {
+                notifyRampUpObservers(1.0d);
+            }
+            return true;
+        }
+        double ratio = getRampUpRatio(Math.max(elapsed, 0) * 1.0d / rampUpMs);
+        int step = (int)(elapsed * RAMP_UP_REPORT_STEPS / rampUpMs);
+        int reportedStep = rampUpReportedStep.get();
+        if (step > reportedStep && rampUpReportedStep.compareAndSet(reportedStep, step)) {
+            notifyRampUpObservers(ratio);
+        }
+        // Permit floor(n * ratio) of the first n requests.
+        long n = rampUpRequests.incrementAndGet();
+        return (long)(n * ratio) > (long)((n - 1) * ratio);
+    }
+
+    private double getRampUpRatio(double progress) {
+        double startRatio = rule.getRecoveryRampUpStartRatio();
+        if (rule.getRecoveryRampUpStrategy() == RuleConstant.DEGRADE_RAMP_UP_EXPONENTIAL) {
+            return Math.pow(startRatio, 1 - progress);
+        }
+        return startRatio + (1 - startRatio) * progress;
+    }
+
+    /**
+     * Handle the result of a probe request in {@code HALF_OPEN} state.
+     *
+     * @param failed whether the probe request is abnormal according to the strategy (e.g. it's slow)
+     */
+    protected void handleProbeResult(boolean failed) {
+        if (probeAmount <= 1) {
+            if (failed) {
+                fromHalfOpenToOpen(1.0d);
+            } else {
+                fromHalfOpenToClose();
+            }
+            return;
+        }
+        int failures = failed ? probeFailures.incrementAndGet() : probeFailures.get();
+        int successes = failed ? probeSuccesses.get() : probeSuccesses.incrementAndGet();
+        for (CircuitBreakerRecoveryObserver observer : observerRegistry.getRecoveryObservers()) {
+            observer.onProbeComplete(rule, successes, failures);
+        }
+        if (failures > probeAmount - requiredProbeSuccess) {
+            // Not enough probes could succeed.
+            fromHalfOpenToOpen(failures * 1.0d / (successes + failures));
+        } else if (successes >= requiredProbeSuccess) {
+            fromHalfOpenToClose();
+        }
+    }
+
+    private void resetProbes() {
+        admittedProbes.set(0);
+        probeSuccesses.set(0);
+        probeFailures.set(0);
     }
 
     /**
@@ -93,6 +219,8 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
     protected boolean fromCloseToOpen(double snapshotValue) {
         State prev = State.CLOSED;
         if (currentState.compareAndSet(prev, State.OPEN)) {
+            rampUpStartTime.set(0);
+            resetProbes();
             updateNextRetryTimestamp();
 
             notifyObservers(prev, State.OPEN, snapshotValue);
@@ -104,6 +232,11 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
     protected boolean fromOpenToHalfOpen(Context context) {
         if (currentState.compareAndSet(State.OPEN, State.HALF_OPEN)) {
             notifyObservers(State.OPEN, State.HALF_OPEN, null);
+            if (probeAmount > 1) {
+                admittedProbes.incrementAndGet();
+                releaseProbeIfBlocked(context);
+                return true;
+            }
             Entry entry = context.getCurEntry();
             entry.whenTerminate(new BiConsumer<Context, Entry>() {
                 @Override
@@ -129,8 +262,15 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
         }
     }
 
+    private void notifyRampUpObservers(double admittedRatio) {
+        for (CircuitBreakerRecoveryObserver observer : observerRegistry.getRecoveryObservers()) {
+            observer.onRampUp(rule, admittedRatio);
+        }
+    }
+
     protected boolean fromHalfOpenToOpen(double snapshotValue) {
         if (currentState.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            resetProbes();
             updateNextRetryTimestamp();
             notifyObservers(State.HALF_OPEN, State.OPEN, snapshotValue);
             return true;
@@ -141,7 +281,15 @@ public abstract class AbstractCircuitBreaker implements CircuitBreaker {
     protected boolean fromHalfOpenToClose() {
         if (currentState.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
             resetStat();
+            if (rule.getRecoveryRampUpMs() > 0) {
+                rampUpRequests.set(0);
+                rampUpReportedStep.set(0);
+                rampUpStartTime.set(Math.max(TimeUtil.currentTimeMillis(), 1));
+            }
             notifyObservers(State.HALF_OPEN, State.CLOSED, null);
+            if (rule.getRecoveryRampUpMs() > 0) {
+                notifyRampUpObservers(getRampUpRatio(0));
+            }
             return true;
         }
         return false;
@@ -65,11 +65,12 @@ public interface CircuitBreaker {
          */
         OPEN,
         /**
-         * In {@code HALF_OPEN} state, the circuit breaker will allow a "probe" invocation.
-         * If the invocation is abnormal according to the strategy (e.g. it's slow), the circuit breaker
+         * In {@code HALF_OPEN} state, the circuit breaker will allow "probe" invocations (one by default).
+         * If the invocations are abnormal according to the strategy (e.g. it's slow), the circuit breaker
          * will re-transform to the {@code OPEN} state and wait for the next recovery time point;
          * otherwise the resource will be regarded as "recovered" and the circuit breaker
-         * will cease cutting off requests and transform to {@code CLOSED} state.
+         * will cease cutting off requests (gradually if recovery ramp-up is configured)
+         * and transform to {@code CLOSED} state.
          */
         HALF_OPEN,
         /**
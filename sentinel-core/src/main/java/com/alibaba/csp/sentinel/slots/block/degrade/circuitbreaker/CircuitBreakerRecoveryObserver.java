@@ -0,0 +1,47 @@
+/*
+ * Copyright 1999-2019 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker;
+
+import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
+
+/**
+ * Observer of the recovery progress of circuit breakers, which complements
+ * the state changes notified to {@link CircuitBreakerStateChangeObserver}.
+ *
+ * @since 1.8.9
+ */
+public interface CircuitBreakerRecoveryObserver {
+
+    /**
+     * Triggered when a probe request completes in {@code HALF_OPEN} state, if more than one probe is permitted
+     * by the rule.
+     *
+     * @param rule         associated rule
+     * @param successCount count of successful probes in current half-open period
+     * @param failureCount count of failed probes in current half-open period
+     */
+    void onProbeComplete(DegradeRule rule, int successCount, int failureCount);
+
+    /**
+     * Triggered during the recovery ramp-up after the circuit breaker closes: when the ramp-up starts,
+     * at every 10% of the recovery period (when there are requests), and when the ramp-up finishes
+     * (the ratio will be 1.0).
+     *
+     * @param rule          associated rule
+     * @param admittedRatio current permitted ratio of requests
+     */
+    void onRampUp(DegradeRule rule, double admittedRatio);
+}
@@ -31,6 +31,7 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
 public class EventObserverRegistry {
 
     private final Map<String, CircuitBreakerStateChangeObserver> stateChangeObserverMap = new HashMap<>();
+    private final Map<String, CircuitBreakerRecoveryObserver> recoveryObserverMap = new HashMap<>();
 
     /**
      * Register a circuit breaker state change observer.
@@ -58,6 +59,34 @@ public class EventObserverRegistry {
         return new ArrayList<>(stateChangeObserverMap.values());
     }
 
+    /**
+     * Register a circuit breaker recovery observer.
+     *
+     * @param name observer name
+     * @param observer a valid observer
+     * @since 1.8.9
+     */
+    public void addRecoveryObserver(String name, CircuitBreakerRecoveryObserver observer) {
+        AssertUtil.notNull(name, "name cannot be null");
+        AssertUtil.notNull(observer, "observer cannot be null");
+        recoveryObserverMap.put(name, observer);
+    }
+
+    public boolean removeRecoveryObserver(String name) {
+        AssertUtil.notNull(name, "name cannot be null");
+        return recoveryObserverMap.remove(name) != null;
+    }
+
+    /**
+     * Get all registered recovery observers.
+     *
+     * @return all registered recovery observers
+     * @since 1.8.9
+     */
+    public List<CircuitBreakerRecoveryObserver> getRecoveryObservers() {
+        return new ArrayList<>(recoveryObserverMap.values());
+    }
+
     public static EventObserverRegistry getInstance() {
         return InstanceHolder.instance;
     }
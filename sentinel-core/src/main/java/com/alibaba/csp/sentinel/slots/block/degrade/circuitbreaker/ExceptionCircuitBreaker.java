@@ -84,11 +84,7 @@ public class ExceptionCircuitBreaker extends AbstractCircuitBreaker {
         
         if (currentState.get() == State.HALF_OPEN) {
             // In detecting request
-            if (error == null) {
-                fromHalfOpenToClose();
-            } else {
-                fromHalfOpenToOpen(1.0d);
-            }
+            handleProbeResult(error != null);
             return;
         }
         
@@ -88,12 +88,7 @@ public class ResponseTimeCircuitBreaker extends AbstractCircuitBreaker {
         
         if (currentState.get() == State.HALF_OPEN) {
             // In detecting request
-            // TODO: improve logic for half-open recovery
-            if (rt > maxAllowedRt) {
-                fromHalfOpenToOpen(1.0d);
-            } else {
-                fromHalfOpenToClose();
-            }
+            handleProbeResult(rt > maxAllowedRt);
             return;
         }
 
@@ -38,6 +38,21 @@ public class FlowException extends BlockException {
         super(ruleLimitApp, message);
     }
 
+    private FlowException(String ruleLimitApp, FlowRule rule, boolean enableSuppression) {
+        super(ruleLimitApp, rule, enableSuppression);
+    }
+
+    /**
+     * Create an immutable exception that could be shared among all requests blocked by the given rule.
+     *
+     * @param rule the triggered rule
+     * @return the preallocated exception
+     * @since 1.8.9
+     */
+    static FlowException preallocated(FlowRule rule) {
+        return new FlowException(rule.getLimitApp(), rule, false);
+    }
+
     @Override
     public Throwable fillInStackTrace() {
         return this;
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow;
 
+import java.util.Map;
+
 import com.alibaba.csp.sentinel.slots.block.AbstractRule;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 
@@ -47,7 +49,7 @@ public class FlowRule extends AbstractRule {
     }
 
     /**
-     * The threshold type of flow control (0: thread count, 1: QPS).
+     * The threshold type of flow control (0: thread count, 1: QPS, 2: adaptive concurrency).
      */
     private int grade = RuleConstant.FLOW_GRADE_QPS;
 
@@ -72,7 +74,7 @@ public class FlowRule extends AbstractRule {
 
     /**
      * Rate limiter control behavior.
-     * 0. default(reject directly), 1. warm up, 2. rate limiter, 3. warm up + rate limiter
+     * 0. default(reject directly), 1. warm up, 2. rate limiter, 3. warm up + rate limiter, 4. weighted fair
      */
     private int controlBehavior = RuleConstant.CONTROL_BEHAVIOR_DEFAULT;
 
@@ -83,6 +85,12 @@ public class FlowRule extends AbstractRule {
      */
     private int maxQueueingTimeMs = 500;
 
+    /**
+     * Weights of the origins in weighted fair behavior. The weight of absent origins is 1,
+     * and requests without origin are regarded as the origin {@code ""}.
+     */
+    private Map<String, Double> originWeights;
+
     private boolean clusterMode;
     /**
      * Flow rule config for cluster mode.
@@ -94,6 +102,11 @@ public class FlowRule extends AbstractRule {
      */
     private TrafficShapingController controller;
 
+    /**
+     * The preallocated block exception (only used when preallocation is enabled).
+     */
+    private volatile FlowException preallocatedException;
+
     public int getControlBehavior() {
         return controlBehavior;
     }
@@ -112,6 +125,15 @@ public class FlowRule extends AbstractRule {
         return this;
     }
 
+    public Map<String, Double> getOriginWeights() {
+        return originWeights;
+    }
+
+    public FlowRule setOriginWeights(Map<String, Double> originWeights) {
+        this.originWeights = originWeights;
+        return this;
+    }
+
     FlowRule setRater(TrafficShapingController rater) {
         this.controller = rater;
         return this;
@@ -121,6 +143,16 @@ public class FlowRule extends AbstractRule {
         return controller;
     }
 
+    FlowException getPreallocatedException() {
+        FlowException e = preallocatedException;
+        if (e == null) {
+            // Benign race: concurrent callers may create different instances at the very beginning.
+            e = FlowException.preallocated(this);
+            this.preallocatedException = e;
+        }
+        return e;
+    }
+
     public int getWarmUpPeriodSec() {
         return warmUpPeriodSec;
     }
@@ -198,6 +230,9 @@ public class FlowRule extends AbstractRule {
         if (controlBehavior != rule.controlBehavior) { return false; }
         if (warmUpPeriodSec != rule.warmUpPeriodSec) { return false; }
         if (maxQueueingTimeMs != rule.maxQueueingTimeMs) { return false; }
+        if (originWeights != null ? !originWeights.equals(rule.originWeights) : rule.originWeights != null) {
+            return false;
+        }
         if (clusterMode != rule.clusterMode) { return false; }
         if (refResource != null ? !refResource.equals(rule.refResource) : rule.refResource != null) { return false; }
         return clusterConfig != null ? clusterConfig.equals(rule.clusterConfig) : rule.clusterConfig == null;
@@ -215,6 +250,7 @@ public class FlowRule extends AbstractRule {
         result = 31 * result + controlBehavior;
         result = 31 * result + warmUpPeriodSec;
         result = 31 * result + maxQueueingTimeMs;
+        result = 31 * result + (originWeights != null ? originWeights.hashCode() : 0);
         result = 31 * result + (clusterMode ? 1 : 0);
         result = 31 * result + (clusterConfig != null ? clusterConfig.hashCode() : 0);
         return result;
@@ -232,6 +268,7 @@ public class FlowRule extends AbstractRule {
             ", controlBehavior=" + controlBehavior +
             ", warmUpPeriodSec=" + warmUpPeriodSec +
             ", maxQueueingTimeMs=" + maxQueueingTimeMs +
+            ", originWeights=" + originWeights +
             ", clusterMode=" + clusterMode +
             ", clusterConfig=" + clusterConfig +
             ", controller=" + controller +
@@ -17,12 +17,14 @@ package com.alibaba.csp.sentinel.slots.block.flow;
 
 import java.util.Collection;
 
+import com.alibaba.csp.sentinel.AdmissionDelay;
 import com.alibaba.csp.sentinel.cluster.ClusterStateManager;
 import com.alibaba.csp.sentinel.cluster.server.EmbeddedClusterTokenServerProvider;
 import com.alibaba.csp.sentinel.cluster.client.TokenClientProvider;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.TokenService;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.node.DefaultNode;
@@ -50,12 +52,19 @@ public class FlowRuleChecker {
         if (rules != null) {
             for (FlowRule rule : rules) {
                 if (!canPassCheck(rule, context, node, count, prioritized)) {
-                    throw new FlowException(rule.getLimitApp(), rule);
+                    throw newBlockException(rule);
                 }
             }
         }
     }
 
+    static FlowException newBlockException(/*@NonNull*/ FlowRule rule) {
+        if (SentinelConfig.shouldPreallocateBlockException()) {
+            return rule.getPreallocatedException();
+        }
+        return new FlowException(rule.getLimitApp(), rule);
+    }
+
     public boolean canPassCheck(/*@NonNull*/ FlowRule rule, Context context, DefaultNode node,
                                                     int acquireCount) {
         return canPassCheck(rule, context, node, acquireCount, false);
@@ -191,11 +200,7 @@ public class FlowRuleChecker {
                 return true;
             case TokenResultStatus.SHOULD_WAIT:
                 // Wait for next tick.
-                try {
-                    Thread.sleep(result.getWaitInMs());
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+                AdmissionDelay.delayMs(result.getWaitInMs());
                 return true;
             case TokenResultStatus.NO_RULE_EXISTS:
             case TokenResultStatus.BAD_REQUEST:
@@ -23,6 +23,7 @@ import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
 import com.alibaba.csp.sentinel.slots.block.RuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.AdaptiveConcurrencyController;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
@@ -122,6 +123,28 @@ public class FlowRuleManager {
         return flowRules.getRules(resource);
     }
 
+    /**
+     * Get the current estimated limit of the adaptive concurrency rule of given resource.
+     * If there are multiple adaptive concurrency rules, the minimum limit will be returned.
+     *
+     * @param resource resource name
+     * @return current adaptive concurrency limit; -1 if there is no adaptive concurrency rule
+     * @since 1.8.9
+     */
+    public static double getAdaptiveConcurrencyLimit(String resource) {
+        double limit = -1;
+        for (FlowRule rule : flowRules.getRules(resource)) {
+            TrafficShapingController rater = rule.getRater();
+            if (rater instanceof AdaptiveConcurrencyController) {
+                double current = ((AdaptiveConcurrencyController)rater).getLimit();
+                if (limit < 0 || current < limit) {
+                    limit = current;
+                }
+            }
+        }
+        return limit;
+    }
+
     public static boolean hasConfig(String resource) {
         return flowRules.hasConfig(resource);
     }
@@ -146,18 +169,46 @@ public class FlowRuleManager {
 
     private static final class FlowPropertyListener implements PropertyListener<List<FlowRule>> {
 
+        private Map<String, List<FlowRule>> previousRules = new HashMap<>();
+
         @Override
         public synchronized void configUpdate(List<FlowRule> value) {
-            Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(value);
-            flowRules.updateRules(rules);
-            RecordLog.info("[FlowRuleManager] Flow rules received: {}", rules);
+            Map<String, List<FlowRule>> rules = reloadFrom(value);
+            RecordLog.info("[FlowRuleManager] Flow rules received for {} resources, changed: {}", rules.size(),
+                changedRules(rules));
         }
 
         @Override
         public synchronized void configLoad(List<FlowRule> conf) {
-            Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(conf);
+            Map<String, List<FlowRule>> rules = reloadFrom(conf);
+            RecordLog.info("[FlowRuleManager] Flow rules loaded for {} resources, changed: {}", rules.size(),
+                changedRules(rules));
+        }
+
+        private Map<String, List<FlowRule>> reloadFrom(List<FlowRule> list) {
+            previousRules = flowRules.getOriginalRules();
+            // Controllers of the unchanged rules are reused, so that their states are kept.
+            Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(list, null, true, previousRules);
             flowRules.updateRules(rules);
-            RecordLog.info("[FlowRuleManager] Flow rules loaded: {}", rules);
+            return rules;
+        }
+
+        /**
+         * Only the rules of changed resources are logged, as there may be a large number of rules.
+         */
+        private Map<String, List<FlowRule>> changedRules(Map<String, List<FlowRule>> rules) {
+            Map<String, List<FlowRule>> changed = new HashMap<>();
+            for (Map.Entry<String, List<FlowRule>> entry : rules.entrySet()) {
+                if (!entry.getValue().equals(previousRules.get(entry.getKey()))) {
+                    changed.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String resource : previousRules.keySet()) {
+                if (!rules.containsKey(resource)) {
+                    changed.put(resource, new ArrayList<FlowRule>());
+                }
+            }
+            return changed;
         }
     }
 
@@ -19,10 +19,12 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleManager;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.AdaptiveConcurrencyController;
 import com.alibaba.csp.sentinel.slots.block.flow.controller.DefaultController;
 import com.alibaba.csp.sentinel.slots.block.flow.controller.ThrottlingController;
 import com.alibaba.csp.sentinel.slots.block.flow.controller.WarmUpController;
 import com.alibaba.csp.sentinel.slots.block.flow.controller.WarmUpRateLimiterController;
+import com.alibaba.csp.sentinel.slots.block.flow.controller.WeightedFairController;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.util.function.Function;
 import com.alibaba.csp.sentinel.util.function.Predicate;
@@ -71,6 +73,23 @@ public final class FlowRuleUtil {
         return buildFlowRuleMap(list, extractResource, filter, shouldSort);
     }
 
+    /**
+     * Build the flow rule map from raw list of flow rules, grouping by resource name. The traffic shaping
+     * controllers of unchanged rules in the previous rule map are reused.
+     *
+     * @param list            raw list of flow rules
+     * @param filter          rule filter
+     * @param shouldSort      whether the rules should be sorted
+     * @param previousRuleMap the current rule map built before, nullable
+     * @return constructed new flow rule map; empty map if list is null or empty, or no wanted rules
+     * @since 1.8.9
+     */
+    public static Map<String, List<FlowRule>> buildFlowRuleMap(List<FlowRule> list, Predicate<FlowRule> filter,
+                                                               boolean shouldSort,
+                                                               Map<String, List<FlowRule>> previousRuleMap) {
+        return buildFlowRuleMap(list, extractResource, filter, shouldSort, previousRuleMap);
+    }
+
     /**
      * Build the flow rule map from raw list of flow rules, grouping by provided group function.
      *
@@ -83,11 +102,33 @@ public final class FlowRuleUtil {
      */
     public static <K> Map<K, List<FlowRule>> buildFlowRuleMap(List<FlowRule> list, Function<FlowRule, K> groupFunction,
                                                               Predicate<FlowRule> filter, boolean shouldSort) {
+        return buildFlowRuleMap(list, groupFunction, filter, shouldSort, null);
+    }
+
+    /**
+     * Build the flow rule map from raw list of flow rules, grouping by provided group function.
+     * The traffic shaping controllers of the rules which remain unchanged in the previous rule map are reused,
+     * so that their states (e.g. the warm-up tokens and the latest passed time of throttling) are kept,
+     * and only the changed rules get new controllers. If all the rules of a key remain unchanged,
+     * the previous rule list of the key is reused as well, so only the changed keys are rebuilt and sorted.
+     *
+     * @param list            raw list of flow rules
+     * @param groupFunction   grouping function of the map (by key)
+     * @param filter          rule filter
+     * @param shouldSort      whether the rules should be sorted
+     * @param previousRuleMap the current rule map built before, nullable
+     * @param <K>             type of key
+     * @return constructed new flow rule map; empty map if list is null or empty, or no wanted rules
+     * @since 1.8.9
+     */
+    public static <K> Map<K, List<FlowRule>> buildFlowRuleMap(List<FlowRule> list, Function<FlowRule, K> groupFunction,
+                                                              Predicate<FlowRule> filter, boolean shouldSort,
+                                                              Map<K, List<FlowRule>> previousRuleMap) {
         Map<K, List<FlowRule>> newRuleMap = new ConcurrentHashMap<>();
         if (list == null || list.isEmpty()) {
             return newRuleMap;
         }
-        Map<K, Set<FlowRule>> tmpMap = new ConcurrentHashMap<>();
+        Map<K, Set<FlowRule>> tmpMap = new HashMap<>();
 
         for (FlowRule rule : list) {
             if (!isValidRule(rule)) {
@@ -100,8 +141,6 @@ public final class FlowRuleUtil {
             if (StringUtil.isBlank(rule.getLimitApp())) {
                 rule.setLimitApp(RuleConstant.LIMIT_APP_DEFAULT);
             }
-            TrafficShapingController rater = generateRater(rule);
-            rule.setRater(rater);
 
             K key = groupFunction.apply(rule);
             if (key == null) {
@@ -119,7 +158,19 @@ public final class FlowRuleUtil {
         }
         Comparator<FlowRule> comparator = new FlowRuleComparator();
         for (Entry<K, Set<FlowRule>> entries : tmpMap.entrySet()) {
-            List<FlowRule> rules = new ArrayList<>(entries.getValue());
+            Set<FlowRule> flowRules = entries.getValue();
+            List<FlowRule> previousRules = previousRuleMap == null ? null : previousRuleMap.get(entries.getKey());
+            if (isUnchanged(flowRules, previousRules)) {
+                // All the rules of the key remain unchanged, so the previous (sorted) rules are reused.
+                newRuleMap.put(entries.getKey(), previousRules);
+                continue;
+            }
+            Map<FlowRule, FlowRule> previousRuleIndex = indexRules(previousRules);
+            List<FlowRule> rules = new ArrayList<>(flowRules.size());
+            for (FlowRule rule : flowRules) {
+                rule.setRater(getExistingSameRaterOrNew(rule, previousRuleIndex));
+                rules.add(rule);
+            }
             if (shouldSort) {
                 // Sort the rules.
                 Collections.sort(rules, comparator);
@@ -130,6 +181,39 @@ public final class FlowRuleUtil {
         return newRuleMap;
     }
 
+    private static boolean isUnchanged(Set<FlowRule> rules, List<FlowRule> previousRules) {
+        if (previousRules == null || previousRules.size() != rules.size()) {
+            return false;
+        }
+        for (FlowRule previous : previousRules) {
+            if (previous.getRater() == null || !rules.contains(previous)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<FlowRule, FlowRule> indexRules(List<FlowRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<FlowRule, FlowRule> index = new HashMap<>(rules.size() * 2);
+        for (FlowRule rule : rules) {
+            index.put(rule, rule);
+        }
+        return index;
+    }
+
+    private static TrafficShapingController getExistingSameRaterOrNew(/*@Valid*/ FlowRule rule,
+                                                                      Map<FlowRule, FlowRule> previousRuleIndex) {
+        FlowRule previous = previousRuleIndex.get(rule);
+        if (previous != null && previous.getRater() != null) {
+            // Reuse the controller if the rule remains unchanged.
+            return previous.getRater();
+        }
+        return generateRater(rule);
+    }
+
     private static TrafficShapingController generateRater(/*@Valid*/ FlowRule rule) {
         if (rule.getGrade() == RuleConstant.FLOW_GRADE_QPS) {
             switch (rule.getControlBehavior()) {
@@ -141,11 +225,16 @@ public final class FlowRuleUtil {
                 case RuleConstant.CONTROL_BEHAVIOR_WARM_UP_RATE_LIMITER:
                     return new WarmUpRateLimiterController(rule.getCount(), rule.getWarmUpPeriodSec(),
                             rule.getMaxQueueingTimeMs(), ColdFactorProperty.coldFactor);
+                case RuleConstant.CONTROL_BEHAVIOR_WEIGHTED_FAIR:
+                    return new WeightedFairController(rule.getCount(), rule.getOriginWeights());
                 case RuleConstant.CONTROL_BEHAVIOR_DEFAULT:
                 default:
                     // Default mode or unknown mode: default traffic shaping controller (fast-reject).
             }
         }
+        if (rule.getGrade() == RuleConstant.FLOW_GRADE_ADAPTIVE_CONCURRENCY) {
+            return new AdaptiveConcurrencyController(rule.getCount());
+        }
         return new DefaultController(rule.getCount(), rule.getGrade());
     }
 
@@ -179,6 +268,9 @@ public final class FlowRuleUtil {
             return checkClusterField(rule) && checkStrategyField(rule) && checkControlBehaviorField(rule);
         } else if (rule.getGrade() == RuleConstant.FLOW_GRADE_THREAD) {
             return checkClusterConcurrentField(rule);
+        } else if (rule.getGrade() == RuleConstant.FLOW_GRADE_ADAPTIVE_CONCURRENCY) {
+            // The adaptive limit is estimated locally, so cluster mode is not supported.
+            return !rule.isClusterMode() && rule.getCount() >= 1 && checkStrategyField(rule);
         } else {
             return false;
         }
@@ -259,11 +351,29 @@ public final class FlowRuleUtil {
                 return rule.getMaxQueueingTimeMs() > 0;
             case RuleConstant.CONTROL_BEHAVIOR_WARM_UP_RATE_LIMITER:
                 return rule.getWarmUpPeriodSec() > 0 && rule.getMaxQueueingTimeMs() > 0;
+            case RuleConstant.CONTROL_BEHAVIOR_WEIGHTED_FAIR:
+                return checkWeightedFairField(rule);
             default:
                 return true;
         }
     }
 
+    private static boolean checkWeightedFairField(/*@NonNull*/ FlowRule rule) {
+        // The capacity is shared among all origins of the resource node.
+        if (rule.isClusterMode() || rule.getStrategy() != RuleConstant.STRATEGY_DIRECT
+            || !RuleConstant.LIMIT_APP_DEFAULT.equals(rule.getLimitApp())) {
+            return false;
+        }
+        if (rule.getOriginWeights() != null) {
+            for (Map.Entry<String, Double> e : rule.getOriginWeights().entrySet()) {
+                if (e.getKey() == null || e.getValue() == null || !(e.getValue() > 0)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private static final Function<FlowRule, String> extractResource = new Function<FlowRule, String>() {
         @Override
         public String apply(FlowRule rule) {
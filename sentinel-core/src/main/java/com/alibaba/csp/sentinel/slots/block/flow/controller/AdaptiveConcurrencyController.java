@@ -0,0 +1,126 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Adaptive concurrency controller, which continuously estimates the optimal concurrency (in-flight) limit
+ * of the resource from the response time, in a gradient (TCP-Vegas like) way.
+ * </p>
+ * <p>
+ * The no-load RT is the minimum of the average RT of the statistic windows observed recently. The average RT
+ * is used instead of the RT of a single request, as the latter is easily disturbed in millisecond precision.
+ * The no-load RT is re-probed periodically, so that it could follow a permanent change of the RT.
+ * Each time the limit is updated, the gradient
+ * {@code tolerance * noLoadRt / sampleRt} (bounded in [0.5, 1]) is calculated from the average RT
+ * of the current statistic window. A gradient of 1 means that no request is queueing, so the limit
+ * could grow by the allowed queue size (square root of the limit); otherwise the limit shrinks
+ * in proportion to the gradient. The new limit is smoothed and bounded by the count of the rule.
+ * </p>
+ * <p>
+ * The limit is updated at most once per update interval, by the thread which wins the CAS of the update time,
+ * so no lock is needed on the checking path.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public class AdaptiveConcurrencyController implements TrafficShapingController {
+
+    static final double MIN_LIMIT = 1;
+    static final double INITIAL_LIMIT = 20;
+
+    static final long UPDATE_INTERVAL_MS = 500;
+    static final long NO_LOAD_RT_PROBE_INTERVAL_MS = 30 * 1000;
+
+    private static final double RT_TOLERANCE = 1.5;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final double maxLimit;
+    private final AtomicLong lastUpdateTime = new AtomicLong(0);
+
+    private volatile double limit;
+    private volatile double noLoadRt = Double.MAX_VALUE;
+    private volatile long noLoadRtProbeTime = 0;
+
+    public AdaptiveConcurrencyController(double maxLimit) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.limit = Math.min(INITIAL_LIMIT, this.maxLimit);
+    }
+
+    @Override
+    public boolean canPass(Node node, int acquireCount) {
+        return canPass(node, acquireCount, false);
+    }
+
+    @Override
+    public boolean canPass(Node node, int acquireCount, boolean prioritized) {
+        if (node == null) {
+            return true;
+        }
+        tryUpdateLimit(node);
+        return node.curThreadNum() + acquireCount <= limit;
+    }
+
+    private void tryUpdateLimit(Node node) {
+        long currentTime = TimeUtil.currentTimeMillis();
+        long lastTime = lastUpdateTime.get();
+        if (currentTime - lastTime < UPDATE_INTERVAL_MS || !lastUpdateTime.compareAndSet(lastTime, currentTime)) {
+            return;
+        }
+        double sampleRt = node.avgRt();
+        if (sampleRt <= 0) {
+            // No completed requests in the current window.
+            return;
+        }
+        double currentNoLoadRt = noLoadRt;
+        if (sampleRt < currentNoLoadRt || currentTime - noLoadRtProbeTime >= NO_LOAD_RT_PROBE_INTERVAL_MS) {
+            currentNoLoadRt = sampleRt;
+            noLoadRt = currentNoLoadRt;
+            noLoadRtProbeTime = currentTime;
+        }
+
+        double currentLimit = limit;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, RT_TOLERANCE * currentNoLoadRt / sampleRt));
+        if (gradient >= 1.0 && node.curThreadNum() < currentLimit / 2) {
+            // Do not grow the limit when the current limit is far from being used.
+            return;
+        }
+        double queueSize = Math.sqrt(currentLimit);
+        double newLimit = currentLimit * gradient + queueSize;
+        newLimit = currentLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(MIN_LIMIT, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * Get the current estimated concurrency limit.
+     *
+     * @return the current concurrency limit
+     */
+    public double getLimit() {
+        return limit;
+    }
+
+    public double getMaxLimit() {
+        return maxLimit;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
+import com.alibaba.csp.sentinel.AdmissionDelay;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.node.OccupyTimeoutProperty;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
@@ -23,7 +24,12 @@ import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
- * Default throttling controller (immediately reject strategy).
+ * <p>Default throttling controller (immediately reject strategy).</p>
+ * <p>
+ * If the statistics of the resource are sampled, the pass QPS checked here is an estimate, which deviates from
+ * the real QPS within the error bound described in
+ * {@link com.alibaba.csp.sentinel.slots.statistic.StatisticSamplingManager}.
+ * </p>
  *
  * @author jialiang.linjl
  * @author Eric Zhao
@@ -47,7 +53,7 @@ public class DefaultController implements TrafficShapingController {
 
     @Override
     public boolean canPass(Node node, int acquireCount, boolean prioritized) {
-        int curCount = avgUsedTokens(node);
+        int curCount = avgUsedTokens(node, acquireCount);
         if (curCount + acquireCount > count) {
             if (prioritized && grade == RuleConstant.FLOW_GRADE_QPS) {
                 long currentTime;
@@ -57,7 +63,7 @@ public class DefaultController implements TrafficShapingController {
                 if (waitInMs < OccupyTimeoutProperty.getOccupyTimeout()) {
                     node.addWaitingRequest(currentTime + waitInMs, acquireCount);
                     node.addOccupiedPass(acquireCount);
-                    sleep(waitInMs);
+                    AdmissionDelay.delayMs(waitInMs);
 
                     // PriorityWaitException indicates that the request will pass after waiting for {@link @waitInMs}.
                     throw new PriorityWaitException(waitInMs);
@@ -68,18 +74,11 @@ public class DefaultController implements TrafficShapingController {
         return true;
     }
 
-    private int avgUsedTokens(Node node) {
+    private int avgUsedTokens(Node node, int acquireCount) {
         if (node == null) {
             return DEFAULT_AVG_USED_TOKENS;
         }
-        return grade == RuleConstant.FLOW_GRADE_THREAD ? node.curThreadNum() : (int)(node.passQps());
-    }
-
-    private void sleep(long timeMillis) {
-        try {
-            Thread.sleep(timeMillis);
-        } catch (InterruptedException e) {
-            // Ignore.
-        }
+        return grade == RuleConstant.FLOW_GRADE_THREAD ? node.curThreadNum()
+            : (int)(node.passQps(count - acquireCount));
     }
 }
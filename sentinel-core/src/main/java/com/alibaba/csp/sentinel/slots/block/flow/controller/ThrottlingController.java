@@ -17,8 +17,8 @@ package com.alibaba.csp.sentinel.slots.block.flow.controller;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.LockSupport;
 
+import com.alibaba.csp.sentinel.AdmissionDelay;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
 import com.alibaba.csp.sentinel.util.AssertUtil;
@@ -96,7 +96,7 @@ public class ThrottlingController implements TrafficShapingController {
             }
             // in race condition waitTime may <= 0
             if (waitTime > 0) {
-                sleepNanos(waitTime);
+                AdmissionDelay.delayNanos(waitTime);
             }
             return true;
         }
@@ -129,7 +129,7 @@ public class ThrottlingController implements TrafficShapingController {
             }
             // in race condition waitTime may <= 0
             if (waitTime > 0) {
-                sleepMs(waitTime);
+                AdmissionDelay.delayMs(waitTime);
             }
             return true;
         }
@@ -153,15 +153,4 @@ public class ThrottlingController implements TrafficShapingController {
         }
     }
 
-    private void sleepMs(long ms) {
-        try {
-            Thread.sleep(ms);
-        } catch (InterruptedException e) {
-        }
-    }
-
-    private void sleepNanos(long ns) {
-        LockSupport.parkNanos(ns);
-    }
-
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.controller;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.node.StatisticNode;
+import com.alibaba.csp.sentinel.slots.block.flow.TrafficShapingController;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Weighted fair controller, which shares the QPS threshold of the resource among the origins
+ * in proportion to their weights. An origin could borrow the capacity left idle by the others,
+ * but a noisy origin could not take the share of the other origins which are also demanding.
+ * </p>
+ * <p>
+ * The demand of each origin is the pass and block QPS of its origin node in the {@link ClusterNode}
+ * (requests without an origin are regarded as one origin named {@code ""}). The fair share per weight
+ * is the water level of the weighted max-min fair allocation of the threshold among the demands,
+ * which is updated at most once per update interval by the thread which wins the CAS of the update time.
+ * When the total demand does not exceed the threshold, all origins could pass.
+ * </p>
+ * <p>
+ * Otherwise, each origin is limited to {@code fairSharePerWeight * weight} by a virtual clock:
+ * every passed request advances the virtual finish time of its origin by the cost of the request
+ * in the fair rate, and the request is rejected if the virtual finish time would be ahead of
+ * the current time by more than 1 second (i.e. an origin may burst its fair share of 1 second).
+ * The virtual finish time is updated by CAS, so no lock is needed on the checking path.
+ * </p>
+ * <p>
+ * The QPS threshold of the resource is always checked, as the fair share lags behind the change of demands.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public class WeightedFairController implements TrafficShapingController {
+
+    static final double DEFAULT_WEIGHT = 1;
+    static final double UNLIMITED = Double.MAX_VALUE;
+
+    static final long UPDATE_INTERVAL_MS = 200;
+    private static final long MAX_AHEAD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final String NO_ORIGIN = "";
+
+    private final double count;
+    private final Map<String, Double> weights;
+
+    private final ConcurrentMap<String, AtomicLong> virtualFinishTimes = new ConcurrentHashMap<>();
+    private final AtomicLong lastUpdateTime = new AtomicLong(0);
+
+    /**
+     * Fair share (QPS) per unit of weight.
+     */
+    private volatile double fairSharePerWeight = UNLIMITED;
+
+    public WeightedFairController(double count, Map<String, Double> weights) {
+        this.count = count;
+        this.weights = weights == null ? Collections.<String, Double>emptyMap() : new HashMap<>(weights);
+    }
+
+    @Override
+    public boolean canPass(Node node, int acquireCount) {
+        return canPass(node, acquireCount, false);
+    }
+
+    @Override
+    public boolean canPass(Node node, int acquireCount, boolean prioritized) {
+        Context context = ContextUtil.getContext();
+        String origin = context == null ? NO_ORIGIN : context.getOrigin();
+        return canPass(node, origin, acquireCount, TimeUtil.currentTimeMillis());
+    }
+
+    boolean canPass(Node node, String origin, int acquireCount, long currentTime) {
+        if (node == null) {
+            return true;
+        }
+        if ((int)node.passQps(count - acquireCount) + acquireCount > count) {
+            return false;
+        }
+        tryUpdateFairShare(node, currentTime);
+        double fairShare = fairSharePerWeight;
+        if (fairShare == UNLIMITED) {
+            return true;
+        }
+
+        long cost = (long)(acquireCount * TimeUnit.SECONDS.toNanos(1) / (fairShare * getWeight(origin)));
+        long now = TimeUnit.MILLISECONDS.toNanos(currentTime);
+        AtomicLong virtualFinishTime = getVirtualFinishTime(origin);
+        while (true) {
+            long last = virtualFinishTime.get();
+            long start = Math.max(last, now);
+            if (start > now && start + cost - now > MAX_AHEAD_NANOS) {
+                return false;
+            }
+            if (virtualFinishTime.compareAndSet(last, start + cost)) {
+                return true;
+            }
+        }
+    }
+
+    private AtomicLong getVirtualFinishTime(String origin) {
+        String key = origin == null ? NO_ORIGIN : origin;
+        AtomicLong virtualFinishTime = virtualFinishTimes.get(key);
+        if (virtualFinishTime == null) {
+            AtomicLong newValue = new AtomicLong(0);
+            virtualFinishTime = virtualFinishTimes.putIfAbsent(key, newValue);
+            if (virtualFinishTime == null) {
+                virtualFinishTime = newValue;
+            }
+        }
+        return virtualFinishTime;
+    }
+
+    private void tryUpdateFairShare(Node node, long currentTime) {
+        long lastUpdate = lastUpdateTime.get();
+        if (currentTime - lastUpdate < UPDATE_INTERVAL_MS || !lastUpdateTime.compareAndSet(lastUpdate, currentTime)) {
+            return;
+        }
+        if (!(node instanceof ClusterNode)) {
+            return;
+        }
+        Map<String, StatisticNode> originNodes = ((ClusterNode)node).getOriginCountMap();
+        double[] demands = new double[originNodes.size() + 1];
+        double[] originWeights = new double[demands.length];
+        // Requests without origin are not recorded in the origin nodes.
+        double noOriginDemand = node.passQps() + node.blockQps();
+        int i = 0;
+        for (Map.Entry<String, StatisticNode> e : originNodes.entrySet()) {
+            demands[i] = e.getValue().passQps() + e.getValue().blockQps();
+            originWeights[i] = getWeight(e.getKey());
+            noOriginDemand -= demands[i];
+            i++;
+        }
+        demands[i] = Math.max(noOriginDemand, 0);
+        originWeights[i] = getWeight(NO_ORIGIN);
+        this.fairSharePerWeight = calculateFairShare(count, demands, originWeights);
+    }
+
+    /**
+     * Calculate the water level of the weighted max-min fair allocation of the capacity,
+     * i.e. each demand {@code d} of weight {@code w} is allocated {@code min(d, level * w)}.
+     *
+     * @return fair share per unit of weight, or {@link #UNLIMITED} if the capacity covers all demands
+     */
+    static double calculateFairShare(double capacity, final double[] demands, final double[] weights) {
+        Integer[] order = new Integer[demands.length];
+        double totalDemand = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < demands.length; i++) {
+            order[i] = i;
+            if (demands[i] > 0) {
+                totalDemand += demands[i];
+                totalWeight += weights[i];
+            }
+        }
+        if (totalDemand <= capacity || totalWeight <= 0) {
+            return UNLIMITED;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(demands[a] / weights[a], demands[b] / weights[b]);
+            }
+        });
+        double remaining = capacity;
+        for (int i : order) {
+            if (demands[i] <= 0) {
+                continue;
+            }
+            double level = remaining / totalWeight;
+            if (demands[i] / weights[i] > level) {
+                return level;
+            }
+            // The demand is fully satisfied, and the rest capacity is shared by the other origins.
+            remaining -= demands[i];
+            totalWeight -= weights[i];
+        }
+        return UNLIMITED;
+    }
+
+    private double getWeight(String origin) {
+        Double weight = weights.get(origin == null ? NO_ORIGIN : origin);
+        return weight == null ? DEFAULT_WEIGHT : weight;
+    }
+
+    /**
+     * Get current fair share (QPS) per unit of weight.
+     *
+     * @return current fair share per weight, or {@link Double#MAX_VALUE} if the origins are not limited
+     */
+    public double getFairSharePerWeight() {
+        return fairSharePerWeight;
+    }
+}
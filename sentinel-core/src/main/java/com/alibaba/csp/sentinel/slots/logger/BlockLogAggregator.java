@@ -0,0 +1,382 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.logger;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.eagleeye.EagleEyeAppender;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>Lock-free aggregation buffer of the block log.</p>
+ *
+ * <p>Block events are folded into striped counters keyed by
+ * {@code (resource, exceptionName, limitApp, origin, ruleId)}. Each key is interned into an
+ * open-addressing table on its first occurrence, so recording an event of a known key
+ * allocates nothing and only acquires a lock on the first event of an interval. Every key keeps
+ * two counters alternating between odd and even intervals, each tagged with its interval, and a
+ * background writer drains the counters of every complete interval since its last run into the
+ * log file. A counter still holding an older interval when it is reused is reset instead of being
+ * folded into the new interval, so the events of an interval the writer fell behind on are dropped
+ * rather than logged with a wrong time. The log line format is the same as the one of
+ * {@link com.alibaba.csp.sentinel.eagleeye.StatLogger}.</p>
+ *
+ * <p>When the amount of distinct keys reaches {@code maxEntryCount}, events of new keys will be
+ * accounted into an overflow entry (with {@link #OVERFLOW_KEY} as resource). Keys that have been
+ * idle for a while are evicted when the table gets crowded.</p>
+ *
+ * @since 1.8.9
+ */
+final class BlockLogAggregator {
+
+    static final String OVERFLOW_KEY = "__overflow__";
+
+    /**
+     * Idle keys will be evicted after this amount of intervals.
+     */
+    static final int MAX_IDLE_ROUNDS = 60;
+
+    /**
+     * Delay of the writer after the end of an interval, so that events of the interval have all landed.
+     */
+    private static final long WRITE_COOL_DOWN_MILLIS = 200;
+
+    private static final char ENTRY_DELIMITER = '|';
+    private static final char KEY_DELIMITER = ',';
+    private static final char VALUE_DELIMITER = ',';
+    private static final int STAT_TYPE_COUNT_SUM = 1;
+    private static final String NEWLINE = "\r\n";
+
+    private final EagleEyeAppender appender;
+    private final long intervalMillis;
+    private final int maxEntryCount;
+
+    private final Counter overflow = new Counter();
+
+    /**
+     * Only accessed by the writer.
+     */
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    private volatile KeyTable table;
+    /**
+     * The table replaced in the last eviction, which is drained once more by the writer
+     * for events that raced with the replacement. Only accessed by the writer.
+     */
+    private KeyTable retiredTable;
+    /**
+     * The last interval written by the writer. Only accessed by the writer.
+     */
+    private long lastFlushedInterval = -1;
+
+    private ScheduledExecutorService writer;
+
+    BlockLogAggregator(EagleEyeAppender appender, long intervalMillis, int maxEntryCount) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis should be positive");
+        }
+        if (maxEntryCount <= 0) {
+            throw new IllegalArgumentException("maxEntryCount should be positive");
+        }
+        this.appender = appender;
+        this.intervalMillis = intervalMillis;
+        this.maxEntryCount = maxEntryCount;
+        this.table = new KeyTable(maxEntryCount);
+    }
+
+    synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        writer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("sentinel-block-log-writer", true));
+        long now = System.currentTimeMillis();
+        long initialDelay = intervalMillis - now % intervalMillis + WRITE_COOL_DOWN_MILLIS;
+        writer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush(System.currentTimeMillis());
+                } catch (Throwable t) {
+                    RecordLog.warn("[BlockLogAggregator] Failed to write block log", t);
+                }
+            }
+        }, initialDelay, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (writer != null) {
+            writer.shutdownNow();
+            writer = null;
+        }
+    }
+
+    void record(String resource, String exceptionName, String limitApp, String origin, Long ruleId, long count,
+                long now) {
+        long interval = now / intervalMillis;
+        KeyTable t = this.table;
+        int hash = hash(resource, exceptionName, limitApp, origin, ruleId);
+        int mask = t.entries.length() - 1;
+        int i = hash & mask;
+        for (int probe = 0; probe <= mask; probe++) {
+            KeyEntry e = t.entries.get(i);
+            if (e == null) {
+                if (t.size.get() >= maxEntryCount) {
+                    break;
+                }
+                KeyEntry created = new KeyEntry(hash, resource, exceptionName, limitApp, origin, ruleId);
+                if (t.entries.compareAndSet(i, null, created)) {
+                    t.size.incrementAndGet();
+                    created.add(interval, count);
+                    return;
+                }
+                e = t.entries.get(i);
+            }
+            if (e.matches(hash, resource, exceptionName, limitApp, origin, ruleId)) {
+                e.add(interval, count);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        overflow.add(interval, count);
+    }
+
+    /**
+     * Write the counters of the complete intervals before the given time which have not been written yet,
+     * so that a delayed or skipped run of the writer does not lose any interval still kept by the counters.
+     * Should only be invoked by one thread at the same time.
+     *
+     * @param now current time in milliseconds
+     */
+    void flush(long now) {
+        long lastInterval = now / intervalMillis - 1;
+        // The counters keep two intervals at most, older ones have been recycled by later events.
+        for (long interval = Math.max(lastFlushedInterval + 1, lastInterval - 1); interval <= lastInterval;
+             interval++) {
+            flushInterval(interval);
+            lastFlushedInterval = interval;
+        }
+        appender.flush();
+    }
+
+    private void flushInterval(long interval) {
+        String time = timeFormat.format(new Date(interval * intervalMillis));
+        StringBuilder buffer = new StringBuilder(256);
+
+        KeyTable t = this.table;
+        int expired = 0;
+        for (int i = 0; i < t.entries.length(); i++) {
+            KeyEntry e = t.entries.get(i);
+            if (e == null) {
+                continue;
+            }
+            e.drainedInterval = interval;
+            long count = e.drain(interval);
+            if (count > 0) {
+                e.idleRounds = 0;
+                write(buffer, time, e, count);
+            } else if (++e.idleRounds >= MAX_IDLE_ROUNDS) {
+                expired++;
+            }
+        }
+
+        KeyTable retired = this.retiredTable;
+        if (retired != null) {
+            this.retiredTable = null;
+            for (int i = 0; i < retired.entries.length(); i++) {
+                KeyEntry e = retired.entries.get(i);
+                // Entries survived the eviction are shared with the current table and have been drained above.
+                if (e != null && e.drainedInterval != interval) {
+                    write(buffer, time, e, e.drain(interval));
+                }
+            }
+        }
+
+        long overflowCount = overflow.drain(interval);
+        if (overflowCount > 0) {
+            buffer.setLength(0);
+            buffer.append(time).append(ENTRY_DELIMITER).append(STAT_TYPE_COUNT_SUM).append(ENTRY_DELIMITER)
+                .append(OVERFLOW_KEY).append(KEY_DELIMITER).append(KEY_DELIMITER).append(KEY_DELIMITER)
+                .append(KEY_DELIMITER).append(ENTRY_DELIMITER)
+                .append(overflowCount).append(VALUE_DELIMITER).append(0)
+                .append(NEWLINE);
+            appender.append(buffer.toString());
+            RecordLog.warn("[BlockLogAggregator] Distinct block log entries exceed {}, {} events are "
+                + "accounted into overflow entry", maxEntryCount, overflowCount);
+        }
+
+        if (expired > 0 && (overflowCount > 0 || t.size.get() > maxEntryCount / 2)) {
+            evictIdleEntries(t);
+        }
+    }
+
+    private void evictIdleEntries(KeyTable t) {
+        KeyTable next = new KeyTable(maxEntryCount);
+        int mask = next.entries.length() - 1;
+        for (int i = 0; i < t.entries.length(); i++) {
+            KeyEntry e = t.entries.get(i);
+            if (e == null || e.idleRounds >= MAX_IDLE_ROUNDS) {
+                continue;
+            }
+            int j = e.hash & mask;
+            while (next.entries.get(j) != null) {
+                j = (j + 1) & mask;
+            }
+            next.entries.set(j, e);
+            next.size.incrementAndGet();
+        }
+        this.table = next;
+        this.retiredTable = t;
+    }
+
+    private void write(StringBuilder buffer, String time, KeyEntry e, long count) {
+        if (count <= 0) {
+            return;
+        }
+        buffer.setLength(0);
+        // time|statType|keys|values
+        buffer.append(time).append(ENTRY_DELIMITER)
+            .append(STAT_TYPE_COUNT_SUM).append(ENTRY_DELIMITER)
+            .append(e.resource).append(KEY_DELIMITER)
+            .append(e.exceptionName).append(KEY_DELIMITER)
+            .append(e.limitApp).append(KEY_DELIMITER)
+            .append(e.origin).append(KEY_DELIMITER);
+        if (e.ruleId != null) {
+            buffer.append(e.ruleId.longValue());
+        }
+        buffer.append(ENTRY_DELIMITER)
+            .append(count).append(VALUE_DELIMITER).append(0)
+            .append(NEWLINE);
+        appender.append(buffer.toString());
+    }
+
+    int entryCount() {
+        return table.size.get();
+    }
+
+    private static int hash(String resource, String exceptionName, String limitApp, String origin, Long ruleId) {
+        int h = hashOf(resource);
+        h = 31 * h + hashOf(exceptionName);
+        h = 31 * h + hashOf(limitApp);
+        h = 31 * h + hashOf(origin);
+        h = 31 * h + hashOf(ruleId);
+        return h ^ (h >>> 16);
+    }
+
+    private static int hashOf(Object o) {
+        return o == null ? 0 : o.hashCode();
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == b || (a != null && a.equals(b));
+    }
+
+    private static final class KeyTable {
+        private final AtomicReferenceArray<KeyEntry> entries;
+        private final AtomicInteger size = new AtomicInteger();
+
+        KeyTable(int maxEntryCount) {
+            // Keep the load factor under 0.5 so that probing stays short.
+            int capacity = 1;
+            while (capacity < maxEntryCount * 2) {
+                capacity <<= 1;
+            }
+            this.entries = new AtomicReferenceArray<>(capacity);
+        }
+    }
+
+    /**
+     * Counters alternating between odd and even intervals. While one is being recorded,
+     * the other one (of the last interval) is drained by the writer.
+     */
+    private static class Counter {
+        private final Slot even = new Slot();
+        private final Slot odd = new Slot();
+
+        void add(long interval, long count) {
+            Slot slot = (interval & 1) == 0 ? even : odd;
+            long current = slot.interval;
+            if (current != interval) {
+                if (current > interval) {
+                    // Late event of an interval which has been recycled.
+                    return;
+                }
+                slot.reset(interval);
+            }
+            slot.count.add(count);
+        }
+
+        long drain(long interval) {
+            Slot slot = (interval & 1) == 0 ? even : odd;
+            synchronized (slot) {
+                return slot.interval == interval ? slot.count.sumThenReset() : 0;
+            }
+        }
+    }
+
+    private static final class Slot {
+        private final LongAdder count = new LongAdder();
+        private volatile long interval = -1;
+
+        synchronized void reset(long newInterval) {
+            if (interval < newInterval) {
+                // The count is reset before the new interval is published, so no event of it can be lost.
+                count.reset();
+                interval = newInterval;
+            }
+        }
+    }
+
+    private static final class KeyEntry extends Counter {
+        private final int hash;
+        private final String resource;
+        private final String exceptionName;
+        private final String limitApp;
+        private final String origin;
+        private final Long ruleId;
+
+        /**
+         * Amount of continuous intervals without any event. Only accessed by the writer.
+         */
+        private int idleRounds;
+        /**
+         * The last interval drained by the writer. Only accessed by the writer.
+         */
+        private long drainedInterval = -1;
+
+        KeyEntry(int hash, String resource, String exceptionName, String limitApp, String origin, Long ruleId) {
+            this.hash = hash;
+            this.resource = resource;
+            this.exceptionName = exceptionName;
+            this.limitApp = limitApp;
+            this.origin = origin;
+            this.ruleId = ruleId;
+        }
+
+        boolean matches(int hash, String resource, String exceptionName, String limitApp, String origin,
+                        Long ruleId) {
+            return this.hash == hash && eq(this.resource, resource) && eq(this.exceptionName, exceptionName)
+                && eq(this.limitApp, limitApp) && eq(this.origin, origin) && eq(this.ruleId, ruleId);
+        }
+    }
+}
@@ -15,33 +15,50 @@
  */
 package com.alibaba.csp.sentinel.slots.logger;
 
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.eagleeye.EagleEye;
 import com.alibaba.csp.sentinel.eagleeye.StatLogger;
 import com.alibaba.csp.sentinel.log.LogBase;
 import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 public class EagleEyeLogUtil {
 
     public static final String FILE_NAME = "sentinel-block.log";
 
+    private static final int MAX_ENTRY_COUNT = 6000;
+    private static final int MAX_FILE_SIZE_MB = 300;
+
     private static StatLogger statLogger;
+    private static BlockLogAggregator aggregator;
 
     static {
         String path = LogBase.getLogBaseDir() + FILE_NAME;
 
-        statLogger = EagleEye.statLoggerBuilder("sentinel-block-log")
-            .intervalSeconds(1)
-            .entryDelimiter('|')
-            .keyDelimiter(',')
-            .valueDelimiter(',')
-            .maxEntryCount(6000)
-            .configLogFilePath(path)
-            .maxFileSizeMB(300)
-            .maxBackupIndex(3)
-            .buildSingleton();
+        if (SentinelConfig.shouldAggregateBlockLog()) {
+            aggregator = new BlockLogAggregator(EagleEye.rollingFileAppender(path, MAX_FILE_SIZE_MB),
+                1000, MAX_ENTRY_COUNT);
+            aggregator.start();
+        } else {
+            statLogger = EagleEye.statLoggerBuilder("sentinel-block-log")
+                .intervalSeconds(1)
+                .entryDelimiter('|')
+                .keyDelimiter(',')
+                .valueDelimiter(',')
+                .maxEntryCount(MAX_ENTRY_COUNT)
+                .configLogFilePath(path)
+                .maxFileSizeMB(MAX_FILE_SIZE_MB)
+                .maxBackupIndex(3)
+                .buildSingleton();
+        }
     }
 
     public static void log(String resource, String exceptionName, String ruleLimitApp, String origin, Long ruleId, int count) {
+        if (aggregator != null) {
+            aggregator.record(resource, exceptionName, ruleLimitApp, origin, ruleId, count,
+                TimeUtil.currentTimeMillis());
+            return;
+        }
         String ruleIdString = StringUtil.EMPTY;
         if (ruleId != null) {
             ruleIdString = String.valueOf(ruleId);
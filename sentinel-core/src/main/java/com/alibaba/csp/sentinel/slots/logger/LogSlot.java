@@ -15,6 +15,9 @@
  */
 package com.alibaba.csp.sentinel.slots.logger;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.context.Context;
@@ -31,13 +34,19 @@ import com.alibaba.csp.sentinel.spi.Spi;
 @Spi(order = Constants.ORDER_LOG_SLOT)
 public class LogSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
 
+    /**
+     * Cache of simple names of block exception classes, as {@link Class#getSimpleName()}
+     * is not cached in some JDK versions.
+     */
+    private static final Map<Class<?>, String> EXCEPTION_NAMES = new ConcurrentHashMap<>();
+
     @Override
     public void entry(Context context, ResourceWrapper resourceWrapper, DefaultNode obj, int count, boolean prioritized, Object... args)
         throws Throwable {
         try {
             fireEntry(context, resourceWrapper, obj, count, prioritized, args);
         } catch (BlockException e) {
-            EagleEyeLogUtil.log(resourceWrapper.getName(), e.getClass().getSimpleName(), e.getRuleLimitApp(),
+            EagleEyeLogUtil.log(resourceWrapper.getName(), exceptionName(e), e.getRuleLimitApp(),
                 context.getOrigin(), e.getRule() != null ? e.getRule().getId() : null, count);
             throw e;
         } catch (Throwable e) {
@@ -45,6 +54,16 @@ public class LogSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         }
     }
 
+    private static String exceptionName(BlockException e) {
+        Class<?> clazz = e.getClass();
+        String name = EXCEPTION_NAMES.get(clazz);
+        if (name == null) {
+            name = clazz.getSimpleName();
+            EXCEPTION_NAMES.put(clazz, name);
+        }
+        return name;
+    }
+
     @Override
     public void exit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
         try {
@@ -0,0 +1,163 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
+import com.alibaba.csp.sentinel.property.PropertyListener;
+import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>
+ * Manager of the sampled statistics mode of resources, which is designed for extremely hot resources
+ * (e.g. millions of entries per second), where recording every entry to the shared sliding windows
+ * costs more than the protected operation itself.
+ * </p>
+ * <p>
+ * With a sample rate {@code N} for a resource, the pass count (on entry) and the success count and
+ * response time (on exit) of the entry are recorded by {@link StatisticSlot} with a probability of
+ * {@code 1/N}, scaled by {@code N}, so that the statistics are unbiased estimates of the real ones.
+ * The block count, exception count and thread count are always recorded exactly.
+ * </p>
+ * <p>
+ * Error bound: for {@code C} real requests in the statistic interval, the standard deviation of the estimated
+ * count is {@code sqrt(C * (N - 1))}, i.e. the relative error is about {@code sqrt(N / C)}. For example, with
+ * {@code N = 16} and 100,000 QPS, the estimated QPS is within 1.3% of the real QPS in 1 sigma (4% in 3 sigma).
+ * The estimated QPS also changes by a step of {@code N}, so the QPS threshold checking (e.g. by the default
+ * flow controller) may pass or block about {@code N} more requests than the threshold. Thus sampling is only
+ * suitable for resources whose QPS is far larger than the sample rate.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public final class StatisticSamplingManager {
+
+    public static final int NOT_SAMPLED = 1;
+    public static final int MAX_SAMPLE_RATE = 1024;
+
+    private static volatile Map<String, Integer> sampleRates = Collections.emptyMap();
+
+    private static final SampleRatePropertyListener LISTENER = new SampleRatePropertyListener();
+    private static SentinelProperty<Map<String, Integer>> currentProperty = new DynamicSentinelProperty<>();
+
+    static {
+        currentProperty.addListener(LISTENER);
+    }
+
+    public static void register2Property(SentinelProperty<Map<String, Integer>> property) {
+        AssertUtil.notNull(property, "property cannot be null");
+        synchronized (LISTENER) {
+            if (currentProperty != null) {
+                currentProperty.removeListener(LISTENER);
+            }
+            property.addListener(LISTENER);
+            currentProperty = property;
+            RecordLog.info("[StatisticSamplingManager] Registering new property to statistic sampling manager");
+        }
+    }
+
+    /**
+     * Load the sample rates of resources. The statistics of resources absent from the map are not sampled.
+     *
+     * @param rates map of the resource name to the sample rate (from 1 to {@link #MAX_SAMPLE_RATE})
+     */
+    public static void loadSampleRates(Map<String, Integer> rates) {
+        currentProperty.updateValue(rates);
+    }
+
+    /**
+     * Get the sample rate of the resource.
+     *
+     * @param resource the resource name
+     * @return the sample rate of the resource, or {@link #NOT_SAMPLED} if the statistics are not sampled
+     */
+    public static int getSampleRate(String resource) {
+        Map<String, Integer> rates = sampleRates;
+        if (rates.isEmpty()) {
+            return NOT_SAMPLED;
+        }
+        Integer rate = rates.get(resource);
+        return rate == null ? NOT_SAMPLED : rate;
+    }
+
+    /**
+     * Get a copy of the sample rates.
+     *
+     * @return a new copy of the sample rates
+     */
+    public static Map<String, Integer> getSampleRates() {
+        return new HashMap<>(sampleRates);
+    }
+
+    /**
+     * Decide whether current event should be recorded with the sample rate.
+     *
+     * @param sampleRate the sample rate of the resource
+     * @return the multiplier of the event count if the event should be recorded, otherwise 0
+     */
+    static int sample(int sampleRate) {
+        if (sampleRate <= NOT_SAMPLED) {
+            return NOT_SAMPLED;
+        }
+        return ThreadLocalRandom.current().nextInt(sampleRate) == 0 ? sampleRate : 0;
+    }
+
+    public static boolean isValidSampleRate(Integer rate) {
+        return rate != null && rate >= NOT_SAMPLED && rate <= MAX_SAMPLE_RATE;
+    }
+
+    private static class SampleRatePropertyListener implements PropertyListener<Map<String, Integer>> {
+
+        @Override
+        public synchronized void configUpdate(Map<String, Integer> value) {
+            sampleRates = loadSampleRateConf(value);
+            RecordLog.info("[StatisticSamplingManager] Sample rates received: {}", sampleRates);
+        }
+
+        @Override
+        public synchronized void configLoad(Map<String, Integer> value) {
+            sampleRates = loadSampleRateConf(value);
+            RecordLog.info("[StatisticSamplingManager] Sample rates loaded: {}", sampleRates);
+        }
+
+        private Map<String, Integer> loadSampleRateConf(Map<String, Integer> value) {
+            if (value == null || value.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, Integer> rates = new HashMap<>();
+            for (Map.Entry<String, Integer> e : value.entrySet()) {
+                if (StringUtil.isBlank(e.getKey()) || !isValidSampleRate(e.getValue())) {
+                    RecordLog.warn("[StatisticSamplingManager] Ignoring invalid sample rate: {}={}",
+                        e.getKey(), e.getValue());
+                    continue;
+                }
+                if (e.getValue() > NOT_SAMPLED) {
+                    rates.put(e.getKey(), e.getValue());
+                }
+            }
+            return rates.isEmpty() ? Collections.<String, Integer>emptyMap() : rates;
+        }
+    }
+
+    private StatisticSamplingManager() {}
+}
@@ -44,6 +44,10 @@ import com.alibaba.csp.sentinel.slots.block.BlockException;
  * <li>Finally, the sum statistics of all entrances.</li>
  * </ul>
  * </p>
+ * <p>
+ * The pass count, success count and response time of extremely hot resources could be recorded
+ * in sampled mode, see {@link StatisticSamplingManager}.
+ * </p>
  *
  * @author jialiang.linjl
  * @author Eric Zhao
@@ -58,20 +62,27 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
             // Do some checking.
             fireEntry(context, resourceWrapper, node, count, prioritized, args);
 
-            // Request passed, add thread count and pass count.
+            // Request passed, add thread count and pass count (if sampled).
+            int sampled = sample(resourceWrapper);
             node.increaseThreadNum();
-            node.addPassRequest(count);
+            if (sampled > 0) {
+                node.addPassRequest(count * sampled);
+            }
 
             if (context.getCurEntry().getOriginNode() != null) {
                 // Add count for origin node.
                 context.getCurEntry().getOriginNode().increaseThreadNum();
-                context.getCurEntry().getOriginNode().addPassRequest(count);
+                if (sampled > 0) {
+                    context.getCurEntry().getOriginNode().addPassRequest(count * sampled);
+                }
             }
 
             if (resourceWrapper.getEntryType() == EntryType.IN) {
                 // Add count for global inbound entry node for global statistics.
                 Constants.ENTRY_NODE.increaseThreadNum();
-                Constants.ENTRY_NODE.addPassRequest(count);
+                if (sampled > 0) {
+                    Constants.ENTRY_NODE.addPassRequest(count * sampled);
+                }
             }
 
             // Handle pass event with registered entry callback handlers.
@@ -133,12 +144,13 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
             long rt = completeStatTime - context.getCurEntry().getCreateTimestamp();
 
             Throwable error = context.getCurEntry().getError();
+            int sampled = sample(resourceWrapper);
 
             // Record response time and success count.
-            recordCompleteFor(node, count, rt, error);
-            recordCompleteFor(context.getCurEntry().getOriginNode(), count, rt, error);
+            recordCompleteFor(node, count, sampled, rt, error);
+            recordCompleteFor(context.getCurEntry().getOriginNode(), count, sampled, rt, error);
             if (resourceWrapper.getEntryType() == EntryType.IN) {
-                recordCompleteFor(Constants.ENTRY_NODE, count, rt, error);
+                recordCompleteFor(Constants.ENTRY_NODE, count, sampled, rt, error);
             }
         }
 
@@ -152,11 +164,26 @@ public class StatisticSlot extends AbstractLinkedProcessorSlot<DefaultNode> {
         fireExit(context, resourceWrapper, count, args);
     }
 
-    private void recordCompleteFor(Node node, int batchCount, long rt, Throwable error) {
+    /**
+     * Decide whether the pass or completion of current entry should be recorded,
+     * according to the sample rate of the resource (see {@link StatisticSamplingManager}).
+     *
+     * @return the multiplier of the recorded counts, or 0 if the event should not be recorded
+     */
+    private static int sample(ResourceWrapper resourceWrapper) {
+        return StatisticSamplingManager.sample(StatisticSamplingManager.getSampleRate(resourceWrapper.getName()));
+    }
+
+    private void recordCompleteFor(Node node, int batchCount, int sampled, long rt, Throwable error) {
         if (node == null) {
             return;
         }
-        node.addRtAndSuccess(rt, batchCount);
+        if (sampled == StatisticSamplingManager.NOT_SAMPLED) {
+            node.addRtAndSuccess(rt, batchCount);
+        } else if (sampled > 0) {
+            // Only the RT sum is estimated, while the min RT is updated with the real RT.
+            node.addRtAndSuccess(rt * sampled, rt, batchCount * sampled);
+        }
         node.decreaseThreadNum();
 
         if (error != null && !(error instanceof BlockException)) {
@@ -125,7 +125,31 @@ public class MetricBucket {
 
     public void addRT(long rt) {
         add(MetricEvent.RT, rt);
+        updateMinRt(rt);
+    }
 
+    /**
+     * Add the RT sum and the completed count of batched requests, where the min RT is updated with
+     * {@code minRt} rather than the RT sum.
+     *
+     * @param rtSum   sum of the response time of the requests
+     * @param minRt   min response time of the requests
+     * @param success count of the completed requests
+     * @since 1.8.9
+     */
+    public void addRtAndSuccess(long rtSum, long minRt, int success) {
+        add(MetricEvent.SUCCESS, success);
+        add(MetricEvent.RT, rtSum);
+        updateMinRt(minRt);
+    }
+
+    /**
+     * Update the min RT without adding to the total RT, e.g. for the RT sum of batched requests.
+     *
+     * @param rt RT of a request
+     * @since 1.8.9
+     */
+    public void updateMinRt(long rt) {
         // Not thread-safe, but it's okay.
         if (rt < minRt) {
             minRt = rt;
@@ -25,6 +25,7 @@ import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.slots.statistic.metric.occupy.OccupiableBucketLeapArray;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
 /**
@@ -280,6 +281,29 @@ public class ArrayMetric implements Metric {
         data.currentWindow().value().add(event, count);
     }
 
+    @Override
+    public void addBatch(long timeMillis, long[] counts, long minRt) {
+        if (timeMillis < 0 || TimeUtil.currentTimeMillis() - timeMillis >= data.getIntervalInMs()) {
+            // The bucket of the time has been deprecated.
+            return;
+        }
+        WindowWrap<MetricBucket> wrap = data.currentWindow(timeMillis);
+        MetricBucket bucket = wrap.value();
+        for (MetricEvent event : MetricEvent.values()) {
+            long n = counts[event.ordinal()];
+            if (n != 0) {
+                bucket.add(event, n);
+            }
+        }
+        bucket.updateMinRt(minRt);
+    }
+
+    @Override
+    public void addRtAndSuccess(long rtSum, long minRt, int success) {
+        WindowWrap<MetricBucket> wrap = data.currentWindow();
+        wrap.value().addRtAndSuccess(rtSum, minRt, success);
+    }
+
     public long getCurrentCount(MetricEvent event) {
         return data.currentWindow().value().get(event);
     }
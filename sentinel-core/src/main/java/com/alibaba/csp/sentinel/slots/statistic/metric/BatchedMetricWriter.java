@@ -0,0 +1,312 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Writer which batches the statistic events of each thread locally before writing them to the shared metrics,
+ * so that the shared counters (and their cache lines) are touched once per batch rather than once per event.
+ * </p>
+ * <p>
+ * Each thread has its own buffer in the writer, which accumulates the counts of the events within the current
+ * buffer window. The buffer is flushed to the {@link Sink} when the window changes, or after {@code batchSize}
+ * events (where a passed event of {@code n} requests weighs {@code n}). The buffer window should divide
+ * the bucket length of the target metrics, so that a batch always belongs to a single bucket.
+ * </p>
+ * <p>
+ * The counters of a buffer are only written by the owner thread with ordered stores (no atomic
+ * read-modify-write), and padded to avoid false sharing with the buffers of other threads. Flushing records
+ * the flushed counts rather than resetting the counters, so that the buffers could be flushed by any thread.
+ * </p>
+ * <p>
+ * The pending counts of the buffers could be merged by reads which require precision via
+ * {@link #pending(MetricEvent, long)}, which is bounded by {@link #maxPending()}, or be flushed by any thread
+ * via {@link #flushAll()}. Buffers of the dead threads are flushed and removed in {@link #flushAll()},
+ * {@link #pending(MetricEvent, long)} and when a buffer is created for a new thread, so that the buffers are
+ * bounded by the live threads under thread churn.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public class BatchedMetricWriter {
+
+    private static final int EVENT_COUNT = MetricEvent.values().length;
+
+    /**
+     * Longs of a cache line, which pad both sides of the counters.
+     */
+    private static final int PADDING = 8;
+    private static final int MIN_RT_INDEX = PADDING + EVENT_COUNT;
+    private static final int PASS_INDEX = PADDING + MetricEvent.PASS.ordinal();
+    private static final int SUCCESS_INDEX = PADDING + MetricEvent.SUCCESS.ordinal();
+    private static final int RT_INDEX = PADDING + MetricEvent.RT.ordinal();
+
+    private final int batchSize;
+    private final Sink sink;
+
+    private volatile int windowLengthInMs;
+
+    private final ThreadLocal<Buffer> localBuffer = new ThreadLocal<>();
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferCount = new AtomicInteger();
+
+    public BatchedMetricWriter(int batchSize, int windowLengthInMs, Sink sink) {
+        AssertUtil.isTrue(batchSize > 0, "batchSize should be positive");
+        AssertUtil.isTrue(windowLengthInMs > 0, "windowLengthInMs should be positive");
+        AssertUtil.notNull(sink, "sink cannot be null");
+        this.batchSize = batchSize;
+        this.windowLengthInMs = windowLengthInMs;
+        this.sink = sink;
+    }
+
+    public void add(MetricEvent event, long n) {
+        Buffer buffer = prepareBuffer();
+        buffer.add(PADDING + event.ordinal(), n);
+        afterAdd(buffer, event == MetricEvent.PASS ? n : 1);
+    }
+
+    public void addRtAndSuccess(long rt, int successCount) {
+        addRtAndSuccess(rt, rt, successCount);
+    }
+
+    public void addRtAndSuccess(long rtSum, long minRt, int successCount) {
+        Buffer buffer = prepareBuffer();
+        buffer.add(SUCCESS_INDEX, successCount);
+        buffer.add(RT_INDEX, rtSum);
+        if (minRt < buffer.counters.get(MIN_RT_INDEX)) {
+            // Might be overridden by a concurrent flush, but it's okay.
+            buffer.counters.lazySet(MIN_RT_INDEX, minRt);
+        }
+        afterAdd(buffer, 1);
+    }
+
+    private Buffer prepareBuffer() {
+        Buffer buffer = localBuffer.get();
+        if (buffer == null) {
+            buffer = new Buffer(Thread.currentThread());
+            localBuffer.set(buffer);
+            removeDeadBuffers();
+            buffers.add(buffer);
+            bufferCount.incrementAndGet();
+        }
+        long time = TimeUtil.currentTimeMillis();
+        long windowStart = time - time % windowLengthInMs;
+        if (buffer.windowStart != windowStart) {
+            synchronized (buffer) {
+                flush(buffer);
+                buffer.windowStart = windowStart;
+            }
+            buffer.pendingEvents = 0;
+        }
+        return buffer;
+    }
+
+    private void afterAdd(Buffer buffer, long weight) {
+        buffer.pendingEvents += weight;
+        if (buffer.pendingEvents >= batchSize) {
+            synchronized (buffer) {
+                flush(buffer);
+            }
+            buffer.pendingEvents = 0;
+        }
+    }
+
+    /**
+     * Flush the pending counts of the buffer. The lock of the buffer should be held, so that the counts
+     * will not be flushed to a window that they do not belong to.
+     */
+    private void flush(Buffer buffer) {
+        long windowStart = buffer.windowStart;
+        long[] batch = buffer.batch;
+        boolean empty = true;
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            long count = buffer.counters.get(PADDING + i);
+            batch[i] = count - buffer.flushed.get(i);
+            if (batch[i] != 0) {
+                buffer.flushed.lazySet(i, count);
+                empty = false;
+            }
+        }
+        long minRt = buffer.counters.get(MIN_RT_INDEX);
+        if (minRt != Long.MAX_VALUE) {
+            buffer.counters.lazySet(MIN_RT_INDEX, Long.MAX_VALUE);
+        }
+        if (!empty && windowStart >= 0) {
+            sink.flush(windowStart, batch, minRt);
+        }
+    }
+
+    /**
+     * Flush the pending counts of all threads to the sink, and remove the buffers of dead threads.
+     */
+    public void flushAll() {
+        for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+            Buffer buffer = it.next();
+            synchronized (buffer) {
+                flush(buffer);
+            }
+            if (!buffer.isOwnerAlive()) {
+                remove(it);
+            }
+        }
+    }
+
+    private void removeDeadBuffers() {
+        for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+            Buffer buffer = it.next();
+            if (!buffer.isOwnerAlive()) {
+                synchronized (buffer) {
+                    flush(buffer);
+                }
+                remove(it);
+            }
+        }
+    }
+
+    private void remove(Iterator<Buffer> it) {
+        it.remove();
+        bufferCount.decrementAndGet();
+    }
+
+    /**
+     * Get the pending count of the event in all threads, which have not been flushed to the sink yet.
+     * Note that the counts being flushed concurrently might be missed. It walks the buffers of all threads,
+     * so it should only be used where precision matters, e.g. when {@link #maxPending()} of passed requests
+     * could make the windowed count exceed the threshold.
+     *
+     * @param event      the event
+     * @param sinceMillis only counts of the windows that start after the time are included
+     * @return pending count of the event
+     */
+    public long pending(MetricEvent event, long sinceMillis) {
+        long pending = 0;
+        for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+            Buffer buffer = it.next();
+            if (!buffer.isOwnerAlive()) {
+                // Counts of the dead thread will never be flushed by itself.
+                synchronized (buffer) {
+                    flush(buffer);
+                }
+                remove(it);
+            } else if (buffer.windowStart > sinceMillis) {
+                pending += buffer.counters.get(PADDING + event.ordinal()) - buffer.flushed.get(event.ordinal());
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Get the upper bound of the pending passed requests of all threads, which is cheap to get.
+     *
+     * @return upper bound of {@link #pending(MetricEvent, long)} of {@link MetricEvent#PASS}
+     */
+    public long maxPending() {
+        return (long)batchSize * bufferCount.get();
+    }
+
+    /**
+     * Get the count of thread-local buffers, which is only for monitoring and tests.
+     *
+     * @return current count of buffers
+     */
+    public int getBufferCount() {
+        return bufferCount.get();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getWindowLengthInMs() {
+        return windowLengthInMs;
+    }
+
+    /**
+     * Update the length of buffer window, e.g. when the bucket length of the target metrics is changed.
+     *
+     * @param windowLengthInMs new length of buffer window
+     */
+    public void setWindowLengthInMs(int windowLengthInMs) {
+        AssertUtil.isTrue(windowLengthInMs > 0, "windowLengthInMs should be positive");
+        this.windowLengthInMs = windowLengthInMs;
+    }
+
+    /**
+     * Target of the batched counts.
+     */
+    public interface Sink {
+
+        /**
+         * Flush the batched counts of the window. The {@code counts} array is reused by the writer,
+         * so it should not be kept after returning.
+         *
+         * @param windowStart start time of the buffer window
+         * @param counts      counts of the events, indexed by the ordinal of {@link MetricEvent}
+         * @param minRt       min RT of the batched events, or {@link Long#MAX_VALUE} if no RT is recorded
+         */
+        void flush(long windowStart, long[] counts, long minRt);
+    }
+
+    private static final class Buffer {
+
+        private final WeakReference<Thread> owner;
+        /**
+         * Accumulated counts of the events (and the min RT since last flush), which are only written by
+         * the owner thread (except for resetting the min RT), with padding on both sides.
+         */
+        private final AtomicLongArray counters = new AtomicLongArray(MIN_RT_INDEX + 1 + PADDING);
+        /**
+         * Accumulated counts which have been flushed, only written with the lock of the buffer held.
+         */
+        private final AtomicLongArray flushed = new AtomicLongArray(EVENT_COUNT);
+        private final long[] batch = new long[EVENT_COUNT];
+
+        private volatile long windowStart = -1;
+
+        /**
+         * Weight of events since last flush of the owner thread, which is only accessed by the owner thread.
+         */
+        private long pendingEvents;
+
+        private Buffer(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+            counters.lazySet(MIN_RT_INDEX, Long.MAX_VALUE);
+        }
+
+        /**
+         * Only invoked by the owner thread.
+         */
+        private void add(int index, long n) {
+            counters.lazySet(index, counters.get(index) + n);
+        }
+
+        private boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+    }
+}
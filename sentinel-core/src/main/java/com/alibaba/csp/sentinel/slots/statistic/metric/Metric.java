@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.slots.statistic.metric;
 import java.util.List;
 
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
@@ -199,4 +200,57 @@ public interface Metric extends DebugSupport {
     long previousWindowBlock();
 
     long previousWindowPass();
+
+    // Batch-based (@since 1.8.9)
+
+    /**
+     * Add batched counts of events to the bucket of given time rather than current time.
+     * The counts will be dropped if the bucket of given time has been deprecated.
+     * <p>
+     * By default, the counts are added to the bucket of current time one event after another, where the RT sum
+     * is added as a whole, so that the min RT is not updated with {@code minRt}.
+     * </p>
+     *
+     * @param timeMillis time of the batched events
+     * @param counts     counts of the events, indexed by the ordinal of {@link MetricEvent}
+     * @param minRt      min RT of the batched events
+     * @since 1.8.9
+     */
+    default void addBatch(long timeMillis, long[] counts, long minRt) {
+        if (counts[MetricEvent.PASS.ordinal()] != 0) {
+            addPass((int)counts[MetricEvent.PASS.ordinal()]);
+        }
+        if (counts[MetricEvent.BLOCK.ordinal()] != 0) {
+            addBlock((int)counts[MetricEvent.BLOCK.ordinal()]);
+        }
+        if (counts[MetricEvent.EXCEPTION.ordinal()] != 0) {
+            addException((int)counts[MetricEvent.EXCEPTION.ordinal()]);
+        }
+        if (counts[MetricEvent.SUCCESS.ordinal()] != 0) {
+            addSuccess((int)counts[MetricEvent.SUCCESS.ordinal()]);
+        }
+        if (counts[MetricEvent.RT.ordinal()] != 0) {
+            addRT(counts[MetricEvent.RT.ordinal()]);
+        }
+        if (counts[MetricEvent.OCCUPIED_PASS.ordinal()] != 0) {
+            addOccupiedPass((int)counts[MetricEvent.OCCUPIED_PASS.ordinal()]);
+        }
+    }
+
+    /**
+     * Add the RT sum and the completed count of sampled requests to the bucket of current time, while
+     * updating the min RT with {@code minRt} rather than the RT sum.
+     * <p>
+     * By default, the RT sum is added as a whole, so that the min RT is not updated with {@code minRt}.
+     * </p>
+     *
+     * @param rtSum   sum of the response time of the requests
+     * @param minRt   min response time of the requests
+     * @param success count of the completed requests
+     * @since 1.8.9
+     */
+    default void addRtAndSuccess(long rtSum, long minRt, int success) {
+        addSuccess(success);
+        addRT(rtSum);
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>
+ * System metrics provider which reads the cgroup files of the container directly, so that the CPU usage
+ * is measured against the CPU quota of the container rather than the cores of the host, and the CFS
+ * throttling and the memory usage of the container could be checked.
+ * </p>
+ * <p>
+ * Both cgroup v2 (unified hierarchy, detected by {@code cgroup.controllers}) and cgroup v1 are supported:
+ * </p>
+ * <ul>
+ * <li>cgroup v2: {@code cpu.stat}, {@code cpu.max}, {@code memory.current}, {@code memory.max}</li>
+ * <li>cgroup v1: {@code cpu/cpu.stat}, {@code cpu/cpu.cfs_quota_us}, {@code cpu/cpu.cfs_period_us},
+ * {@code cpuacct/cpuacct.usage}, {@code memory/memory.usage_in_bytes}, {@code memory/memory.limit_in_bytes}</li>
+ * </ul>
+ * <p>
+ * The sampled values are smoothed with EWMA (time constant of {@link #SMOOTHING_TIME_CONSTANT_MS}),
+ * so that a short sampling interval does not make the system rules react to the jitter.
+ * The cgroup does not provide the load, so the system load average is still read from JMX.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+public class CgroupSystemMetricsProvider implements SystemMetricsProvider {
+
+    static final long SMOOTHING_TIME_CONSTANT_MS = 1000;
+
+    /**
+     * Memory limit of cgroup v1 is a huge value (page aligned {@code Long.MAX_VALUE}) if unlimited.
+     */
+    private static final long UNLIMITED_MEMORY_V1 = Long.MAX_VALUE / 2;
+
+    private final File root;
+    private final boolean v2;
+    private final double alpha;
+
+    private long lastSampleNanos = -1;
+    private long lastUsageNanos;
+    private long lastPeriods;
+    private long lastThrottledPeriods;
+
+    private volatile double currentLoad = -1;
+    private volatile double currentCpuUsage = -1;
+    private volatile double currentThrottleRatio = -1;
+    private volatile double currentMemoryUsage = -1;
+
+    public CgroupSystemMetricsProvider(String root, long intervalMs) {
+        this.root = new File(root);
+        this.v2 = new File(root, "cgroup.controllers").exists();
+        this.alpha = 1 - Math.exp(-(double)Math.max(1, intervalMs) / SMOOTHING_TIME_CONSTANT_MS);
+    }
+
+    /**
+     * Check whether the cgroup files of the CPU controller are available in given root.
+     *
+     * @param root the root directory of the cgroup file system
+     * @return whether cgroup metrics are available
+     */
+    public static boolean isAvailable(String root) {
+        File dir = new File(root);
+        return new File(dir, "cpu.stat").exists() || new File(dir, "cpu/cpu.stat").exists();
+    }
+
+    public boolean isV2() {
+        return v2;
+    }
+
+    @Override
+    public void refresh() {
+        refresh(System.nanoTime());
+    }
+
+    synchronized void refresh(long currentNanos) {
+        try {
+            currentLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+
+            long[] cpuStat = readCpuStat();
+            long usageNanos = cpuStat[0];
+            long periods = cpuStat[1];
+            long throttledPeriods = cpuStat[2];
+            if (lastSampleNanos >= 0 && currentNanos > lastSampleNanos) {
+                double cpuUsage = (double)(usageNanos - lastUsageNanos) / (currentNanos - lastSampleNanos)
+                    / cpuLimit();
+                currentCpuUsage = smooth(currentCpuUsage, Math.max(0, Math.min(1, cpuUsage)));
+                long periodsDiff = periods - lastPeriods;
+                double throttleRatio = periodsDiff > 0 ? (double)(throttledPeriods - lastThrottledPeriods) / periodsDiff
+                    : 0;
+                currentThrottleRatio = smooth(currentThrottleRatio, Math.max(0, Math.min(1, throttleRatio)));
+            }
+            lastSampleNanos = currentNanos;
+            lastUsageNanos = usageNanos;
+            lastPeriods = periods;
+            lastThrottledPeriods = throttledPeriods;
+
+            double memoryUsage = readMemoryUsage();
+            currentMemoryUsage = memoryUsage < 0 ? -1 : smooth(currentMemoryUsage, memoryUsage);
+        } catch (Throwable e) {
+            RecordLog.warn("[CgroupSystemMetricsProvider] Failed to read system metrics from cgroup: " + root, e);
+        }
+    }
+
+    private double smooth(double current, double sample) {
+        return current < 0 ? sample : current + alpha * (sample - current);
+    }
+
+    /**
+     * @return CPU usage in nanoseconds, count of CFS periods and count of throttled CFS periods
+     */
+    private long[] readCpuStat() throws IOException {
+        if (v2) {
+            File cpuStat = new File(root, "cpu.stat");
+            return new long[] {readStatValue(cpuStat, "usage_usec") * 1000, readStatValue(cpuStat, "nr_periods"),
+                readStatValue(cpuStat, "nr_throttled")};
+        }
+        File cpuStat = new File(root, "cpu/cpu.stat");
+        return new long[] {readLong(new File(root, "cpuacct/cpuacct.usage")), readStatValue(cpuStat, "nr_periods"),
+            readStatValue(cpuStat, "nr_throttled")};
+    }
+
+    /**
+     * @return the CPU cores allowed by the CFS quota, or the available processors if unlimited
+     */
+    private double cpuLimit() throws IOException {
+        long quota;
+        long period;
+        if (v2) {
+            File cpuMax = new File(root, "cpu.max");
+            if (!cpuMax.exists()) {
+                // The cpu controller is not enabled.
+                return Runtime.getRuntime().availableProcessors();
+            }
+            // Format: "$MAX $PERIOD", in which $MAX is "max" if unlimited.
+            String[] max = readFirstLine(cpuMax).trim().split("\\s+");
+            quota = "max".equals(max[0]) ? -1 : Long.parseLong(max[0]);
+            period = max.length > 1 ? Long.parseLong(max[1]) : 100000;
+        } else {
+            quota = readLong(new File(root, "cpu/cpu.cfs_quota_us"));
+            period = readLong(new File(root, "cpu/cpu.cfs_period_us"));
+        }
+        if (quota <= 0 || period <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return (double)quota / period;
+    }
+
+    private double readMemoryUsage() throws IOException {
+        long used;
+        long limit;
+        File limitFile = new File(root, v2 ? "memory.max" : "memory/memory.limit_in_bytes");
+        if (!limitFile.exists()) {
+            // The memory controller is not enabled.
+            return -1;
+        }
+        if (v2) {
+            String max = readFirstLine(limitFile).trim();
+            if ("max".equals(max)) {
+                return -1;
+            }
+            used = readLong(new File(root, "memory.current"));
+            limit = Long.parseLong(max);
+        } else {
+            limit = readLong(limitFile);
+            if (limit >= UNLIMITED_MEMORY_V1) {
+                return -1;
+            }
+            used = readLong(new File(root, "memory/memory.usage_in_bytes"));
+        }
+        if (limit <= 0) {
+            return -1;
+        }
+        return Math.min(1, (double)used / limit);
+    }
+
+    private static long readLong(File file) throws IOException {
+        return Long.parseLong(readFirstLine(file).trim());
+    }
+
+    private static long readStatValue(File file, String key) throws IOException {
+        try (BufferedReader reader = newReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int index = line.indexOf(' ');
+                if (index > 0 && key.equals(line.substring(0, index))) {
+                    return Long.parseLong(line.substring(index + 1).trim());
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        try (BufferedReader reader = newReader(file)) {
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Empty cgroup file: " + file);
+            }
+            return line;
+        }
+    }
+
+    private static BufferedReader newReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8), 256);
+    }
+
+    @Override
+    public double getSystemAverageLoad() {
+        return currentLoad;
+    }
+
+    @Override
+    public double getCpuUsage() {
+        return currentCpuUsage;
+    }
+
+    @Override
+    public double getCpuThrottleRatio() {
+        return currentThrottleRatio;
+    }
+
+    @Override
+    public double getMemoryUsage() {
+        return currentMemoryUsage;
+    }
+}
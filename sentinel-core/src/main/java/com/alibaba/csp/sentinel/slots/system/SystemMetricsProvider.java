@@ -0,0 +1,53 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+/**
+ * Provider of the system metrics checked by {@link SystemRuleManager}. The metrics are sampled
+ * by {@link #refresh()} periodically in the system status scheduler, and the getters are invoked
+ * on the checking path, so they should only return the values of the latest sample.
+ *
+ * @since 1.8.9
+ */
+public interface SystemMetricsProvider {
+
+    /**
+     * Sample the system metrics. This is invoked at the interval of
+     * {@link com.alibaba.csp.sentinel.config.SentinelConfig#systemStatusIntervalMs()}.
+     */
+    void refresh();
+
+    /**
+     * @return the system load average; negative value if not available
+     */
+    double getSystemAverageLoad();
+
+    /**
+     * @return the CPU usage, between [0, 1]; negative value if not available
+     */
+    double getCpuUsage();
+
+    /**
+     * @return the ratio of the CFS periods in which the process is throttled, between [0, 1];
+     * negative value if not available
+     */
+    double getCpuThrottleRatio();
+
+    /**
+     * @return the used memory to the memory limit, between [0, 1]; negative value if not available
+     */
+    double getMemoryUsage();
+}
@@ -45,6 +45,14 @@ public class SystemRule extends AbstractRule {
      * cpu usage, between [0, 1]
      */
     private double highestCpuUsage = -1;
+    /**
+     * CFS throttle ratio of the container, between [0, 1]
+     */
+    private double highestCpuThrottleRatio = -1;
+    /**
+     * memory usage of the container, between [0, 1]
+     */
+    private double highestMemoryUsage = -1;
     private double qps = -1;
     private long avgRt = -1;
     private long maxThread = -1;
@@ -131,6 +139,58 @@ public class SystemRule extends AbstractRule {
         this.highestCpuUsage = highestCpuUsage;
     }
 
+    /**
+     * Get highest CFS throttle ratio, which is between [0, 1].
+     *
+     * @return highest CFS throttle ratio
+     * @since 1.8.9
+     */
+    public double getHighestCpuThrottleRatio() {
+        return highestCpuThrottleRatio;
+    }
+
+    /**
+     * <p>
+     * Set highest CFS throttle ratio, which is the ratio of the CFS periods in which the container is throttled
+     * by its CPU quota. The ratio is between [0, 1].
+     * </p>
+     * <p>
+     * Note that this parameter is only available with the cgroup system metrics provider.
+     * </p>
+     *
+     * @param highestCpuThrottleRatio the value to set.
+     * @since 1.8.9
+     */
+    public void setHighestCpuThrottleRatio(double highestCpuThrottleRatio) {
+        this.highestCpuThrottleRatio = highestCpuThrottleRatio;
+    }
+
+    /**
+     * Get highest memory usage, which is between [0, 1].
+     *
+     * @return highest memory usage
+     * @since 1.8.9
+     */
+    public double getHighestMemoryUsage() {
+        return highestMemoryUsage;
+    }
+
+    /**
+     * <p>
+     * Set highest memory usage, which is the used memory to the memory limit of the container.
+     * The usage is between [0, 1].
+     * </p>
+     * <p>
+     * Note that this parameter is only available with the cgroup system metrics provider.
+     * </p>
+     *
+     * @param highestMemoryUsage the value to set.
+     * @since 1.8.9
+     */
+    public void setHighestMemoryUsage(double highestMemoryUsage) {
+        this.highestMemoryUsage = highestMemoryUsage;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -152,6 +212,13 @@ public class SystemRule extends AbstractRule {
             return false;
         }
 
+        if (Double.compare(that.highestCpuThrottleRatio, highestCpuThrottleRatio) != 0) {
+            return false;
+        }
+        if (Double.compare(that.highestMemoryUsage, highestMemoryUsage) != 0) {
+            return false;
+        }
+
         if (Double.compare(that.qps, qps) != 0) {
             return false;
         }
@@ -172,6 +239,12 @@ public class SystemRule extends AbstractRule {
         temp = Double.doubleToLongBits(highestCpuUsage);
         result = 31 * result + (int)(temp ^ (temp >>> 32));
 
+        temp = Double.doubleToLongBits(highestCpuThrottleRatio);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+
+        temp = Double.doubleToLongBits(highestMemoryUsage);
+        result = 31 * result + (int)(temp ^ (temp >>> 32));
+
         temp = Double.doubleToLongBits(qps);
         result = 31 * result + (int)(temp ^ (temp >>> 32));
 
@@ -185,6 +258,8 @@ public class SystemRule extends AbstractRule {
         return "SystemRule{" +
             "highestSystemLoad=" + highestSystemLoad +
             ", highestCpuUsage=" + highestCpuUsage +
+            ", highestCpuThrottleRatio=" + highestCpuThrottleRatio +
+            ", highestMemoryUsage=" + highestMemoryUsage +
             ", qps=" + qps +
             ", avgRt=" + avgRt +
             ", maxThread=" + maxThread +
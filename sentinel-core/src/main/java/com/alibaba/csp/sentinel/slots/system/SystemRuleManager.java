@@ -25,12 +25,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
 import com.alibaba.csp.sentinel.property.SimplePropertyListener;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
  * <p>
@@ -70,6 +72,14 @@ public final class SystemRuleManager {
      * cpu usage, between [0, 1]
      */
     private static volatile double highestCpuUsage = Double.MAX_VALUE;
+    /**
+     * CFS throttle ratio, between [0, 1]
+     */
+    private static volatile double highestCpuThrottleRatio = Double.MAX_VALUE;
+    /**
+     * memory usage, between [0, 1]
+     */
+    private static volatile double highestMemoryUsage = Double.MAX_VALUE;
     private static volatile double qps = Double.MAX_VALUE;
     private static volatile long maxRt = Long.MAX_VALUE;
     private static volatile long maxThread = Long.MAX_VALUE;
@@ -78,13 +88,15 @@ public final class SystemRuleManager {
      */
     private static volatile boolean highestSystemLoadIsSet = false;
     private static volatile boolean highestCpuUsageIsSet = false;
+    private static volatile boolean highestCpuThrottleRatioIsSet = false;
+    private static volatile boolean highestMemoryUsageIsSet = false;
     private static volatile boolean qpsIsSet = false;
     private static volatile boolean maxRtIsSet = false;
     private static volatile boolean maxThreadIsSet = false;
 
     private static AtomicBoolean checkSystemStatus = new AtomicBoolean(false);
 
-    private static SystemStatusListener statusListener = null;
+    private static volatile SystemMetricsProvider statusListener = null;
     private final static SystemPropertyListener listener = new SystemPropertyListener();
     private static SentinelProperty<List<SystemRule>> currentProperty = new DynamicSentinelProperty<List<SystemRule>>();
 
@@ -94,11 +106,45 @@ public final class SystemRuleManager {
 
     static {
         checkSystemStatus.set(false);
-        statusListener = new SystemStatusListener();
-        scheduler.scheduleAtFixedRate(statusListener, 0, 1, TimeUnit.SECONDS);
+        statusListener = resolveSystemMetricsProvider();
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                // Any error thrown here would suppress the subsequent executions of the task.
+                try {
+                    statusListener.refresh();
+                } catch (Throwable t) {
+                    RecordLog.warn("[SystemRuleManager] Failed to refresh system metrics", t);
+                }
+            }
+        }, 0, SentinelConfig.systemStatusIntervalMs(), TimeUnit.MILLISECONDS);
         currentProperty.addListener(listener);
     }
 
+    private static SystemMetricsProvider resolveSystemMetricsProvider() {
+        if (SentinelConfig.isCgroupSystemMetricsProvider()) {
+            String root = SentinelConfig.systemCgroupRoot();
+            if (CgroupSystemMetricsProvider.isAvailable(root)) {
+                RecordLog.info("[SystemRuleManager] Reading system metrics from cgroup: {}", root);
+                return new CgroupSystemMetricsProvider(root, SentinelConfig.systemStatusIntervalMs());
+            }
+            RecordLog.warn("[SystemRuleManager] cgroup metrics not available in {}, fallback to JMX", root);
+        }
+        return new SystemStatusListener();
+    }
+
+    /**
+     * Set the provider of the system metrics, which is sampled periodically by the system status scheduler.
+     *
+     * @param provider the system metrics provider
+     * @since 1.8.9
+     */
+    public static void setSystemMetricsProvider(SystemMetricsProvider provider) {
+        AssertUtil.notNull(provider, "system metrics provider cannot be null");
+        statusListener = provider;
+        RecordLog.info("[SystemRuleManager] System metrics provider set: {}", provider.getClass().getName());
+    }
+
     /**
      * Listen to the {@link SentinelProperty} for {@link SystemRule}s. The property is the source
      * of {@link SystemRule}s. System rules can also be set by {@link #loadRules(List)} directly.
@@ -147,6 +193,18 @@ public final class SystemRuleManager {
             result.add(rule);
         }
 
+        if (highestCpuThrottleRatioIsSet) {
+            SystemRule rule = new SystemRule();
+            rule.setHighestCpuThrottleRatio(highestCpuThrottleRatio);
+            result.add(rule);
+        }
+
+        if (highestMemoryUsageIsSet) {
+            SystemRule rule = new SystemRule();
+            rule.setHighestMemoryUsage(highestMemoryUsage);
+            result.add(rule);
+        }
+
         if (maxRtIsSet) {
             SystemRule rtRule = new SystemRule();
             rtRule.setAvgRt(maxRt);
@@ -197,12 +255,16 @@ public final class SystemRuleManager {
             RecordLog.info(String.format("[SystemRuleManager] Current system check status: %s, "
                     + "highestSystemLoad: %e, "
                     + "highestCpuUsage: %e, "
+                    + "highestCpuThrottleRatio: %e, "
+                    + "highestMemoryUsage: %e, "
                     + "maxRt: %d, "
                     + "maxThread: %d, "
                     + "maxQps: %e",
                 checkSystemStatus.get(),
                 highestSystemLoad,
                 highestCpuUsage,
+                highestCpuThrottleRatio,
+                highestMemoryUsage,
                 maxRt,
                 maxThread,
                 qps));
@@ -214,12 +276,16 @@ public final class SystemRuleManager {
             // should restore changes
             highestSystemLoad = Double.MAX_VALUE;
             highestCpuUsage = Double.MAX_VALUE;
+            highestCpuThrottleRatio = Double.MAX_VALUE;
+            highestMemoryUsage = Double.MAX_VALUE;
             maxRt = Long.MAX_VALUE;
             maxThread = Long.MAX_VALUE;
             qps = Double.MAX_VALUE;
 
             highestSystemLoadIsSet = false;
             highestCpuUsageIsSet = false;
+            highestCpuThrottleRatioIsSet = false;
+            highestMemoryUsageIsSet = false;
             maxRtIsSet = false;
             maxThreadIsSet = false;
             qpsIsSet = false;
@@ -239,6 +305,14 @@ public final class SystemRuleManager {
         return highestCpuUsage;
     }
 
+    public static double getCpuThrottleRatioThreshold() {
+        return highestCpuThrottleRatio;
+    }
+
+    public static double getMemoryUsageThreshold() {
+        return highestMemoryUsage;
+    }
+
     public static void loadSystemConf(SystemRule rule) {
         boolean checkStatus = false;
         // Check if it's valid.
@@ -260,6 +334,28 @@ public final class SystemRuleManager {
             }
         }
 
+        if (rule.getHighestCpuThrottleRatio() >= 0) {
+            if (rule.getHighestCpuThrottleRatio() > 1) {
+                RecordLog.warn(String.format("[SystemRuleManager] Ignoring invalid SystemRule: "
+                    + "highestCpuThrottleRatio %.3f > 1", rule.getHighestCpuThrottleRatio()));
+            } else {
+                highestCpuThrottleRatio = Math.min(highestCpuThrottleRatio, rule.getHighestCpuThrottleRatio());
+                highestCpuThrottleRatioIsSet = true;
+                checkStatus = true;
+            }
+        }
+
+        if (rule.getHighestMemoryUsage() >= 0) {
+            if (rule.getHighestMemoryUsage() > 1) {
+                RecordLog.warn(String.format("[SystemRuleManager] Ignoring invalid SystemRule: "
+                    + "highestMemoryUsage %.3f > 1", rule.getHighestMemoryUsage()));
+            } else {
+                highestMemoryUsage = Math.min(highestMemoryUsage, rule.getHighestMemoryUsage());
+                highestMemoryUsageIsSet = true;
+                checkStatus = true;
+            }
+        }
+
         if (rule.getAvgRt() >= 0) {
             maxRt = Math.min(maxRt, rule.getAvgRt());
             maxRtIsSet = true;
@@ -302,7 +398,7 @@ public final class SystemRuleManager {
         }
 
         // total qps
-        double currentQps = Constants.ENTRY_NODE.passQps();
+        double currentQps = Constants.ENTRY_NODE.passQps(qps - count);
         if (currentQps + count > qps) {
             throw new SystemBlockException(resourceWrapper.getName(), "qps");
         }
@@ -329,6 +425,16 @@ public final class SystemRuleManager {
         if (highestCpuUsageIsSet && getCurrentCpuUsage() > highestCpuUsage) {
             throw new SystemBlockException(resourceWrapper.getName(), "cpu");
         }
+
+        // CFS throttle ratio of the container
+        if (highestCpuThrottleRatioIsSet && getCurrentCpuThrottleRatio() > highestCpuThrottleRatio) {
+            throw new SystemBlockException(resourceWrapper.getName(), "throttle");
+        }
+
+        // memory usage of the container
+        if (highestMemoryUsageIsSet && getCurrentMemoryUsage() > highestMemoryUsage) {
+            throw new SystemBlockException(resourceWrapper.getName(), "memory");
+        }
     }
 
     private static boolean checkBbr(int currentThread) {
@@ -346,4 +452,12 @@ public final class SystemRuleManager {
     public static double getCurrentCpuUsage() {
         return statusListener.getCpuUsage();
     }
+
+    public static double getCurrentCpuThrottleRatio() {
+        return statusListener.getCpuThrottleRatio();
+    }
+
+    public static double getCurrentMemoryUsage() {
+        return statusListener.getMemoryUsage();
+    }
 }
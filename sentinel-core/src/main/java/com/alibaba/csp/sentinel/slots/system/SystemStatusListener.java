@@ -26,9 +26,11 @@ import com.alibaba.csp.sentinel.util.StringUtil;
 import com.sun.management.OperatingSystemMXBean;
 
 /**
+ * The default {@link SystemMetricsProvider}, which samples the load and CPU usage from JMX.
+ *
  * @author jialiang.linjl
  */
-public class SystemStatusListener implements Runnable {
+public class SystemStatusListener implements Runnable, SystemMetricsProvider {
 
     volatile double currentLoad = -1;
     volatile double currentCpuUsage = -1;
@@ -38,14 +40,31 @@ public class SystemStatusListener implements Runnable {
     volatile long processCpuTime = 0;
     volatile long processUpTime = 0;
 
+    @Override
     public double getSystemAverageLoad() {
         return currentLoad;
     }
 
+    @Override
     public double getCpuUsage() {
         return currentCpuUsage;
     }
 
+    @Override
+    public double getCpuThrottleRatio() {
+        return -1;
+    }
+
+    @Override
+    public double getMemoryUsage() {
+        return -1;
+    }
+
+    @Override
+    public void refresh() {
+        run();
+    }
+
     @Override
     public void run() {
         try {
@@ -0,0 +1,153 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.spi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>
+ * The static SPI index generated at build time by the {@code sentinel-spi-processor} annotation processor.
+ * All index files ({@value #INDEX_FILE}) of a classloader are read at once, instead of looking up
+ * the SPI configuration file of each service.
+ * </p>
+ * <p>
+ * Index file format: the {@code @factory=className} line refers to the generated {@link SpiInstanceFactory}
+ * of the module, and each {@code service=provider} line is a Provider of the Service.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+final class SpiIndex {
+
+    static final String INDEX_FILE = "META-INF/sentinel/spi.index";
+
+    private static final String FACTORY_KEY = "@factory";
+
+    /**
+     * Indexes are cached by weak keys so that the classloaders (e.g. of the redeployed applications) could be
+     * collected. The values are weakly referenced as well, since the factories in an index refer to its classloader,
+     * and the index is kept alive by the {@link SpiLoader}s using it.
+     */
+    private static final Map<ClassLoader, WeakReference<SpiIndex>> INDEX_MAP = new WeakHashMap<>();
+
+    /**
+     * key: classname of Service, value: classnames of Provider
+     */
+    private final Map<String, List<String>> providerMap = new HashMap<>();
+
+    /**
+     * key: classname of Provider, value: the factory which creates the Provider
+     */
+    private final Map<String, SpiInstanceFactory> factoryMap = new HashMap<>();
+
+    static SpiIndex of(ClassLoader classLoader) {
+        synchronized (INDEX_MAP) {
+            WeakReference<SpiIndex> ref = INDEX_MAP.get(classLoader);
+            SpiIndex index = ref == null ? null : ref.get();
+            if (index == null) {
+                index = load(classLoader);
+                INDEX_MAP.put(classLoader, new WeakReference<>(index));
+            }
+            return index;
+        }
+    }
+
+    static SpiIndex load(ClassLoader classLoader) {
+        SpiIndex index = new SpiIndex();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(INDEX_FILE);
+            while (urls.hasMoreElements()) {
+                index.read(urls.nextElement(), classLoader);
+            }
+        } catch (IOException e) {
+            RecordLog.warn("[SpiIndex] Error reading SPI index file, classloader=" + classLoader, e);
+        }
+        return index;
+    }
+
+    private void read(URL url, ClassLoader classLoader) throws IOException {
+        SpiInstanceFactory factory = null;
+        try (InputStream in = url.openStream();
+             BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                int index = line.indexOf('=');
+                if (line.startsWith("#") || index <= 0) {
+                    continue;
+                }
+                String key = line.substring(0, index).trim();
+                String value = line.substring(index + 1).trim();
+                if (FACTORY_KEY.equals(key)) {
+                    factory = newFactory(value, classLoader, url);
+                    continue;
+                }
+                List<String> providers = providerMap.get(key);
+                if (providers == null) {
+                    providers = new ArrayList<>();
+                    providerMap.put(key, providers);
+                }
+                providers.add(value);
+                if (factory != null) {
+                    factoryMap.put(value, factory);
+                }
+            }
+        }
+    }
+
+    private static SpiInstanceFactory newFactory(String className, ClassLoader classLoader, URL url) {
+        try {
+            return (SpiInstanceFactory)Class.forName(className, true, classLoader).getDeclaredConstructor()
+                .newInstance();
+        } catch (Throwable e) {
+            // The Providers of this index file are instantiated reflectively.
+            RecordLog.warn("[SpiIndex] Failed to create SpiInstanceFactory " + className + ", SPI index file[" + url
+                + "]", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param service classname of Service
+     * @return classnames of the indexed Providers, or null if the Service is not indexed
+     */
+    List<String> getProviders(String service) {
+        return providerMap.get(service);
+    }
+
+    /**
+     * @param className classname of Provider
+     * @return new Provider instance created by the generated factory, or null if the Provider is not supported
+     */
+    Object newInstance(String className) {
+        SpiInstanceFactory factory = factoryMap.get(className);
+        return factory == null ? null : factory.newInstance(className);
+    }
+}
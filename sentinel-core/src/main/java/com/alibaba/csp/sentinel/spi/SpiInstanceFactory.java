@@ -0,0 +1,35 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.spi;
+
+/**
+ * Factory which creates the Provider instances without reflection. The implementations are generated
+ * by the {@code sentinel-spi-processor} annotation processor and referred in the SPI index file
+ * ({@code META-INF/sentinel/spi.index}), so that the prototype Providers (e.g. the slots of every new
+ * slot chain) are created with direct constructor calls.
+ *
+ * @since 1.8.9
+ */
+public interface SpiInstanceFactory {
+
+    /**
+     * Create a new instance of the Provider class.
+     *
+     * @param className binary name of the Provider class
+     * @return new Provider instance, or null if the Provider is not supported by this factory
+     */
+    Object newInstance(String className);
+}
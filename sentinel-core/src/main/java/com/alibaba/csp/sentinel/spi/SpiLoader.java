@@ -55,6 +55,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * 3. The comment line character is #, all characters following it are ignored.
  * </p>
  *
+ * <p>
+ * For the static SPI index (since 1.8.9):
+ * The Provider configuration files could be indexed at build time by the {@code sentinel-spi-processor}
+ * annotation processor. The indexed Providers are created by the generated {@link SpiInstanceFactory} without
+ * reflection, and the configuration files of the indexed Services are not looked up if
+ * {@link SentinelConfig#shouldLoadSpiFromIndexOnly()} is enabled.
+ * </p>
+ *
  *
  * <p>{@code SpiLoader} provide common functions, such as:</p>
  * <ul>
@@ -100,6 +108,9 @@ public final class SpiLoader<S> {
     // Default provider class
     private Class<? extends S> defaultClass = null;
 
+    // The static SPI index of the classloader, which creates the indexed Providers without reflection
+    private volatile SpiIndex spiIndex = null;
+
     // The Service class, must be interface or abstract class
     private Class<S> service;
 
@@ -304,6 +315,7 @@ public final class SpiLoader<S> {
         classMap.clear();
         singletonMap.clear();
         defaultClass = null;
+        spiIndex = null;
         loaded.set(false);
     }
 
@@ -325,6 +337,33 @@ public final class SpiLoader<S> {
         if (classLoader == null) {
             classLoader = ClassLoader.getSystemClassLoader();
         }
+        spiIndex = SpiIndex.of(classLoader);
+
+        List<String> indexedProviders = spiIndex.getProviders(service.getName());
+        if (indexedProviders != null && SentinelConfig.shouldLoadSpiFromIndexOnly()) {
+            for (String provider : indexedProviders) {
+                addProviderClass(provider, classLoader, SpiIndex.INDEX_FILE);
+            }
+        } else {
+            loadFromConfigurationFiles(fullFileName, classLoader);
+        }
+
+        sortedClassList.addAll(classList);
+        Collections.sort(sortedClassList, new Comparator<Class<? extends S>>() {
+            @Override
+            public int compare(Class<? extends S> o1, Class<? extends S> o2) {
+                Spi spi1 = o1.getAnnotation(Spi.class);
+                int order1 = spi1 == null ? 0 : spi1.order();
+
+                Spi spi2 = o2.getAnnotation(Spi.class);
+                int order2 = spi2 == null ? 0 : spi2.order();
+
+                return Integer.compare(order1, order2);
+            }
+        });
+    }
+
+    private void loadFromConfigurationFiles(String fullFileName, ClassLoader classLoader) {
         Enumeration<URL> urls = null;
         try {
             urls = classLoader.getResources(fullFileName);
@@ -364,45 +403,7 @@ public final class SpiLoader<S> {
                     }
                     line = line.trim();
 
-                    Class<S> clazz = null;
-                    try {
-                        clazz = (Class<S>) Class.forName(line, false, classLoader);
-                    } catch (ClassNotFoundException e) {
-                        fail("class " + line + " not found", e);
-                    }
-
-                    if (classMap.containsValue(clazz)) {
-                        RecordLog.warn("duplicate class found,className=" + clazz.getName() + ",SPI configuration file[" + url + "]");
-                        continue;
-                    }
-
-                    if (!service.isAssignableFrom(clazz)) {
-                        fail("class " + clazz.getName() + "is not subtype of " + service.getName() + ",SPI configuration file[" + url + "]");
-                    }
-
-                    classList.add(clazz);
-                    Spi spi = clazz.getAnnotation(Spi.class);
-                    String aliasName = spi == null || "".equals(spi.value()) ? clazz.getName() : spi.value();
-                    if (classMap.containsKey(aliasName)) {
-                        Class<? extends S> existClass = classMap.get(aliasName);
-                        fail("Found repeat alias name for " + clazz.getName() + " and "
-                                + existClass.getName() + ",SPI configuration file[" + url + "]");
-                    }
-                    classMap.put(aliasName, clazz);
-
-                    if (spi != null && spi.isDefault()) {
-                        if (defaultClass != null) {
-                            fail("Found more than one default Provider,className=" + clazz.getName() + ",SPI configuration file[" + url + "]");
-                        }
-                        defaultClass = clazz;
-                    }
-
-                    RecordLog.info("[SpiLoader] Found SPI implementation for SPI {}, provider={}, aliasName={}"
-                            + ", isSingleton={}, isDefault={}, order={}",
-                        service.getName(), line, aliasName
-                            , spi == null ? true : spi.isSingleton()
-                            , spi == null ? false : spi.isDefault()
-                            , spi == null ? 0 : spi.order());
+                    addProviderClass(line, classLoader, url);
                 }
             } catch (IOException e) {
                 fail("error reading SPI configuration file[" + url + "]", e);
@@ -410,20 +411,55 @@ public final class SpiLoader<S> {
                 closeResources(in, br);
             }
         }
+    }
 
-        sortedClassList.addAll(classList);
-        Collections.sort(sortedClassList, new Comparator<Class<? extends S>>() {
-            @Override
-            public int compare(Class<? extends S> o1, Class<? extends S> o2) {
-                Spi spi1 = o1.getAnnotation(Spi.class);
-                int order1 = spi1 == null ? 0 : spi1.order();
+    /**
+     * Add the Provider class found in the SPI configuration file or the SPI index
+     *
+     * @param className   classname of Provider
+     * @param classLoader classloader to load the Provider class
+     * @param source      the SPI configuration file or the SPI index file
+     */
+    private void addProviderClass(String className, ClassLoader classLoader, Object source) {
+        Class<S> clazz = null;
+        try {
+            clazz = (Class<S>) Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            fail("class " + className + " not found", e);
+        }
 
-                Spi spi2 = o2.getAnnotation(Spi.class);
-                int order2 = spi2 == null ? 0 : spi2.order();
+        if (classMap.containsValue(clazz)) {
+            RecordLog.warn("duplicate class found,className=" + clazz.getName() + ",SPI configuration file[" + source + "]");
+            return;
+        }
 
-                return Integer.compare(order1, order2);
+        if (!service.isAssignableFrom(clazz)) {
+            fail("class " + clazz.getName() + "is not subtype of " + service.getName() + ",SPI configuration file[" + source + "]");
+        }
+
+        classList.add(clazz);
+        Spi spi = clazz.getAnnotation(Spi.class);
+        String aliasName = spi == null || "".equals(spi.value()) ? clazz.getName() : spi.value();
+        if (classMap.containsKey(aliasName)) {
+            Class<? extends S> existClass = classMap.get(aliasName);
+            fail("Found repeat alias name for " + clazz.getName() + " and "
+                    + existClass.getName() + ",SPI configuration file[" + source + "]");
+        }
+        classMap.put(aliasName, clazz);
+
+        if (spi != null && spi.isDefault()) {
+            if (defaultClass != null) {
+                fail("Found more than one default Provider,className=" + clazz.getName() + ",SPI configuration file[" + source + "]");
             }
-        });
+            defaultClass = clazz;
+        }
+
+        RecordLog.info("[SpiLoader] Found SPI implementation for SPI {}, provider={}, aliasName={}"
+                + ", isSingleton={}, isDefault={}, order={}",
+            service.getName(), className, aliasName
+                , spi == null ? true : spi.isSingleton()
+                , spi == null ? false : spi.isDefault()
+                , spi == null ? 0 : spi.order());
     }
 
     @Override
@@ -481,13 +517,13 @@ public final class SpiLoader<S> {
                     synchronized (this) {
                         instance = singletonMap.get(clazz.getName());
                         if (instance == null) {
-                            instance = service.cast(clazz.newInstance());
+                            instance = newInstance(clazz);
                             singletonMap.put(clazz.getName(), instance);
                         }
                     }
                 }
             } else {
-                instance = service.cast(clazz.newInstance());
+                instance = newInstance(clazz);
             }
         } catch (Throwable e) {
             fail(clazz.getName() + " could not be instantiated");
@@ -495,6 +531,25 @@ public final class SpiLoader<S> {
         return instance;
     }
 
+    /**
+     * Create a new Provider instance, with the generated {@link SpiInstanceFactory} in the SPI index if present,
+     * otherwise reflectively
+     *
+     * @param clazz class type of Provider
+     * @return new Provider instance
+     */
+    private S newInstance(Class<? extends S> clazz) throws Exception {
+        SpiIndex index = spiIndex;
+        if (index != null) {
+            Object instance = index.newInstance(clazz.getName());
+            // The factory might see another class of the same name in a different classloader.
+            if (instance != null && instance.getClass() == clazz) {
+                return service.cast(instance);
+            }
+        }
+        return service.cast(clazz.newInstance());
+    }
+
     /**
      * Close all resources
      *
@@ -0,0 +1,145 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.context.ContextTestUtil;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test cases for {@link AdmissionDelay}.
+ */
+public class AdmissionDelayTest {
+
+    @After
+    public void tearDown() {
+        FlowRuleManager.loadRules(new ArrayList<FlowRule>());
+        ContextTestUtil.cleanUpContext();
+    }
+
+    @Test
+    public void testDelayWithoutEntry() {
+        long start = System.nanoTime();
+        assertTrue(AdmissionDelay.delayMs(50));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+
+        assertTrue(AdmissionDelay.delayMs(0));
+        AdmissionDelay.delayNanos(-1);
+    }
+
+    @Test
+    public void testAsyncEntryWithoutBlocking() throws BlockException {
+        String resourceName = "testAsyncEntryWithoutBlocking";
+        loadRateLimiterRule(resourceName, 1000);
+
+        AsyncEntry first = SphU.asyncEntryWithoutBlocking(resourceName);
+        assertEquals(0, first.getAdmissionDelayNanos());
+
+        long start = System.nanoTime();
+        AsyncEntry second = SphU.asyncEntryWithoutBlocking(resourceName);
+        // The queueing time (about 200ms) is returned instead of blocking the current thread.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        long delayMs = TimeUnit.NANOSECONDS.toMillis(second.getAdmissionDelayNanos());
+        assertTrue(delayMs > 100 && delayMs <= 200);
+        assertFalse(second.isWaitDeferred());
+
+        first.exit();
+        second.exit();
+    }
+
+    @Test
+    public void testAsyncEntryWithDelay() throws Exception {
+        String resourceName = "testAsyncEntryWithDelay";
+        loadRateLimiterRule(resourceName, 1000);
+
+        AsyncEntry first = SphU.asyncEntryWithDelay(resourceName).get(1, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        CompletableFuture<AsyncEntry> future = SphU.asyncEntryWithDelay(resourceName);
+        assertFalse(future.isDone());
+
+        AsyncEntry second = future.get(1, TimeUnit.SECONDS);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertEquals(resourceName, second.getResourceWrapper().getName());
+
+        first.exit();
+        second.exit();
+    }
+
+    @Test
+    public void testAsyncEntryWithDelayBlocked() throws Exception {
+        String resourceName = "testAsyncEntryWithDelayBlocked";
+        loadRateLimiterRule(resourceName, 50);
+
+        AsyncEntry first = SphU.asyncEntryWithDelay(resourceName).get(1, TimeUnit.SECONDS);
+        CompletableFuture<AsyncEntry> future = SphU.asyncEntryWithDelay(resourceName);
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("should be blocked");
+        } catch (ExecutionException ex) {
+            assertTrue(BlockException.isBlockException(ex.getCause()));
+        }
+
+        first.exit();
+    }
+
+    @Test
+    public void testAsyncEntryWithDelayCancelled() throws Exception {
+        String resourceName = "testAsyncEntryWithDelayCancelled";
+        loadRateLimiterRule(resourceName, 1000);
+
+        AsyncEntry first = SphU.asyncEntryWithDelay(resourceName).get(1, TimeUnit.SECONDS);
+        CompletableFuture<AsyncEntry> future = SphU.asyncEntryWithDelay(resourceName);
+        ClusterNode node = ClusterBuilderSlot.getClusterNode(resourceName);
+        assertEquals(2, node.curThreadNum());
+
+        // The admitted entry is never handed over to the caller, so it should be exited on cancellation.
+        assertTrue(future.cancel(false));
+        assertEquals(1, node.curThreadNum());
+        // The entry should not be exited again when the admission delay elapses.
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(1, node.curThreadNum());
+
+        first.exit();
+        assertEquals(0, node.curThreadNum());
+    }
+
+    private void loadRateLimiterRule(String resourceName, int maxQueueingTimeMs) {
+        FlowRuleManager.loadRules(Collections.singletonList(
+            new FlowRule(resourceName).setCount(5)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER)
+                .setMaxQueueingTimeMs(maxQueueingTimeMs)
+        ));
+    }
+}
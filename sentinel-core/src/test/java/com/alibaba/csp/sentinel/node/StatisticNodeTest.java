@@ -236,6 +236,95 @@ public class StatisticNodeTest {
 
     }
 
+    @Test
+    public void testBatchedStatistics() throws InterruptedException {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE, "16");
+        try {
+            final StatisticNode statisticNode = new StatisticNode();
+            final int countPerThread = 1000;
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < countPerThread; j++) {
+                            statisticNode.addPassRequest(1);
+                            statisticNode.addRtAndSuccess(2, 1);
+                        }
+                        statisticNode.increaseExceptionQps(1);
+                    }
+                });
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            // Pending statistics of all threads are flushed when reading the minute-level metrics.
+            assertEquals(THREAD_COUNT * countPerThread, statisticNode.totalPass());
+            assertEquals(THREAD_COUNT * countPerThread, statisticNode.totalSuccess());
+            assertEquals(THREAD_COUNT, statisticNode.totalException());
+
+            // Pending passed requests are merged into the pass QPS when checked against the threshold.
+            statisticNode.addPassRequest(1);
+            assertTrue(statisticNode.passQps(0) > 0);
+            assertEquals(THREAD_COUNT * countPerThread + 1, statisticNode.totalPass());
+        } finally {
+            SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE,
+                String.valueOf(SentinelConfig.DEFAULT_STATISTIC_BATCH_SIZE));
+        }
+    }
+
+    @Test
+    public void testBatchedBuffersBoundedUnderThreadChurn() throws InterruptedException {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE, "16");
+        try {
+            final StatisticNode statisticNode = new StatisticNode();
+            int threadCount = 200;
+            for (int i = 0; i < threadCount; i++) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 3; j++) {
+                            statisticNode.addPassRequest(1);
+                        }
+                    }
+                });
+                t.start();
+                t.join();
+                // Only the pass QPS is read, which is checked by flow rules.
+                statisticNode.passQps(0);
+                assertTrue(statisticNode.getBatchedWriter().getBufferCount() <= 1);
+            }
+            assertEquals(0, statisticNode.getBatchedWriter().getBufferCount());
+            // Pending counts of the dead threads are flushed rather than lost.
+            assertEquals(threadCount * 3, statisticNode.totalPass());
+        } finally {
+            SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE,
+                String.valueOf(SentinelConfig.DEFAULT_STATISTIC_BATCH_SIZE));
+        }
+    }
+
+    @Test
+    public void testPendingPassMergedNearThreshold() {
+        SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE, "16");
+        try {
+            StatisticNode statisticNode = new StatisticNode();
+            for (int i = 0; i < 5; i++) {
+                statisticNode.addPassRequest(1);
+            }
+            double intervalInSec = IntervalProperty.INTERVAL / 1000.0;
+            // Far below the threshold, so the pending requests are not merged.
+            assertEquals(statisticNode.passQps(), statisticNode.passQps(100), 0.01);
+            // Pending requests (less than the batch size) might exceed the threshold, so they are merged.
+            assertEquals(5 / intervalInSec, statisticNode.passQps(10), 0.01);
+        } finally {
+            SentinelConfig.setConfig(SentinelConfig.STATISTIC_BATCH_SIZE,
+                String.valueOf(SentinelConfig.DEFAULT_STATISTIC_BATCH_SIZE));
+        }
+    }
+
     private static class StatisticLongAdderTask implements Runnable {
 
 
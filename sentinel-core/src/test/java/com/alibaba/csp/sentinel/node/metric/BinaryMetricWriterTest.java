@@ -0,0 +1,159 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryMetricWriterTest {
+
+    private static final String BASE_FILE_NAME = "test-metrics.bin";
+
+    private File baseDir;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = Files.createTempDirectory("sentinel-binary-metric").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = baseDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        baseDir.delete();
+    }
+
+    @Test
+    public void testWriteAndSearch() throws Exception {
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), BASE_FILE_NAME,
+            1024 * 1024, 6);
+        long base = System.currentTimeMillis() / 1000 * 1000;
+        for (int i = 0; i < 10; i++) {
+            writer.write(base + i * 1000, Arrays.asList(node("a", i), node("b", i)));
+        }
+        writer.close();
+
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(base + 3000, base + 5999, null);
+        assertEquals(6, nodes.size());
+        assertEquals(base + 3000, nodes.get(0).getTimestamp());
+        assertEquals("a", nodes.get(0).getResource());
+        assertEquals(3, nodes.get(0).getPassQps());
+        assertEquals(3 * 2, nodes.get(0).getRt());
+        assertEquals(base + 5000, nodes.get(5).getTimestamp());
+
+        nodes = searcher.findByTimeAndResource(base, base + 100000, "b");
+        assertEquals(10, nodes.size());
+        for (MetricNode node : nodes) {
+            assertEquals("b", node.getResource());
+        }
+        assertTrue(searcher.findByTimeAndResource(base, base + 100000, "absent").isEmpty());
+
+        // Records of the same second should not be split.
+        nodes = searcher.find(base + 8000, 1);
+        assertEquals(2, nodes.size());
+        assertEquals(base + 8000, nodes.get(1).getTimestamp());
+
+        final List<String> lines = new ArrayList<String>();
+        int count = searcher.forEach(base + 9000, 100, new Consumer<MetricNode>() {
+            @Override
+            public void accept(MetricNode node) {
+                lines.add(node.toThinString());
+            }
+        });
+        assertEquals(2, count);
+        MetricNode expected = node("a", 9);
+        expected.setTimestamp(base + 9000);
+        assertEquals(expected.toThinString(), lines.get(0));
+    }
+
+    @Test
+    public void testRollWhenFileFull() throws Exception {
+        // Only 3 records fit in a file.
+        long size = BinaryMetricFile.HEADER_SIZE + BinaryMetricFile.RECORD_SIZE * 3;
+        BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), BASE_FILE_NAME, size, 3);
+        long base = System.currentTimeMillis() / 1000 * 1000;
+        for (int i = 0; i < 5; i++) {
+            writer.write(base + i * 1000, Arrays.asList(node("a", i), node("b" + i, i)));
+        }
+        writer.close();
+
+        assertEquals(3, MetricWriter.listMetricFiles(baseDir.getAbsolutePath(), BASE_FILE_NAME).size());
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+        // The oldest file has been removed.
+        List<MetricNode> nodes = searcher.findByTimeAndResource(base, base + 10000, null);
+        assertEquals(7, nodes.size());
+        assertEquals("b1", nodes.get(0).getResource());
+        assertEquals("b4", nodes.get(nodes.size() - 1).getResource());
+        assertEquals(base + 4000, nodes.get(nodes.size() - 1).getTimestamp());
+    }
+
+    @Test
+    public void testConvertTextMetricFile() throws Exception {
+        long base = System.currentTimeMillis() / 1000 * 1000;
+        String textBaseFileName = "test-metrics.log";
+        File textFile = new File(baseDir, textBaseFileName + ".2020-01-01");
+        FileOutputStream out = new FileOutputStream(textFile);
+        try {
+            for (int i = 0; i < 3; i++) {
+                MetricNode a = node("a", i);
+                a.setTimestamp(base + i * 1000);
+                MetricNode b = node("b", i);
+                b.setTimestamp(base + i * 1000);
+                out.write((a.toFatString() + b.toFatString()).getBytes("UTF-8"));
+            }
+        } finally {
+            out.close();
+        }
+
+        assertEquals(6, MetricFileConverter.convert(baseDir.getAbsolutePath(), textBaseFileName, BASE_FILE_NAME));
+        BinaryMetricSearcher searcher = new BinaryMetricSearcher(baseDir.getAbsolutePath(), BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(base + 1000, base + 1000, "b");
+        assertEquals(1, nodes.size());
+        assertEquals(1, nodes.get(0).getPassQps());
+    }
+
+    private static MetricNode node(String resource, int value) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(value);
+        node.setBlockQps(value);
+        node.setSuccessQps(value);
+        node.setExceptionQps(value);
+        node.setRt(value * 2);
+        node.setOccupiedPassQps(value);
+        node.setConcurrency(value);
+        node.setClassification(1);
+        return node;
+    }
+}
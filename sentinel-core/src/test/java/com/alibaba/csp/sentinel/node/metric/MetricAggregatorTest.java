@@ -0,0 +1,84 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricAggregatorTest {
+
+    @Test
+    public void testAggregateInParallel() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MetricAggregator aggregator = new MetricAggregator(pool, 2);
+            ClusterNode[] nodes = new ClusterNode[7];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new ClusterNode("res" + i, 1);
+            }
+            // Avoid crossing the second.
+            while (TimeUtil.currentTimeMillis() % 1000 > 500) {
+                Thread.sleep(50);
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                // The idle one should be skipped.
+                if (i != 3) {
+                    nodes[i].addPassRequest(i + 1);
+                }
+            }
+            long now = TimeUtil.currentTimeMillis();
+            long currentTime = now - now % 1000 + 1000;
+
+            final List<Long> times = new ArrayList<>();
+            final List<MetricNode> records = new ArrayList<>();
+            BiConsumer<Long, List<MetricNode>> writer = new BiConsumer<Long, List<MetricNode>>() {
+                @Override
+                public void accept(Long time, List<MetricNode> nodes) {
+                    times.add(time);
+                    records.addAll(nodes);
+                }
+            };
+            assertEquals(6, aggregator.aggregate(nodes, -1, currentTime, writer));
+            assertEquals(1, times.size());
+            assertEquals(currentTime - 1000, times.get(0).longValue());
+            List<String> resources = new ArrayList<>();
+            for (MetricNode record : records) {
+                assertEquals(currentTime - 1000, record.getTimestamp());
+                assertEquals(1, record.getClassification());
+                resources.add(record.getResource());
+            }
+            assertEquals("[res0, res1, res2, res4, res5, res6]", resources.toString());
+            assertEquals(5, records.get(3).getPassQps());
+
+            // Nothing new since the last aggregation.
+            records.clear();
+            assertEquals(0, aggregator.aggregate(nodes, currentTime - 1, currentTime, writer));
+            assertTrue(records.isEmpty());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
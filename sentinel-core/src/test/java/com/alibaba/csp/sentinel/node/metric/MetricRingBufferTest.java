@@ -0,0 +1,182 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricRingBufferTest {
+
+    private static final long BASE = 1_600_000_000_000L;
+
+    @Test
+    public void testWriteAndFind() throws Exception {
+        MetricRingBuffer ringBuffer = new MetricRingBuffer(10);
+        assertEquals(Long.MAX_VALUE, ringBuffer.coveredSince());
+        for (int i = 0; i < 5; i++) {
+            ringBuffer.write(BASE + i * 1000, Arrays.asList(node("a", i), node("b", i)));
+        }
+        assertEquals(BASE, ringBuffer.coveredSince());
+
+        TieredMetricSearcher searcher = new TieredMetricSearcher(ringBuffer, (MetricSearcher)null);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE + 1000, BASE + 2999, null);
+        assertEquals(4, nodes.size());
+        assertEquals(BASE + 1000, nodes.get(0).getTimestamp());
+        assertEquals("a", nodes.get(0).getResource());
+        assertEquals(1, nodes.get(0).getPassQps());
+        assertEquals(2, nodes.get(0).getRt());
+        assertEquals(1, nodes.get(0).getConcurrency());
+        assertEquals("b", nodes.get(3).getResource());
+        assertEquals(BASE + 2000, nodes.get(3).getTimestamp());
+
+        nodes = searcher.findByTimeAndResource(BASE, BASE + 10000, "b");
+        assertEquals(5, nodes.size());
+        assertTrue(searcher.findByTimeAndResource(BASE, BASE + 10000, "absent").isEmpty());
+
+        // Records of the same second should not be split.
+        nodes = searcher.find(BASE + 3000, 1);
+        assertEquals(2, nodes.size());
+    }
+
+    @Test
+    public void testWrapAround() throws Exception {
+        MetricRingBuffer ringBuffer = new MetricRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            ringBuffer.write(BASE + i * 1000, Arrays.asList(node("a", i)));
+        }
+        assertEquals(BASE + 2000, ringBuffer.coveredSince());
+        TieredMetricSearcher searcher = new TieredMetricSearcher(ringBuffer, (MetricSearcher)null);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BASE, BASE + 10000, null);
+        assertEquals(3, nodes.size());
+        assertEquals(2, nodes.get(0).getPassQps());
+        assertEquals(4, nodes.get(2).getPassQps());
+
+        // Too old to be kept.
+        ringBuffer.write(BASE, Arrays.asList(node("a", 0)));
+        assertEquals(3, searcher.findByTimeAndResource(BASE, BASE + 10000, null).size());
+    }
+
+    @Test
+    public void testFallbackToDiskForOlderRange() throws Exception {
+        File baseDir = Files.createTempDirectory("sentinel-metric-ring").toFile();
+        try {
+            long base = System.currentTimeMillis() / 1000 * 1000;
+            BinaryMetricWriter writer = new BinaryMetricWriter(baseDir.getAbsolutePath(), "test-metrics.bin",
+                1024 * 1024, 6);
+            MetricRingBuffer ringBuffer = new MetricRingBuffer(2);
+            for (int i = 0; i < 5; i++) {
+                List<MetricNode> nodes = Arrays.asList(node("a", i));
+                writer.write(base + i * 1000, nodes);
+                ringBuffer.write(base + i * 1000, nodes);
+            }
+            writer.close();
+            TieredMetricSearcher searcher = new TieredMetricSearcher(ringBuffer,
+                new BinaryMetricSearcher(baseDir.getAbsolutePath(), "test-metrics.bin"));
+
+            List<MetricNode> nodes = searcher.findByTimeAndResource(base, base + 10000, "a");
+            assertEquals(5, nodes.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(base + i * 1000, nodes.get(i).getTimestamp());
+                assertEquals(i, nodes.get(i).getPassQps());
+            }
+            nodes = searcher.find(base + 1000, 3);
+            assertEquals(3, nodes.size());
+            assertEquals(base + 3000, nodes.get(2).getTimestamp());
+        } finally {
+            File[] files = baseDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            baseDir.delete();
+        }
+    }
+
+    @Test
+    public void testStalledConsumerNotBlockingWriter() throws Exception {
+        final MetricRingBuffer ringBuffer = new MetricRingBuffer(10);
+        for (int i = 0; i < 3; i++) {
+            ringBuffer.write(BASE + i * 1000, Arrays.asList(node("a", i), node("b", i)));
+        }
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final AtomicInteger consumed = new AtomicInteger();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ringBuffer.forEach(BASE, BASE + 10000, null, new Consumer<MetricNode>() {
+                    @Override
+                    public void accept(MetricNode node) {
+                        if (consumed.incrementAndGet() == 1) {
+                            // Like a client which does not read the response.
+                            stalled.countDown();
+                            try {
+                                resume.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }
+                });
+            }
+        });
+        reader.start();
+        try {
+            assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ringBuffer.write(BASE + 3000, Arrays.asList(node("a", 3)));
+                }
+            });
+            writer.start();
+            writer.join(5000);
+            // The writer should not be blocked by the stalled consumer.
+            assertFalse(writer.isAlive());
+        } finally {
+            resume.countDown();
+        }
+        reader.join(5000);
+        assertFalse(reader.isAlive());
+        // The range of seconds is determined when the reading begins.
+        assertEquals(6, consumed.get());
+    }
+
+    private static MetricNode node(String resource, int value) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setPassQps(value);
+        node.setSuccessQps(value);
+        node.setRt(value * 2);
+        node.setConcurrency(value);
+        return node;
+    }
+}
@@ -1,5 +1,11 @@
 package com.alibaba.csp.sentinel.slots.block.authority;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import com.alibaba.csp.sentinel.context.ContextTestUtil;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
@@ -56,4 +62,52 @@ public class AuthorityRuleCheckerTest {
             ContextUtil.exit();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPassCheckWithCompiledLimitApps() {
+        ContextUtil.enter("entrance", "appA");
+        try {
+            StringBuilder limitApp = new StringBuilder("appAB,,");
+            for (int i = 0; i < 1000; i++) {
+                limitApp.append("app-").append(i).append(',');
+            }
+            AuthorityRule rule = new AuthorityRule()
+                .setResource("testPassCheckWithCompiledLimitApps")
+                .setLimitApp(limitApp.toString())
+                .as(AuthorityRule.class)
+                .setStrategy(RuleConstant.AUTHORITY_WHITE);
+            // Only exact names match.
+            assertFalse(AuthorityRuleChecker.passCheck(rule, ContextUtil.getContext()));
+            assertEquals(1001, rule.getLimitAppSet().size());
+
+            // The compiled apps are reset when the limitApp changes.
+            rule.setLimitApp(limitApp + "appA");
+            assertNull(rule.getLimitAppSet());
+            assertTrue(AuthorityRuleChecker.passCheck(rule, ContextUtil.getContext()));
+        } finally {
+            ContextUtil.exit();
+        }
+    }
+
+    @Test
+    public void testParseLimitAppsWithDictionary() {
+        Map<String, String> dictionary = new HashMap<>();
+        Set<String> apps1 = AuthorityRuleChecker.parseLimitApps("appA,appB", dictionary);
+        Set<String> apps2 = AuthorityRuleChecker.parseLimitApps("appB,appC,", dictionary);
+        assertEquals(new HashSet<>(Arrays.asList("appA", "appB")), apps1);
+        assertEquals(new HashSet<>(Arrays.asList("appB", "appC")), apps2);
+        // The same app name instance is shared between rules.
+        assertSame(findApp(apps1, "appB"), findApp(apps2, "appB"));
+        assertEquals(3, dictionary.size());
+        assertTrue(AuthorityRuleChecker.parseLimitApps("", dictionary).isEmpty());
+    }
+
+    private static String findApp(Set<String> apps, String name) {
+        for (String app : apps) {
+            if (app.equals(name)) {
+                return app;
+            }
+        }
+        return null;
+    }
+}
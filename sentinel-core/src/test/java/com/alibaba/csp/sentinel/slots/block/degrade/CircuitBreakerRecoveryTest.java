@@ -0,0 +1,190 @@
+/*
+ * Copyright 1999-2019 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.degrade;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.Tracer;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreaker;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.CircuitBreakerRecoveryObserver;
+import com.alibaba.csp.sentinel.slots.block.degrade.circuitbreaker.EventObserverRegistry;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+/**
+ * Test cases for the multi-probe half-open state and the recovery ramp-up of circuit breakers.
+ */
+public class CircuitBreakerRecoveryTest extends AbstractTimeBasedTest {
+
+    private static final String OBSERVER_NAME = "testRecoveryObserver";
+
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        DegradeRuleManager.loadRules(new ArrayList<DegradeRule>());
+        EventObserverRegistry.getInstance().addRecoveryObserver(OBSERVER_NAME, new CircuitBreakerRecoveryObserver() {
+            @Override
+            public void onProbeComplete(DegradeRule rule, int successCount, int failureCount) {
+                events.add("probe:" + successCount + "/" + failureCount);
+            }
+
+            @Override
+            public void onRampUp(DegradeRule rule, double admittedRatio) {
+                events.add("rampUp:" + Math.round(admittedRatio * 100));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        DegradeRuleManager.loadRules(new ArrayList<DegradeRule>());
+        EventObserverRegistry.getInstance().removeRecoveryObserver(OBSERVER_NAME);
+    }
+
+    @Test
+    public void testMultiProbeHalfOpen() throws BlockException {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            String resource = "testMultiProbeHalfOpen";
+            // 3 of 4 probes should succeed.
+            DegradeRuleManager.loadRules(Collections.singletonList(newExceptionRule(resource)
+                .setHalfOpenProbeAmount(4)
+                .setHalfOpenProbeSuccessRatio(0.75)));
+
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException())); // -> open
+            assertFalse(entryAndSleepFor(mocked, resource, 10));
+            sleepSecond(mocked, 10);
+
+            List<Entry> probes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                probes.add(SphU.entry(resource));
+            }
+            // The probe budget is used up.
+            assertFalse(entryAndSleepFor(mocked, resource, 10));
+            Tracer.traceEntry(new IllegalArgumentException(), probes.get(3));
+            for (int i = 3; i >= 0; i--) {
+                probes.get(i).exit();
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, getCircuitBreaker(resource).currentState());
+            assertEquals(4, events.size());
+            assertEquals("probe:0/1", events.get(0));
+            assertEquals("probe:3/1", events.get(3));
+
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException())); // -> open
+            sleepSecond(mocked, 10);
+            // Two failures: not enough probes could succeed.
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException()));
+            assertEquals(CircuitBreaker.State.HALF_OPEN, getCircuitBreaker(resource).currentState());
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException()));
+            assertEquals(CircuitBreaker.State.OPEN, getCircuitBreaker(resource).currentState());
+            assertFalse(entryAndSleepFor(mocked, resource, 10));
+        }
+    }
+
+    @Test
+    public void testLinearRampUp() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            String resource = "testLinearRampUp";
+            DegradeRuleManager.loadRules(Collections.singletonList(newExceptionRule(resource)
+                .setRecoveryRampUpMs(10 * 1000)
+                .setRecoveryRampUpStartRatio(0.1)));
+            openAndRecover(mocked, resource);
+            assertEquals(CircuitBreaker.State.CLOSED, getCircuitBreaker(resource).currentState());
+
+            assertEquals(10, passedOf(mocked, resource, 100), 1);
+            sleep(mocked, 5 * 1000);
+            assertEquals(55, passedOf(mocked, resource, 100), 1);
+            sleep(mocked, 5 * 1000);
+            assertEquals(100, passedOf(mocked, resource, 100));
+
+            assertEquals("rampUp:10", events.get(0));
+            assertEquals("rampUp:55", events.get(1));
+            assertEquals("rampUp:100", events.get(2));
+        }
+    }
+
+    @Test
+    public void testExponentialRampUp() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            String resource = "testExponentialRampUp";
+            DegradeRuleManager.loadRules(Collections.singletonList(newExceptionRule(resource)
+                .setRecoveryRampUpMs(10 * 1000)
+                .setRecoveryRampUpStartRatio(0.01)
+                .setRecoveryRampUpStrategy(RuleConstant.DEGRADE_RAMP_UP_EXPONENTIAL)));
+            openAndRecover(mocked, resource);
+
+            assertEquals(1, passedOf(mocked, resource, 100), 1);
+            sleep(mocked, 5 * 1000);
+            // 0.01 ^ (1 - 0.5) = 0.1
+            assertEquals(10, passedOf(mocked, resource, 100), 1);
+
+            // The ramp-up starts over when the circuit breaker opens again.
+            sleep(mocked, 5 * 1000);
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException()));
+            assertEquals(CircuitBreaker.State.OPEN, getCircuitBreaker(resource).currentState());
+            sleep(mocked, 10 * 1000);
+            openAndRecover(mocked, resource);
+            assertEquals(1, passedOf(mocked, resource, 100), 1);
+        }
+    }
+
+    private DegradeRule newExceptionRule(String resource) {
+        return new DegradeRule(resource)
+            .setGrade(RuleConstant.DEGRADE_GRADE_EXCEPTION_COUNT)
+            .setCount(0)
+            .setStatIntervalMs(20 * 1000)
+            .setTimeWindow(10)
+            .setMinRequestAmount(1);
+    }
+
+    private void openAndRecover(MockedStatic<TimeUtil> mocked, String resource) {
+        if (getCircuitBreaker(resource).currentState() == CircuitBreaker.State.CLOSED) {
+            assertTrue(entryWithErrorIfPresent(mocked, resource, new IllegalArgumentException())); // -> open
+            sleepSecond(mocked, 10);
+        }
+        events.clear();
+        assertTrue(entryAndSleepFor(mocked, resource, 0)); // -> half-open -> closed
+    }
+
+    private int passedOf(MockedStatic<TimeUtil> mocked, String resource, int total) {
+        int passed = 0;
+        for (int i = 0; i < total; i++) {
+            if (entryAndSleepFor(mocked, resource, 0)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private CircuitBreaker getCircuitBreaker(String resource) {
+        return DegradeRuleManager.getCircuitBreakers(resource).get(0);
+    }
+}
@@ -60,6 +60,22 @@ public class DegradeRuleManagerTest {
         assertSame(cb, DegradeRuleManager.getCircuitBreakers(resource).get(0));
     }
 
+    @Test
+    public void loadSameRegexRuleUseSameCircuitBreaker() {
+        DegradeRule rule = new DegradeRule("regex-cb-.*")
+            .setCount(100)
+            .setSlowRatioThreshold(0.9d)
+            .setTimeWindow(20);
+        rule.setRegex(true);
+        DegradeRuleManager.loadRules(Arrays.asList(rule));
+        CircuitBreaker cb = DegradeRuleManager.getCircuitBreakers("regex-cb-a").get(0);
+
+        DegradeRuleManager.loadRules(Arrays.asList(rule,
+            new DegradeRule("abc").setTimeWindow(20).setCount(20).setSlowRatioThreshold(0.8d)));
+        // The circuit breaker of the matched resource keeps its state.
+        assertSame(cb, DegradeRuleManager.getCircuitBreakers("regex-cb-a").get(0));
+    }
+
     @Test
     public void testIsValidRule() {
         DegradeRule rule1 = new DegradeRule("abc");
@@ -15,14 +15,20 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow;
 
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Weihua
@@ -76,4 +82,48 @@ public class FlowRuleManagerTest {
         }
         latchEnd.await(10, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void testReuseControllersOfUnchangedRules() {
+        FlowRule warmUp = new FlowRule("reuseA").setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_WARM_UP).setWarmUpPeriodSec(10);
+        FlowRule throttling = new FlowRule("reuseB").setCount(10)
+            .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER).setMaxQueueingTimeMs(500);
+        try {
+            FlowRuleManager.loadRules(Arrays.asList(warmUp, throttling));
+            TrafficShapingController warmUpController = FlowRuleManager.getFlowRules("reuseA").get(0).getRater();
+            TrafficShapingController throttlingController = FlowRuleManager.getFlowRules("reuseB").get(0).getRater();
+
+            // Rules from the data source are new instances, even if unchanged.
+            FlowRule sameWarmUp = new FlowRule("reuseA").setCount(10)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_WARM_UP).setWarmUpPeriodSec(10);
+            FlowRule changedThrottling = new FlowRule("reuseB").setCount(20)
+                .setControlBehavior(RuleConstant.CONTROL_BEHAVIOR_RATE_LIMITER).setMaxQueueingTimeMs(500);
+            FlowRuleManager.loadRules(Arrays.asList(sameWarmUp, changedThrottling));
+            assertSame(warmUpController, FlowRuleManager.getFlowRules("reuseA").get(0).getRater());
+            // The previous rule list of the unchanged resource is reused.
+            assertSame(warmUp, FlowRuleManager.getFlowRules("reuseA").get(0));
+            assertNotSame(throttlingController, FlowRuleManager.getFlowRules("reuseB").get(0).getRater());
+        } finally {
+            FlowRuleManager.loadRules(new ArrayList<FlowRule>());
+        }
+    }
+
+    @Test
+    public void testReuseRuleListsOfUnchangedResources() {
+        FlowRule removed = new FlowRule("reuseC").setCount(20);
+        removed.setLimitApp("app");
+        Map<String, List<FlowRule>> previous = FlowRuleUtil.buildFlowRuleMap(Arrays.asList(
+            new FlowRule("reuseA").setCount(10), new FlowRule("reuseB").setCount(10),
+            new FlowRule("reuseC").setCount(10), removed));
+
+        Map<String, List<FlowRule>> rules = FlowRuleUtil.buildFlowRuleMap(Arrays.asList(
+            new FlowRule("reuseA").setCount(10), new FlowRule("reuseB").setCount(20),
+            new FlowRule("reuseC").setCount(10)), null, true, previous);
+        assertSame(previous.get("reuseA"), rules.get("reuseA"));
+        assertNotSame(previous.get("reuseB"), rules.get("reuseB"));
+        // A removed rule changes the resource as well, while the controller of the remaining rule is kept.
+        assertEquals(1, rules.get("reuseC").size());
+        assertSame(previous.get("reuseC").get(1).getRater(), rules.get("reuseC").get(0).getRater());
+    }
 }
@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.slots.block.flow;
 import java.util.Collections;
 
 import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.context.ContextTestUtil;
 import com.alibaba.csp.sentinel.node.DefaultNode;
@@ -29,6 +30,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.*;
 
 /**
@@ -93,4 +97,29 @@ public class FlowSlotTest {
 
         flowSlot.checkFlow(new StringResourceWrapper(resA, EntryType.IN), context, node, 1, false);
     }
+
+    @Test
+    public void testPreallocatedBlockException() {
+        FlowRule rule = new FlowRule("resAK").setCount(10);
+        FlowException e1 = FlowRuleChecker.newBlockException(rule);
+        FlowException e2 = FlowRuleChecker.newBlockException(rule);
+        assertNotSame(e1, e2);
+        assertEquals(0, e1.getStackTrace().length);
+
+        SentinelConfig.setConfig(SentinelConfig.BLOCK_EXCEPTION_PREALLOCATED, "true");
+        try {
+            FlowException p1 = FlowRuleChecker.newBlockException(rule);
+            FlowException p2 = FlowRuleChecker.newBlockException(rule);
+            assertSame(p1, p2);
+            assertSame(rule, p1.getRule());
+            assertEquals(rule.getLimitApp(), p1.getRuleLimitApp());
+            assertEquals(0, p1.getStackTrace().length);
+            // Shared exception should not record suppressed exceptions.
+            p1.addSuppressed(new RuntimeException());
+            assertEquals(0, p1.getSuppressed().length);
+        } finally {
+            SentinelConfig.setConfig(SentinelConfig.BLOCK_EXCEPTION_PREALLOCATED,
+                SentinelConfig.DEFAULT_BLOCK_EXCEPTION_PREALLOCATED);
+        }
+    }
 }
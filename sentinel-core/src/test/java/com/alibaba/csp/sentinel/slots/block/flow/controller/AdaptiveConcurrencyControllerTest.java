@@ -0,0 +1,90 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.alibaba.csp.sentinel.node.Node;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+public class AdaptiveConcurrencyControllerTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testCanPassWithInitialLimit() {
+        AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(100);
+        assertEquals(AdaptiveConcurrencyController.INITIAL_LIMIT, controller.getLimit(), 0.01);
+
+        Node node = mock(Node.class);
+        when(node.curThreadNum()).thenReturn(19).thenReturn(20);
+        assertTrue(controller.canPass(node, 1));
+        assertFalse(controller.canPass(node, 1));
+
+        assertEquals(5, new AdaptiveConcurrencyController(5).getLimit(), 0.01);
+    }
+
+    @Test
+    public void testLimitAdaptsToRt() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, System.currentTimeMillis());
+            AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(40);
+            Node node = mock(Node.class);
+            when(node.avgRt()).thenReturn(10d);
+            when(node.curThreadNum()).thenReturn(25);
+
+            // No queueing: the limit grows, but never exceeds the max limit.
+            for (int i = 0; i < 90; i++) {
+                sleep(mocked, AdaptiveConcurrencyController.UPDATE_INTERVAL_MS);
+                controller.canPass(node, 1);
+            }
+            assertEquals(40, controller.getLimit(), 0.01);
+
+            // RT rises as requests queue: the limit shrinks.
+            when(node.avgRt()).thenReturn(100d);
+            for (int i = 0; i < 20; i++) {
+                sleep(mocked, AdaptiveConcurrencyController.UPDATE_INTERVAL_MS);
+                controller.canPass(node, 1);
+            }
+            assertTrue(controller.getLimit() < 20);
+            when(node.curThreadNum()).thenReturn(20);
+            assertFalse(controller.canPass(node, 1));
+        }
+    }
+
+    @Test
+    public void testNotGrowWhenLimitNotUsed() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, System.currentTimeMillis());
+            AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(100);
+            Node node = mock(Node.class);
+            when(node.avgRt()).thenReturn(10d);
+            when(node.curThreadNum()).thenReturn(2);
+
+            for (int i = 0; i < 10; i++) {
+                sleep(mocked, AdaptiveConcurrencyController.UPDATE_INTERVAL_MS);
+                controller.canPass(node, 1);
+            }
+            assertEquals(AdaptiveConcurrencyController.INITIAL_LIMIT, controller.getLimit(), 0.01);
+        }
+    }
+}
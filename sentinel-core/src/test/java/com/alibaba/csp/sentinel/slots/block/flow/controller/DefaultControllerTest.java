@@ -19,7 +19,7 @@ public class DefaultControllerTest {
         double threshold = 10;
         TrafficShapingController controller = new DefaultController(threshold, RuleConstant.FLOW_GRADE_QPS);
         Node node = mock(Node.class);
-        when(node.passQps()).thenReturn(threshold - 1)
+        when(node.passQps(anyDouble())).thenReturn(threshold - 1)
             .thenReturn(threshold);
 
         assertTrue(controller.canPass(node, 1));
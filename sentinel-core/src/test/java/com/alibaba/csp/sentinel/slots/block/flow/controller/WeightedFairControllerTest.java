@@ -0,0 +1,168 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.block.flow.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.StatisticNode;
+
+import org.junit.Test;
+
+public class WeightedFairControllerTest {
+
+    @Test
+    public void testCalculateFairShare() {
+        // Capacity covers all demands.
+        assertEquals(WeightedFairController.UNLIMITED, WeightedFairController.calculateFairShare(100,
+            new double[] {30, 60, 0}, new double[] {1, 1, 1}), 0.01);
+        // 40 is satisfied, the rest 60 is shared by the other two.
+        assertEquals(30, WeightedFairController.calculateFairShare(100,
+            new double[] {40, 1000, 500}, new double[] {2, 1, 1}), 0.01);
+        // Share in proportion to weights: 25 * 1 and 25 * 3.
+        assertEquals(25, WeightedFairController.calculateFairShare(100,
+            new double[] {1000, 1000, 0}, new double[] {1, 3, 5}), 0.01);
+    }
+
+    @Test
+    public void testPassAllWhenNotOverloaded() {
+        WeightedFairController controller = new WeightedFairController(100, null);
+        TestClusterNode node = new TestClusterNode();
+        node.setOriginQps("a", 10, 0);
+        node.setOriginQps("b", 20, 0);
+
+        long time = 10000;
+        for (int i = 0; i < 200; i++) {
+            assertTrue(controller.canPass(node, "a", 1, time));
+        }
+        assertEquals(WeightedFairController.UNLIMITED, controller.getFairSharePerWeight(), 0.01);
+
+        // The QPS threshold of the resource is still checked.
+        node.passQps = 100;
+        assertFalse(controller.canPass(node, "a", 1, time));
+    }
+
+    @Test
+    public void testNoisyOriginLimitedToFairShare() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("quiet", 3d);
+        WeightedFairController controller = new WeightedFairController(100, weights);
+        TestClusterNode node = new TestClusterNode();
+        node.setOriginQps("noisy", 50, 950);
+        node.setOriginQps("quiet", 10, 290);
+
+        long time = 10000;
+        assertTrue(controller.canPass(node, "noisy", 1, time));
+        // Fair share per weight: 100 / (1 + 3) = 25.
+        assertEquals(25, controller.getFairSharePerWeight(), 0.01);
+
+        int noisyPassed = 1;
+        int quietPassed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (controller.canPass(node, "noisy", 1, time)) {
+                noisyPassed++;
+            }
+            if (controller.canPass(node, "quiet", 1, time)) {
+                quietPassed++;
+            }
+        }
+        // Burst of 1 second of the fair share.
+        assertEquals(25, noisyPassed);
+        assertEquals(75, quietPassed);
+
+        // The virtual finish time of the noisy origin advances by 40ms for each request.
+        time += 40;
+        assertTrue(controller.canPass(node, "noisy", 1, time));
+        assertFalse(controller.canPass(node, "noisy", 1, time));
+    }
+
+    @Test
+    public void testBorrowIdleCapacity() {
+        WeightedFairController controller = new WeightedFairController(100,
+            Collections.singletonMap("b", 4d));
+        TestClusterNode node = new TestClusterNode();
+        // The origin b is idle, and requests without origin are regarded as one origin.
+        node.setOriginQps("a", 60, 500);
+        node.setOriginQps("b", 0, 0);
+        node.passQps = 80;
+        node.blockQps = 1000;
+
+        assertTrue(controller.canPass(node, "", 1, 10000));
+        // Fair share of a and the no-origin requests: 100 / 2 = 50.
+        assertEquals(50, controller.getFairSharePerWeight(), 0.01);
+
+        // The fair share is updated when the origin b becomes busy.
+        node.setOriginQps("b", 20, 500);
+        node.passQps = 90;
+        node.blockQps = 1500;
+        assertTrue(controller.canPass(node, "b", 1, 10000 + WeightedFairController.UPDATE_INTERVAL_MS));
+        assertEquals(100d / 6, controller.getFairSharePerWeight(), 0.01);
+    }
+
+    private static class TestClusterNode extends ClusterNode {
+
+        private final Map<String, StatisticNode> originNodes = new HashMap<>();
+        private double passQps;
+        private double blockQps;
+
+        TestClusterNode() {
+            super("test");
+        }
+
+        void setOriginQps(String origin, final double pass, final double block) {
+            originNodes.put(origin, new StatisticNode() {
+                @Override
+                public double passQps() {
+                    return pass;
+                }
+
+                @Override
+                public double blockQps() {
+                    return block;
+                }
+            });
+            double totalPass = 0;
+            double totalBlock = 0;
+            for (StatisticNode originNode : originNodes.values()) {
+                totalPass += originNode.passQps();
+                totalBlock += originNode.blockQps();
+            }
+            passQps = totalPass;
+            blockQps = totalBlock;
+        }
+
+        @Override
+        public Map<String, StatisticNode> getOriginCountMap() {
+            return originNodes;
+        }
+
+        @Override
+        public double passQps() {
+            return passQps;
+        }
+
+        @Override
+        public double blockQps() {
+            return blockQps;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.logger;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.eagleeye.EagleEyeAppender;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BlockLogAggregatorTest {
+
+    private static final long BASE = 1_600_000_000_000L;
+
+    @Test
+    public void testAggregateAndFlush() {
+        ListAppender appender = new ListAppender();
+        BlockLogAggregator aggregator = new BlockLogAggregator(appender, 1000, 10);
+
+        aggregator.record("res", "FlowException", "default", "app1", 1L, 1, BASE + 10);
+        aggregator.record("res", "FlowException", "default", "app1", 1L, 2, BASE + 500);
+        aggregator.record("res", "FlowException", "default", "app2", 1L, 1, BASE + 600);
+        aggregator.record("res", "SystemBlockException", "qps", "", null, 1, BASE + 700);
+        // Next interval, should not be written in this round.
+        aggregator.record("res", "FlowException", "default", "app1", 1L, 5, BASE + 1010);
+
+        aggregator.flush(BASE + 1200);
+        assertEquals(3, appender.lines.size());
+        assertTrue(appender.lines.contains(line("1|res,FlowException,default,app1,1|3,0")));
+        assertTrue(appender.lines.contains(line("1|res,FlowException,default,app2,1|1,0")));
+        assertTrue(appender.lines.contains(line("1|res,SystemBlockException,qps,,|1,0")));
+        assertEquals(3, aggregator.entryCount());
+
+        appender.lines.clear();
+        aggregator.flush(BASE + 2200);
+        assertEquals(1, appender.lines.size());
+        assertTrue(appender.lines.get(0).endsWith("1|res,FlowException,default,app1,1|5,0\r\n"));
+    }
+
+    @Test
+    public void testOverflow() {
+        ListAppender appender = new ListAppender();
+        BlockLogAggregator aggregator = new BlockLogAggregator(appender, 1000, 2);
+
+        for (int i = 0; i < 5; i++) {
+            aggregator.record("res" + i, "FlowException", "default", "", 1L, 1, BASE);
+        }
+        aggregator.record("res0", "FlowException", "default", "", 1L, 1, BASE);
+        assertEquals(2, aggregator.entryCount());
+
+        aggregator.flush(BASE + 1000);
+        assertEquals(3, appender.lines.size());
+        assertTrue(appender.lines.contains(line("1|res0,FlowException,default,,1|2,0")));
+        assertTrue(appender.lines.contains(line("1|" + BlockLogAggregator.OVERFLOW_KEY + ",,,,|3,0")));
+    }
+
+    @Test
+    public void testEvictIdleEntries() {
+        ListAppender appender = new ListAppender();
+        BlockLogAggregator aggregator = new BlockLogAggregator(appender, 1000, 2);
+
+        aggregator.record("res0", "FlowException", "default", "", 1L, 1, BASE);
+        aggregator.record("res1", "FlowException", "default", "", 1L, 1, BASE);
+        long now = BASE + 1000;
+        aggregator.flush(now);
+        for (int i = 0; i <= BlockLogAggregator.MAX_IDLE_ROUNDS; i++) {
+            aggregator.record("res1", "FlowException", "default", "", 1L, 1, now);
+            now += 1000;
+            aggregator.flush(now);
+        }
+        assertEquals(1, aggregator.entryCount());
+
+        appender.lines.clear();
+        aggregator.record("res2", "FlowException", "default", "", 1L, 1, now);
+        aggregator.flush(now + 1000);
+        assertEquals(2, aggregator.entryCount());
+        assertEquals(1, appender.lines.size());
+        assertTrue(appender.lines.get(0).endsWith("1|res2,FlowException,default,,1|1,0\r\n"));
+    }
+
+    @Test
+    public void testEntrySurvivedEvictionKeepsActive() {
+        ListAppender appender = new ListAppender();
+        BlockLogAggregator aggregator = new BlockLogAggregator(appender, 1000, 2);
+
+        aggregator.record("res0", "FlowException", "default", "", 1L, 1, BASE);
+        aggregator.record("res1", "FlowException", "default", "", 1L, 1, BASE);
+        long now = BASE + 1000;
+        aggregator.flush(now);
+        // res0 is evicted in the last round, while res1 survives.
+        for (int i = 0; i < BlockLogAggregator.MAX_IDLE_ROUNDS; i++) {
+            aggregator.record("res1", "FlowException", "default", "", 1L, 1, now);
+            now += 1000;
+            aggregator.flush(now);
+        }
+        assertEquals(1, aggregator.entryCount());
+
+        // The first flush after the eviction drains both the current table and the retired one.
+        appender.lines.clear();
+        aggregator.record("res1", "FlowException", "default", "", 1L, 2, now);
+        aggregator.record("res2", "FlowException", "default", "", 1L, 1, now);
+        now += 1000;
+        aggregator.flush(now);
+        assertEquals(2, appender.lines.size());
+        assertEquals(2, aggregator.entryCount());
+
+        // res1 has been active in the last flush, so it should not expire before idle for MAX_IDLE_ROUNDS.
+        for (int i = 0; i < BlockLogAggregator.MAX_IDLE_ROUNDS - 1; i++) {
+            aggregator.record("res2", "FlowException", "default", "", 1L, 1, now);
+            now += 1000;
+            aggregator.flush(now);
+        }
+        assertEquals(2, aggregator.entryCount());
+
+        aggregator.record("res2", "FlowException", "default", "", 1L, 1, now);
+        now += 1000;
+        aggregator.flush(now);
+        assertEquals(1, aggregator.entryCount());
+    }
+
+    @Test
+    public void testFlushSkippedInterval() {
+        ListAppender appender = new ListAppender();
+        BlockLogAggregator aggregator = new BlockLogAggregator(appender, 1000, 10);
+
+        aggregator.flush(BASE);
+        aggregator.record("res", "FlowException", "default", "", 1L, 3, BASE);
+        aggregator.record("res", "FlowException", "default", "", 1L, 4, BASE + 1000);
+        // The run for the interval of BASE is skipped, so both intervals should be written in the next run.
+        aggregator.flush(BASE + 2200);
+        assertEquals(2, appender.lines.size());
+        assertEquals(line("1|res,FlowException,default,,1|3,0"), appender.lines.get(0));
+        assertEquals(line(BASE + 1000, "1|res,FlowException,default,,1|4,0"), appender.lines.get(1));
+
+        // A delayed run in the same interval writes nothing again.
+        appender.lines.clear();
+        aggregator.flush(BASE + 2900);
+        assertEquals(0, appender.lines.size());
+
+        // The writer falls behind for more than one interval, then the counter of BASE + 3000 is reused
+        // by BASE + 5000, which should not be written as the events of BASE + 5000.
+        aggregator.record("res", "FlowException", "default", "", 1L, 5, BASE + 3000);
+        aggregator.record("res", "FlowException", "default", "", 1L, 6, BASE + 5000);
+        aggregator.flush(BASE + 6200);
+        assertEquals(1, appender.lines.size());
+        assertEquals(line(BASE + 5000, "1|res,FlowException,default,,1|6,0"), appender.lines.get(0));
+    }
+
+    private static String line(String content) {
+        return line(BASE, content);
+    }
+
+    private static String line(long time, String content) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(time)) + "|"
+            + content + "\r\n";
+    }
+
+    private static class ListAppender extends EagleEyeAppender {
+        private final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void append(String log) {
+            lines.add(log);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link StatisticSamplingManager}.
+ */
+public class StatisticSamplingManagerTest {
+
+    @After
+    public void tearDown() {
+        StatisticSamplingManager.loadSampleRates(null);
+    }
+
+    @Test
+    public void testLoadSampleRates() {
+        Map<String, Integer> rates = new HashMap<>();
+        rates.put("a", 16);
+        rates.put("b", 1);
+        rates.put("c", 0);
+        rates.put("d", StatisticSamplingManager.MAX_SAMPLE_RATE + 1);
+        rates.put("e", null);
+        rates.put("", 16);
+        StatisticSamplingManager.loadSampleRates(rates);
+
+        assertEquals(1, StatisticSamplingManager.getSampleRates().size());
+        assertEquals(16, StatisticSamplingManager.getSampleRate("a"));
+        assertEquals(StatisticSamplingManager.NOT_SAMPLED, StatisticSamplingManager.getSampleRate("b"));
+        assertEquals(StatisticSamplingManager.NOT_SAMPLED, StatisticSamplingManager.getSampleRate("c"));
+        assertEquals(StatisticSamplingManager.NOT_SAMPLED, StatisticSamplingManager.getSampleRate("d"));
+        assertEquals(StatisticSamplingManager.NOT_SAMPLED, StatisticSamplingManager.getSampleRate("e"));
+
+        StatisticSamplingManager.loadSampleRates(null);
+        assertEquals(StatisticSamplingManager.NOT_SAMPLED, StatisticSamplingManager.getSampleRate("a"));
+    }
+
+    @Test
+    public void testSampledStatistics() throws BlockException {
+        String sampledResource = "testSampledStatistics";
+        String exactResource = "testSampledStatisticsExact";
+        Map<String, Integer> rates = new HashMap<>();
+        rates.put(sampledResource, 10);
+        StatisticSamplingManager.loadSampleRates(rates);
+
+        int total = 100000;
+        for (int i = 0; i < total; i++) {
+            SphU.entry(sampledResource).exit();
+            SphU.entry(exactResource).exit();
+        }
+
+        ClusterNode sampledNode = ClusterBuilderSlot.getClusterNode(sampledResource);
+        ClusterNode exactNode = ClusterBuilderSlot.getClusterNode(exactResource);
+        assertEquals(total, exactNode.totalPass());
+        assertEquals(total, exactNode.totalSuccess());
+        // The standard deviation is sqrt(100000 * 9) = 949, so 5% is more than 5 sigma.
+        assertTrue(Math.abs(sampledNode.totalPass() - total) < total * 0.05);
+        assertTrue(Math.abs(sampledNode.totalSuccess() - total) < total * 0.05);
+        assertEquals(0, sampledNode.totalPass() % 10);
+        // The thread count is always exact.
+        assertEquals(0, sampledNode.curThreadNum());
+
+        Entry entry = SphU.entry(sampledResource);
+        assertEquals(1, sampledNode.curThreadNum());
+        entry.exit();
+    }
+
+    @Test
+    public void testMinRtOfSampledResource() throws Exception {
+        String sampledResource = "testMinRtOfSampledResource";
+        int sampleRate = 4;
+        Map<String, Integer> rates = new HashMap<>();
+        rates.put(sampledResource, sampleRate);
+        StatisticSamplingManager.loadSampleRates(rates);
+
+        long sleepMs = 5;
+        // The probability that none of the entries is sampled is 0.75^80, which is negligible.
+        for (int i = 0; i < 80; i++) {
+            Entry entry = SphU.entry(sampledResource, EntryType.IN);
+            Thread.sleep(sleepMs);
+            entry.exit();
+        }
+
+        ClusterNode sampledNode = ClusterBuilderSlot.getClusterNode(sampledResource);
+        assertTrue(sampledNode.totalSuccess() > 0);
+        // The min RT is not scaled by the sample rate.
+        assertTrue(sampledNode.minRt() >= sleepMs);
+        assertTrue(sampledNode.minRt() < sleepMs * sampleRate);
+        assertTrue(Constants.ENTRY_NODE.minRt() < sleepMs * sampleRate);
+    }
+}
@@ -77,6 +77,24 @@ public class ArrayMetricTest {
         assertEquals(expectedRt, metric.rt());
     }
 
+    @Test
+    public void testAddRtAndSuccess() {
+        BucketLeapArray leapArray = mock(BucketLeapArray.class);
+        final WindowWrap<MetricBucket> windowWrap = new WindowWrap<MetricBucket>(windowLengthInMs, 0,
+            new MetricBucket());
+        when(leapArray.currentWindow()).thenReturn(windowWrap);
+        when(leapArray.values()).thenReturn(new ArrayList<MetricBucket>() {{ add(windowWrap.value()); }});
+
+        ArrayMetric metric = new ArrayMetric(leapArray);
+        metric.addRtAndSuccess(30, 5, 3);
+        metric.addRtAndSuccess(8, 8, 1);
+
+        assertEquals(4, metric.success());
+        assertEquals(38, metric.rt());
+        // The min RT is updated with the given min RT rather than the RT sum.
+        assertEquals(5, metric.minRt());
+    }
+
     @Test
     public void testGetMetricDetailsOnCondition() {
         BucketLeapArray leapArray = mock(BucketLeapArray.class);
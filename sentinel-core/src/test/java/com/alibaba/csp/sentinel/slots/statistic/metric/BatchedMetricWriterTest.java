@@ -0,0 +1,179 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.statistic.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for {@link BatchedMetricWriter}.
+ */
+public class BatchedMetricWriterTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testFlushOnBatchFullAndWindowChange() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 10000);
+            RecordingSink sink = new RecordingSink();
+            BatchedMetricWriter writer = new BatchedMetricWriter(4, 500, sink);
+
+            writer.add(MetricEvent.PASS, 1);
+            writer.add(MetricEvent.PASS, 1);
+            writer.addRtAndSuccess(20, 1);
+            assertEquals(0, sink.batches.size());
+            assertEquals(2, writer.pending(MetricEvent.PASS, 0));
+
+            // The batch is full.
+            writer.addRtAndSuccess(10, 1);
+            assertEquals(1, sink.batches.size());
+            assertEquals(10000, sink.windowStarts.get(0).longValue());
+            assertEquals(2, sink.batches.get(0)[MetricEvent.PASS.ordinal()]);
+            assertEquals(2, sink.batches.get(0)[MetricEvent.SUCCESS.ordinal()]);
+            assertEquals(30, sink.batches.get(0)[MetricEvent.RT.ordinal()]);
+            assertEquals(10, sink.minRts.get(0).longValue());
+            assertEquals(0, writer.pending(MetricEvent.PASS, 0));
+
+            writer.add(MetricEvent.BLOCK, 2);
+            // The window changes, so pending counts are flushed to the previous window.
+            sleep(mocked, 500);
+            writer.add(MetricEvent.PASS, 1);
+            assertEquals(2, sink.batches.size());
+            assertEquals(10000, sink.windowStarts.get(1).longValue());
+            assertEquals(2, sink.batches.get(1)[MetricEvent.BLOCK.ordinal()]);
+            assertEquals(Long.MAX_VALUE, sink.minRts.get(1).longValue());
+
+            // Pending counts of the windows before the given time are excluded.
+            assertEquals(1, writer.pending(MetricEvent.PASS, 10000));
+            assertEquals(0, writer.pending(MetricEvent.PASS, 10500));
+        }
+    }
+
+    @Test
+    public void testFlushAllThreads() throws Exception {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 20000);
+            RecordingSink sink = new RecordingSink();
+            final BatchedMetricWriter writer = new BatchedMetricWriter(100, 500, sink);
+
+            writer.add(MetricEvent.PASS, 3);
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    writer.add(MetricEvent.PASS, 5);
+                    writer.add(MetricEvent.EXCEPTION, 1);
+                }
+            });
+            t.start();
+            t.join();
+            assertEquals(2, writer.getBufferCount());
+            // The buffer of the dead thread is flushed and removed when merging the pending counts.
+            assertEquals(3, writer.pending(MetricEvent.PASS, 0));
+            assertEquals(1, writer.getBufferCount());
+
+            writer.flushAll();
+            assertEquals(0, writer.pending(MetricEvent.PASS, 0));
+            long pass = 0;
+            long exception = 0;
+            for (long[] batch : sink.batches) {
+                pass += batch[MetricEvent.PASS.ordinal()];
+                exception += batch[MetricEvent.EXCEPTION.ordinal()];
+            }
+            assertEquals(8, pass);
+            assertEquals(1, exception);
+
+            // The buffer of current thread is kept.
+            writer.add(MetricEvent.PASS, 1);
+            assertEquals(1, writer.pending(MetricEvent.PASS, 0));
+            assertEquals(1, writer.getBufferCount());
+        }
+    }
+
+    @Test
+    public void testMaxPending() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 40000);
+            RecordingSink sink = new RecordingSink();
+            BatchedMetricWriter writer = new BatchedMetricWriter(10, 500, sink);
+            assertEquals(0, writer.maxPending());
+
+            writer.add(MetricEvent.PASS, 7);
+            writer.add(MetricEvent.BLOCK, 1);
+            assertEquals(7, writer.pending(MetricEvent.PASS, 0));
+            assertEquals(10, writer.maxPending());
+
+            // Passed requests are weighted by the count, so the pending ones never exceed the batch size.
+            writer.add(MetricEvent.PASS, 5);
+            assertEquals(1, sink.batches.size());
+            assertEquals(12, sink.batches.get(0)[MetricEvent.PASS.ordinal()]);
+            assertEquals(0, writer.pending(MetricEvent.PASS, 0));
+
+            writer.add(MetricEvent.PASS, 3);
+            writer.flushAll();
+            assertEquals(2, sink.batches.size());
+            assertEquals(3, sink.batches.get(1)[MetricEvent.PASS.ordinal()]);
+            assertEquals(0, sink.batches.get(1)[MetricEvent.BLOCK.ordinal()]);
+        }
+    }
+
+    @Test
+    public void testAddBatchToArrayMetric() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 30000);
+            ArrayMetric metric = new ArrayMetric(2, 1000);
+            long[] counts = new long[MetricEvent.values().length];
+            counts[MetricEvent.PASS.ordinal()] = 5;
+            counts[MetricEvent.SUCCESS.ordinal()] = 4;
+            counts[MetricEvent.RT.ordinal()] = 40;
+
+            metric.addBatch(30000, counts, 6);
+            sleep(mocked, 600);
+            // The batch of previous bucket is still valid.
+            metric.addBatch(30000, counts, 8);
+            assertEquals(10, metric.pass());
+            assertEquals(8, metric.success());
+            assertEquals(80, metric.rt());
+            assertEquals(6, metric.minRt());
+
+            sleep(mocked, 1000);
+            // The bucket has been deprecated.
+            metric.addBatch(30000, counts, 6);
+            assertEquals(0, metric.pass());
+        }
+    }
+
+    private static class RecordingSink implements BatchedMetricWriter.Sink {
+
+        private final List<Long> windowStarts = new ArrayList<>();
+        private final List<long[]> batches = new ArrayList<>();
+        private final List<Long> minRts = new ArrayList<>();
+
+        @Override
+        public synchronized void flush(long windowStart, long[] counts, long minRt) {
+            windowStarts.add(windowStart);
+            batches.add(counts.clone());
+            minRts.add(minRt);
+        }
+    }
+}
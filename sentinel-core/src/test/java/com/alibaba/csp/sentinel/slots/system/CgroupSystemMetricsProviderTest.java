@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.slots.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CgroupSystemMetricsProviderTest {
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCgroupV2() throws IOException {
+        File root = folder.getRoot();
+        write(root, "cgroup.controllers", "cpu memory");
+        // 2 cores
+        write(root, "cpu.max", "200000 100000");
+        write(root, "cpu.stat", "usage_usec 1000000\nuser_usec 800000\nsystem_usec 200000\n"
+            + "nr_periods 100\nnr_throttled 0\nthrottled_usec 0");
+        write(root, "memory.max", "1000");
+        write(root, "memory.current", "500");
+
+        assertTrue(CgroupSystemMetricsProvider.isAvailable(root.getPath()));
+        CgroupSystemMetricsProvider provider = new CgroupSystemMetricsProvider(root.getPath(), 1000);
+        assertTrue(provider.isV2());
+        provider.refresh(SECOND_NANOS);
+        assertEquals(-1, provider.getCpuUsage(), 0.001);
+        assertEquals(-1, provider.getCpuThrottleRatio(), 0.001);
+        assertEquals(0.5, provider.getMemoryUsage(), 0.001);
+
+        // 1 second of CPU time in 1 second, and throttled in 5 of 10 periods.
+        write(root, "cpu.stat", "usage_usec 2000000\nuser_usec 1600000\nsystem_usec 400000\n"
+            + "nr_periods 110\nnr_throttled 5\nthrottled_usec 100000");
+        provider.refresh(2 * SECOND_NANOS);
+        assertEquals(0.5, provider.getCpuUsage(), 0.001);
+        assertEquals(0.5, provider.getCpuThrottleRatio(), 0.001);
+    }
+
+    @Test
+    public void testCgroupV1() throws IOException {
+        File root = folder.getRoot();
+        // 0.5 core
+        write(root, "cpu/cpu.cfs_quota_us", "50000");
+        write(root, "cpu/cpu.cfs_period_us", "100000");
+        write(root, "cpu/cpu.stat", "nr_periods 10\nnr_throttled 0\nthrottled_time 0");
+        write(root, "cpuacct/cpuacct.usage", "0");
+        write(root, "memory/memory.limit_in_bytes", "1000");
+        write(root, "memory/memory.usage_in_bytes", "800");
+
+        assertTrue(CgroupSystemMetricsProvider.isAvailable(root.getPath()));
+        CgroupSystemMetricsProvider provider = new CgroupSystemMetricsProvider(root.getPath(), 1000);
+        assertFalse(provider.isV2());
+        provider.refresh(SECOND_NANOS);
+        assertEquals(0.8, provider.getMemoryUsage(), 0.001);
+
+        write(root, "cpu/cpu.stat", "nr_periods 20\nnr_throttled 10\nthrottled_time 300000000");
+        write(root, "cpuacct/cpuacct.usage", String.valueOf(SECOND_NANOS / 2));
+        provider.refresh(2 * SECOND_NANOS);
+        assertEquals(1, provider.getCpuUsage(), 0.001);
+        assertEquals(1, provider.getCpuThrottleRatio(), 0.001);
+    }
+
+    @Test
+    public void testSmoothedWithShortInterval() throws IOException {
+        File root = folder.getRoot();
+        write(root, "cgroup.controllers", "cpu");
+        write(root, "cpu.max", "max 100000");
+        write(root, "cpu.stat", "usage_usec 0\nnr_periods 0\nnr_throttled 0");
+
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        CgroupSystemMetricsProvider provider = new CgroupSystemMetricsProvider(root.getPath(), 100);
+        provider.refresh(intervalNanos);
+        write(root, "cpu.stat", "usage_usec 0\nnr_periods 10\nnr_throttled 0");
+        provider.refresh(2 * intervalNanos);
+        assertEquals(0, provider.getCpuThrottleRatio(), 0.001);
+        // No memory controller.
+        assertEquals(-1, provider.getMemoryUsage(), 0.001);
+
+        // A single throttled sample only moves the smoothed ratio a little.
+        write(root, "cpu.stat", "usage_usec 0\nnr_periods 20\nnr_throttled 10");
+        provider.refresh(3 * intervalNanos);
+        double ratio = provider.getCpuThrottleRatio();
+        assertTrue(ratio > 0 && ratio < 0.2);
+    }
+
+    @Test
+    public void testNotAvailable() {
+        assertFalse(CgroupSystemMetricsProvider.isAvailable(folder.getRoot().getPath()));
+    }
+
+    private static void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -100,6 +100,73 @@ public class SystemRuleManagerTest {
         assertTrue("The entry should be blocked under SystemRule maxCpuUsage=0", blocked);
     }
 
+    @Test
+    public void testCheckCpuThrottleRatioAndMemoryUsage() {
+        SystemRule rule1 = new SystemRule();
+        rule1.setHighestCpuThrottleRatio(0.2d);
+        SystemRule rule2 = new SystemRule();
+        rule2.setHighestMemoryUsage(0.9d);
+        SystemRule rule3 = new SystemRule();
+        rule3.setHighestMemoryUsage(1.5d);
+        SystemRuleManager.loadRules(Arrays.asList(rule1, rule2, rule3));
+        assertEquals(2, SystemRuleManager.getRules().size());
+        assertEquals(0.2d, SystemRuleManager.getCpuThrottleRatioThreshold(), 0.01);
+        assertEquals(0.9d, SystemRuleManager.getMemoryUsageThreshold(), 0.01);
+
+        StubSystemMetricsProvider provider = new StubSystemMetricsProvider();
+        SystemRuleManager.setSystemMetricsProvider(provider);
+        try {
+            StringResourceWrapper resourceWrapper = new StringResourceWrapper("testCheckCgroupMetrics", EntryType.IN);
+            assertEquals("throttle", checkSystemAndGetLimitType(resourceWrapper, provider, 0.3d, 0.5d));
+            assertEquals("memory", checkSystemAndGetLimitType(resourceWrapper, provider, 0.1d, 0.95d));
+            assertNull(checkSystemAndGetLimitType(resourceWrapper, provider, 0.1d, 0.5d));
+        } finally {
+            SystemRuleManager.setSystemMetricsProvider(new SystemStatusListener());
+        }
+    }
+
+    private String checkSystemAndGetLimitType(StringResourceWrapper resourceWrapper,
+                                              StubSystemMetricsProvider provider,
+                                              double throttleRatio, double memoryUsage) {
+        provider.throttleRatio = throttleRatio;
+        provider.memoryUsage = memoryUsage;
+        try {
+            SystemRuleManager.checkSystem(resourceWrapper, 1);
+            return null;
+        } catch (BlockException ex) {
+            return ((SystemBlockException)ex).getLimitType();
+        }
+    }
+
+    private static class StubSystemMetricsProvider implements SystemMetricsProvider {
+
+        private volatile double throttleRatio = -1;
+        private volatile double memoryUsage = -1;
+
+        @Override
+        public void refresh() {}
+
+        @Override
+        public double getSystemAverageLoad() {
+            return -1;
+        }
+
+        @Override
+        public double getCpuUsage() {
+            return -1;
+        }
+
+        @Override
+        public double getCpuThrottleRatio() {
+            return throttleRatio;
+        }
+
+        @Override
+        public double getMemoryUsage() {
+            return memoryUsage;
+        }
+    }
+
     @Before
     public void setUp() throws Exception {
         SystemRuleManager.loadRules(new ArrayList<SystemRule>());
@@ -0,0 +1,116 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.spi;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link SpiIndex}.
+ */
+public class SpiIndexTest {
+
+    private static final String SERVICE = "com.alibaba.csp.sentinel.spi.IndexedService";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadIndex() throws IOException {
+        ClassLoader classLoader = indexClassLoader(
+            "# comment",
+            "@factory=" + TestFactory.class.getName(),
+            SERVICE + "=" + TestOneProvider.class.getName(),
+            SERVICE + "=" + TestTwoProvider.class.getName(),
+            "invalid line");
+        SpiIndex index = SpiIndex.load(classLoader);
+
+        assertEquals(Arrays.asList(TestOneProvider.class.getName(), TestTwoProvider.class.getName()),
+            index.getProviders(SERVICE));
+        assertNull(index.getProviders(TestInterface.class.getName()));
+
+        int created = TestFactory.COUNT.get();
+        Object instance = index.newInstance(TestOneProvider.class.getName());
+        assertTrue(instance instanceof TestOneProvider);
+        assertEquals(created + 1, TestFactory.COUNT.get());
+        // Not supported by the factory.
+        assertNull(index.newInstance(TestTwoProvider.class.getName()));
+        // Not in the index.
+        assertNull(index.newInstance(TestThreeProvider.class.getName()));
+    }
+
+    @Test
+    public void testFactoryNotAvailable() throws IOException {
+        ClassLoader classLoader = indexClassLoader(
+            "@factory=com.alibaba.csp.sentinel.spi.NotExistingFactory",
+            SERVICE + "=" + TestOneProvider.class.getName());
+        SpiIndex index = SpiIndex.load(classLoader);
+
+        assertNotNull(index.getProviders(SERVICE));
+        assertNull(index.newInstance(TestOneProvider.class.getName()));
+    }
+
+    @Test
+    public void testIndexCachedByClassLoader() throws IOException {
+        ClassLoader classLoader = indexClassLoader(SERVICE + "=" + TestOneProvider.class.getName());
+        assertTrue(SpiIndex.of(classLoader) == SpiIndex.of(classLoader));
+    }
+
+    private ClassLoader indexClassLoader(String... lines) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        final URL url = file.toURI().toURL();
+        return new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                if (SpiIndex.INDEX_FILE.equals(name)) {
+                    return Collections.enumeration(Collections.singletonList(url));
+                }
+                return super.getResources(name);
+            }
+        };
+    }
+
+    public static class TestFactory implements SpiInstanceFactory {
+
+        static final AtomicInteger COUNT = new AtomicInteger();
+
+        @Override
+        public Object newInstance(String className) {
+            if (TestOneProvider.class.getName().equals(className)) {
+                COUNT.incrementAndGet();
+                return new TestOneProvider();
+            }
+            return null;
+        }
+    }
+}
@@ -34,7 +34,7 @@ import java.util.List;
  * <ul>
  * <li>index url: {@code /}</li>
  * <li>authentication request url: {@code /login}, {@code /logout}</li>
- * <li>machine registry: {@code /registry/machine}</li>
+ * <li>machine registry: {@code /registry/machine}, {@code /registry/metric}</li>
  * <li>static resources</li>
  * </ul>
  * <p>
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.dashboard.config;
 
+import java.io.File;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -63,6 +64,56 @@ public class DashboardConfig {
      * Auto remove unhealthy machine after specific period in millisecond.
      */
     public static final String CONFIG_AUTO_REMOVE_MACHINE_MILLIS = "sentinel.dashboard.autoRemoveMachineMillis";
+    /**
+     * Format of the metric fetched from machines, {@code binary} (by default) or {@code text}.
+     */
+    public static final String CONFIG_METRIC_FETCH_FORMAT = "sentinel.dashboard.metric.fetchFormat";
+    /**
+     * Compression of the metric fetched from machines, {@code gzip} or {@code none} (by default).
+     */
+    public static final String CONFIG_METRIC_FETCH_COMPRESS = "sentinel.dashboard.metric.fetchCompress";
+
+    /**
+     * Capacity of the queue of pushed metric batches waiting to be ingested. Pushes are rejected when the queue
+     * is full, and clients retry them later.
+     */
+    public static final String CONFIG_METRIC_PUSH_QUEUE_SIZE = "sentinel.dashboard.metric.push.queueSize";
+    /**
+     * How long in seconds the pushed metrics are kept for merging and de-duplication. Clients re-send the metrics
+     * still kept in memory ({@code csp.sentinel.metric.memory.retention.seconds}, 120s by default) after an outage
+     * of the dashboard, so it should be longer than that. Metrics older than it are dropped.
+     */
+    public static final String CONFIG_METRIC_PUSH_WINDOW_SECONDS = "sentinel.dashboard.metric.push.windowSeconds";
+    /**
+     * Repository of the metrics: {@code memory} (by default); {@code columnar}, which keeps the metrics of each
+     * resource in time-partitioned columns and performs better with lots of resources; or {@code file}, which
+     * keeps the history of metrics in local files and rolls them up to coarser resolutions.
+     */
+    public static final String CONFIG_METRIC_REPOSITORY = "sentinel.dashboard.metric.repository";
+    /**
+     * Directory of the metric files, used by the {@code file} metric repository.
+     */
+    public static final String CONFIG_METRIC_FILE_DIR = "sentinel.dashboard.metric.file.dir";
+    /**
+     * Retention in hours of the per-second metric files.
+     */
+    public static final String CONFIG_METRIC_FILE_RAW_RETENTION_HOURS = "sentinel.dashboard.metric.file.rawRetentionHours";
+    /**
+     * Retention in hours of the metric files rolled up to 10 seconds.
+     */
+    public static final String CONFIG_METRIC_FILE_10S_RETENTION_HOURS = "sentinel.dashboard.metric.file.10sRetentionHours";
+    /**
+     * Retention in hours of the metric files rolled up to 1 minute.
+     */
+    public static final String CONFIG_METRIC_FILE_1M_RETENTION_HOURS = "sentinel.dashboard.metric.file.1mRetentionHours";
+
+    public static final int DEFAULT_METRIC_PUSH_QUEUE_SIZE = 1024;
+    public static final int DEFAULT_METRIC_PUSH_WINDOW_SECONDS = 300;
+    public static final String DEFAULT_METRIC_FETCH_FORMAT = "binary";
+    public static final String DEFAULT_METRIC_FETCH_COMPRESS = "none";
+    public static final int DEFAULT_METRIC_FILE_RAW_RETENTION_HOURS = 6;
+    public static final int DEFAULT_METRIC_FILE_10S_RETENTION_HOURS = 24 * 3;
+    public static final int DEFAULT_METRIC_FILE_1M_RETENTION_HOURS = 24 * 30;
 
     private static final ConcurrentMap<String, Object> cacheMap = new ConcurrentHashMap<>();
     
@@ -134,6 +185,45 @@ public class DashboardConfig {
         return getConfigInt(CONFIG_UNHEALTHY_MACHINE_MILLIS, DEFAULT_MACHINE_HEALTHY_TIMEOUT_MS, 30000);
     }
     
+    public static String getMetricFetchFormat() {
+        String format = getConfigStr(CONFIG_METRIC_FETCH_FORMAT);
+        return format == null ? DEFAULT_METRIC_FETCH_FORMAT : format;
+    }
+
+    public static String getMetricFetchCompress() {
+        String compress = getConfigStr(CONFIG_METRIC_FETCH_COMPRESS);
+        return compress == null ? DEFAULT_METRIC_FETCH_COMPRESS : compress;
+    }
+
+    public static int getMetricPushQueueSize() {
+        return getConfigInt(CONFIG_METRIC_PUSH_QUEUE_SIZE, DEFAULT_METRIC_PUSH_QUEUE_SIZE, 16);
+    }
+
+    public static int getMetricPushWindowSeconds() {
+        return getConfigInt(CONFIG_METRIC_PUSH_WINDOW_SECONDS, DEFAULT_METRIC_PUSH_WINDOW_SECONDS, 60);
+    }
+
+    public static String getMetricFileDir() {
+        String dir = getConfigStr(CONFIG_METRIC_FILE_DIR);
+        if (dir == null) {
+            return System.getProperty("user.home") + File.separator + "logs" + File.separator + "csp"
+                + File.separator + "sentinel-dashboard-metrics";
+        }
+        return dir;
+    }
+
+    public static int getMetricFileRawRetentionHours() {
+        return getConfigInt(CONFIG_METRIC_FILE_RAW_RETENTION_HOURS, DEFAULT_METRIC_FILE_RAW_RETENTION_HOURS, 1);
+    }
+
+    public static int getMetricFile10sRetentionHours() {
+        return getConfigInt(CONFIG_METRIC_FILE_10S_RETENTION_HOURS, DEFAULT_METRIC_FILE_10S_RETENTION_HOURS, 1);
+    }
+
+    public static int getMetricFile1mRetentionHours() {
+        return getConfigInt(CONFIG_METRIC_FILE_1M_RETENTION_HOURS, DEFAULT_METRIC_FILE_1M_RETENTION_HOURS, 1);
+    }
+
     public static void clearCache() {
         cacheMap.clear();
     }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.controller;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.alibaba.csp.sentinel.dashboard.domain.Result;
+import com.alibaba.csp.sentinel.dashboard.metric.MetricIngestPipeline;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Receives metrics pushed by machines in the binary metric format, along with the heartbeat channel.
+ *
+ * @since 1.8.9
+ */
+@Controller
+@RequestMapping(value = "/registry", produces = MediaType.APPLICATION_JSON_VALUE)
+public class MetricPushController {
+
+    private final Logger logger = LoggerFactory.getLogger(MetricPushController.class);
+
+    @Autowired
+    private MetricIngestPipeline ingestPipeline;
+
+    @ResponseBody
+    @RequestMapping(value = "/metric", method = RequestMethod.POST)
+    public Result<?> receiveMetric(String app, String ip, Integer port, HttpServletRequest request,
+                                   HttpServletResponse response) {
+        if (StringUtil.isBlank(app) || app.length() > 256) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return Result.ofFail(-1, "invalid appName");
+        }
+        if (StringUtil.isBlank(ip) || ip.length() > 128) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return Result.ofFail(-1, "invalid ip: " + ip);
+        }
+        if (port == null || port <= 0) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return Result.ofFail(-1, "invalid port");
+        }
+        try {
+            if (!ingestPipeline.ingest(app, ip, port, request.getInputStream())) {
+                // The machine retries the metrics in the next push.
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return Result.ofFail(-1, "metric ingest queue is full");
+            }
+            return Result.ofSuccessMsg("success");
+        } catch (Exception e) {
+            logger.warn("Receive metrics from {}:{} error: {}", ip, port, e.getMessage());
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return Result.ofFail(-1, e.getMessage());
+        }
+    }
+}
@@ -96,6 +96,21 @@ public class MetricEntity {
         this.successQps = successQps;
     }
 
+    /**
+     * Add the metrics of the same resource and time, which are aggregated from other machines.
+     *
+     * @param other metrics to be added
+     * @since 1.8.9
+     */
+    public synchronized void merge(MetricEntity other) {
+        this.passQps += other.getPassQps();
+        this.blockQps += other.getBlockQps();
+        this.exceptionQps += other.getExceptionQps();
+        this.successQps += other.getSuccessQps();
+        this.rt += other.getRt();
+        this.count += other.getCount();
+    }
+
     public Long getId() {
         return id;
     }
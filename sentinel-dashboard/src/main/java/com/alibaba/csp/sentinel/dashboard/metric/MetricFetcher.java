@@ -15,9 +15,17 @@
  */
 package com.alibaba.csp.sentinel.dashboard.metric;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -34,18 +42,23 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.DiscardPolicy;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
 import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
 import com.alibaba.csp.sentinel.dashboard.discovery.AppInfo;
 import com.alibaba.csp.sentinel.dashboard.discovery.AppManagement;
 import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryDecoder;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryFormat;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.concurrent.FutureCallback;
@@ -54,8 +67,6 @@ import org.apache.http.impl.client.DefaultRedirectStrategy;
 import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.impl.nio.client.HttpAsyncClients;
 import org.apache.http.impl.nio.reactor.IOReactorConfig;
-import org.apache.http.protocol.HTTP;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -75,6 +86,10 @@ public class MetricFetcher {
     private static final long FETCH_INTERVAL_SECOND = 6;
     private static final Charset DEFAULT_CHARSET = Charset.forName(SentinelConfig.charset());
     private final static String METRIC_URL_PATH = "metric";
+    /**
+     * Leading bytes of the response which are read to detect the format.
+     */
+    private static final int FORMAT_HEAD_SIZE = 8192;
     private static Logger logger = LoggerFactory.getLogger(MetricFetcher.class);
     private final long intervalSecond = 1;
 
@@ -84,6 +99,8 @@ public class MetricFetcher {
     private MetricsRepository<MetricEntity> metricStore;
     @Autowired
     private AppManagement appManagement;
+    @Autowired
+    private MetricIngestPipeline ingestPipeline;
 
     private CloseableHttpAsyncClient httpclient;
 
@@ -134,10 +151,17 @@ public class MetricFetcher {
         }, 10, intervalSecond, TimeUnit.SECONDS);
     }
 
-    private void writeMetric(Map<String, MetricEntity> map) {
+    private void writeMetric(String app, Map<MetricKey, MetricEntity> map) {
         if (map.isEmpty()) {
             return;
         }
+        if (ingestPipeline.hasPushingMachines(app)) {
+            // Merge with the pushed metrics of the same seconds, instead of overriding them.
+            if (!ingestPipeline.offer(app, new ArrayList<>(map.values()))) {
+                logger.warn("Metric ingest queue is full, pulled metrics of {} are dropped", app);
+            }
+            return;
+        }
         Date date = new Date();
         for (MetricEntity entity : map.values()) {
             entity.setGmtCreate(date);
@@ -168,7 +192,7 @@ public class MetricFetcher {
     /**
      * fetch metric between [startTime, endTime], both side inclusive
      */
-    private void fetchOnce(String app, long startTime, long endTime, int maxWaitSeconds) {
+    void fetchOnce(String app, long startTime, long endTime, int maxWaitSeconds) {
         if (maxWaitSeconds <= 0) {
             throw new IllegalArgumentException("maxWaitSeconds must > 0, but " + maxWaitSeconds);
         }
@@ -191,8 +215,9 @@ public class MetricFetcher {
         final AtomicLong fail = new AtomicLong();
 
         long start = System.currentTimeMillis();
-        /** app_resource_timeSecond -> metric */
-        final Map<String, MetricEntity> metricMap = new ConcurrentHashMap<>(16);
+        /** resource_timeSecond -> metric */
+        final Map<MetricKey, MetricEntity> metricMap = new ConcurrentHashMap<>(16);
+        final String formatParams = buildFormatParams();
         final CountDownLatch latch = new CountDownLatch(machines.size());
         for (final MachineInfo machine : machines) {
             // auto remove
@@ -207,10 +232,15 @@ public class MetricFetcher {
                 unhealthy.incrementAndGet();
                 continue;
             }
+            if (ingestPipeline.isPushing(machine)) {
+                // Metrics are pushed by the machine itself.
+                latch.countDown();
+                continue;
+            }
             final String url = "http://" + machine.getIp() + ":" + machine.getPort() + "/" + METRIC_URL_PATH
-                + "?startTime=" + startTime + "&endTime=" + endTime + "&refetch=" + false;
+                + "?startTime=" + startTime + "&endTime=" + endTime + "&refetch=" + false + formatParams;
+            // Connections are kept alive by the client if the command center supports it.
             final HttpGet httpGet = new HttpGet(url);
-            httpGet.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
             httpclient.execute(httpGet, new FutureCallback<HttpResponse>() {
                 @Override
                 public void completed(final HttpResponse response) {
@@ -255,7 +285,7 @@ public class MetricFetcher {
         //logger.info("finished " + msg + " metric for " + app + ", time intervalMs [" + startTime + ", " + endTime
         //    + "], total machines=" + machines.size() + ", dead=" + dead + ", fetch success="
         //    + success + ", fetch fail=" + fail + ", time cost=" + cost + " ms");
-        writeMetric(metricMap);
+        writeMetric(app, metricMap);
     }
 
     private void doFetchAppMetric(final String app) {
@@ -289,12 +319,29 @@ public class MetricFetcher {
         }
     }
 
+    private String buildFormatParams() {
+        StringBuilder params = new StringBuilder();
+        if (MetricBinaryFormat.FORMAT_BINARY.equalsIgnoreCase(DashboardConfig.getMetricFetchFormat())) {
+            params.append('&').append(MetricBinaryFormat.PARAM_FORMAT).append('=')
+                .append(MetricBinaryFormat.FORMAT_BINARY);
+        }
+        if (MetricBinaryFormat.COMPRESS_GZIP.equalsIgnoreCase(DashboardConfig.getMetricFetchCompress())) {
+            params.append('&').append(MetricBinaryFormat.PARAM_COMPRESS).append('=')
+                .append(MetricBinaryFormat.COMPRESS_GZIP);
+        }
+        return params.toString();
+    }
+
     private void handleResponse(final HttpResponse response, MachineInfo machine,
-                                Map<String, MetricEntity> metricMap) throws Exception {
+                                Map<MetricKey, MetricEntity> metricMap) throws Exception {
         int code = response.getStatusLine().getStatusCode();
         if (code != HTTP_OK) {
             return;
         }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
         Charset charset = null;
         try {
             String contentTypeStr = response.getFirstHeader("Content-type").getValue();
@@ -304,46 +351,82 @@ public class MetricFetcher {
             }
         } catch (Exception ignore) {
         }
-        String body = EntityUtils.toString(response.getEntity(), charset != null ? charset : DEFAULT_CHARSET);
-        if (StringUtil.isEmpty(body) || body.startsWith(NO_METRICS)) {
-            //logger.info(machine.getApp() + ":" + machine.getIp() + ":" + machine.getPort() + ", bodyStr is empty");
-            return;
+        // Machines which do not support the requested format respond in the thin text format,
+        // so the format is told by the leading bytes of the content.
+        InputStream in = entity.getContent();
+        try {
+            byte[] head = new byte[FORMAT_HEAD_SIZE];
+            int length = readHead(in, head);
+            if (MetricBinaryFormat.isGzip(head, length)) {
+                // The compressed head is still being read while the decompressed head is read.
+                byte[] compressedHead = Arrays.copyOf(head, length);
+                in = new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(compressedHead), in));
+                length = readHead(in, head);
+            }
+            if (MetricBinaryFormat.isBinary(head, length)) {
+                handleBinaryBody(new MetricBinaryDecoder(in, head, 0, length), machine, metricMap);
+            } else {
+                InputStream body = new SequenceInputStream(new ByteArrayInputStream(head, 0, length), in);
+                handleBody(new BufferedReader(new InputStreamReader(body, charset != null ? charset : DEFAULT_CHARSET)),
+                    machine, metricMap);
+            }
+        } finally {
+            in.close();
         }
-        String[] lines = body.split("\n");
-        //logger.info(machine.getApp() + ":" + machine.getIp() + ":" + machine.getPort() +
-        //    ", bodyStr.length()=" + body.length() + ", lines=" + lines.length);
-        handleBody(lines, machine, metricMap);
     }
 
-    private void handleBody(String[] lines, MachineInfo machine, Map<String, MetricEntity> map) {
-        //logger.info("handleBody() lines=" + lines.length + ", machine=" + machine);
-        if (lines.length < 1) {
-            return;
+    /**
+     * Read until the head is full or the end of the stream, so that the format could be detected.
+     */
+    private static int readHead(InputStream in, byte[] head) throws IOException {
+        int length = 0;
+        int n;
+        while (length < head.length && (n = in.read(head, length, head.length - length)) >= 0) {
+            length += n;
+        }
+        return length;
+    }
+
+    private void handleBinaryBody(MetricBinaryDecoder decoder, MachineInfo machine,
+                                  Map<MetricKey, MetricEntity> map) throws IOException {
+        MetricKey probe = new MetricKey();
+        while (decoder.next()) {
+            String resource = decoder.getResource();
+            if (shouldFilterOut(resource)) {
+                continue;
+            }
+            MetricEntity metricEntity = getOrCreateEntity(map, probe, machine.getApp(), resource,
+                decoder.getTimestamp());
+            metricEntity.addPassQps(decoder.getPassQps());
+            metricEntity.addBlockQps(decoder.getBlockQps());
+            metricEntity.addRtAndSuccessQps(decoder.getRt(), decoder.getSuccessQps());
+            metricEntity.addExceptionQps(decoder.getExceptionQps());
+            metricEntity.addCount(1);
         }
+    }
 
-        for (String line : lines) {
+    private void handleBody(BufferedReader reader, MachineInfo machine, Map<MetricKey, MetricEntity> map)
+        throws IOException {
+        MetricKey probe = new MetricKey();
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            if (first) {
+                first = false;
+                if (line.startsWith(NO_METRICS)) {
+                    return;
+                }
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
             try {
                 MetricNode node = MetricNode.fromThinString(line);
                 if (shouldFilterOut(node.getResource())) {
                     continue;
                 }
-                /*
-                 * aggregation metrics by app_resource_timeSecond, ignore ip and port.
-                 */
-                String key = buildMetricKey(machine.getApp(), node.getResource(), node.getTimestamp());
-
-                MetricEntity metricEntity = map.computeIfAbsent(key, s -> {
-                    MetricEntity initMetricEntity = new MetricEntity();
-                    initMetricEntity.setApp(machine.getApp());
-                    initMetricEntity.setTimestamp(new Date(node.getTimestamp()));
-                    initMetricEntity.setPassQps(0L);
-                    initMetricEntity.setBlockQps(0L);
-                    initMetricEntity.setRtAndSuccessQps(0, 0L);
-                    initMetricEntity.setExceptionQps(0L);
-                    initMetricEntity.setCount(0);
-                    initMetricEntity.setResource(node.getResource());
-                    return initMetricEntity;
-                });
+                MetricEntity metricEntity = getOrCreateEntity(map, probe, machine.getApp(), node.getResource(),
+                    node.getTimestamp());
                 metricEntity.addPassQps(node.getPassQps());
                 metricEntity.addBlockQps(node.getBlockQps());
                 metricEntity.addRtAndSuccessQps(node.getRt(), node.getSuccessQps());
@@ -355,11 +438,35 @@ public class MetricFetcher {
         }
     }
 
-    private String buildMetricKey(String app, String resource, long timestamp) {
-        return app + "__" + resource + "__" + (timestamp / 1000);
+    /**
+     * Aggregation metrics by resource_timeSecond, ignore ip and port. The app is the same in a fetch.
+     * The probe key is reused for lookups, so that no key is created for existing entities.
+     */
+    private static MetricEntity getOrCreateEntity(Map<MetricKey, MetricEntity> map, MetricKey probe,
+                                                  String app, String resource, long timestamp) {
+        probe.set(resource, timestamp / 1000);
+        MetricEntity metricEntity = map.get(probe);
+        if (metricEntity != null) {
+            return metricEntity;
+        }
+        return map.computeIfAbsent(new MetricKey().set(resource, timestamp / 1000),
+            k -> newMetricEntity(app, resource, timestamp));
+    }
+
+    static MetricEntity newMetricEntity(String app, String resource, long timestamp) {
+        MetricEntity initMetricEntity = new MetricEntity();
+        initMetricEntity.setApp(app);
+        initMetricEntity.setTimestamp(new Date(timestamp));
+        initMetricEntity.setPassQps(0L);
+        initMetricEntity.setBlockQps(0L);
+        initMetricEntity.setRtAndSuccessQps(0, 0L);
+        initMetricEntity.setExceptionQps(0L);
+        initMetricEntity.setCount(0);
+        initMetricEntity.setResource(resource);
+        return initMetricEntity;
     }
 
-    private boolean shouldFilterOut(String resource) {
+    static boolean shouldFilterOut(String resource) {
         return RES_EXCLUSION_SET.contains(resource);
     }
 
@@ -370,6 +477,3 @@ public class MetricFetcher {
     }};
 
 }
-
-
-
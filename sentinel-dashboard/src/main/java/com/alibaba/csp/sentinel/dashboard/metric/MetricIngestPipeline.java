@@ -0,0 +1,317 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryDecoder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Ingests metrics pushed by machines into the {@link MetricsRepository} through a bounded queue, so that
+ * bursts of pushes could not exhaust the memory of the dashboard. Pushes are rejected when the queue is full,
+ * and the machines retry them in the next push.</p>
+ *
+ * <p>Metrics of the same resource and second are merged across machines in a window of recent seconds, and
+ * the merged metrics are saved once updated, so they are visible without waiting for the other machines.
+ * Metrics pulled from other machines of the same app are merged through the pipeline as well, so that the
+ * metrics of pushing and pulling machines do not override each other.</p>
+ *
+ * <p>Metrics of the same resource and second pushed by the same machine are ingested only once, so that
+ * pushes retried by the machine (e.g. when the response is lost after the dashboard has accepted the push)
+ * are not counted repeatedly.</p>
+ *
+ * <p>The window is kept for {@link DashboardConfig#CONFIG_METRIC_PUSH_WINDOW_SECONDS}, which should cover
+ * the metrics re-sent by the machines after an outage of the dashboard. Metrics older than the window are
+ * dropped, since merging them again would override the saved metrics merged from all the machines.</p>
+ *
+ * @since 1.8.9
+ */
+@Component
+public class MetricIngestPipeline {
+
+    /**
+     * Machines which pushed metrics within the period are regarded as pushing, and won't be pulled.
+     */
+    static final long PUSH_ALIVE_MS = 5000;
+
+    private static final long EVICT_INTERVAL_MS = 1000;
+    private static final int MAX_DRAIN_BATCHES = 64;
+
+    private static Logger logger = LoggerFactory.getLogger(MetricIngestPipeline.class);
+
+    @Autowired
+    private MetricsRepository<MetricEntity> metricStore;
+
+    private final BlockingQueue<MetricBatch> queue;
+
+    /**
+     * {@code app -> ip:port -> last push time}
+     */
+    private final Map<String, Map<String, Long>> pushTimes = new ConcurrentHashMap<>();
+
+    private final AtomicLong ingestedRecords = new AtomicLong();
+    private final AtomicLong rejectedBatches = new AtomicLong();
+    private final AtomicLong droppedLateRecords = new AtomicLong();
+
+    private final long windowRetentionMs;
+
+    /**
+     * {@code app -> resource_second -> merged metric}, only accessed by the ingest thread.
+     */
+    private final Map<String, Map<MetricKey, MergedMetric>> windows = new HashMap<>();
+    private final MetricKey probe = new MetricKey();
+    private long lastEvictTime = 0;
+
+    public MetricIngestPipeline() {
+        this(DashboardConfig.getMetricPushQueueSize());
+    }
+
+    MetricIngestPipeline(int queueSize) {
+        this(queueSize, DashboardConfig.getMetricPushWindowSeconds());
+    }
+
+    MetricIngestPipeline(int queueSize, int windowSeconds) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.windowRetentionMs = windowSeconds * 1000L;
+        new NamedThreadFactory("sentinel-dashboard-metrics-ingest", true).newThread(this::runIngest).start();
+    }
+
+    /**
+     * Decode the metrics pushed by a machine in the binary format, and queue them to be ingested.
+     *
+     * @return false if the queue is full and the metrics are rejected
+     * @throws IOException if the content is not in the binary metric format
+     */
+    public boolean ingest(String app, String ip, int port, InputStream content) throws IOException {
+        pushTimes.computeIfAbsent(app, k -> new ConcurrentHashMap<>())
+            .put(machineKey(ip, port), System.currentTimeMillis());
+        MetricBinaryDecoder decoder = new MetricBinaryDecoder(content);
+        List<MetricEntity> metrics = new ArrayList<>();
+        while (decoder.next()) {
+            String resource = decoder.getResource();
+            if (MetricFetcher.shouldFilterOut(resource)) {
+                continue;
+            }
+            MetricEntity entity = MetricFetcher.newMetricEntity(app, resource, decoder.getTimestamp());
+            entity.setPassQps(decoder.getPassQps());
+            entity.setBlockQps(decoder.getBlockQps());
+            entity.setRtAndSuccessQps(decoder.getRt(), decoder.getSuccessQps());
+            entity.setExceptionQps(decoder.getExceptionQps());
+            entity.setCount(1);
+            metrics.add(entity);
+        }
+        return offer(new MetricBatch(app, machineKey(ip, port), metrics));
+    }
+
+    /**
+     * Queue the metrics of an app to be merged and saved.
+     *
+     * @return false if the queue is full and the metrics are rejected
+     */
+    public boolean offer(String app, List<MetricEntity> metrics) {
+        return offer(new MetricBatch(app, null, metrics));
+    }
+
+    private boolean offer(MetricBatch batch) {
+        if (batch.metrics.isEmpty()) {
+            return true;
+        }
+        if (queue.offer(batch)) {
+            return true;
+        }
+        rejectedBatches.incrementAndGet();
+        return false;
+    }
+
+    public boolean isPushing(MachineInfo machine) {
+        Map<String, Long> machines = pushTimes.get(machine.getApp());
+        if (machines == null) {
+            return false;
+        }
+        Long time = machines.get(machineKey(machine.getIp(), machine.getPort()));
+        return time != null && System.currentTimeMillis() - time < PUSH_ALIVE_MS;
+    }
+
+    public boolean hasPushingMachines(String app) {
+        Map<String, Long> machines = pushTimes.get(app);
+        if (machines == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (Long time : machines.values()) {
+            if (now - time < PUSH_ALIVE_MS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long getIngestedRecords() {
+        return ingestedRecords.get();
+    }
+
+    long getRejectedBatches() {
+        return rejectedBatches.get();
+    }
+
+    long getDroppedLateRecords() {
+        return droppedLateRecords.get();
+    }
+
+    private void runIngest() {
+        List<MetricBatch> batches = new ArrayList<>(MAX_DRAIN_BATCHES);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batches.add(queue.take());
+                queue.drainTo(batches, MAX_DRAIN_BATCHES - 1);
+                ingest(batches);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                logger.error("Ingest metrics error", e);
+            } finally {
+                batches.clear();
+            }
+        }
+    }
+
+    private void ingest(List<MetricBatch> batches) {
+        Set<MetricEntity> updated = Collections.newSetFromMap(new IdentityHashMap<>());
+        long records = 0;
+        long late = 0;
+        // Seconds before it may have been evicted from the window, so they cannot be merged any more.
+        long minSecond = (System.currentTimeMillis() - windowRetentionMs) / 1000;
+        for (MetricBatch batch : batches) {
+            Map<MetricKey, MergedMetric> window = windows.computeIfAbsent(batch.app, k -> new HashMap<>());
+            for (MetricEntity metric : batch.metrics) {
+                long second = metric.getTimestamp().getTime() / 1000;
+                if (second < minSecond) {
+                    late++;
+                    continue;
+                }
+                MergedMetric merged = window.get(probe.set(metric.getResource(), second));
+                if (merged == null) {
+                    merged = new MergedMetric(
+                        MetricFetcher.newMetricEntity(batch.app, metric.getResource(), second * 1000));
+                    window.put(new MetricKey().set(metric.getResource(), second), merged);
+                }
+                if (batch.machine != null && !merged.addPushingMachine(batch.machine)) {
+                    // Already ingested from the machine, e.g. the push is retried after the response is lost.
+                    continue;
+                }
+                merged.entity.merge(metric);
+                updated.add(merged.entity);
+                records++;
+            }
+        }
+        Date date = new Date();
+        for (MetricEntity entity : updated) {
+            if (entity.getGmtCreate() == null) {
+                entity.setGmtCreate(date);
+            }
+            entity.setGmtModified(date);
+        }
+        metricStore.saveAll(updated);
+        ingestedRecords.addAndGet(records);
+        if (late > 0) {
+            droppedLateRecords.addAndGet(late);
+            logger.warn("Dropped {} metric records older than the ingest window ({} ms)", late, windowRetentionMs);
+        }
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastEvictTime < EVICT_INTERVAL_MS) {
+            return;
+        }
+        lastEvictTime = now;
+        long minSecond = (now - windowRetentionMs) / 1000;
+        for (Iterator<Map<MetricKey, MergedMetric>> it = windows.values().iterator(); it.hasNext(); ) {
+            Map<MetricKey, MergedMetric> window = it.next();
+            window.keySet().removeIf(key -> key.getSecond() < minSecond);
+            if (window.isEmpty()) {
+                it.remove();
+            }
+        }
+        for (Map<String, Long> machines : pushTimes.values()) {
+            machines.values().removeIf(time -> now - time > windowRetentionMs);
+        }
+    }
+
+    private static String machineKey(String ip, int port) {
+        return ip + ":" + port;
+    }
+
+    private static final class MetricBatch {
+        private final String app;
+        /**
+         * {@code ip:port} of the pushing machine, or null if the metrics are pulled.
+         */
+        private final String machine;
+        private final List<MetricEntity> metrics;
+
+        private MetricBatch(String app, String machine, List<MetricEntity> metrics) {
+            this.app = app;
+            this.machine = machine;
+            this.metrics = metrics;
+        }
+    }
+
+    private static final class MergedMetric {
+        private final MetricEntity entity;
+        private Set<String> pushingMachines;
+
+        private MergedMetric(MetricEntity entity) {
+            this.entity = entity;
+        }
+
+        /**
+         * @return false if the metric of the machine has been merged
+         */
+        private boolean addPushingMachine(String machine) {
+            if (pushingMachines == null) {
+                pushingMachines = new HashSet<>();
+            }
+            return pushingMachines.add(machine);
+        }
+    }
+}
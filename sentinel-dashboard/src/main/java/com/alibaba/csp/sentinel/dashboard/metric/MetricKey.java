@@ -0,0 +1,55 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+/**
+ * Key of the metrics aggregated by resource and second in an app. The key is mutable so that it could be
+ * reused to look up existing metrics.
+ *
+ * @since 1.8.9
+ */
+final class MetricKey {
+
+    private String resource;
+    private long second;
+
+    MetricKey set(String resource, long second) {
+        this.resource = resource;
+        this.second = second;
+        return this;
+    }
+
+    long getSecond() {
+        return second;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MetricKey)) {
+            return false;
+        }
+        MetricKey that = (MetricKey) o;
+        return second == that.second && resource.equals(that.resource);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * resource.hashCode() + (int) (second ^ (second >>> 32));
+    }
+}
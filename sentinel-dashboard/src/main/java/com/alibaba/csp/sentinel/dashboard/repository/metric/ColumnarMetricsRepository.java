@@ -0,0 +1,209 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Caches metrics data in a period of time in memory, which keeps metrics of each resource in
+ * time-partitioned primitive columns (see {@link MetricSeries}) instead of maps of entities.</p>
+ *
+ * <p>Each resource is locked on its own, so saving metrics of different resources does not contend,
+ * and queries read optimistically without blocking the writers. Resources are ranked by the sums
+ * maintained on saving, and expired metrics are released in the background.</p>
+ *
+ * <p>Enabled by {@code sentinel.dashboard.metric.repository=columnar}.</p>
+ *
+ * @since 1.8.9
+ */
+@Component
+@ConditionalOnProperty(name = DashboardConfig.CONFIG_METRIC_REPOSITORY, havingValue = "columnar")
+public class ColumnarMetricsRepository implements MetricsRepository<MetricEntity> {
+
+    static final int RETENTION_SECONDS = 60 * 5;
+    private static final int RANK_SECONDS = 60;
+    private static final long EXPIRE_INTERVAL_MS = 1000 * 10;
+
+    private static Logger logger = LoggerFactory.getLogger(ColumnarMetricsRepository.class);
+
+    /**
+     * {@code app -> resource -> metrics}
+     */
+    private final Map<String, Map<String, MetricSeries>> allMetrics = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private final ScheduledExecutorService expireService = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("sentinel-dashboard-metrics-expire", true));
+
+    public ColumnarMetricsRepository() {
+        expireService.scheduleWithFixedDelay(() -> {
+            try {
+                expire(TimeUtil.currentTimeMillis());
+            } catch (Throwable e) {
+                logger.error("Expire metrics error", e);
+            }
+        }, EXPIRE_INTERVAL_MS, EXPIRE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(MetricEntity entity) {
+        save(entity, TimeUtil.currentTimeMillis());
+    }
+
+    @Override
+    public void saveAll(Iterable<MetricEntity> metrics) {
+        if (metrics == null) {
+            return;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        for (MetricEntity entity : metrics) {
+            save(entity, now);
+        }
+    }
+
+    private void save(MetricEntity entity, long now) {
+        if (entity == null || StringUtil.isBlank(entity.getApp()) || entity.getResource() == null) {
+            return;
+        }
+        Map<String, MetricSeries> resourceMap = allMetrics.get(entity.getApp());
+        if (resourceMap == null) {
+            resourceMap = allMetrics.computeIfAbsent(entity.getApp(), e -> new ConcurrentHashMap<>(16));
+        }
+        while (true) {
+            MetricSeries series = resourceMap.get(entity.getResource());
+            if (series == null) {
+                series = resourceMap.computeIfAbsent(entity.getResource(),
+                    e -> new MetricSeries(entity.getApp(), entity.getResource(), RETENTION_SECONDS, rankSince(now)));
+            }
+            if (series.write(entity, minSecond(now))) {
+                return;
+            }
+            // The series has been expired and removed concurrently.
+            resourceMap.remove(entity.getResource(), series);
+        }
+    }
+
+    @Override
+    public List<MetricEntity> queryByAppAndResourceBetween(String app, String resource,
+                                                           long startTime, long endTime) {
+        List<MetricEntity> results = new ArrayList<>();
+        if (StringUtil.isBlank(app) || resource == null) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allMetrics.get(app);
+        if (resourceMap == null) {
+            return results;
+        }
+        MetricSeries series = resourceMap.get(resource);
+        if (series == null) {
+            return results;
+        }
+        series.query(startTime, endTime, minSecond(TimeUtil.currentTimeMillis()), results);
+        return results;
+    }
+
+    @Override
+    public List<String> listResourcesOfApp(String app) {
+        List<String> results = new ArrayList<>();
+        if (StringUtil.isBlank(app)) {
+            return results;
+        }
+        Map<String, MetricSeries> resourceMap = allMetrics.get(app);
+        if (resourceMap == null) {
+            return results;
+        }
+        long rankSince = rankSince(TimeUtil.currentTimeMillis());
+        List<RankedResource> ranked = new ArrayList<>(resourceMap.size());
+        long[] sums = new long[2];
+        for (MetricSeries series : resourceMap.values()) {
+            if (series.rank(rankSince, sums)) {
+                ranked.add(new RankedResource(series.getResource(), sums[0], sums[1]));
+            }
+        }
+        // Order by last minute b_qps DESC, then p_qps DESC.
+        ranked.sort((o1, o2) -> {
+            int t = Long.compare(o2.blockQps, o1.blockQps);
+            if (t != 0) {
+                return t;
+            }
+            return Long.compare(o2.passQps, o1.passQps);
+        });
+        for (RankedResource resource : ranked) {
+            results.add(resource.resource);
+        }
+        return results;
+    }
+
+    /**
+     * Iterate the app and resource of all kept metrics.
+     */
+    void forEachResource(BiConsumer<String, String> action) {
+        for (Map.Entry<String, Map<String, MetricSeries>> entry : allMetrics.entrySet()) {
+            for (String resource : entry.getValue().keySet()) {
+                action.accept(entry.getKey(), resource);
+            }
+        }
+    }
+
+    void shutdown() {
+        expireService.shutdownNow();
+    }
+
+    void expire(long now) {
+        long minSecond = minSecond(now);
+        for (Map<String, MetricSeries> resourceMap : allMetrics.values()) {
+            resourceMap.values().removeIf(series -> series.expire(minSecond));
+        }
+    }
+
+    private static long minSecond(long now) {
+        return now / 1000 - RETENTION_SECONDS;
+    }
+
+    private static long rankSince(long now) {
+        return now / 1000 - RANK_SECONDS;
+    }
+
+    private static final class RankedResource {
+        private final String resource;
+        private final long blockQps;
+        private final long passQps;
+
+        private RankedResource(String resource, long blockQps, long passQps) {
+            this.resource = resource;
+            this.blockQps = blockQps;
+            this.passQps = passQps;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>Keeps the history of metrics in local files, so that metrics of hours or days are available for capacity
+ * planning and survive restarts of the dashboard, without any external storage.</p>
+ *
+ * <p>Recent metrics are kept in a {@link ColumnarMetricsRepository}, as metrics of a second may be saved again
+ * while the metrics of more machines are merged. Once a minute is over for {@link #FLUSH_DELAY_MS}, its metrics
+ * are appended to the per-second tier (see {@link MetricSegmentTier}), and rolled up to the 10-second and 1-minute
+ * tiers, whose points are the averages of the per-second points. Each tier has its own retention, and queries
+ * read the finest tier which still covers the start of the range.</p>
+ *
+ * <p>Enabled by {@code sentinel.dashboard.metric.repository=file}, with files in
+ * {@code sentinel.dashboard.metric.file.dir}.</p>
+ *
+ * @since 1.8.9
+ */
+@Component
+@ConditionalOnProperty(name = DashboardConfig.CONFIG_METRIC_REPOSITORY, havingValue = "file")
+public class FileMetricsRepository implements MetricsRepository<MetricEntity> {
+
+    private static final int PASS_QPS = 0;
+    private static final int SUCCESS_QPS = 1;
+    private static final int BLOCK_QPS = 2;
+    private static final int EXCEPTION_QPS = 3;
+    private static final int RT = 4;
+    private static final int COUNT = 5;
+    private static final int COLUMNS = 6;
+
+    private static final long MINUTE_MS = 1000 * 60;
+    private static final long HOUR_MS = MINUTE_MS * 60;
+    private static final long DAY_MS = HOUR_MS * 24;
+
+    /**
+     * Metrics of a minute are persisted after the delay, as they may be saved again until then.
+     */
+    static final long FLUSH_DELAY_MS = 1000 * 70;
+    private static final long FLUSH_INTERVAL_MS = 1000 * 10;
+
+    /**
+     * Rolled up points are appended in blocks of the period, by the 10-second and 1-minute tier.
+     */
+    private static final long[] ROLLUP_BLOCK_MS = {MINUTE_MS * 10, HOUR_MS};
+
+    private static Logger logger = LoggerFactory.getLogger(FileMetricsRepository.class);
+
+    private final ColumnarMetricsRepository recentMetrics = new ColumnarMetricsRepository();
+
+    /**
+     * Tiers of 1 second, 10 seconds and 1 minute.
+     */
+    private final MetricSegmentTier[] tiers;
+
+    /**
+     * {@code app -> resource -> rollup buffers of the 10-second and 1-minute tier}, guarded by this.
+     */
+    private final Map<String, Map<String, RollupBuffer[]>> rollups = new HashMap<>();
+
+    /**
+     * Metrics before the time (exclusive) have been persisted, guarded by this.
+     */
+    private long flushedUntil;
+
+    private final long[] rawTimestamps = new long[60];
+    private final double[][] rawValues = new double[COLUMNS][60];
+    private final double[] point = new double[COLUMNS];
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private final ScheduledExecutorService flushService = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("sentinel-dashboard-metrics-flush", true));
+
+    public FileMetricsRepository() throws IOException {
+        this(new File(DashboardConfig.getMetricFileDir()),
+            DashboardConfig.getMetricFileRawRetentionHours() * HOUR_MS,
+            DashboardConfig.getMetricFile10sRetentionHours() * HOUR_MS,
+            DashboardConfig.getMetricFile1mRetentionHours() * HOUR_MS);
+        flushService.scheduleWithFixedDelay(() -> {
+            try {
+                flush(TimeUtil.currentTimeMillis());
+            } catch (Throwable e) {
+                logger.error("Flush metrics error", e);
+            }
+        }, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    FileMetricsRepository(File dir, long rawRetentionMs, long tenSecondsRetentionMs, long minuteRetentionMs)
+        throws IOException {
+        this.tiers = new MetricSegmentTier[] {
+            new MetricSegmentTier(new File(dir, "1s"), 1000, HOUR_MS, rawRetentionMs, COLUMNS),
+            new MetricSegmentTier(new File(dir, "10s"), 1000 * 10, DAY_MS, tenSecondsRetentionMs, COLUMNS),
+            new MetricSegmentTier(new File(dir, "1m"), MINUTE_MS, DAY_MS * 7, minuteRetentionMs, COLUMNS)
+        };
+        // Metrics saved since then are not persisted yet.
+        this.flushedUntil = floorMinute(TimeUtil.currentTimeMillis() - ColumnarMetricsRepository.RETENTION_SECONDS * 1000L);
+    }
+
+    @Override
+    public void save(MetricEntity entity) {
+        recentMetrics.save(entity);
+    }
+
+    @Override
+    public void saveAll(Iterable<MetricEntity> metrics) {
+        recentMetrics.saveAll(metrics);
+    }
+
+    @Override
+    public List<MetricEntity> queryByAppAndResourceBetween(String app, String resource,
+                                                           long startTime, long endTime) {
+        if (StringUtil.isBlank(app) || resource == null) {
+            return new ArrayList<>();
+        }
+        long persistedUntil;
+        synchronized (this) {
+            persistedUntil = flushedUntil;
+        }
+        TreeMap<Long, MetricEntity> results = new TreeMap<>();
+        int tier = tierOf(startTime, TimeUtil.currentTimeMillis());
+        MetricSegmentTier.PointConsumer consumer = (timestamp, values) ->
+            results.put(timestamp, toEntity(app, resource, timestamp, values));
+        try {
+            tiers[tier].scan(app, resource, startTime, endTime, consumer);
+        } catch (IOException e) {
+            logger.error("Read metrics of {} error", resource, e);
+        }
+        if (tier > 0) {
+            synchronized (this) {
+                Map<String, RollupBuffer[]> resources = rollups.get(app);
+                RollupBuffer[] buffers = resources == null ? null : resources.get(resource);
+                if (buffers != null && buffers[tier - 1] != null) {
+                    buffers[tier - 1].scan(startTime, endTime, consumer);
+                }
+            }
+        }
+        // Recent metrics are the latest, while only those not rolled up yet are read along with rollups.
+        long recentStart = tier == 0 ? startTime : Math.max(startTime, persistedUntil);
+        for (MetricEntity entity : recentMetrics.queryByAppAndResourceBetween(app, resource, recentStart,
+            endTime)) {
+            results.put(entity.getTimestamp().getTime(), entity);
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    @Override
+    public List<String> listResourcesOfApp(String app) {
+        return recentMetrics.listResourcesOfApp(app);
+    }
+
+    /**
+     * Persist the metrics of the minutes which are over, and delete the files out of the retention.
+     */
+    synchronized void flush(long now) {
+        persist(floorMinute(now - FLUSH_DELAY_MS), now);
+        for (MetricSegmentTier tier : tiers) {
+            tier.purge(now);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        flushService.shutdownNow();
+        recentMetrics.shutdown();
+        long now = TimeUtil.currentTimeMillis();
+        persist(floorMinute(now) + MINUTE_MS, now);
+        // Persist the partial rollups as well, which are merged with the rest of the block by timestamp.
+        closeRollups(Long.MAX_VALUE);
+        for (MetricSegmentTier tier : tiers) {
+            tier.close();
+        }
+    }
+
+    private void persist(long until, long now) {
+        if (until <= flushedUntil) {
+            return;
+        }
+        // Metrics earlier than the recent ones have gone.
+        long minute = Math.max(flushedUntil, floorMinute(now - ColumnarMetricsRepository.RETENTION_SECONDS * 1000L));
+        for (; minute < until; minute += MINUTE_MS) {
+            flushMinute(minute);
+        }
+        flushedUntil = until;
+        closeRollups(until);
+    }
+
+    private void flushMinute(long minute) {
+        recentMetrics.forEachResource((app, resource) -> {
+            List<MetricEntity> metrics = recentMetrics.queryByAppAndResourceBetween(app, resource, minute,
+                minute + MINUTE_MS - 1);
+            if (metrics.isEmpty()) {
+                return;
+            }
+            RollupBuffer[] buffers = rollups.computeIfAbsent(app, k -> new HashMap<>())
+                .computeIfAbsent(resource, k -> new RollupBuffer[ROLLUP_BLOCK_MS.length]);
+            int count = 0;
+            for (MetricEntity entity : metrics) {
+                if (count == rawTimestamps.length) {
+                    break;
+                }
+                long timestamp = entity.getTimestamp().getTime();
+                rawTimestamps[count] = timestamp;
+                rawValues[PASS_QPS][count] = entity.getPassQps();
+                rawValues[SUCCESS_QPS][count] = entity.getSuccessQps();
+                rawValues[BLOCK_QPS][count] = entity.getBlockQps();
+                rawValues[EXCEPTION_QPS][count] = entity.getExceptionQps();
+                rawValues[RT][count] = entity.getRt();
+                rawValues[COUNT][count] = entity.getCount();
+                for (int c = 0; c < COLUMNS; c++) {
+                    point[c] = rawValues[c][count];
+                }
+                rollup(app, resource, buffers, timestamp, point);
+                count++;
+            }
+            append(tiers[0], app, resource, rawTimestamps, rawValues, count);
+        });
+    }
+
+    private void rollup(String app, String resource, RollupBuffer[] buffers, long timestamp, double[] values) {
+        for (int i = 0; i < buffers.length; i++) {
+            long blockStart = timestamp - Math.floorMod(timestamp, ROLLUP_BLOCK_MS[i]);
+            RollupBuffer buffer = buffers[i];
+            if (buffer != null && buffer.blockStart != blockStart) {
+                if (blockStart < buffer.blockStart) {
+                    // The block has been persisted.
+                    continue;
+                }
+                buffer.appendTo(tiers[i + 1], app, resource);
+                buffer = null;
+            }
+            if (buffer == null) {
+                buffer = new RollupBuffer(blockStart, tiers[i + 1].getResolutionMs(), ROLLUP_BLOCK_MS[i]);
+                buffers[i] = buffer;
+            }
+            buffer.add(timestamp, values);
+        }
+    }
+
+    /**
+     * Persist the rollup blocks which end before the time.
+     */
+    private void closeRollups(long until) {
+        for (Iterator<Map.Entry<String, Map<String, RollupBuffer[]>>> appIt = rollups.entrySet().iterator();
+             appIt.hasNext(); ) {
+            Map.Entry<String, Map<String, RollupBuffer[]>> appEntry = appIt.next();
+            for (Iterator<Map.Entry<String, RollupBuffer[]>> it = appEntry.getValue().entrySet().iterator();
+                 it.hasNext(); ) {
+                Map.Entry<String, RollupBuffer[]> entry = it.next();
+                RollupBuffer[] buffers = entry.getValue();
+                boolean empty = true;
+                for (int i = 0; i < buffers.length; i++) {
+                    if (buffers[i] == null) {
+                        continue;
+                    }
+                    if (until == Long.MAX_VALUE || buffers[i].blockStart + buffers[i].blockMs <= until) {
+                        buffers[i].appendTo(tiers[i + 1], appEntry.getKey(), entry.getKey());
+                        buffers[i] = null;
+                    } else {
+                        empty = false;
+                    }
+                }
+                if (empty) {
+                    it.remove();
+                }
+            }
+            if (appEntry.getValue().isEmpty()) {
+                appIt.remove();
+            }
+        }
+    }
+
+    private int tierOf(long startTime, long now) {
+        for (int i = 0; i < tiers.length - 1; i++) {
+            if (startTime >= now - tiers[i].getRetentionMs()) {
+                return i;
+            }
+        }
+        return tiers.length - 1;
+    }
+
+    private static void append(MetricSegmentTier tier, String app, String resource, long[] timestamps,
+                               double[][] values, int count) {
+        try {
+            tier.append(app, resource, timestamps, values, count);
+        } catch (IOException e) {
+            logger.error("Write metrics of {} error", resource, e);
+        }
+    }
+
+    private static MetricEntity toEntity(String app, String resource, long timestamp, double[] values) {
+        MetricEntity entity = new MetricEntity();
+        Date date = new Date(timestamp);
+        entity.setApp(app);
+        entity.setResource(resource);
+        entity.setTimestamp(date);
+        entity.setGmtCreate(date);
+        entity.setGmtModified(date);
+        entity.setPassQps(Math.round(values[PASS_QPS]));
+        entity.setSuccessQps(Math.round(values[SUCCESS_QPS]));
+        entity.setBlockQps(Math.round(values[BLOCK_QPS]));
+        entity.setExceptionQps(Math.round(values[EXCEPTION_QPS]));
+        entity.setRt(values[RT]);
+        entity.setCount((int)Math.round(values[COUNT]));
+        return entity;
+    }
+
+    private static long floorMinute(long time) {
+        return time - Math.floorMod(time, MINUTE_MS);
+    }
+
+    /**
+     * Sums of the per-second points of a block of a rollup tier, by the points of the tier.
+     */
+    private static final class RollupBuffer {
+        private final long blockStart;
+        private final long blockMs;
+        private final long resolutionMs;
+        private final double[][] sums;
+        private final int[] seconds;
+
+        private RollupBuffer(long blockStart, long resolutionMs, long blockMs) {
+            this.blockStart = blockStart;
+            this.blockMs = blockMs;
+            this.resolutionMs = resolutionMs;
+            int slots = (int)(blockMs / resolutionMs);
+            this.sums = new double[COLUMNS][slots];
+            this.seconds = new int[slots];
+        }
+
+        private void add(long timestamp, double[] values) {
+            int slot = (int)((timestamp - blockStart) / resolutionMs);
+            for (int c = 0; c < COLUMNS; c++) {
+                sums[c][slot] += values[c];
+            }
+            seconds[slot]++;
+        }
+
+        private void scan(long startTime, long endTime, MetricSegmentTier.PointConsumer consumer) {
+            double[] values = new double[COLUMNS];
+            for (int slot = 0; slot < seconds.length; slot++) {
+                long timestamp = blockStart + slot * resolutionMs;
+                if (seconds[slot] == 0 || timestamp < startTime || timestamp > endTime) {
+                    continue;
+                }
+                for (int c = 0; c < COLUMNS; c++) {
+                    values[c] = sums[c][slot] / seconds[slot];
+                }
+                consumer.accept(timestamp, values);
+            }
+        }
+
+        private void appendTo(MetricSegmentTier tier, String app, String resource) {
+            long[] timestamps = new long[seconds.length];
+            double[][] values = new double[COLUMNS][seconds.length];
+            int count = 0;
+            for (int slot = 0; slot < seconds.length; slot++) {
+                if (seconds[slot] == 0) {
+                    continue;
+                }
+                timestamps[count] = blockStart + slot * resolutionMs;
+                for (int c = 0; c < COLUMNS; c++) {
+                    values[c][count] = sums[c][slot] / seconds[slot];
+                }
+                count++;
+            }
+            append(tier, app, resource, timestamps, values, count);
+        }
+    }
+}
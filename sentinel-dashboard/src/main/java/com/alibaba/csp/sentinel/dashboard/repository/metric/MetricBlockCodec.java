@@ -0,0 +1,232 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>Compresses a block of metric points as the Gorilla paper (Facebook, VLDB 2015) does. Timestamps are
+ * encoded as delta-of-delta, which costs a single bit for points at a regular interval, and each column
+ * of values is encoded as the XOR with the previous value, which costs a single bit for unchanged values
+ * and only the meaningful bits otherwise.</p>
+ *
+ * <p>Points are interleaved, i.e. the timestamp and all columns of a point are followed by the next point.</p>
+ *
+ * @since 1.8.9
+ */
+final class MetricBlockCodec {
+
+    /**
+     * Encode the points into bytes.
+     *
+     * @param timestamps timestamps of the points in ascending order
+     * @param values     values of the points, indexed by column then point
+     * @param count      number of points
+     */
+    static byte[] encode(long[] timestamps, double[][] values, int count) {
+        BitWriter writer = new BitWriter(count * (values.length + 1) + 16);
+        long prevTimestamp = 0;
+        long prevDelta = 0;
+        long[] prevValues = new long[values.length];
+        int[] prevLeading = new int[values.length];
+        int[] prevTrailing = new int[values.length];
+        Arrays.fill(prevLeading, -1);
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                writer.writeBits(timestamps[0], 64);
+            } else {
+                long delta = timestamps[i] - prevTimestamp;
+                writeDeltaOfDelta(writer, delta - prevDelta);
+                prevDelta = delta;
+            }
+            prevTimestamp = timestamps[i];
+            for (int c = 0; c < values.length; c++) {
+                long bits = Double.doubleToRawLongBits(values[c][i]);
+                if (i == 0) {
+                    writer.writeBits(bits, 64);
+                    prevValues[c] = bits;
+                    continue;
+                }
+                long xor = bits ^ prevValues[c];
+                prevValues[c] = bits;
+                if (xor == 0) {
+                    writer.writeBit(false);
+                    continue;
+                }
+                writer.writeBit(true);
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading[c] >= 0 && leading >= prevLeading[c] && trailing >= prevTrailing[c]) {
+                    // The meaningful bits fall in the window of the previous value.
+                    writer.writeBit(false);
+                    writer.writeBits(xor >>> prevTrailing[c], 64 - prevLeading[c] - prevTrailing[c]);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    writer.writeBit(true);
+                    writer.writeBits(leading, 5);
+                    writer.writeBits(meaningful - 1, 6);
+                    writer.writeBits(xor >>> trailing, meaningful);
+                    prevLeading[c] = leading;
+                    prevTrailing[c] = trailing;
+                }
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode the points encoded by {@link #encode(long[], double[][], int)} from the current position of
+     * the buffer.
+     */
+    static void decode(ByteBuffer buffer, int count, long[] timestamps, double[][] values) {
+        BitReader reader = new BitReader(buffer);
+        long prevDelta = 0;
+        long[] prevValues = new long[values.length];
+        int[] prevLeading = new int[values.length];
+        int[] prevTrailing = new int[values.length];
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamps[0] = reader.readBits(64);
+            } else {
+                prevDelta += readDeltaOfDelta(reader);
+                timestamps[i] = timestamps[i - 1] + prevDelta;
+            }
+            for (int c = 0; c < values.length; c++) {
+                if (i == 0) {
+                    prevValues[c] = reader.readBits(64);
+                } else if (reader.readBit()) {
+                    if (reader.readBit()) {
+                        prevLeading[c] = (int)reader.readBits(5);
+                        int meaningful = (int)reader.readBits(6) + 1;
+                        prevTrailing[c] = 64 - prevLeading[c] - meaningful;
+                    }
+                    int meaningful = 64 - prevLeading[c] - prevTrailing[c];
+                    prevValues[c] ^= reader.readBits(meaningful) << prevTrailing[c];
+                }
+                values[c][i] = Double.longBitsToDouble(prevValues[c]);
+            }
+        }
+    }
+
+    private static void writeDeltaOfDelta(BitWriter writer, long dod) {
+        if (dod == 0) {
+            writer.writeBit(false);
+        } else if (dod >= -64 && dod <= 63) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(dod, 7);
+        } else if (dod >= -256 && dod <= 255) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(dod, 9);
+        } else if (dod >= -2048 && dod <= 2047) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(dod, 12);
+        } else {
+            writer.writeBits(0b1111, 4);
+            writer.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader reader) {
+        if (!reader.readBit()) {
+            return 0;
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(7), 7);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(9), 9);
+        }
+        if (!reader.readBit()) {
+            return signExtend(reader.readBits(12), 12);
+        }
+        return reader.readBits(64);
+    }
+
+    private static long signExtend(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    private static final class BitWriter {
+        private byte[] bytes;
+        private int bitPosition;
+
+        private BitWriter(int initialBytes) {
+            this.bytes = new byte[initialBytes];
+        }
+
+        private void writeBit(boolean bit) {
+            ensureCapacity(1);
+            if (bit) {
+                bytes[bitPosition >>> 3] |= (byte)(0x80 >>> (bitPosition & 7));
+            }
+            bitPosition++;
+        }
+
+        /**
+         * Write the lowest {@code count} bits of the value, from the highest bit to the lowest.
+         */
+        private void writeBits(long value, int count) {
+            ensureCapacity(count);
+            for (int i = count - 1; i >= 0; i--) {
+                if (((value >>> i) & 1) != 0) {
+                    bytes[bitPosition >>> 3] |= (byte)(0x80 >>> (bitPosition & 7));
+                }
+                bitPosition++;
+            }
+        }
+
+        private void ensureCapacity(int bits) {
+            int required = (bitPosition + bits + 7) >>> 3;
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (bitPosition + 7) >>> 3);
+        }
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private int current;
+        private int remaining = 0;
+
+        private BitReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private boolean readBit() {
+            if (remaining == 0) {
+                current = buffer.get() & 0xFF;
+                remaining = 8;
+            }
+            remaining--;
+            return ((current >>> remaining) & 1) != 0;
+        }
+
+        private long readBits(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 1) | (readBit() ? 1 : 0);
+            }
+            return value;
+        }
+    }
+
+    private MetricBlockCodec() {}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>A tier of metric points at the same resolution, which are kept in append-only segment files. Each
+ * segment covers a fixed period and holds blocks of points (compressed by {@link MetricBlockCodec}) whose
+ * first point falls in the period. Segments out of the retention are deleted as a whole.</p>
+ *
+ * <p>A block is stored as a record of:</p>
+ * <pre>
+ * int length (of the rest of the record)
+ * short app length, app (UTF-8)
+ * short resource length, resource (UTF-8)
+ * long first timestamp, long last timestamp
+ * int count of points
+ * compressed points
+ * </pre>
+ *
+ * <p>Segments are read through memory mapping, and the offsets of the records of each resource are indexed
+ * when the segment is read or written for the first time. A partially written record at the end of a segment
+ * (e.g. the dashboard crashed) is discarded.</p>
+ *
+ * @since 1.8.9
+ */
+final class MetricSegmentTier {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final File dir;
+    private final long resolutionMs;
+    private final long segmentMs;
+    private final long retentionMs;
+    private final int columns;
+
+    /**
+     * {@code segment start time -> segment}
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    MetricSegmentTier(File dir, long resolutionMs, long segmentMs, long retentionMs, int columns)
+        throws IOException {
+        this.dir = dir;
+        this.resolutionMs = resolutionMs;
+        this.segmentMs = segmentMs;
+        this.retentionMs = retentionMs;
+        this.columns = columns;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create metric directory: " + dir);
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            try {
+                long start = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(start, new Segment(file));
+            } catch (NumberFormatException ex) {
+                // Not a segment.
+            }
+        }
+    }
+
+    long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    long getRetentionMs() {
+        return retentionMs;
+    }
+
+    /**
+     * Append a block of points of the resource.
+     *
+     * @param timestamps timestamps of the points in ascending order
+     * @param values     values of the points, indexed by column then point
+     * @param count      number of points
+     */
+    void append(String app, String resource, long[] timestamps, double[][] values, int count)
+        throws IOException {
+        if (count <= 0) {
+            return;
+        }
+        byte[] appBytes = app.getBytes(StandardCharsets.UTF_8);
+        byte[] resourceBytes = resource.getBytes(StandardCharsets.UTF_8);
+        if (appBytes.length > 0xFFFF || resourceBytes.length > 0xFFFF) {
+            return;
+        }
+        byte[] points = MetricBlockCodec.encode(timestamps, values, count);
+        ByteBuffer record = ByteBuffer.allocate(4 + 2 + appBytes.length + 2 + resourceBytes.length + 8 + 8 + 4
+            + points.length);
+        record.putInt(record.capacity() - 4);
+        record.putShort((short)appBytes.length).put(appBytes);
+        record.putShort((short)resourceBytes.length).put(resourceBytes);
+        record.putLong(timestamps[0]).putLong(timestamps[count - 1]).putInt(count);
+        record.put(points);
+        record.flip();
+
+        long start = timestamps[0] - Math.floorMod(timestamps[0], segmentMs);
+        Segment segment;
+        synchronized (segments) {
+            segment = segments.get(start);
+            if (segment == null) {
+                segment = new Segment(new File(dir, start + SEGMENT_SUFFIX));
+                segments.put(start, segment);
+            }
+        }
+        segment.append(app, resource, record);
+    }
+
+    /**
+     * Read the points of the resource between [startTime, endTime] in the order of appending.
+     */
+    void scan(String app, String resource, long startTime, long endTime, PointConsumer consumer)
+        throws IOException {
+        List<Segment> candidates;
+        synchronized (segments) {
+            candidates = new ArrayList<>(segments.subMap(startTime - segmentMs, false, endTime, true).values());
+        }
+        long[] timestamps = new long[0];
+        double[][] values = new double[columns][0];
+        double[] point = new double[columns];
+        for (Segment segment : candidates) {
+            List<Long> offsets = segment.offsetsOf(app, resource);
+            if (offsets.isEmpty()) {
+                continue;
+            }
+            ByteBuffer buffer = segment.view();
+            for (long offset : offsets) {
+                buffer.position((int)offset + 4);
+                // Skip the app and resource.
+                int appLength = buffer.getShort() & 0xFFFF;
+                buffer.position(buffer.position() + appLength);
+                int resourceLength = buffer.getShort() & 0xFFFF;
+                buffer.position(buffer.position() + resourceLength);
+                long first = buffer.getLong();
+                long last = buffer.getLong();
+                int count = buffer.getInt();
+                if (last < startTime || first > endTime) {
+                    continue;
+                }
+                if (timestamps.length < count) {
+                    timestamps = new long[count];
+                    values = new double[columns][count];
+                }
+                MetricBlockCodec.decode(buffer, count, timestamps, values);
+                for (int i = 0; i < count; i++) {
+                    if (timestamps[i] < startTime || timestamps[i] > endTime) {
+                        continue;
+                    }
+                    for (int c = 0; c < columns; c++) {
+                        point[c] = values[c][i];
+                    }
+                    consumer.accept(timestamps[i], point);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the segments which are out of the retention.
+     */
+    void purge(long now) {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (segments) {
+            for (Iterator<Map.Entry<Long, Segment>> it = segments.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Segment> entry = it.next();
+                if (entry.getKey() + segmentMs > now - retentionMs) {
+                    break;
+                }
+                expired.add(entry.getValue());
+                it.remove();
+            }
+        }
+        for (Segment segment : expired) {
+            segment.delete();
+        }
+    }
+
+    void close() {
+        synchronized (segments) {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        }
+    }
+
+    interface PointConsumer {
+        /**
+         * @param timestamp timestamp of the point
+         * @param values    values of the point by column, which are reused for the next point
+         */
+        void accept(long timestamp, double[] values);
+    }
+
+    private static final class Segment {
+        private final File file;
+
+        /**
+         * {@code app -> resource -> offsets of records}
+         */
+        private Map<String, Map<String, List<Long>>> index;
+        private long size;
+        private FileChannel appendChannel;
+        private MappedByteBuffer mapped;
+
+        private Segment(File file) {
+            this.file = file;
+        }
+
+        private synchronized void append(String app, String resource, ByteBuffer record) throws IOException {
+            ensureIndexed();
+            if (appendChannel == null) {
+                appendChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                // Discard the partially written record if any.
+                appendChannel.truncate(size);
+            }
+            long offset = size;
+            while (record.hasRemaining()) {
+                size += appendChannel.write(record, size);
+            }
+            index.computeIfAbsent(app, k -> new HashMap<>())
+                .computeIfAbsent(resource, k -> new ArrayList<>()).add(offset);
+        }
+
+        private synchronized List<Long> offsetsOf(String app, String resource) throws IOException {
+            ensureIndexed();
+            Map<String, List<Long>> resources = index.get(app);
+            if (resources == null || !resources.containsKey(resource)) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<>(resources.get(resource));
+        }
+
+        /**
+         * Get a view of the indexed records, which is mapped again once more records are appended.
+         */
+        private synchronized ByteBuffer view() throws IOException {
+            ensureIndexed();
+            if (mapped == null || mapped.capacity() != size) {
+                mapped = map(size);
+            }
+            return mapped.duplicate();
+        }
+
+        private void ensureIndexed() throws IOException {
+            if (index != null) {
+                return;
+            }
+            index = new HashMap<>();
+            size = 0;
+            if (!file.exists()) {
+                return;
+            }
+            ByteBuffer buffer = map(file.length());
+            while (buffer.remaining() >= 4) {
+                long offset = buffer.position();
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] app = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(app);
+                byte[] resource = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(resource);
+                index.computeIfAbsent(new String(app, StandardCharsets.UTF_8), k -> new HashMap<>())
+                    .computeIfAbsent(new String(resource, StandardCharsets.UTF_8), k -> new ArrayList<>())
+                    .add(offset);
+                buffer.position((int)offset + 4 + length);
+                size = buffer.position();
+            }
+        }
+
+        private MappedByteBuffer map(long length) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+        }
+
+        private synchronized void close() {
+            if (appendChannel != null) {
+                try {
+                    appendChannel.close();
+                } catch (IOException ex) {
+                    // Ignore.
+                }
+                appendChannel = null;
+            }
+        }
+
+        private synchronized void delete() {
+            close();
+            mapped = null;
+            index = null;
+            if (file.exists()) {
+                file.delete();
+            }
+        }
+    }
+}
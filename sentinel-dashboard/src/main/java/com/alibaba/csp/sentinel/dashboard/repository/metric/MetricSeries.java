@@ -0,0 +1,319 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+/**
+ * <p>Metrics of a resource in primitive columns, which are partitioned into chunks of
+ * {@link #CHUNK_SECONDS} seconds and indexed by second in a ring. Chunks are allocated once the resource
+ * has metrics of the period, and released once the period is expired.</p>
+ *
+ * <p>Sums of the recent metrics are maintained on writing, so that resources could be ranked without
+ * scanning their metrics.</p>
+ *
+ * @since 1.8.9
+ */
+final class MetricSeries {
+
+    static final int CHUNK_SECONDS = 10;
+
+    private static final int TIMESTAMP = 0;
+    private static final int PASS_QPS = 1;
+    private static final int SUCCESS_QPS = 2;
+    private static final int BLOCK_QPS = 3;
+    private static final int EXCEPTION_QPS = 4;
+    private static final int RT = 5;
+    private static final int COUNT = 6;
+    private static final int GMT_CREATE = 7;
+    private static final int GMT_MODIFIED = 8;
+    private static final int STRIDE = 9;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final String app;
+    private final String resource;
+    private final long[][] chunks;
+    private final long[] chunkStarts;
+
+    private boolean removed = false;
+
+    /**
+     * Sums of the metrics since {@link #rankSince} (in second), which are used to rank resources.
+     */
+    private long rankSince;
+    private long rankBlockQps;
+    private long rankPassQps;
+    private int rankSlots;
+
+    /**
+     * @param retentionSeconds how many seconds of metrics are kept
+     * @param rankSince        the second since which metrics are summed for ranking
+     */
+    MetricSeries(String app, String resource, int retentionSeconds, long rankSince) {
+        this.app = app;
+        this.resource = resource;
+        // One more chunk so that the partially expired chunk is not overridden by the latest one.
+        int chunkCount = (retentionSeconds + CHUNK_SECONDS - 1) / CHUNK_SECONDS + 1;
+        this.chunks = new long[chunkCount][];
+        this.chunkStarts = new long[chunkCount];
+        this.rankSince = rankSince;
+    }
+
+    /**
+     * Write the metric of a second, which overrides the existing metric of the same second.
+     *
+     * @param minSecond metrics earlier than the second are expired and dropped
+     * @return false if the series has been removed and the metric should be written to a new series
+     */
+    boolean write(MetricEntity entity, long minSecond) {
+        long timestamp = entity.getTimestamp().getTime();
+        long second = timestamp / 1000;
+        long stamp = lock.writeLock();
+        try {
+            if (removed) {
+                return false;
+            }
+            if (second < minSecond) {
+                return true;
+            }
+            int index = chunkIndex(second);
+            long start = second - second % CHUNK_SECONDS;
+            long[] chunk = chunks[index];
+            if (chunk == null || chunkStarts[index] != start) {
+                if (chunk != null && chunkStarts[index] > start) {
+                    // Occupied by later metrics.
+                    return true;
+                }
+                if (chunk == null) {
+                    chunk = new long[CHUNK_SECONDS * STRIDE];
+                } else {
+                    unrank(chunk, chunkStarts[index]);
+                    Arrays.fill(chunk, 0);
+                }
+                chunks[index] = chunk;
+                chunkStarts[index] = start;
+            }
+            int offset = (int)(second - start) * STRIDE;
+            boolean ranked = second >= rankSince;
+            if (ranked && chunk[offset + TIMESTAMP] != 0) {
+                rankBlockQps -= chunk[offset + BLOCK_QPS];
+                rankPassQps -= chunk[offset + PASS_QPS];
+                rankSlots--;
+            }
+            chunk[offset + TIMESTAMP] = timestamp;
+            chunk[offset + PASS_QPS] = valueOf(entity.getPassQps());
+            chunk[offset + SUCCESS_QPS] = valueOf(entity.getSuccessQps());
+            chunk[offset + BLOCK_QPS] = valueOf(entity.getBlockQps());
+            chunk[offset + EXCEPTION_QPS] = valueOf(entity.getExceptionQps());
+            chunk[offset + RT] = Double.doubleToRawLongBits(entity.getRt());
+            chunk[offset + COUNT] = entity.getCount();
+            chunk[offset + GMT_CREATE] = entity.getGmtCreate() == null ? 0 : entity.getGmtCreate().getTime();
+            chunk[offset + GMT_MODIFIED] = entity.getGmtModified() == null ? 0 : entity.getGmtModified().getTime();
+            if (ranked) {
+                rankBlockQps += chunk[offset + BLOCK_QPS];
+                rankPassQps += chunk[offset + PASS_QPS];
+                rankSlots++;
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Add metrics between [startTime, endTime] (both side inclusive) and not earlier than {@code minSecond}
+     * to the result. The metrics are read optimistically without locking first.
+     */
+    void query(long startTime, long endTime, long minSecond, List<MetricEntity> results) {
+        int size = results.size();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            read(startTime, endTime, minSecond, results);
+            if (lock.validate(stamp)) {
+                return;
+            }
+            results.subList(size, results.size()).clear();
+        }
+        stamp = lock.readLock();
+        try {
+            read(startTime, endTime, minSecond, results);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get the sums of the metrics since {@code minSecond}, which is not earlier than the last call.
+     *
+     * @param sums block QPS and pass QPS
+     * @return false if there are no metrics since the second
+     */
+    boolean rank(long minSecond, long[] sums) {
+        long stamp = lock.writeLock();
+        try {
+            advanceRank(minSecond);
+            sums[0] = rankBlockQps;
+            sums[1] = rankPassQps;
+            return rankSlots > 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Release the chunks which are expired entirely, and mark the series removed if nothing left.
+     *
+     * @return true if the series has been removed
+     */
+    boolean expire(long minSecond) {
+        long stamp = lock.writeLock();
+        try {
+            boolean empty = true;
+            for (int i = 0; i < chunks.length; i++) {
+                if (chunks[i] == null) {
+                    continue;
+                }
+                if (chunkStarts[i] + CHUNK_SECONDS <= minSecond) {
+                    unrank(chunks[i], chunkStarts[i]);
+                    chunks[i] = null;
+                } else {
+                    empty = false;
+                }
+            }
+            removed = empty;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    String getResource() {
+        return resource;
+    }
+
+    private void read(long startTime, long endTime, long minSecond, List<MetricEntity> results) {
+        long maxSeconds = (long)chunks.length * CHUNK_SECONDS;
+        long end = endTime / 1000;
+        long begin = Math.max(Math.max(startTime / 1000, minSecond), end - maxSeconds + 1);
+        for (long second = begin; second <= end; second++) {
+            int index = chunkIndex(second);
+            long[] chunk = chunks[index];
+            long start = second - second % CHUNK_SECONDS;
+            if (chunk == null || chunkStarts[index] != start) {
+                // Skip to the next chunk.
+                second = start + CHUNK_SECONDS - 1;
+                continue;
+            }
+            int offset = (int)(second - start) * STRIDE;
+            long timestamp = chunk[offset + TIMESTAMP];
+            if (timestamp == 0 || timestamp < startTime || timestamp > endTime) {
+                continue;
+            }
+            results.add(toEntity(chunk, offset));
+        }
+    }
+
+    private MetricEntity toEntity(long[] chunk, int offset) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(app);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(chunk[offset + TIMESTAMP]));
+        entity.setPassQps(chunk[offset + PASS_QPS]);
+        entity.setSuccessQps(chunk[offset + SUCCESS_QPS]);
+        entity.setBlockQps(chunk[offset + BLOCK_QPS]);
+        entity.setExceptionQps(chunk[offset + EXCEPTION_QPS]);
+        entity.setRt(Double.longBitsToDouble(chunk[offset + RT]));
+        entity.setCount((int)chunk[offset + COUNT]);
+        if (chunk[offset + GMT_CREATE] != 0) {
+            entity.setGmtCreate(new Date(chunk[offset + GMT_CREATE]));
+        }
+        if (chunk[offset + GMT_MODIFIED] != 0) {
+            entity.setGmtModified(new Date(chunk[offset + GMT_MODIFIED]));
+        }
+        return entity;
+    }
+
+    private void advanceRank(long minSecond) {
+        if (minSecond <= rankSince) {
+            return;
+        }
+        if (minSecond - rankSince >= (long)chunks.length * CHUNK_SECONDS) {
+            // Nothing ranked is still kept, so sum up from scratch.
+            rankSince = minSecond;
+            rankBlockQps = 0;
+            rankPassQps = 0;
+            rankSlots = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                long[] chunk = chunks[i];
+                if (chunk == null) {
+                    continue;
+                }
+                for (int j = 0; j < CHUNK_SECONDS; j++) {
+                    int offset = j * STRIDE;
+                    if (chunk[offset + TIMESTAMP] != 0 && chunkStarts[i] + j >= minSecond) {
+                        rankBlockQps += chunk[offset + BLOCK_QPS];
+                        rankPassQps += chunk[offset + PASS_QPS];
+                        rankSlots++;
+                    }
+                }
+            }
+            return;
+        }
+        for (long second = rankSince; second < minSecond; second++) {
+            int index = chunkIndex(second);
+            long[] chunk = chunks[index];
+            long start = second - second % CHUNK_SECONDS;
+            if (chunk == null || chunkStarts[index] != start) {
+                continue;
+            }
+            int offset = (int)(second - start) * STRIDE;
+            if (chunk[offset + TIMESTAMP] != 0) {
+                rankBlockQps -= chunk[offset + BLOCK_QPS];
+                rankPassQps -= chunk[offset + PASS_QPS];
+                rankSlots--;
+            }
+        }
+        rankSince = minSecond;
+    }
+
+    /**
+     * Remove the metrics of the chunk from the ranking sums, as the chunk is going to be dropped.
+     */
+    private void unrank(long[] chunk, long start) {
+        for (int j = 0; j < CHUNK_SECONDS; j++) {
+            int offset = j * STRIDE;
+            if (chunk[offset + TIMESTAMP] != 0 && start + j >= rankSince) {
+                rankBlockQps -= chunk[offset + BLOCK_QPS];
+                rankPassQps -= chunk[offset + PASS_QPS];
+                rankSlots--;
+            }
+        }
+    }
+
+    private int chunkIndex(long second) {
+        return (int)((second / CHUNK_SECONDS) % chunks.length);
+    }
+
+    private static long valueOf(Long value) {
+        return value == null ? 0 : value;
+    }
+}
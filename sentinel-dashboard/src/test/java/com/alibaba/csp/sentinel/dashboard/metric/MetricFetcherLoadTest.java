@@ -0,0 +1,199 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.alibaba.csp.sentinel.command.handler.SendMetricCommandHandler;
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.discovery.AppInfo;
+import com.alibaba.csp.sentinel.dashboard.discovery.AppManagement;
+import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricRingBuffer;
+import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
+import com.alibaba.csp.sentinel.node.metric.TieredMetricSearcher;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+import com.alibaba.csp.sentinel.transport.command.http.NioHttpCommandServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fetch metrics from a simulated fleet of local command centers in each format, and check that the
+ * aggregated metrics are the same.
+ */
+public class MetricFetcherLoadTest {
+
+    private static final String APP = "load-test-app";
+    private static final int MACHINES = 20;
+    private static final int RESOURCES = 200;
+    private static final int SECONDS = 6;
+    private static final int ROUNDS = 5;
+    private static final long START_TIME = 1700000000000L;
+
+    private final List<NioHttpCommandServer> servers = new ArrayList<>();
+    private final List<Thread> serverThreads = new ArrayList<>();
+    private final List<MetricEntity> saved = new ArrayList<>();
+    private ExecutorService commandExecutor;
+    private MetricFetcher fetcher;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        MetricRingBuffer ringBuffer = new MetricRingBuffer(10);
+        for (int second = 0; second < SECONDS; second++) {
+            List<MetricNode> nodes = new ArrayList<>();
+            for (int r = 0; r < RESOURCES; r++) {
+                MetricNode node = new MetricNode();
+                node.setResource("res-" + r);
+                node.setPassQps(r + second);
+                node.setBlockQps(second);
+                node.setSuccessQps(r);
+                node.setExceptionQps(1);
+                node.setRt(second + 1);
+                nodes.add(node);
+            }
+            ringBuffer.write(START_TIME + second * 1000, nodes);
+        }
+        // All command centers share the registered handlers.
+        SimpleHttpCommandCenter.registerCommand("metric",
+            new SendMetricCommandHandler(new TieredMetricSearcher(ringBuffer, (MetricSearcher) null)));
+
+        commandExecutor = Executors.newFixedThreadPool(4);
+        AppInfo appInfo = new AppInfo(APP);
+        for (int i = 0; i < MACHINES; i++) {
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+            NioHttpCommandServer server = new NioHttpCommandServer(channel, commandExecutor);
+            Thread thread = new Thread(server);
+            thread.start();
+            servers.add(server);
+            serverThreads.add(thread);
+
+            MachineInfo machine = MachineInfo.of(APP, "127.0.0.1", server.getLocalPort());
+            machine.setLastHeartbeat(System.currentTimeMillis());
+            appInfo.addMachine(machine);
+        }
+
+        AppManagement appManagement = mock(AppManagement.class);
+        when(appManagement.getDetailApp(APP)).thenReturn(appInfo);
+        MetricsRepository<MetricEntity> metricStore = mock(MetricsRepository.class);
+        doAnswer(invocation -> {
+            synchronized (saved) {
+                saved.addAll((Collection<MetricEntity>) invocation.getArgument(0));
+            }
+            return null;
+        }).when(metricStore).saveAll(any());
+
+        fetcher = new MetricFetcher();
+        ReflectionTestUtils.setField(fetcher, "appManagement", appManagement);
+        ReflectionTestUtils.setField(fetcher, "metricStore", metricStore);
+        ReflectionTestUtils.setField(fetcher, "ingestPipeline", mock(MetricIngestPipeline.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (NioHttpCommandServer server : servers) {
+            server.stop();
+        }
+        for (Thread thread : serverThreads) {
+            thread.join(5000);
+        }
+        commandExecutor.shutdownNow();
+        System.clearProperty(DashboardConfig.CONFIG_METRIC_FETCH_FORMAT);
+        System.clearProperty(DashboardConfig.CONFIG_METRIC_FETCH_COMPRESS);
+        DashboardConfig.clearCache();
+    }
+
+    @Test
+    public void testFetchInEachFormat() {
+        Map<String, MetricEntity> text = fetchAll("text", "none");
+        assertEquals(RESOURCES * SECONDS, text.size());
+        for (int second = 0; second < SECONDS; second++) {
+            for (int r = 0; r < RESOURCES; r++) {
+                MetricEntity entity = text.get("res-" + r + "__" + second);
+                assertEquals(MACHINES, entity.getCount());
+                assertEquals(MACHINES * (r + second), entity.getPassQps().longValue());
+                assertEquals(MACHINES * second, entity.getBlockQps().longValue());
+                assertEquals(MACHINES * r, entity.getSuccessQps().longValue());
+                assertEquals(MACHINES, entity.getExceptionQps().longValue());
+                assertEquals(MACHINES * r * (second + 1), entity.getRt(), 0.001);
+            }
+        }
+
+        assertSameMetrics(text, fetchAll("binary", "none"));
+        assertSameMetrics(text, fetchAll("binary", "gzip"));
+        assertSameMetrics(text, fetchAll("text", "gzip"));
+    }
+
+    private Map<String, MetricEntity> fetchAll(String format, String compress) {
+        System.setProperty(DashboardConfig.CONFIG_METRIC_FETCH_FORMAT, format);
+        System.setProperty(DashboardConfig.CONFIG_METRIC_FETCH_COMPRESS, compress);
+        DashboardConfig.clearCache();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            synchronized (saved) {
+                saved.clear();
+            }
+            fetcher.fetchOnce(APP, START_TIME, START_TIME + SECONDS * 1000, 10);
+        }
+        long costMs = (System.nanoTime() - start) / 1000000;
+        System.out.println("Fetched metrics of " + MACHINES + " machines in " + format + "/" + compress
+            + " format: " + costMs / ROUNDS + " ms per round");
+
+        Map<String, MetricEntity> result = new HashMap<>();
+        synchronized (saved) {
+            for (MetricEntity entity : saved) {
+                long second = (entity.getTimestamp().getTime() - START_TIME) / 1000;
+                result.put(entity.getResource() + "__" + second, entity);
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameMetrics(Map<String, MetricEntity> expected, Map<String, MetricEntity> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Map.Entry<String, MetricEntity> e : expected.entrySet()) {
+            MetricEntity entity = actual.get(e.getKey());
+            assertEquals(e.getValue().getCount(), entity.getCount());
+            assertEquals(e.getValue().getPassQps(), entity.getPassQps());
+            assertEquals(e.getValue().getBlockQps(), entity.getBlockQps());
+            assertEquals(e.getValue().getSuccessQps(), entity.getSuccessQps());
+            assertEquals(e.getValue().getExceptionQps(), entity.getExceptionQps());
+            assertEquals(e.getValue().getRt(), entity.getRt(), 0.001);
+        }
+    }
+}
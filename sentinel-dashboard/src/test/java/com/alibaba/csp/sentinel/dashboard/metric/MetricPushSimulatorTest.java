@@ -0,0 +1,296 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.metric;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.alibaba.csp.sentinel.dashboard.config.DashboardConfig;
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+import com.alibaba.csp.sentinel.dashboard.discovery.MachineInfo;
+import com.alibaba.csp.sentinel.dashboard.repository.metric.MetricsRepository;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricRingBuffer;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+import com.alibaba.csp.sentinel.transport.endpoint.Endpoint;
+import com.alibaba.csp.sentinel.transport.endpoint.Protocol;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryEncoder;
+import com.alibaba.csp.sentinel.transport.metric.MetricPushSender;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Push metrics from a simulated fleet of clients to the ingest pipeline, which is served by a local HTTP
+ * server, and measure the ingest throughput.
+ */
+public class MetricPushSimulatorTest {
+
+    private static final String APP = "push-test-app";
+    private static final int CLIENTS = 20;
+    private static final int RESOURCES = 200;
+    private static final int SECONDS = 30;
+    private static final int CLIENT_PORT_BASE = 10000;
+
+    /**
+     * Small enough that some pushes are likely to be rejected and retried.
+     */
+    private static final int QUEUE_SIZE = 16;
+
+    private final Map<String, MetricEntity> saved = new HashMap<>();
+    private MetricIngestPipeline pipeline;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService clientExecutor;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        MetricsRepository<MetricEntity> metricStore = mock(MetricsRepository.class);
+        doAnswer(invocation -> {
+            synchronized (saved) {
+                for (MetricEntity entity : (Iterable<MetricEntity>) invocation.getArgument(0)) {
+                    saved.put(entity.getResource() + "__" + entity.getTimestamp().getTime(), entity);
+                }
+            }
+            return null;
+        }).when(metricStore).saveAll(any());
+        pipeline = new MetricIngestPipeline(QUEUE_SIZE);
+        ReflectionTestUtils.setField(pipeline, "metricStore", metricStore);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.createContext(TransportConfig.METRIC_PUSH_DEFAULT_PATH, exchange -> {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int status;
+            try {
+                boolean accepted = pipeline.ingest(params.get("app"), params.get("ip"),
+                    Integer.parseInt(params.get("port")), exchange.getRequestBody());
+                status = accepted ? MetricPushSender.HTTP_OK : MetricPushSender.HTTP_SERVICE_UNAVAILABLE;
+            } catch (IOException e) {
+                status = 400;
+            }
+            byte[] body = "ok".getBytes("UTF-8");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        clientExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        clientExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testPushFromSimulatedClients() throws Exception {
+        List<Endpoint> dashboard = Collections.singletonList(
+            new Endpoint(Protocol.HTTP, "127.0.0.1", server.getAddress().getPort()));
+        List<MetricRingBuffer> rings = new ArrayList<>();
+        List<MetricPushSender> senders = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            MetricRingBuffer ring = new MetricRingBuffer(SECONDS * 2);
+            rings.add(ring);
+            senders.add(new MetricPushSender(ring, dashboard, APP, "127.0.0.1", CLIENT_PORT_BASE + i));
+        }
+
+        // Seconds in the near future, which won't be skipped by the first push.
+        long base = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        long start = System.nanoTime();
+        for (int second = 0; second < SECONDS; second++) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                final MetricRingBuffer ring = rings.get(i);
+                final MetricPushSender sender = senders.get(i);
+                final long time = base + second * 1000;
+                final int s = second;
+                futures.add(clientExecutor.submit(() -> {
+                    ring.write(time, nodesOf(s));
+                    sender.push();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        // Rejected metrics are retried in the following pushes.
+        for (MetricPushSender sender : senders) {
+            int attempts = 0;
+            while (!sender.push() && attempts++ < 500) {
+                Thread.sleep(10);
+            }
+            sender.close();
+        }
+        long total = (long) CLIENTS * SECONDS * RESOURCES;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pipeline.getIngestedRecords() < total && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        long costMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+        System.out.println("Ingested " + pipeline.getIngestedRecords() + " records pushed by " + CLIENTS
+            + " clients in " + costMs + " ms (" + pipeline.getIngestedRecords() * 1000 / costMs
+            + " records/s), rejected batches: " + pipeline.getRejectedBatches());
+        assertEquals(total, pipeline.getIngestedRecords());
+
+        synchronized (saved) {
+            assertEquals(SECONDS * RESOURCES, saved.size());
+            for (int second = 0; second < SECONDS; second++) {
+                for (int r = 0; r < RESOURCES; r++) {
+                    MetricEntity entity = saved.get("res-" + r + "__" + (base + second * 1000));
+                    assertEquals(CLIENTS, entity.getCount());
+                    assertEquals(CLIENTS * (r + second), entity.getPassQps().longValue());
+                    assertEquals(CLIENTS * r, entity.getSuccessQps().longValue());
+                    assertEquals(CLIENTS * r * 2.0, entity.getRt(), 0.001);
+                }
+            }
+        }
+        MachineInfo pushing = MachineInfo.of(APP, "127.0.0.1", CLIENT_PORT_BASE);
+        assertTrue(pipeline.isPushing(pushing));
+        assertTrue(pipeline.hasPushingMachines(APP));
+        assertFalse(pipeline.isPushing(MachineInfo.of(APP, "127.0.0.1", CLIENT_PORT_BASE + CLIENTS)));
+    }
+
+    @Test
+    public void testRetriedPushIngestedOnce() throws Exception {
+        long time = (System.currentTimeMillis() / 1000) * 1000;
+        MetricNode node = new MetricNode();
+        node.setResource("res-retried");
+        node.setTimestamp(time);
+        node.setPassQps(10);
+        node.setBlockQps(3);
+        node.setSuccessQps(10);
+        node.setRt(5);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        MetricBinaryEncoder encoder = new MetricBinaryEncoder(body);
+        encoder.write(node);
+        encoder.finish();
+
+        // The second push from the same machine is a retry, e.g. after the response is lost.
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE, new ByteArrayInputStream(body.toByteArray())));
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE, new ByteArrayInputStream(body.toByteArray())));
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE + 1,
+            new ByteArrayInputStream(body.toByteArray())));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getIngestedRecords() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Wait for the retried push to be drained as well.
+        Thread.sleep(100);
+        assertEquals(2, pipeline.getIngestedRecords());
+        synchronized (saved) {
+            MetricEntity entity = saved.get("res-retried__" + time);
+            assertEquals(2, entity.getCount());
+            assertEquals(20, entity.getPassQps().longValue());
+            assertEquals(6, entity.getBlockQps().longValue());
+        }
+    }
+
+    @Test
+    public void testLatePushMergedWithinWindow() throws Exception {
+        // Re-sent by the machines after an outage of the dashboard longer than a minute.
+        long time = (System.currentTimeMillis() / 1000 - 90) * 1000;
+        byte[] body = encode("res-late", time);
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE, new ByteArrayInputStream(body)));
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE, new ByteArrayInputStream(body)));
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE + 1, new ByteArrayInputStream(body)));
+
+        // Older than the window, which should not override the saved metric.
+        long expiredTime = (System.currentTimeMillis() / 1000 - DashboardConfig.DEFAULT_METRIC_PUSH_WINDOW_SECONDS
+            - 10) * 1000;
+        assertTrue(pipeline.ingest(APP, "127.0.0.1", CLIENT_PORT_BASE,
+            new ByteArrayInputStream(encode("res-late", expiredTime))));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pipeline.getDroppedLateRecords() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pipeline.getDroppedLateRecords());
+        assertEquals(2, pipeline.getIngestedRecords());
+        synchronized (saved) {
+            assertEquals(1, saved.size());
+            MetricEntity entity = saved.get("res-late__" + time);
+            assertEquals(2, entity.getCount());
+            assertEquals(20, entity.getPassQps().longValue());
+            assertEquals(6, entity.getBlockQps().longValue());
+        }
+    }
+
+    private static byte[] encode(String resource, long time) throws IOException {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setTimestamp(time);
+        node.setPassQps(10);
+        node.setBlockQps(3);
+        node.setSuccessQps(10);
+        node.setRt(5);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        MetricBinaryEncoder encoder = new MetricBinaryEncoder(body);
+        encoder.write(node);
+        encoder.finish();
+        return body.toByteArray();
+    }
+
+    private static List<MetricNode> nodesOf(int second) {
+        List<MetricNode> nodes = new ArrayList<>(RESOURCES);
+        for (int r = 0; r < RESOURCES; r++) {
+            MetricNode node = new MetricNode();
+            node.setResource("res-" + r);
+            node.setPassQps(r + second);
+            node.setSuccessQps(r);
+            node.setRt(2);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            params.put(pair.substring(0, index), URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+        }
+        return params;
+    }
+}
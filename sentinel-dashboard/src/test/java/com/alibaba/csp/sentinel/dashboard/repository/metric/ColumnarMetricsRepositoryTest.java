@@ -0,0 +1,150 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link ColumnarMetricsRepository}.
+ */
+public class ColumnarMetricsRepositoryTest {
+
+    private static final String APP = "columnarApp";
+
+    private ColumnarMetricsRepository repository;
+    private long now;
+
+    @Before
+    public void setUp() {
+        repository = new ColumnarMetricsRepository();
+        now = System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    @Test
+    public void testSaveAndQuery() {
+        for (int i = 0; i < 30; i++) {
+            repository.save(metricOf("res", now - i * 1000, i, 0));
+        }
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", now - 9000, now);
+        assertEquals(10, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            MetricEntity entity = results.get(i);
+            assertEquals(now - (9 - i) * 1000, entity.getTimestamp().getTime());
+            assertEquals(9 - i, entity.getPassQps().longValue());
+            assertEquals(APP, entity.getApp());
+            assertEquals("res", entity.getResource());
+            assertEquals(2.5 * (9 - i), entity.getRt(), 0.001);
+            assertEquals(1, entity.getCount());
+        }
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "other", now - 9000, now).isEmpty());
+        assertTrue(repository.queryByAppAndResourceBetween("otherApp", "res", now - 9000, now).isEmpty());
+    }
+
+    @Test
+    public void testOverrideSameSecond() {
+        repository.save(metricOf("res", now, 1, 0));
+        repository.save(metricOf("res", now, 5, 2));
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", now, now);
+        assertEquals(1, results.size());
+        assertEquals(5, results.get(0).getPassQps().longValue());
+        assertEquals(2, results.get(0).getBlockQps().longValue());
+        assertEquals(Arrays.asList("res"), repository.listResourcesOfApp(APP));
+    }
+
+    @Test
+    public void testListResourcesOrderedByBlockAndPass() {
+        repository.save(metricOf("low", now, 1, 0));
+        repository.save(metricOf("blocked", now, 1, 10));
+        repository.save(metricOf("busy", now, 100, 0));
+        repository.save(metricOf("busy", now - 1000, 100, 0));
+        // Metrics out of the last minute are not ranked.
+        repository.save(metricOf("stale", now - 1000 * 90, 1000, 1000));
+
+        assertEquals(Arrays.asList("blocked", "busy", "low"), repository.listResourcesOfApp(APP));
+        assertEquals(1, repository.queryByAppAndResourceBetween(APP, "stale", 0, now).size());
+    }
+
+    @Test
+    public void testExpire() {
+        repository.save(metricOf("old", now - 1000 * 200, 1, 0));
+        repository.save(metricOf("recent", now, 1, 0));
+        // Metrics out of the retention are dropped.
+        repository.save(metricOf("expired", now - 1000 * 600, 1, 0));
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "expired", 0, now).isEmpty());
+
+        repository.expire(now + 1000 * 200);
+        assertTrue(repository.queryByAppAndResourceBetween(APP, "old", 0, now).isEmpty());
+        assertEquals(1, repository.queryByAppAndResourceBetween(APP, "recent", 0, now).size());
+
+        // The removed series is recreated on saving.
+        repository.save(metricOf("old", now, 1, 0));
+        assertEquals(1, repository.queryByAppAndResourceBetween(APP, "old", 0, now).size());
+    }
+
+    @Test
+    public void testConcurrentSaveAndQuery() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 60; i++) {
+                        repository.save(metricOf("res-" + thread, now - i * 1000, i, 0));
+                        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP,
+                            "res-" + thread, now - 1000 * 60, now);
+                        assertEquals(i + 1, results.size());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, repository.listResourcesOfApp(APP).size());
+    }
+
+    private static MetricEntity metricOf(String resource, long timestamp, long passQps, long blockQps) {
+        MetricEntity entity = new MetricEntity();
+        entity.setApp(APP);
+        entity.setResource(resource);
+        entity.setTimestamp(new Date(timestamp));
+        entity.setGmtCreate(new Date());
+        entity.setGmtModified(new Date());
+        entity.setPassQps(passQps);
+        entity.setBlockQps(blockQps);
+        entity.setExceptionQps(0L);
+        entity.setRtAndSuccessQps(2.5, passQps);
+        entity.setCount(1);
+        return entity;
+    }
+}
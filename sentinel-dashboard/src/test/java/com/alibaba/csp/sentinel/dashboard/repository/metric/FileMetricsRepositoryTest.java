@@ -0,0 +1,172 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link FileMetricsRepository}.
+ */
+public class FileMetricsRepositoryTest {
+
+    private static final String APP = "fileApp";
+    private static final long HOUR_MS = 1000 * 60 * 60;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now;
+    /**
+     * Start of the minute 4 minutes ago, so that 3 minutes of metrics could be persisted.
+     */
+    private long start;
+
+    @Before
+    public void setUp() {
+        now = System.currentTimeMillis();
+        start = now - now % 60000 - 4 * 60000;
+    }
+
+    @Test
+    public void testPersistAndReopen() throws Exception {
+        File dir = folder.newFolder();
+        FileMetricsRepository repository = new FileMetricsRepository(dir, HOUR_MS, HOUR_MS, HOUR_MS);
+        repository.saveAll(metricsOf("res", start, 180));
+        repository.flush(start + 3 * 60000 + FileMetricsRepository.FLUSH_DELAY_MS);
+        repository.close();
+        assertTrue(new File(dir, "1s").list().length > 0);
+
+        FileMetricsRepository reopened = new FileMetricsRepository(dir, HOUR_MS, HOUR_MS, HOUR_MS);
+        List<MetricEntity> results = reopened.queryByAppAndResourceBetween(APP, "res", start, start + 180 * 1000);
+        assertEquals(180, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            MetricEntity entity = results.get(i);
+            assertEquals(start + i * 1000, entity.getTimestamp().getTime());
+            assertEquals(i, entity.getPassQps().longValue());
+            assertEquals(i % 5, entity.getBlockQps().longValue());
+            assertEquals(2.0 * i, entity.getRt(), 0.001);
+            assertEquals(2, entity.getCount());
+            assertEquals(entity.getTimestamp(), entity.getGmtCreate());
+        }
+        assertEquals(30, reopened.queryByAppAndResourceBetween(APP, "res", start + 10000, start + 39999).size());
+        assertTrue(reopened.queryByAppAndResourceBetween(APP, "other", start, now).isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    public void testQueryRecentAndPersisted() throws Exception {
+        FileMetricsRepository repository = new FileMetricsRepository(folder.newFolder(), HOUR_MS, HOUR_MS, HOUR_MS);
+        repository.saveAll(metricsOf("res", start, 180));
+        repository.flush(start + 60000 + FileMetricsRepository.FLUSH_DELAY_MS);
+        // Metrics are read from both the files and the recent metrics.
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", start, start + 180 * 1000);
+        assertEquals(180, results.size());
+        assertEquals(179, results.get(179).getPassQps().longValue());
+        repository.close();
+    }
+
+    @Test
+    public void testRollup() throws Exception {
+        File dir = folder.newFolder();
+        // Per-second metrics are only kept for a minute, so that earlier queries read the 10-second tier.
+        FileMetricsRepository repository = new FileMetricsRepository(dir, 60000, HOUR_MS, HOUR_MS);
+        repository.saveAll(metricsOf("res", start, 180));
+        repository.close();
+
+        repository = new FileMetricsRepository(dir, 60000, HOUR_MS, HOUR_MS);
+        List<MetricEntity> results = repository.queryByAppAndResourceBetween(APP, "res", start, start + 180 * 1000);
+        assertEquals(18, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            MetricEntity entity = results.get(i);
+            assertEquals(start + i * 10000, entity.getTimestamp().getTime());
+            // Average of pass QPS of 10 seconds.
+            assertEquals(i * 10 + 5, entity.getPassQps().longValue());
+            assertEquals(2, entity.getCount());
+        }
+        repository.close();
+
+        // Only the 1-minute tier is kept.
+        repository = new FileMetricsRepository(dir, 60000, 60000, HOUR_MS);
+        results = repository.queryByAppAndResourceBetween(APP, "res", start, start + 180 * 1000);
+        assertEquals(3, results.size());
+        assertEquals(30, results.get(0).getPassQps().longValue());
+        assertEquals(2.0 * 89.5, results.get(1).getRt(), 0.001);
+        repository.close();
+    }
+
+    @Test
+    public void testPurgeAndTruncatedSegment() throws Exception {
+        File dir = folder.newFolder();
+        FileMetricsRepository repository = new FileMetricsRepository(dir, HOUR_MS, HOUR_MS, HOUR_MS);
+        repository.saveAll(metricsOf("res", start, 120));
+        repository.close();
+
+        // Simulate a partially written record of the second minute, which is the last one of the latest segment.
+        File[] segments = new File(dir, "1s").listFiles();
+        Arrays.sort(segments);
+        try (RandomAccessFile file = new RandomAccessFile(segments[segments.length - 1], "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        repository = new FileMetricsRepository(dir, HOUR_MS, HOUR_MS, HOUR_MS);
+        assertEquals(60, repository.queryByAppAndResourceBetween(APP, "res", start, now).size());
+        // The partially written record is overridden.
+        repository.saveAll(metricsOf("res", start + 60000, 60));
+        repository.close();
+        repository = new FileMetricsRepository(dir, HOUR_MS, HOUR_MS, HOUR_MS);
+        assertEquals(120, repository.queryByAppAndResourceBetween(APP, "res", start, now).size());
+
+        // All files are out of the retention.
+        repository.flush(now + 24 * 9 * HOUR_MS);
+        assertEquals(0, new File(dir, "1s").list().length);
+        assertEquals(0, new File(dir, "10s").list().length);
+        assertEquals(0, new File(dir, "1m").list().length);
+        repository.close();
+    }
+
+    private static List<MetricEntity> metricsOf(String resource, long start, int seconds) {
+        List<MetricEntity> metrics = new ArrayList<>();
+        for (int i = 0; i < seconds; i++) {
+            MetricEntity entity = new MetricEntity();
+            entity.setApp(APP);
+            entity.setResource(resource);
+            entity.setTimestamp(new Date(start + i * 1000));
+            entity.setGmtCreate(new Date());
+            entity.setGmtModified(new Date());
+            entity.setPassQps((long)i);
+            entity.setBlockQps((long)(i % 5));
+            entity.setExceptionQps(0L);
+            entity.setRtAndSuccessQps(2, (long)i);
+            entity.setCount(2);
+            metrics.add(entity);
+        }
+        return metrics;
+    }
+}
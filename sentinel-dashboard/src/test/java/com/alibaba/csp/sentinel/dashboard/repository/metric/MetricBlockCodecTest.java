@@ -0,0 +1,82 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link MetricBlockCodec}.
+ */
+public class MetricBlockCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(17);
+        int count = 60;
+        long[] timestamps = new long[count];
+        double[][] values = new double[4][count];
+        long time = 1700000000000L;
+        for (int i = 0; i < count; i++) {
+            // Mostly regular, with gaps and jitters.
+            time += i % 10 == 0 ? 1000 * (1 + random.nextInt(5000)) : 1000 + random.nextInt(3) - 1;
+            timestamps[i] = time;
+            values[0][i] = 100;
+            values[1][i] = random.nextInt(1000);
+            values[2][i] = random.nextDouble() * 1000;
+            values[3][i] = i % 2 == 0 ? -1.5 : Double.MAX_VALUE;
+        }
+        byte[] bytes = MetricBlockCodec.encode(timestamps, values, count);
+
+        long[] decodedTimestamps = new long[count];
+        double[][] decodedValues = new double[4][count];
+        MetricBlockCodec.decode(ByteBuffer.wrap(bytes), count, decodedTimestamps, decodedValues);
+        assertArrayEquals(timestamps, decodedTimestamps);
+        for (int c = 0; c < values.length; c++) {
+            assertArrayEquals(values[c], decodedValues[c], 0);
+        }
+    }
+
+    @Test
+    public void testCompressRegularPoints() {
+        int count = 60;
+        long[] timestamps = new long[count];
+        double[][] values = new double[6][count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1700000000000L + i * 1000;
+            values[0][i] = 200 + i % 3;
+            values[1][i] = 200 + i % 3;
+            values[4][i] = 5 * values[1][i];
+            values[5][i] = 3;
+        }
+        byte[] bytes = MetricBlockCodec.encode(timestamps, values, count);
+        // 7 longs for each point without compression.
+        assertTrue("Compressed to " + bytes.length + " bytes", bytes.length * 10 < count * 7 * 8);
+
+        long[] decodedTimestamps = new long[count];
+        double[][] decodedValues = new double[6][count];
+        MetricBlockCodec.decode(ByteBuffer.wrap(bytes), count, decodedTimestamps, decodedValues);
+        assertArrayEquals(timestamps, decodedTimestamps);
+        assertEquals(201, decodedValues[0][31], 0);
+        assertEquals(1005, decodedValues[4][31], 0);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.dashboard.repository.metric;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.dashboard.datasource.entity.MetricEntity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Benchmark for the metrics repositories with lots of apps and resources. Each operation saves the
+ * metrics of an app in a second (as the fetcher does), queries the recent metrics of a resource, or
+ * ranks the resources of an app.</p>
+ *
+ * <p>The default scale (100 apps with 10k resources each) needs a large heap, e.g. run
+ * {@code main} with {@code -Xmx8g}, or pass smaller {@code resources} as the first argument.</p>
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MetricsRepositoryBenchmark {
+
+    @Param({"memory", "columnar"})
+    private String repository;
+
+    @Param({"100"})
+    private int apps;
+
+    @Param({"10000"})
+    private int resources;
+
+    /**
+     * Seconds of metrics saved before measuring.
+     */
+    @Param({"10"})
+    private int seconds;
+
+    private MetricsRepository<MetricEntity> metricsRepository;
+    private long lastSecond;
+    private int cursor;
+
+    @Setup
+    public void prepare() {
+        metricsRepository = "columnar".equals(repository)
+            ? new ColumnarMetricsRepository() : new InMemoryMetricsRepository();
+        lastSecond = System.currentTimeMillis() / 1000;
+        for (long second = lastSecond - seconds + 1; second <= lastSecond; second++) {
+            for (int app = 0; app < apps; app++) {
+                metricsRepository.saveAll(metricsOf(app, second));
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveAll() {
+        int app = nextCursor() % apps;
+        metricsRepository.saveAll(metricsOf(app, lastSecond));
+    }
+
+    @Benchmark
+    public List<MetricEntity> queryByAppAndResourceBetween() {
+        int next = nextCursor();
+        long endTime = lastSecond * 1000 + 999;
+        return metricsRepository.queryByAppAndResourceBetween("app-" + next % apps, "res-" + next % resources,
+            endTime - 1000 * 60 * 5, endTime);
+    }
+
+    @Benchmark
+    public List<String> listResourcesOfApp() {
+        return metricsRepository.listResourcesOfApp("app-" + nextCursor() % apps);
+    }
+
+    private int nextCursor() {
+        cursor = (cursor + 1) & Integer.MAX_VALUE;
+        return cursor;
+    }
+
+    private List<MetricEntity> metricsOf(int app, long second) {
+        Date timestamp = new Date(second * 1000);
+        Date now = new Date();
+        List<MetricEntity> metrics = new ArrayList<>(resources);
+        for (int r = 0; r < resources; r++) {
+            MetricEntity entity = new MetricEntity();
+            entity.setApp("app-" + app);
+            entity.setResource("res-" + r);
+            entity.setTimestamp(timestamp);
+            entity.setGmtCreate(now);
+            entity.setGmtModified(now);
+            entity.setPassQps((long)(r % 100 + second % 10));
+            entity.setBlockQps((long)(r % 7));
+            entity.setExceptionQps(0L);
+            entity.setRtAndSuccessQps(5, (long)(r % 100));
+            entity.setCount(1);
+            metrics.add(entity);
+        }
+        return metrics;
+    }
+
+    public static void main(String[] args) throws Exception {
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(MetricsRepositoryBenchmark.class.getSimpleName());
+        if (args.length > 0) {
+            builder.param("resources", args[0]);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.demo.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * Simulation of the adaptive concurrency flow grade under a latency step change.
+ * </p>
+ * <p>
+ * The downstream service can handle {@link #CAPACITY} requests at the same time, and the other requests
+ * have to queue. After running for a while, the service time of the downstream becomes 5 times slower.
+ * Requests which take longer than {@link #TIMEOUT_MS} are useless to the caller, so the goodput is
+ * the number of the requests completed within the timeout per second.
+ * </p>
+ * <p>
+ * Run with {@code static} as the argument to compare with a static concurrency limit tuned for the
+ * original latency.
+ * </p>
+ */
+public class AdaptiveConcurrencyFlowDemo {
+
+    private static final String RESOURCE = "downstream";
+    private static final int CAPACITY = 20;
+    private static final long TIMEOUT_MS = 100;
+    private static final int threadCount = 200;
+
+    private static AtomicInteger pass = new AtomicInteger();
+    private static AtomicInteger block = new AtomicInteger();
+    private static AtomicInteger good = new AtomicInteger();
+
+    private static final Semaphore downstream = new Semaphore(CAPACITY, true);
+    private static volatile int serviceTimeMs = 10;
+
+    private static volatile boolean stop = false;
+    private static int seconds = 60;
+
+    public static void main(String[] args) throws Exception {
+        boolean adaptive = args.length == 0 || !"static".equals(args[0]);
+        System.out.println("Concurrency limit of the downstream: " + (adaptive ? "adaptive" : "static"));
+        initFlowRule(adaptive);
+        tick();
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread entryThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (!stop) {
+                        Entry entry = null;
+                        try {
+                            entry = SphU.entry(RESOURCE);
+                            long start = TimeUtil.currentTimeMillis();
+                            callDownstream();
+                            pass.incrementAndGet();
+                            if (TimeUtil.currentTimeMillis() - start <= TIMEOUT_MS) {
+                                good.incrementAndGet();
+                            }
+                        } catch (BlockException e1) {
+                            block.incrementAndGet();
+                            sleep(5);
+                        } finally {
+                            if (entry != null) {
+                                entry.exit();
+                            }
+                        }
+                    }
+                }
+            });
+            entryThread.setName("working thread");
+            entryThread.start();
+        }
+    }
+
+    private static void callDownstream() {
+        try {
+            downstream.acquire();
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(serviceTimeMs);
+        } catch (InterruptedException e) {
+            // Ignore.
+        } finally {
+            downstream.release();
+        }
+    }
+
+    private static void sleep(long timeMs) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(timeMs);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
+    private static void initFlowRule(boolean adaptive) {
+        List<FlowRule> rules = new ArrayList<FlowRule>();
+        FlowRule rule = new FlowRule(RESOURCE);
+        if (adaptive) {
+            // The count is the upper bound of the adaptive limit.
+            rule.setGrade(RuleConstant.FLOW_GRADE_ADAPTIVE_CONCURRENCY);
+            rule.setCount(threadCount);
+        } else {
+            // Tuned for the original latency: 5 times the capacity keeps the queueing time within the timeout.
+            rule.setGrade(RuleConstant.FLOW_GRADE_THREAD);
+            rule.setCount(CAPACITY * 5);
+        }
+        rules.add(rule);
+        FlowRuleManager.loadRules(rules);
+    }
+
+    private static void tick() {
+        Thread timer = new Thread(new TimerTask());
+        timer.setName("sentinel-timer-task");
+        timer.start();
+    }
+
+    static class TimerTask implements Runnable {
+
+        @Override
+        public void run() {
+            long oldPass = 0;
+            long oldBlock = 0;
+            long oldGood = 0;
+            long totalGoodBefore = 0;
+
+            while (!stop) {
+                sleep(1000);
+                long globalPass = pass.get();
+                long oneSecondPass = globalPass - oldPass;
+                oldPass = globalPass;
+
+                long globalBlock = block.get();
+                long oneSecondBlock = globalBlock - oldBlock;
+                oldBlock = globalBlock;
+
+                long globalGood = good.get();
+                long oneSecondGood = globalGood - oldGood;
+                oldGood = globalGood;
+
+                System.out.println(seconds + ", pass:" + oneSecondPass
+                    + ", block:" + oneSecondBlock
+                    + ", goodput:" + oneSecondGood
+                    + ", limit:" + (int)FlowRuleManager.getAdaptiveConcurrencyLimit(RESOURCE)
+                    + ", serviceTime:" + serviceTimeMs);
+                if (seconds == 30) {
+                    System.out.println("The downstream becomes 5 times slower");
+                    serviceTimeMs = 50;
+                    totalGoodBefore = globalGood;
+                }
+                if (seconds-- <= 0) {
+                    stop = true;
+                }
+            }
+
+            System.out.println("goodput before the step change: " + totalGoodBefore
+                + ", after the step change: " + (good.get() - totalGoodBefore));
+            System.exit(0);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.datasource;
+
+import java.io.File;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>Watches files for all file data sources with a single thread. Files are watched by the {@link WatchService}
+ * of their directories (e.g. inotify on Linux), and polled by the last modified time and the length of the file
+ * if the directory could not be watched (e.g. it does not exist yet, or the file system does not support it).</p>
+ *
+ * <p>Changes of a file are debounced, i.e. the listener is notified once the file has not been changed for the
+ * debounce period, so that a file being written is not read halfway. Listeners are notified in the watcher
+ * thread, so they should not block for long.</p>
+ *
+ * <p>Changes of other files in the directory of a watched file are checked as well, as the file could be
+ * a symbolic link whose target is replaced (e.g. ConfigMaps mounted in Kubernetes).</p>
+ *
+ * @since 1.8.9
+ */
+public final class FileWatcher {
+
+    private static final long MAX_WAIT_MS = 1000;
+
+    private static final FileWatcher INSTANCE = new FileWatcher(true);
+
+    private final Object lock = new Object();
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<WatchKey, Path>();
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    private Thread thread;
+
+    public static FileWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    FileWatcher(boolean useWatchService) {
+        WatchService service = null;
+        if (useWatchService) {
+            try {
+                service = FileSystems.getDefault().newWatchService();
+            } catch (Throwable e) {
+                RecordLog.warn("[FileWatcher] WatchService is unavailable, files will be polled", e);
+            }
+        }
+        this.watchService = service;
+    }
+
+    /**
+     * Watch the file for changes.
+     *
+     * @param file           file to watch
+     * @param debounceMs     the listener is notified once the file has not been changed for the period
+     * @param pollIntervalMs interval to poll the file if it can't be watched by the {@link WatchService}
+     * @param listener       listener of the changes
+     */
+    public void watch(File file, long debounceMs, long pollIntervalMs, Listener listener) {
+        if (file == null || listener == null) {
+            throw new IllegalArgumentException("file and listener can't be null");
+        }
+        Registration registration = new Registration(file.getAbsoluteFile(), debounceMs, pollIntervalMs, listener);
+        synchronized (lock) {
+            registration.watched = register(registration.file.getParentFile());
+            registrations.add(registration);
+            if (thread == null) {
+                thread = new NamedThreadFactory("sentinel-datasource-file-watcher", true).newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        runWatch();
+                    }
+                });
+                thread.start();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stop watching the file for the listener.
+     */
+    public void unwatch(File file, Listener listener) {
+        File absolute = file.getAbsoluteFile();
+        synchronized (lock) {
+            for (Iterator<Registration> it = registrations.iterator(); it.hasNext(); ) {
+                Registration registration = it.next();
+                if (registration.listener == listener && registration.file.equals(absolute)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether the file is watched by the {@link WatchService}, or polled otherwise
+     */
+    public boolean isWatchedByService(File file, Listener listener) {
+        File absolute = file.getAbsoluteFile();
+        synchronized (lock) {
+            for (Registration registration : registrations) {
+                if (registration.listener == listener && registration.file.equals(absolute)) {
+                    return registration.watched;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean register(File dir) {
+        if (watchService == null || dir == null || !dir.isDirectory()) {
+            return false;
+        }
+        Path path = dir.toPath();
+        if (watchedDirs.containsValue(path)) {
+            return true;
+        }
+        try {
+            WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(key, path);
+            return true;
+        } catch (Throwable e) {
+            RecordLog.warn("[FileWatcher] Cannot watch directory " + dir + ", files will be polled", e);
+            return false;
+        }
+    }
+
+    private void runWatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long waitMs = nextWaitMs(System.currentTimeMillis());
+                if (watchService != null) {
+                    WatchKey key = waitMs > 0 ? watchService.poll(waitMs, TimeUnit.MILLISECONDS)
+                        : watchService.poll();
+                    while (key != null) {
+                        onEvents(key);
+                        key = watchService.poll();
+                    }
+                } else if (waitMs > 0) {
+                    synchronized (lock) {
+                        lock.wait(waitMs);
+                    }
+                }
+                notifyChanged(System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (Throwable e) {
+                RecordLog.warn("[FileWatcher] Watch files error", e);
+            }
+        }
+    }
+
+    private long nextWaitMs(long now) {
+        long next = now + MAX_WAIT_MS;
+        synchronized (lock) {
+            for (Registration registration : registrations) {
+                if (registration.deadline > 0) {
+                    next = Math.min(next, registration.deadline);
+                }
+                if (!registration.watched) {
+                    next = Math.min(next, registration.lastPollTime + registration.pollIntervalMs);
+                }
+            }
+        }
+        return Math.max(0, next - now);
+    }
+
+    private void onEvents(WatchKey key) {
+        long now = System.currentTimeMillis();
+        List<WatchEvent<?>> events = key.pollEvents();
+        synchronized (lock) {
+            Path dir = watchedDirs.get(key);
+            if (!key.reset()) {
+                // The directory is no longer accessible, so poll the files in it.
+                watchedDirs.remove(key);
+                for (Registration registration : registrations) {
+                    if (registration.file.getParentFile().toPath().equals(dir)) {
+                        registration.watched = false;
+                    }
+                }
+            }
+            for (Registration registration : registrations) {
+                if (dir == null || !registration.file.getParentFile().toPath().equals(dir)) {
+                    continue;
+                }
+                boolean matched = false;
+                for (WatchEvent<?> event : events) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || (context != null && context.toString().equals(registration.file.getName()))) {
+                        matched = true;
+                        break;
+                    }
+                }
+                if (matched || registration.checkModified()) {
+                    registration.deadline = now + registration.debounceMs;
+                }
+            }
+        }
+    }
+
+    private void notifyChanged(long now) {
+        List<Registration> changed = new ArrayList<Registration>();
+        synchronized (lock) {
+            for (Registration registration : registrations) {
+                if (!registration.watched && now - registration.lastPollTime >= registration.pollIntervalMs) {
+                    registration.lastPollTime = now;
+                    // Try to watch the directory which may be created later.
+                    registration.watched = register(registration.file.getParentFile());
+                    if (registration.checkModified()) {
+                        registration.deadline = now + registration.debounceMs;
+                    }
+                }
+                if (registration.deadline > 0 && registration.deadline <= now) {
+                    registration.deadline = 0;
+                    // Keep the state up to date for directory events of other files.
+                    registration.checkModified();
+                    changed.add(registration);
+                }
+            }
+        }
+        for (Registration registration : changed) {
+            try {
+                registration.listener.onChange(registration.file);
+            } catch (Throwable e) {
+                RecordLog.warn("[FileWatcher] Notify change of " + registration.file + " error", e);
+            }
+        }
+    }
+
+    /**
+     * Listener of the changes of a watched file.
+     */
+    public interface Listener {
+
+        /**
+         * Notified once the file is changed (including created or deleted).
+         *
+         * @param file the changed file
+         */
+        void onChange(File file);
+    }
+
+    private static final class Registration {
+        private final File file;
+        private final long debounceMs;
+        private final long pollIntervalMs;
+        private final Listener listener;
+
+        private boolean watched;
+        private long lastPollTime;
+        private long lastModified;
+        private long length;
+        /**
+         * The listener will be notified at the time, or 0 if not changed.
+         */
+        private long deadline;
+
+        private Registration(File file, long debounceMs, long pollIntervalMs, Listener listener) {
+            this.file = file;
+            this.debounceMs = debounceMs;
+            this.pollIntervalMs = pollIntervalMs;
+            this.listener = listener;
+            this.lastPollTime = System.currentTimeMillis();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        private boolean checkModified() {
+            long curLastModified = file.lastModified();
+            long curLength = file.length();
+            if (curLastModified != lastModified || curLength != length) {
+                lastModified = curLastModified;
+                length = curLength;
+                return true;
+            }
+            return false;
+        }
+    }
+}
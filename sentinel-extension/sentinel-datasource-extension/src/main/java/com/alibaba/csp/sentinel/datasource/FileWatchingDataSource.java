@@ -0,0 +1,212 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.datasource;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * <p>
+ * A {@link ReadableDataSource} based on file, which is reloaded once the file is changed. Unlike
+ * {@link FileRefreshableDataSource}, files are watched by a single {@link FileWatcher} thread shared by all
+ * the data sources, which is notified by the file system instead of polling (unless the file system does
+ * not support it). The file is read in chunks, so there is no limit on the size of the file.
+ * </p>
+ * <p>
+ * The latency of propagation (from the last modified time of the file to the update of the property)
+ * is recorded for each reload.
+ * </p>
+ *
+ * @param <T> target data type
+ * @since 1.8.9
+ */
+public class FileWatchingDataSource<T> extends AbstractDataSource<String, T> {
+
+    private static final long DEFAULT_DEBOUNCE_MS = 100;
+    private static final long DEFAULT_POLL_INTERVAL_MS = 3000;
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+    private static final Charset DEFAULT_CHAR_SET = Charset.forName("utf-8");
+
+    private final File file;
+    private final Charset charset;
+    private final FileWatcher.Listener listener;
+
+    private volatile long reloadCount = 0;
+    private volatile long lastPropagationMs = -1;
+    private volatile long maxPropagationMs = -1;
+
+    public FileWatchingDataSource(File file, Converter<String, T> configParser) {
+        this(file, configParser, DEFAULT_DEBOUNCE_MS, DEFAULT_POLL_INTERVAL_MS, DEFAULT_CHAR_SET);
+    }
+
+    public FileWatchingDataSource(String fileName, Converter<String, T> configParser) {
+        this(new File(fileName), configParser);
+    }
+
+    public FileWatchingDataSource(File file, Converter<String, T> configParser, Charset charset) {
+        this(file, configParser, DEFAULT_DEBOUNCE_MS, DEFAULT_POLL_INTERVAL_MS, charset);
+    }
+
+    /**
+     * @param file           the file to read
+     * @param configParser   the config decoder (parser)
+     * @param debounceMs     the file is reloaded once it has not been changed for the period
+     * @param pollIntervalMs interval to poll the file if the file system can't notify the changes
+     * @param charset        charset of the file
+     */
+    public FileWatchingDataSource(File file, Converter<String, T> configParser, long debounceMs,
+                                  long pollIntervalMs, Charset charset) {
+        super(configParser);
+        if (file == null || file.isDirectory()) {
+            throw new IllegalArgumentException("File can't be null or a directory");
+        }
+        if (charset == null) {
+            throw new IllegalArgumentException("charset can't be null");
+        }
+        if (debounceMs < 0 || pollIntervalMs <= 0) {
+            throw new IllegalArgumentException("debounceMs must >= 0 and pollIntervalMs must > 0");
+        }
+        this.file = file;
+        this.charset = charset;
+        this.listener = new FileWatcher.Listener() {
+            @Override
+            public void onChange(File file) {
+                reload();
+            }
+        };
+        // Watch before the first load, so that changes in between are not missed.
+        FileWatcher.getInstance().watch(file, debounceMs, pollIntervalMs, listener);
+        firstLoad();
+    }
+
+    private void firstLoad() {
+        try {
+            T newValue = loadConfig();
+            getProperty().updateValue(newValue);
+        } catch (Throwable e) {
+            RecordLog.info("loadConfig exception", e);
+        }
+    }
+
+    private void reload() {
+        try {
+            T newValue = loadConfig();
+            getProperty().updateValue(newValue);
+        } catch (Throwable e) {
+            RecordLog.info("loadConfig exception", e);
+            return;
+        }
+        long lastModified = file.lastModified();
+        long propagationMs = lastModified > 0 ? Math.max(0, System.currentTimeMillis() - lastModified) : 0;
+        lastPropagationMs = propagationMs;
+        if (propagationMs > maxPropagationMs) {
+            maxPropagationMs = propagationMs;
+        }
+        reloadCount++;
+        RecordLog.info("[FileWatchingDataSource] Reloaded {} in {} ms after modified", file.getAbsolutePath(),
+            propagationMs);
+    }
+
+    @Override
+    public String readSource() throws Exception {
+        if (!file.exists()) {
+            // Will throw NoSuchFileException later.
+            RecordLog.warn(String.format("[FileWatchingDataSource] File does not exist: %s", file.getAbsolutePath()));
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            long size = channel.size();
+            ByteBuffer bytes = ByteBuffer.allocate((int)Math.min(Math.max(size, 16), READ_CHUNK_SIZE));
+            CharBuffer chars = CharBuffer.allocate(bytes.capacity());
+            StringBuilder builder = new StringBuilder((int)Math.min(size, Integer.MAX_VALUE - 8));
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                decode(decoder, bytes, chars, builder, endOfInput);
+                bytes.compact();
+            }
+            CoderResult result;
+            do {
+                result = decoder.flush(chars);
+                chars.flip();
+                builder.append(chars);
+                chars.clear();
+            } while (result.isOverflow());
+            return builder.toString();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, StringBuilder builder,
+                               boolean endOfInput) {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            chars.flip();
+            builder.append(chars);
+            chars.clear();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * @return how many times the file has been reloaded since created
+     */
+    public long getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * @return latency in milliseconds from the last modification of the file to the last reload, or -1 if not
+     * reloaded yet
+     */
+    public long getLastPropagationMs() {
+        return lastPropagationMs;
+    }
+
+    /**
+     * @return the max latency in milliseconds from modifications of the file to reloads, or -1 if not
+     * reloaded yet
+     */
+    public long getMaxPropagationMs() {
+        return maxPropagationMs;
+    }
+
+    /**
+     * @return whether the file is watched by the file system, or polled otherwise
+     */
+    public boolean isWatchedByFileSystem() {
+        return FileWatcher.getInstance().isWatchedByService(file, listener);
+    }
+
+    @Override
+    public void close() throws Exception {
+        FileWatcher.getInstance().unwatch(file, listener);
+    }
+}
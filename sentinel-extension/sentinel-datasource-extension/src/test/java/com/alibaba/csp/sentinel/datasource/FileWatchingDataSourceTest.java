@@ -0,0 +1,151 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.datasource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.alibaba.csp.sentinel.property.SimplePropertyListener;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link FileWatchingDataSource} and {@link FileWatcher}.
+ */
+public class FileWatchingDataSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReloadOnChange() throws Exception {
+        File file = folder.newFile("rules.json");
+        write(file, "v1");
+        FileWatchingDataSource<String> dataSource = new FileWatchingDataSource<String>(file, identity());
+        AtomicReference<String> value = valueOf(dataSource);
+        try {
+            assertEquals("v1", value.get());
+
+            write(file, "v2");
+            awaitValue(value, "v2");
+            assertTrue(dataSource.getReloadCount() >= 1);
+            assertTrue(dataSource.getLastPropagationMs() >= 0);
+            assertTrue(dataSource.getMaxPropagationMs() >= dataSource.getLastPropagationMs());
+
+            // Replaced by renaming, as editors do.
+            File temp = folder.newFile("rules.json.tmp");
+            write(temp, "v3");
+            assertTrue(temp.renameTo(file));
+            awaitValue(value, "v3");
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testReadLargeFile() throws Exception {
+        File file = folder.newFile("large.json");
+        StringBuilder builder = new StringBuilder();
+        // Larger than the limit of FileRefreshableDataSource, with multi-byte characters across chunks.
+        while (builder.length() < 5 * 1024 * 1024) {
+            builder.append("规则-rule-").append(builder.length()).append('\n');
+        }
+        String content = builder.toString();
+        write(file, content);
+        FileWatchingDataSource<String> dataSource = new FileWatchingDataSource<String>(file, identity());
+        try {
+            assertEquals(content, valueOf(dataSource).get());
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testDebounceAndPolling() throws Exception {
+        File dir = new File(folder.getRoot(), "not-created-yet");
+        File file = new File(dir, "rules.json");
+        // Without the WatchService, files are polled.
+        FileWatcher watcher = new FileWatcher(false);
+        final AtomicInteger changes = new AtomicInteger();
+        FileWatcher.Listener listener = new FileWatcher.Listener() {
+            @Override
+            public void onChange(File file) {
+                changes.incrementAndGet();
+            }
+        };
+        watcher.watch(file, 300, 50, listener);
+        assertTrue(!watcher.isWatchedByService(file, listener));
+
+        assertTrue(dir.mkdirs());
+        // Changes within the debounce period are notified once.
+        for (int i = 0; i < 5; i++) {
+            write(file, "v" + i);
+            Thread.sleep(60);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (changes.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(500);
+        assertEquals(1, changes.get());
+        watcher.unwatch(file, listener);
+    }
+
+    private static AtomicReference<String> valueOf(FileWatchingDataSource<String> dataSource) {
+        final AtomicReference<String> value = new AtomicReference<String>();
+        dataSource.getProperty().addListener(new SimplePropertyListener<String>() {
+            @Override
+            public void configUpdate(String newValue) {
+                value.set(newValue);
+            }
+        });
+        return value;
+    }
+
+    private static void awaitValue(AtomicReference<String> value, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!expected.equals(value.get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, value.get());
+    }
+
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("utf-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Converter<String, String> identity() {
+        return new Converter<String, String>() {
+            @Override
+            public String convert(String source) {
+                return source;
+            }
+        };
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.param;
 
+import com.alibaba.csp.sentinel.AdmissionDelay;
 import com.alibaba.csp.sentinel.cluster.ClusterStateManager;
 import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
@@ -30,7 +31,6 @@ import com.alibaba.csp.sentinel.util.TimeUtil;
 import java.lang.reflect.Array;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -229,10 +229,8 @@ public final class ParamFlowChecker {
                     long waitTime = expectedTime - currentTime;
                     if (waitTime > 0) {
                         lastPastTimeRef.set(expectedTime);
-                        try {
-                            TimeUnit.MILLISECONDS.sleep(waitTime);
-                        } catch (InterruptedException e) {
-                            RecordLog.warn("passThrottleLocalCheck: wait interrupted", e);
+                        if (!AdmissionDelay.delayMs(waitTime)) {
+                            RecordLog.warn("passThrottleLocalCheck: wait interrupted");
                         }
                     }
                     return true;
@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.slots.block.flow.param;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -125,7 +126,7 @@ public final class ParamFlowRuleManager {
                 }
                 List<ParamFlowRule> newRuleList = newRuleMap.get(resource);
                 List<ParamFlowRule> oldRuleList = new ArrayList<>(entry.getValue());
-                oldRuleList.removeAll(newRuleList);
+                oldRuleList.removeAll(new HashSet<>(newRuleList));
                 for (ParamFlowRule rule : oldRuleList) {
                     ParameterMetric parameterMetric = ParameterMetricStorage.getParamMetricForResource(resource);
                     if (parameterMetric != null) {
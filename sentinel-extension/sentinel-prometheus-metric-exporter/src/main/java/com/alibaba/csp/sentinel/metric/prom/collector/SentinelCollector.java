@@ -15,15 +15,12 @@
  */
 package com.alibaba.csp.sentinel.metric.prom.collector;
 
-import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.metric.prom.MetricConstants;
 import com.alibaba.csp.sentinel.metric.prom.config.PrometheusGlobalConfig;
 import com.alibaba.csp.sentinel.metric.prom.types.GaugeMetricFamily;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
-import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
-import com.alibaba.csp.sentinel.node.metric.MetricWriter;
-import com.alibaba.csp.sentinel.util.PidUtil;
+import com.alibaba.csp.sentinel.node.metric.TieredMetricSearcher;
 import io.prometheus.client.Collector;
 
 import java.util.ArrayList;
@@ -52,7 +49,7 @@ public class SentinelCollector extends Collector {
 
     private static final int delayTime = PrometheusGlobalConfig.getPromFetchDelayTime();
 
-    private volatile MetricSearcher searcher;
+    private volatile TieredMetricSearcher searcher;
 
     private volatile Long lastFetchTime;
 
@@ -61,8 +58,8 @@ public class SentinelCollector extends Collector {
         if (searcher == null) {
             synchronized (lock) {
                 if (searcher == null) {
-                    searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR,
-                            MetricWriter.formMetricFileName(SentinelConfig.getAppName(), PidUtil.getPid()));
+                    // Recent metrics are served from memory, and older ones from the metric files.
+                    searcher = new TieredMetricSearcher();
                 }
                 RecordLog.warn("[SentinelCollector] init sentinel metrics searcher with appName:{}", appName);
                 lastFetchTime = System.currentTimeMillis() / ONE_SECOND * ONE_SECOND;
@@ -0,0 +1,291 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.spi.processor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * <p>
+ * Annotation processor which generates the static SPI index of the module being compiled, so that
+ * {@code SpiLoader} does not have to scan the SPI configuration files of every service and instantiate
+ * the providers reflectively.
+ * </p>
+ * <p>
+ * The SPI configuration files ({@code META-INF/services/*}) are read from the class output, in which
+ * the resources have been copied before compiling (e.g. {@code target/classes} of Maven). Two artifacts
+ * are generated:
+ * </p>
+ * <ul>
+ * <li>{@value #INDEX_FILE}: the providers of all services of the module, one {@code service=provider}
+ * per line in the order of the SPI configuration files, and the generated factory in the {@code @factory} line</li>
+ * <li>the factory: an implementation of {@code com.alibaba.csp.sentinel.spi.SpiInstanceFactory} which creates
+ * the providers with direct constructor calls. Only public classes with a public zero-argument constructor
+ * are created by the factory, and the others are still created reflectively. The factory is generated in the
+ * common package of the providers unless the {@value #FACTORY_OPTION} option is specified.</li>
+ * </ul>
+ * <p>
+ * Nothing is generated if {@code SpiInstanceFactory} is not in the classpath or there is no SPI configuration file.
+ * </p>
+ *
+ * @since 1.8.9
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(SpiIndexProcessor.FACTORY_OPTION)
+public class SpiIndexProcessor extends AbstractProcessor {
+
+    static final String SERVICES_DIR = "META-INF/services";
+    static final String INDEX_FILE = "META-INF/sentinel/spi.index";
+    static final String FACTORY_KEY = "@factory";
+    static final String FACTORY_OPTION = "sentinel.spi.factory";
+
+    private static final String FACTORY_INTERFACE = "com.alibaba.csp.sentinel.spi.SpiInstanceFactory";
+    private static final String DEFAULT_FACTORY_PACKAGE = "com.alibaba.csp.sentinel.spi.generated";
+    private static final String FACTORY_SIMPLE_NAME_PREFIX = "SentinelSpiFactory_";
+
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // The SPI configuration files do not change during compiling, so generate only once.
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        generated = true;
+        if (processingEnv.getElementUtils().getTypeElement(FACTORY_INTERFACE) == null) {
+            return false;
+        }
+        try {
+            generateIndex();
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.WARNING,
+                "[SpiIndexProcessor] Failed to generate the Sentinel SPI index: " + e);
+        }
+        return false;
+    }
+
+    private void generateIndex() throws IOException {
+        File servicesDir = locateServicesDir();
+        File[] files = servicesDir == null ? null : servicesDir.listFiles();
+        if (files == null || files.length == 0) {
+            return;
+        }
+        // Keep the generated index stable between builds.
+        Arrays.sort(files);
+
+        Map<String, List<String>> providerMap = new LinkedHashMap<>();
+        Set<String> instantiable = new LinkedHashSet<>();
+        for (File file : files) {
+            if (!file.isFile()) {
+                continue;
+            }
+            List<String> providers = readProviders(file);
+            if (providers.isEmpty()) {
+                continue;
+            }
+            providerMap.put(file.getName(), providers);
+            for (String provider : providers) {
+                if (isInstantiable(provider)) {
+                    instantiable.add(provider);
+                }
+            }
+        }
+        if (providerMap.isEmpty()) {
+            return;
+        }
+
+        StringBuilder index = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : providerMap.entrySet()) {
+            for (String provider : entry.getValue()) {
+                index.append(entry.getKey()).append('=').append(provider).append('\n');
+            }
+        }
+        String factoryName = null;
+        if (!instantiable.isEmpty()) {
+            factoryName = resolveFactoryName(instantiable, index.toString());
+            writeFactory(factoryName, instantiable);
+        }
+        writeIndex(factoryName, index.toString());
+    }
+
+    private File locateServicesDir() {
+        try {
+            // Directories are not supported by the Filer, so locate with the index file in the class output.
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+            File dir = new File(new File(index.toUri()).getParentFile().getParentFile(), "services");
+            return dir.isDirectory() ? dir : null;
+        } catch (Exception e) {
+            // The class output is not in the file system.
+            return null;
+        }
+    }
+
+    /**
+     * Read the providers from the SPI configuration file, following the same format as {@code SpiLoader}.
+     */
+    static List<String> readProviders(File file) throws IOException {
+        List<String> providers = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int commentIndex = line.indexOf('#');
+                if (commentIndex >= 0) {
+                    line = line.substring(0, commentIndex);
+                }
+                line = line.trim();
+                if (!line.isEmpty() && !providers.contains(line)) {
+                    providers.add(line);
+                }
+            }
+        }
+        return providers;
+    }
+
+    private boolean isInstantiable(String className) {
+        TypeElement type = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+        if (type == null || type.getKind() != ElementKind.CLASS
+            || !type.getModifiers().contains(Modifier.PUBLIC) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        // Nested classes must be static members of public classes.
+        Element current = type;
+        while (current instanceof TypeElement && ((TypeElement)current).getNestingKind() != NestingKind.TOP_LEVEL) {
+            if (((TypeElement)current).getNestingKind() != NestingKind.MEMBER
+                || !current.getModifiers().contains(Modifier.STATIC)
+                || !current.getEnclosingElement().getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)
+                && constructor.getThrownTypes().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String resolveFactoryName(Set<String> providers, String index) {
+        String name = processingEnv.getOptions().get(FACTORY_OPTION);
+        if (name != null && !name.trim().isEmpty()) {
+            return name.trim();
+        }
+        // The hash of the index makes the factories of different modules in the same package distinct.
+        String simpleName = FACTORY_SIMPLE_NAME_PREFIX + Integer.toHexString(index.hashCode());
+        String pkg = commonPackage(providers);
+        return pkg.isEmpty() ? DEFAULT_FACTORY_PACKAGE + "." + simpleName : pkg + "." + simpleName;
+    }
+
+    static String commonPackage(Iterable<String> classNames) {
+        String common = null;
+        for (String className : classNames) {
+            int index = className.lastIndexOf('.');
+            String pkg = index < 0 ? "" : className.substring(0, index);
+            if (common == null) {
+                common = pkg;
+                continue;
+            }
+            while (!common.isEmpty() && !pkg.equals(common) && !pkg.startsWith(common + ".")) {
+                int dot = common.lastIndexOf('.');
+                common = dot < 0 ? "" : common.substring(0, dot);
+            }
+        }
+        return common == null ? "" : common;
+    }
+
+    private void writeFactory(String factoryName, Set<String> providers) throws IOException {
+        if (processingEnv.getElementUtils().getTypeElement(factoryName) != null) {
+            // Generated by the previous compilation which is in the sources now.
+            return;
+        }
+        int index = factoryName.lastIndexOf('.');
+        String pkg = index < 0 ? "" : factoryName.substring(0, index);
+        String simpleName = factoryName.substring(index + 1);
+
+        StringBuilder source = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            source.append("package ").append(pkg).append(";\n\n");
+        }
+        source.append("/**\n")
+            .append(" * Creates the SPI providers with direct constructor calls.\n")
+            .append(" * Generated by ").append(SpiIndexProcessor.class.getName()).append(", do not edit.\n")
+            .append(" */\n")
+            .append("public final class ").append(simpleName).append(" implements ").append(FACTORY_INTERFACE)
+            .append(" {\n\n")
+            .append("    @Override\n")
+            .append("    public Object newInstance(String className) {\n")
+            .append("        switch (className) {\n");
+        for (String provider : providers) {
+            source.append("            case \"").append(provider).append("\":\n")
+                .append("                return new ").append(provider.replace('$', '.')).append("();\n");
+        }
+        source.append("            default:\n")
+            .append("                return null;\n")
+            .append("        }\n")
+            .append("    }\n")
+            .append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(factoryName).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private void writeIndex(String factoryName, String index) throws IOException {
+        FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_FILE);
+        try (Writer writer = file.openWriter()) {
+            writer.write("# Generated by " + SpiIndexProcessor.class.getName() + ", do not edit.\n");
+            if (factoryName != null) {
+                writer.write(FACTORY_KEY + "=" + factoryName + "\n");
+            }
+            writer.write(index);
+        }
+    }
+}
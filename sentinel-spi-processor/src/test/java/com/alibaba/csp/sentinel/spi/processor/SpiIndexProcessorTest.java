@@ -0,0 +1,137 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.spi.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link SpiIndexProcessor}.
+ */
+public class SpiIndexProcessorTest {
+
+    private static final String FACTORY_INTERFACE = "package com.alibaba.csp.sentinel.spi;\n"
+        + "public interface SpiInstanceFactory { Object newInstance(String className); }";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGenerateIndexAndFactory() throws Exception {
+        File output = folder.newFolder("classes");
+        write(output, "META-INF/services/demo.Service",
+            "# comment\ndemo.impl.PublicProvider\ndemo.impl.PrivateConstructorProvider # not instantiable\n"
+                + "demo.impl.Outer$NestedProvider\n\ndemo.impl.PublicProvider\n");
+        List<File> sources = Arrays.asList(
+            source("com/alibaba/csp/sentinel/spi/SpiInstanceFactory.java", FACTORY_INTERFACE),
+            source("demo/Service.java", "package demo; public interface Service {}"),
+            source("demo/impl/PublicProvider.java",
+                "package demo.impl; public class PublicProvider implements demo.Service {}"),
+            source("demo/impl/PrivateConstructorProvider.java", "package demo.impl; "
+                + "public class PrivateConstructorProvider implements demo.Service { private PrivateConstructorProvider() {} }"),
+            source("demo/impl/Outer.java", "package demo.impl; public class Outer { "
+                + "public static class NestedProvider implements demo.Service {} }"));
+
+        assertTrue(compile(output, sources));
+
+        List<String> index = Files.readAllLines(new File(output, SpiIndexProcessor.INDEX_FILE).toPath(),
+            StandardCharsets.UTF_8);
+        String factoryLine = index.get(1);
+        assertTrue(factoryLine.startsWith(SpiIndexProcessor.FACTORY_KEY + "=demo.impl.SentinelSpiFactory_"));
+        assertEquals(Arrays.asList("demo.Service=demo.impl.PublicProvider",
+            "demo.Service=demo.impl.PrivateConstructorProvider", "demo.Service=demo.impl.Outer$NestedProvider"),
+            index.subList(2, index.size()));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {output.toURI().toURL()}, null)) {
+            Object factory = classLoader.loadClass(factoryLine.substring(factoryLine.indexOf('=') + 1)).newInstance();
+            assertEquals("demo.impl.PublicProvider", newInstance(factory, "demo.impl.PublicProvider").getClass().getName());
+            assertEquals("demo.impl.Outer$NestedProvider",
+                newInstance(factory, "demo.impl.Outer$NestedProvider").getClass().getName());
+            assertNull(newInstance(factory, "demo.impl.PrivateConstructorProvider"));
+        }
+    }
+
+    @Test
+    public void testNoFactoryInterface() throws Exception {
+        File output = folder.newFolder("classes");
+        write(output, "META-INF/services/demo.Service", "demo.impl.PublicProvider");
+        List<File> sources = Arrays.asList(
+            source("demo/Service.java", "package demo; public interface Service {}"),
+            source("demo/impl/PublicProvider.java",
+                "package demo.impl; public class PublicProvider implements demo.Service {}"));
+
+        assertTrue(compile(output, sources));
+        assertFalse(new File(output, SpiIndexProcessor.INDEX_FILE).exists());
+    }
+
+    @Test
+    public void testCommonPackage() {
+        assertEquals("a.b", SpiIndexProcessor.commonPackage(Arrays.asList("a.b.c.X", "a.b.Y", "a.b.d.Z")));
+        assertEquals("", SpiIndexProcessor.commonPackage(Arrays.asList("a.b.X", "c.Y")));
+        assertEquals("a.b", SpiIndexProcessor.commonPackage(Collections.singletonList("a.b.X")));
+    }
+
+    private static Object newInstance(Object factory, String className) throws Exception {
+        return factory.getClass().getMethod("newInstance", String.class).invoke(factory, className);
+    }
+
+    private boolean compile(File output, List<File> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(output));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT,
+                Collections.singletonList(folder.newFolder("generated")));
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null, units);
+            task.setProcessors(Collections.singletonList(new SpiIndexProcessor()));
+            return task.call();
+        }
+    }
+
+    private File source(String path, String content) throws IOException {
+        File root = new File(folder.getRoot(), "src");
+        return write(root, path, content);
+    }
+
+    private static File write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
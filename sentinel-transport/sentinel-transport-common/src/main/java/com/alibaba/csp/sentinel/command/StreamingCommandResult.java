@@ -0,0 +1,75 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * <p>A command result which writes its text content to a sink incrementally, instead of building the whole
+ * content in memory. Command handlers of potentially large results (e.g. metrics and node trees) could return
+ * it as the result of {@link CommandResponse}, so that the memory footprint is bounded regardless of the
+ * result size.</p>
+ *
+ * <p>Transports write the content to the connection directly via {@link #writeTo(OutputStream, Charset)},
+ * which could be overridden by results of binary or compressed content. The status of the response has been
+ * sent once the content is being written, so errors thrown while writing could only abort the connection.
+ * Handlers should validate the request before returning the result.</p>
+ *
+ * <p>{@link #toString()} renders the whole content in memory, which is the fallback of transports that
+ * do not support streaming.</p>
+ *
+ * @since 1.8.9
+ */
+public abstract class StreamingCommandResult {
+
+    /**
+     * Write the content to the given writer. The writer is flushed and closed by the caller.
+     *
+     * @param writer the sink of the content
+     * @throws IOException if failed to write to the sink
+     */
+    public abstract void writeTo(Writer writer) throws IOException;
+
+    /**
+     * Write the content to the output stream in the given charset by default. The stream is flushed but
+     * not closed.
+     *
+     * @param out     the sink of the content
+     * @param charset charset of the content
+     * @throws IOException if failed to write to the sink
+     */
+    public void writeTo(OutputStream out, Charset charset) throws IOException {
+        Writer writer = new OutputStreamWriter(out, charset);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    @Override
+    public String toString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to render the command result", e);
+        }
+        return writer.toString();
+    }
+}
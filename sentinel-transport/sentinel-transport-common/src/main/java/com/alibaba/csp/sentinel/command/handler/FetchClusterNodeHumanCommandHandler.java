@@ -15,36 +15,38 @@
  */
 package com.alibaba.csp.sentinel.command.handler;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map.Entry;
 
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.node.ClusterNode;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
 
 /**
  * @author qinan.qn
  */
 @CommandMapping(name = "cnode", desc = "get clusterNode metrics by id, request param: id={resourceName}")
-public class FetchClusterNodeHumanCommandHandler implements CommandHandler<String> {
+public class FetchClusterNodeHumanCommandHandler implements CommandHandler<StreamingCommandResult> {
 
-    private final static String FORMAT = "%-4s%-80s%-10s%-10s%-10s%-11s%-9s%-6s%-10s%-11s%-9s%-11s";
+    private final static String FORMAT = "%-4s%-80s%-10s%-10s%-10s%-11s%-9s%-6s%-10s%-11s%-9s%-11s%-7s";
     private final static int MAX_LEN = 79;
 
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
-        String name = request.getParam("id");
+    public CommandResponse<StreamingCommandResult> handle(CommandRequest request) {
+        final String name = request.getParam("id");
 
         if (StringUtil.isEmpty(name)) {
             return CommandResponse.ofFailure(new IllegalArgumentException("Invalid parameter: empty clusterNode name"));
         }
 
-        StringBuilder sb = new StringBuilder();
-
         int i = 0;
         int nameLength = 0;
         for (Entry<ResourceWrapper, ClusterNode> e : ClusterBuilderSlot.getClusterNodeMap().entrySet()) {
@@ -60,25 +62,47 @@ public class FetchClusterNodeHumanCommandHandler implements CommandHandler<Strin
 
         }
         nameLength = nameLength > MAX_LEN ? MAX_LEN : nameLength;
-        String format = FORMAT.replaceAll("80", String.valueOf(nameLength + 1));
+        final String format = FORMAT.replaceAll("80", String.valueOf(nameLength + 1));
+        final int idLength = nameLength;
+        final int startIndex = i;
+
+        return CommandResponse.<StreamingCommandResult>ofSuccess(new StreamingCommandResult() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                writeTable(writer, name, format, idLength, startIndex);
+            }
+        });
+    }
 
-        sb.append(String.format(format, "idx", "id", "thread", "pass", "blocked", "success", "total", "aRt",
-            "1m-pass", "1m-block", "1m-all", "exception")).append("\n");
+    /**
+     * The current limit of the adaptive concurrency rule, or "-" if absent.
+     */
+    private static String formatAdaptiveLimit(String resourceName) {
+        double limit = FlowRuleManager.getAdaptiveConcurrencyLimit(resourceName);
+        return limit < 0 ? "-" : String.valueOf((int)limit);
+    }
+
+    private void writeTable(Writer writer, String name, String format, int nameLength, int i) throws IOException {
+        writer.write(String.format(format, "idx", "id", "thread", "pass", "blocked", "success", "total", "aRt",
+            "1m-pass", "1m-block", "1m-all", "exception", "limit"));
+        writer.write('\n');
         for (Entry<ResourceWrapper, ClusterNode> e : ClusterBuilderSlot.getClusterNodeMap().entrySet()) {
             if (e.getKey().getName().contains(name)) {
                 ClusterNode node = e.getValue();
                 String id = e.getKey().getShowName();
                 int lenNum = (int)Math.ceil((double)id.length() / nameLength) - 1;
 
-                sb.append(String.format(format, i + 1, lenNum == 0 ? id : id.substring(0, nameLength),
+                writer.write(String.format(format, i + 1, lenNum == 0 ? id : id.substring(0, nameLength),
                     node.curThreadNum(), node.passQps(), node.blockQps(), node.successQps(), node.totalQps(),
                     node.avgRt(), node.totalRequest() - node.blockRequest(), node.blockRequest(),
-                    node.totalRequest(), node.exceptionQps())).append("\n");
+                    node.totalRequest(), node.exceptionQps(), formatAdaptiveLimit(e.getKey().getName())));
+                writer.write('\n');
                 for (int j = 1; j <= lenNum; ++j) {
                     int start = nameLength * j;
                     int end = j == lenNum ? id.length() : nameLength * (j + 1);
-                    sb.append(String.format(format, "", id.substring(start, end), "", "", "", "", "", "", "", "", "",
-                        "", "", "")).append("\n");
+                    writer.write(String.format(format, "", id.substring(start, end), "", "", "", "", "", "", "", "", "",
+                        "", "", ""));
+                    writer.write('\n');
                 }
 
                 if (++i == 30) {
@@ -86,7 +110,5 @@ public class FetchClusterNodeHumanCommandHandler implements CommandHandler<Strin
                 }
             }
         }
-
-        return CommandResponse.ofSuccess(sb.toString());
     }
 }
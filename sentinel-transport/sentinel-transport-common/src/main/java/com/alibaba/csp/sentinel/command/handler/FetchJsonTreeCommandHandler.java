@@ -15,13 +15,14 @@
  */
 package com.alibaba.csp.sentinel.command.handler;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.node.Node;
@@ -33,24 +34,33 @@ import com.alibaba.fastjson.JSON;
  * @author leyou
  */
 @CommandMapping(name = "jsonTree", desc = "get tree node VO start from root node")
-public class FetchJsonTreeCommandHandler implements CommandHandler<String> {
+public class FetchJsonTreeCommandHandler implements CommandHandler<StreamingCommandResult> {
 
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
-        List<NodeVo> results = new ArrayList<NodeVo>();
-        visit(Constants.ROOT, results, null);
-        return CommandResponse.ofSuccess(JSON.toJSONString(results));
+    public CommandResponse<StreamingCommandResult> handle(CommandRequest request) {
+        return CommandResponse.<StreamingCommandResult>ofSuccess(new StreamingCommandResult() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                // Nodes are serialized one by one rather than collected into a list, which yields the same JSON array.
+                writer.write('[');
+                visit(Constants.ROOT, writer, null, true);
+                writer.write(']');
+            }
+        });
     }
 
     /**
      * Preorder traversal.
      */
-    private void visit(DefaultNode node, List<NodeVo> results, String parentId) {
+    private void visit(DefaultNode node, Writer writer, String parentId, boolean first) throws IOException {
         NodeVo vo = NodeVo.fromDefaultNode(node, parentId);
-        results.add(vo);
+        if (!first) {
+            writer.write(',');
+        }
+        JSON.writeJSONString(writer, vo);
         String id = vo.getId();
         for (Node n : node.getChildList()) {
-            visit((DefaultNode)n, results, id);
+            visit((DefaultNode)n, writer, id, false);
         }
     }
 }
@@ -15,22 +15,29 @@
  */
 package com.alibaba.csp.sentinel.command.handler;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
-import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
-import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
-import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+import com.alibaba.csp.sentinel.node.metric.TieredMetricSearcher;
 import com.alibaba.csp.sentinel.slots.system.SystemRuleManager;
-import com.alibaba.csp.sentinel.util.PidUtil;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryEncoder;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryFormat;
 import com.alibaba.csp.sentinel.util.StringUtil;
 import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
 
 /**
  * Retrieve and aggregate {@link MetricNode} metrics.
@@ -39,25 +46,35 @@ import com.alibaba.csp.sentinel.util.TimeUtil;
  * @author Eric Zhao
  */
 @CommandMapping(name = "metric", desc = "get and aggregate metrics, accept param: "
-    + "startTime={startTime}&endTime={endTime}&maxLines={maxLines}&identify={resourceName}")
-public class SendMetricCommandHandler implements CommandHandler<String> {
+    + "startTime={startTime}&endTime={endTime}&maxLines={maxLines}&identify={resourceName}"
+    + "&format={text|binary}&compress={gzip}")
+public class SendMetricCommandHandler implements CommandHandler<StreamingCommandResult> {
 
-    private volatile MetricSearcher searcher;
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private volatile TieredMetricSearcher searcher;
 
     private final Object lock = new Object();
 
+    public SendMetricCommandHandler() {}
+
+    /**
+     * Create a handler serving metrics from the given searcher.
+     *
+     * @param searcher the metric searcher
+     * @since 1.8.9
+     */
+    public SendMetricCommandHandler(TieredMetricSearcher searcher) {
+        this.searcher = searcher;
+    }
+
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
-        // Note: not thread-safe.
+    public CommandResponse<StreamingCommandResult> handle(CommandRequest request) {
         if (searcher == null) {
             synchronized (lock) {
-                String appName = SentinelConfig.getAppName();
-                if (appName == null) {
-                    appName = "";
-                }
                 if (searcher == null) {
-                    searcher = new MetricSearcher(MetricWriter.METRIC_BASE_DIR,
-                        MetricWriter.formMetricFileName(appName, PidUtil.getPid()));
+                    // Recent metrics are served from memory, and older ones from the metric files.
+                    searcher = new TieredMetricSearcher();
                 }
             }
         }
@@ -70,35 +87,127 @@ public class SendMetricCommandHandler implements CommandHandler<String> {
         if (StringUtil.isNotBlank(startTimeStr)) {
             startTime = Long.parseLong(startTimeStr);
         } else {
-            return CommandResponse.ofSuccess("");
+            return CommandResponse.ofSuccess(null);
         }
-        List<MetricNode> list;
-        try {
-            // Find by end time if set.
-            if (StringUtil.isNotBlank(endTimeStr)) {
-                long endTime = Long.parseLong(endTimeStr);
-                list = searcher.findByTimeAndResource(startTime, endTime, identity);
-            } else {
-                if (StringUtil.isNotBlank(maxLinesStr)) {
-                    maxLines = Integer.parseInt(maxLinesStr);
-                }
-                maxLines = Math.min(maxLines, 12000);
-                list = searcher.find(startTime, maxLines);
+        final long endTime;
+        if (StringUtil.isNotBlank(endTimeStr)) {
+            endTime = Long.parseLong(endTimeStr);
+        } else {
+            endTime = -1;
+            if (StringUtil.isNotBlank(maxLinesStr)) {
+                maxLines = Integer.parseInt(maxLinesStr);
             }
-        } catch (Exception ex) {
-            return CommandResponse.ofFailure(new RuntimeException("Error when retrieving metrics", ex));
+            maxLines = Math.min(maxLines, 12000);
+        }
+        boolean binary = MetricBinaryFormat.FORMAT_BINARY.equals(request.getParam(MetricBinaryFormat.PARAM_FORMAT));
+        boolean gzip = MetricBinaryFormat.COMPRESS_GZIP.equals(request.getParam(MetricBinaryFormat.PARAM_COMPRESS));
+        return CommandResponse.<StreamingCommandResult>ofSuccess(
+            new MetricStreamingResult(searcher, startTime, endTime, maxLines, identity, binary, gzip));
+    }
+
+    /**
+     * Metrics are written to the sink one by one while being searched, so that the response
+     * is not buffered in memory.
+     */
+    private final class MetricStreamingResult extends StreamingCommandResult {
+
+        private final TieredMetricSearcher searcher;
+        private final long startTime;
+        private final long endTime;
+        private final int maxLines;
+        private final String identity;
+        private final boolean binary;
+        private final boolean gzip;
+
+        MetricStreamingResult(TieredMetricSearcher searcher, long startTime, long endTime, int maxLines,
+                              String identity, boolean binary, boolean gzip) {
+            this.searcher = searcher;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.maxLines = maxLines;
+            this.identity = identity;
+            this.binary = binary;
+            this.gzip = gzip;
+        }
+
+        /**
+         * Write metrics in the thin text format, which is the fallback of transports without streaming support.
+         */
+        @Override
+        public void writeTo(final Writer writer) throws IOException {
+            forEachNode(new Consumer<MetricNode>() {
+                @Override
+                public void accept(MetricNode node) {
+                    try {
+                        writer.write(node.toThinString());
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new WriteFailedException(e);
+                    }
+                }
+            });
         }
-        if (list == null) {
-            list = new ArrayList<>();
+
+        @Override
+        public void writeTo(OutputStream out, Charset charset) throws IOException {
+            GZIPOutputStream gzipOut = null;
+            if (gzip) {
+                gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE) {
+                    {
+                        // Metrics are fetched every second, so speed matters more than ratio.
+                        def.setLevel(Deflater.BEST_SPEED);
+                    }
+                };
+                out = gzipOut;
+            }
+            if (binary) {
+                final MetricBinaryEncoder encoder = new MetricBinaryEncoder(out);
+                forEachNode(new Consumer<MetricNode>() {
+                    @Override
+                    public void accept(MetricNode node) {
+                        try {
+                            encoder.write(node);
+                        } catch (IOException e) {
+                            throw new WriteFailedException(e);
+                        }
+                    }
+                });
+                encoder.finish();
+            } else {
+                super.writeTo(out, charset);
+            }
+            if (gzipOut != null) {
+                gzipOut.finish();
+            }
         }
-        if (StringUtil.isBlank(identity)) {
-            addCpuUsageAndLoad(list);
+
+        private void forEachNode(Consumer<MetricNode> consumer) throws IOException {
+            try {
+                // Find by end time if set.
+                if (endTime >= 0) {
+                    searcher.forEach(startTime, endTime, identity, consumer);
+                } else {
+                    searcher.forEach(startTime, maxLines, consumer);
+                }
+                if (StringUtil.isBlank(identity)) {
+                    List<MetricNode> list = new ArrayList<>(2);
+                    addCpuUsageAndLoad(list);
+                    for (MetricNode node : list) {
+                        consumer.accept(node);
+                    }
+                }
+            } catch (WriteFailedException e) {
+                throw (IOException)e.getCause();
+            } catch (Exception ex) {
+                throw new IOException("Error when retrieving metrics", ex);
+            }
         }
-        StringBuilder sb = new StringBuilder();
-        for (MetricNode node : list) {
-            sb.append(node.toThinString()).append("\n");
+    }
+
+    private static final class WriteFailedException extends RuntimeException {
+        WriteFailedException(IOException cause) {
+            super(cause);
         }
-        return CommandResponse.ofSuccess(sb.toString());
     }
 
     /**
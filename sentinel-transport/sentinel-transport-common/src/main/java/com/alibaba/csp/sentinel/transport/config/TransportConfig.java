@@ -40,6 +40,27 @@ public class TransportConfig {
 
     public static final String HEARTBEAT_DEFAULT_PATH = "/registry/machine";
 
+    /**
+     * I/O mode of the HTTP command center, {@code bio} (default) or {@code nio}.
+     *
+     * @since 1.8.9
+     */
+    public static final String SERVER_IO_MODE = "csp.sentinel.api.io.mode";
+    public static final String SERVER_IO_MODE_BIO = "bio";
+    public static final String SERVER_IO_MODE_NIO = "nio";
+
+    /**
+     * Whether to push metrics to the dashboard, which are pulled by the dashboard by default.
+     *
+     * @since 1.8.9
+     */
+    public static final String METRIC_PUSH_ENABLED = "csp.sentinel.metric.push.enabled";
+    public static final String METRIC_PUSH_INTERVAL_MS = "csp.sentinel.metric.push.interval.ms";
+    public static final String METRIC_PUSH_API_PATH = "csp.sentinel.metric.push.api.path";
+
+    public static final String METRIC_PUSH_DEFAULT_PATH = "/registry/metric";
+    public static final long METRIC_PUSH_DEFAULT_INTERVAL_MS = 1000;
+
     private static int runtimePort = -1;
 
     /**
@@ -183,4 +204,61 @@ public class TransportConfig {
         }
         return apiPath;
     }
+
+    /**
+     * Whether metrics should be pushed to the dashboard.
+     *
+     * @return true if {@code csp.sentinel.metric.push.enabled} is {@code true}
+     * @since 1.8.9
+     */
+    public static boolean isMetricPushEnabled() {
+        return "true".equalsIgnoreCase(StringUtil.trim(SentinelConfig.getConfig(METRIC_PUSH_ENABLED)));
+    }
+
+    /**
+     * Get the interval of pushing metrics in milliseconds.
+     *
+     * @return the configured interval, or {@link #METRIC_PUSH_DEFAULT_INTERVAL_MS} if not configured or invalid
+     * @since 1.8.9
+     */
+    public static long getMetricPushIntervalMs() {
+        String interval = SentinelConfig.getConfig(METRIC_PUSH_INTERVAL_MS);
+        if (StringUtil.isBlank(interval)) {
+            return METRIC_PUSH_DEFAULT_INTERVAL_MS;
+        }
+        try {
+            long value = Long.parseLong(interval.trim());
+            return value > 0 ? value : METRIC_PUSH_DEFAULT_INTERVAL_MS;
+        } catch (Exception ex) {
+            RecordLog.warn("[TransportConfig] Failed to parse metric push interval: " + interval);
+            return METRIC_PUSH_DEFAULT_INTERVAL_MS;
+        }
+    }
+
+    /**
+     * Get the api path of pushing metrics, which should be consistent with the dashboard.
+     *
+     * @return the metric push api path
+     * @since 1.8.9
+     */
+    public static String getMetricPushApiPath() {
+        String apiPath = SentinelConfig.getConfig(METRIC_PUSH_API_PATH);
+        if (StringUtil.isBlank(apiPath)) {
+            return METRIC_PUSH_DEFAULT_PATH;
+        }
+        if (!apiPath.startsWith("/")) {
+            apiPath = "/" + apiPath;
+        }
+        return apiPath;
+    }
+
+    /**
+     * Whether the HTTP command center should serve in non-blocking I/O mode.
+     *
+     * @return true if {@code csp.sentinel.api.io.mode} is {@code nio}
+     * @since 1.8.9
+     */
+    public static boolean isNioServerMode() {
+        return SERVER_IO_MODE_NIO.equalsIgnoreCase(StringUtil.trim(SentinelConfig.getConfig(SERVER_IO_MODE)));
+    }
 }
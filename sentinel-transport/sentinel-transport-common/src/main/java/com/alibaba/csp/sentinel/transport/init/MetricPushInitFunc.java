@@ -0,0 +1,71 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.init;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.init.InitFunc;
+import com.alibaba.csp.sentinel.init.InitOrder;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricRingBuffer;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+import com.alibaba.csp.sentinel.transport.metric.MetricPushSender;
+
+/**
+ * Init function which pushes metrics to the dashboard when {@link TransportConfig#METRIC_PUSH_ENABLED} is on.
+ * Metrics are still available to be pulled by the dashboard.
+ *
+ * @since 1.8.9
+ */
+@InitOrder(-1)
+public class MetricPushInitFunc implements InitFunc {
+
+    private ScheduledExecutorService pool = null;
+
+    @Override
+    public void init() {
+        if (!TransportConfig.isMetricPushEnabled()) {
+            return;
+        }
+        if (!MetricRingBuffer.getDefault().isEnabled()) {
+            RecordLog.warn("[MetricPushInitFunc] Metric push requires the in-memory metric ring, please configure "
+                + SentinelConfig.METRIC_MEMORY_RETENTION_SECONDS);
+            return;
+        }
+        if (TransportConfig.getConsoleServerList().isEmpty()) {
+            RecordLog.warn("[MetricPushInitFunc] Dashboard server address not configured, won't push metrics");
+            return;
+        }
+        final MetricPushSender sender = new MetricPushSender();
+        long interval = TransportConfig.getMetricPushIntervalMs();
+        pool = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("sentinel-metric-push-task", true));
+        pool.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sender.push();
+                } catch (Throwable e) {
+                    RecordLog.warn("[MetricPushInitFunc] Push metrics error", e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        RecordLog.info("[MetricPushInitFunc] Metric push started, interval: {} ms", interval);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Streaming decoder of the {@link MetricBinaryFormat binary format}, which works as a cursor over the
+ * records so that no object is created per record:</p>
+ *
+ * <pre>
+ * MetricBinaryDecoder decoder = new MetricBinaryDecoder(in);
+ * while (decoder.next()) {
+ *     aggregate(decoder.getResource(), decoder.getTimestamp(), decoder.getPassQps(), ...);
+ * }
+ * </pre>
+ *
+ * <p>Resource names are decoded once per response. The decoder is not thread-safe.</p>
+ *
+ * @since 1.8.9
+ */
+public final class MetricBinaryDecoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+
+    private final List<String> resources = new ArrayList<String>();
+    private boolean finished = false;
+
+    private String resource;
+    private long timestamp = 0;
+    private long passQps;
+    private long blockQps;
+    private long successQps;
+    private long exceptionQps;
+    private long rt;
+    private long occupiedPassQps;
+    private int concurrency;
+    private int classification;
+
+    /**
+     * @param in the content, of which the header is read and checked immediately
+     * @throws IOException if the content is not in the binary format
+     */
+    public MetricBinaryDecoder(InputStream in) throws IOException {
+        this(in, new byte[BUFFER_SIZE], 0, 0);
+    }
+
+    /**
+     * Create a decoder with bytes which have already been read from the stream (e.g. to detect the format).
+     *
+     * @param in     the rest of the content
+     * @param head   bytes read from the stream, which is used as the buffer of the decoder
+     * @param offset offset of the content in the head
+     * @param length amount of the valid bytes in the head
+     * @throws IOException if the content is not in the binary format
+     */
+    public MetricBinaryDecoder(InputStream in, byte[] head, int offset, int length) throws IOException {
+        this.in = in;
+        this.buffer = head.length >= BUFFER_SIZE ? head : new byte[BUFFER_SIZE];
+        if (buffer != head || offset != 0) {
+            System.arraycopy(head, offset, buffer, 0, length);
+        }
+        this.pos = 0;
+        this.limit = length;
+        for (byte b : MetricBinaryFormat.MAGIC) {
+            if (readByte() != b) {
+                throw new IOException("Not in the binary metric format");
+            }
+        }
+        int version = readByte();
+        if (version != MetricBinaryFormat.VERSION) {
+            throw new IOException("Unsupported binary metric format version: " + version);
+        }
+    }
+
+    /**
+     * Move to the next record.
+     *
+     * @return false if there are no more records
+     * @throws IOException if the content is truncated or corrupted
+     */
+    public boolean next() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long tag = readVarint();
+        if (tag == MetricBinaryFormat.TAG_END) {
+            finished = true;
+            return false;
+        }
+        if (tag == MetricBinaryFormat.TAG_NEW_RESOURCE) {
+            resource = readString((int)readVarint());
+            resources.add(resource);
+        } else {
+            long index = tag - MetricBinaryFormat.TAG_RESOURCE_OFFSET;
+            if (index >= resources.size()) {
+                throw new IOException("Illegal resource index: " + index);
+            }
+            resource = resources.get((int)index);
+        }
+        timestamp += readSigned();
+        passQps = readSigned();
+        blockQps = readSigned();
+        successQps = readSigned();
+        exceptionQps = readSigned();
+        rt = readSigned();
+        occupiedPassQps = readSigned();
+        concurrency = (int)readSigned();
+        classification = (int)readSigned();
+        return true;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getPassQps() {
+        return passQps;
+    }
+
+    public long getBlockQps() {
+        return blockQps;
+    }
+
+    public long getSuccessQps() {
+        return successQps;
+    }
+
+    public long getExceptionQps() {
+        return exceptionQps;
+    }
+
+    public long getRt() {
+        return rt;
+    }
+
+    public long getOccupiedPassQps() {
+        return occupiedPassQps;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getClassification() {
+        return classification;
+    }
+
+    private int readByte() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                throw new EOFException("Unexpected end of binary metrics");
+            }
+        }
+        return buffer[pos++];
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private long readSigned() throws IOException {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private String readString(int length) throws IOException {
+        if (length < 0 || length > BUFFER_SIZE * 8) {
+            throw new IOException("Illegal resource name length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ) {
+            if (pos == limit) {
+                readByte();
+                pos--;
+            }
+            int n = Math.min(length - i, limit - pos);
+            System.arraycopy(buffer, pos, bytes, i, n);
+            pos += n;
+            i += n;
+        }
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+/**
+ * Encode metric nodes in the {@link MetricBinaryFormat binary format}. The encoder is not thread-safe.
+ *
+ * @since 1.8.9
+ */
+public final class MetricBinaryEncoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final OutputStream out;
+    private final Map<String, Integer> resourceIndexes = new HashMap<String, Integer>();
+    private final byte[] scratch = new byte[MAX_VARINT_SIZE * 10];
+
+    private long lastTimestamp = 0;
+    private boolean finished = false;
+
+    /**
+     * @param out the sink, which should be buffered as the encoder writes records one by one
+     */
+    public MetricBinaryEncoder(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(MetricBinaryFormat.MAGIC);
+        out.write(MetricBinaryFormat.VERSION);
+    }
+
+    public void write(MetricNode node) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Encoder has been finished");
+        }
+        String resource = node.getResource();
+        Integer index = resourceIndexes.get(resource);
+        int pos;
+        if (index == null) {
+            resourceIndexes.put(resource, resourceIndexes.size());
+            byte[] name = resource.getBytes(UTF_8);
+            pos = writeVarint(MetricBinaryFormat.TAG_NEW_RESOURCE, 0);
+            pos = writeVarint(name.length, pos);
+            out.write(scratch, 0, pos);
+            out.write(name);
+            pos = 0;
+        } else {
+            pos = writeVarint(index + MetricBinaryFormat.TAG_RESOURCE_OFFSET, 0);
+        }
+        pos = writeSigned(node.getTimestamp() - lastTimestamp, pos);
+        lastTimestamp = node.getTimestamp();
+        pos = writeSigned(node.getPassQps(), pos);
+        pos = writeSigned(node.getBlockQps(), pos);
+        pos = writeSigned(node.getSuccessQps(), pos);
+        pos = writeSigned(node.getExceptionQps(), pos);
+        pos = writeSigned(node.getRt(), pos);
+        pos = writeSigned(node.getOccupiedPassQps(), pos);
+        pos = writeSigned(node.getConcurrency(), pos);
+        pos = writeSigned(node.getClassification(), pos);
+        out.write(scratch, 0, pos);
+    }
+
+    /**
+     * Write the terminating tag and flush the sink.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        out.write(MetricBinaryFormat.TAG_END);
+        out.flush();
+    }
+
+    private int writeSigned(long value, int pos) {
+        return writeVarint((value << 1) ^ (value >> 63), pos);
+    }
+
+    private int writeVarint(long value, int pos) {
+        while ((value & ~0x7FL) != 0) {
+            scratch[pos++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        scratch[pos++] = (byte)value;
+        return pos;
+    }
+}
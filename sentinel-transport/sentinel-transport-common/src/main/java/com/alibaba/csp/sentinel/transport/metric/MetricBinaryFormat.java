@@ -0,0 +1,80 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+/**
+ * <p>Constants of the binary format of the {@code metric} command, which is negotiated by the
+ * {@link #PARAM_FORMAT} request parameter. Clients that do not know the parameter respond in the thin
+ * text format, so fetchers should tell the format by the {@link #MAGIC} of the content.</p>
+ *
+ * <p>The content starts with the magic and {@link #VERSION}, followed by records and a terminating tag.
+ * Each record starts with a tag: {@link #TAG_END} terminates the content, {@link #TAG_NEW_RESOURCE} is
+ * followed by the UTF-8 bytes (length-prefixed) of a resource name which is appended to the resource
+ * dictionary, and other tags refer to the {@code (tag - 2)}th resource of the dictionary. The tag is followed
+ * by the timestamp delta to the previous record and the metric fields. All numbers are zigzag-encoded
+ * variable-length integers.</p>
+ *
+ * <p>The content could also be compressed by gzip, which is negotiated by the {@link #PARAM_COMPRESS}
+ * request parameter.</p>
+ *
+ * @since 1.8.9
+ */
+public final class MetricBinaryFormat {
+
+    public static final String PARAM_FORMAT = "format";
+    public static final String FORMAT_BINARY = "binary";
+    public static final String FORMAT_TEXT = "text";
+
+    public static final String PARAM_COMPRESS = "compress";
+    public static final String COMPRESS_GZIP = "gzip";
+
+    static final byte[] MAGIC = {'S', 'M', 'B'};
+    static final int VERSION = 1;
+
+    static final int TAG_END = 0;
+    static final int TAG_NEW_RESOURCE = 1;
+    static final int TAG_RESOURCE_OFFSET = 2;
+
+    /**
+     * Check whether the content starts with the magic of the binary format.
+     *
+     * @param head   leading bytes of the content
+     * @param length amount of the valid bytes
+     */
+    public static boolean isBinary(byte[] head, int length) {
+        if (length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether the content starts with the magic of gzip.
+     *
+     * @param head   leading bytes of the content
+     * @param length amount of the valid bytes
+     */
+    public static boolean isGzip(byte[] head, int length) {
+        return length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b;
+    }
+
+    private MetricBinaryFormat() {}
+}
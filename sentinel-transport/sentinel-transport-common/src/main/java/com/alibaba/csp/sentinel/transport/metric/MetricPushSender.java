@@ -0,0 +1,340 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricRingBuffer;
+import com.alibaba.csp.sentinel.transport.config.TransportConfig;
+import com.alibaba.csp.sentinel.transport.endpoint.Endpoint;
+import com.alibaba.csp.sentinel.transport.endpoint.Protocol;
+import com.alibaba.csp.sentinel.transport.ssl.SslFactory;
+import com.alibaba.csp.sentinel.util.AppNameUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.alibaba.csp.sentinel.util.function.Consumer;
+
+/**
+ * <p>Pushes metrics of the {@link MetricRingBuffer} to the dashboard in the {@link MetricBinaryFormat binary
+ * format}, so that the dashboard receives the metrics of each second once they are aggregated, instead of
+ * pulling them with a delay of several seconds.</p>
+ *
+ * <p>Metrics are posted to the dashboard which receives heartbeats, over a persistent HTTP/1.1 connection.
+ * Each push carries the metrics since the last accepted push, so metrics rejected by a busy dashboard
+ * ({@code 503}) or failed to be sent are retried in the next push, as long as they are still kept in the
+ * ring. The dashboard ingests the metrics of each second from a machine only once, so a push retried after
+ * its response is lost is not counted twice.</p>
+ *
+ * <p>The sender is not thread-safe, and should be driven by a single scheduler.</p>
+ *
+ * @since 1.8.9
+ */
+public class MetricPushSender {
+
+    public static final int HTTP_OK = 200;
+    public static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+    private static final int READ_TIMEOUT_MS = 3000;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final MetricRingBuffer ringBuffer;
+    private final List<Endpoint> addressList;
+    private final String app;
+    private final String ip;
+    private final int port;
+    private final String apiPath;
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+    private final byte[] skipBuffer = new byte[1024];
+
+    private int currentAddressIdx = 0;
+    private Endpoint connectedEndpoint;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    /**
+     * Whether the request has been fully sent in the current post, after which it might have been accepted.
+     */
+    private boolean requestSent;
+
+    /**
+     * Time (in milliseconds) since which metrics have not been accepted by the dashboard.
+     */
+    private long cursor = -1;
+    private long lastEncodedTime = -1;
+
+    public MetricPushSender() {
+        this(MetricRingBuffer.getDefault(), TransportConfig.getConsoleServerList(), AppNameUtil.getAppName(),
+            TransportConfig.getHeartbeatClientIp(), -1);
+    }
+
+    /**
+     * @param ringBuffer  the ring where metrics are read from
+     * @param addressList addresses of the dashboard
+     * @param app         app name of the machine
+     * @param ip          ip of the machine, which is the same as heartbeats
+     * @param port        port of the command center, or the runtime port if not positive
+     */
+    public MetricPushSender(MetricRingBuffer ringBuffer, List<Endpoint> addressList, String app, String ip,
+                            int port) {
+        this.ringBuffer = ringBuffer;
+        this.addressList = addressList;
+        this.app = app;
+        this.ip = ip;
+        this.port = port;
+        this.apiPath = TransportConfig.getMetricPushApiPath();
+    }
+
+    /**
+     * Push the metrics since the last accepted push. Metrics earlier than the previous second are not pushed
+     * at the first time, as they might have been pulled by the dashboard.
+     *
+     * @return true if the metrics are accepted by the dashboard
+     */
+    public boolean push() {
+        int machinePort = port > 0 ? port : TransportConfig.getRuntimePort();
+        if (machinePort <= 0 || addressList == null || addressList.isEmpty()) {
+            return false;
+        }
+        if (cursor < 0) {
+            cursor = (TimeUtil.currentTimeMillis() / 1000 - 1) * 1000;
+        }
+        encode();
+
+        Endpoint endpoint = addressList.get(currentAddressIdx % addressList.size());
+        boolean reused = socket != null && endpoint == connectedEndpoint;
+        int status;
+        try {
+            status = post(endpoint, machinePort);
+        } catch (IOException e) {
+            closeConnection();
+            if (reused && !requestSent) {
+                // The idle connection might have been closed by the dashboard, so retry with a new one.
+                // The request is never retried once it has been sent, as the dashboard might have accepted it.
+                try {
+                    status = post(endpoint, machinePort);
+                } catch (IOException ex) {
+                    return handleFailure(endpoint, ex);
+                }
+            } else {
+                return handleFailure(endpoint, e);
+            }
+        }
+        if (status == HTTP_OK) {
+            if (lastEncodedTime >= 0) {
+                cursor = lastEncodedTime / 1000 * 1000 + 1000;
+            }
+            return true;
+        }
+        if (status != HTTP_SERVICE_UNAVAILABLE) {
+            RecordLog.warn("[MetricPushSender] Failed to push metrics to {}, http status code: {}",
+                endpoint, status);
+        }
+        // The dashboard is busy, so the metrics will be retried in the next push.
+        return false;
+    }
+
+    /**
+     * Close the connection to the dashboard.
+     */
+    public void close() {
+        closeConnection();
+    }
+
+    private void encode() {
+        body.reset();
+        lastEncodedTime = -1;
+        try {
+            final MetricBinaryEncoder encoder = new MetricBinaryEncoder(body);
+            ringBuffer.forEach(cursor, Long.MAX_VALUE, null, new Consumer<MetricNode>() {
+                @Override
+                public void accept(MetricNode node) {
+                    try {
+                        encoder.write(node);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    lastEncodedTime = Math.max(lastEncodedTime, node.getTimestamp());
+                }
+            });
+            encoder.finish();
+        } catch (IOException e) {
+            // Never happens as the content is written to memory.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean handleFailure(Endpoint endpoint, IOException e) {
+        closeConnection();
+        currentAddressIdx++;
+        RecordLog.warn("[MetricPushSender] Failed to push metrics to " + endpoint, e);
+        return false;
+    }
+
+    private int post(Endpoint endpoint, int machinePort) throws IOException {
+        requestSent = false;
+        ensureConnected(endpoint);
+        StringBuilder head = new StringBuilder(256);
+        head.append("POST ").append(apiPath)
+            .append("?app=").append(URLEncoder.encode(app, "UTF-8"))
+            .append("&ip=").append(URLEncoder.encode(ip, "UTF-8"))
+            .append("&port=").append(machinePort)
+            .append(" HTTP/1.1\r\nHost: ").append(endpoint.getHost()).append(':').append(endpoint.getPort())
+            .append("\r\nContent-Type: application/octet-stream\r\nContent-Length: ").append(body.size())
+            .append("\r\n\r\n");
+        out.write(head.toString().getBytes(UTF_8));
+        body.writeTo(out);
+        out.flush();
+        requestSent = true;
+        return readResponse();
+    }
+
+    private void ensureConnected(Endpoint endpoint) throws IOException {
+        if (socket != null && endpoint == connectedEndpoint) {
+            return;
+        }
+        closeConnection();
+        Socket s = endpoint.getProtocol() == Protocol.HTTPS
+            ? SslFactory.getSslConnectionSocketFactory().getSocketFactory().createSocket() : new Socket();
+        try {
+            s.setSoTimeout(READ_TIMEOUT_MS);
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(endpoint.getHost(), endpoint.getPort()), CONNECT_TIMEOUT_MS);
+            in = new BufferedInputStream(s.getInputStream());
+            out = new BufferedOutputStream(s.getOutputStream());
+        } catch (IOException e) {
+            s.close();
+            throw e;
+        }
+        socket = s;
+        connectedEndpoint = endpoint;
+    }
+
+    /**
+     * Read the status of the response, and skip its body so that the connection could be reused.
+     */
+    private int readResponse() throws IOException {
+        String statusLine = readLine();
+        int first = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || first < 0) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        int second = statusLine.indexOf(' ', first + 1);
+        int status;
+        try {
+            status = Integer.parseInt(statusLine.substring(first + 1, second < 0 ? statusLine.length() : second));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean close = statusLine.startsWith("HTTP/1.0");
+        String line;
+        while (!(line = readLine()).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = Long.parseLong(value);
+            } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                chunked = value.toLowerCase().contains("chunked");
+            } else if ("Connection".equalsIgnoreCase(name)) {
+                close = "close".equalsIgnoreCase(value);
+            }
+        }
+        if (chunked) {
+            while (true) {
+                String sizeLine = readLine();
+                int semicolon = sizeLine.indexOf(';');
+                long size = Long.parseLong((semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim(), 16);
+                if (size == 0) {
+                    // Skip the trailers.
+                    while (!readLine().isEmpty()) {
+                    }
+                    break;
+                }
+                skip(size);
+                readLine();
+            }
+        } else if (contentLength >= 0) {
+            skip(contentLength);
+        } else {
+            // The body is delimited by closing the connection.
+            close = true;
+        }
+        if (close) {
+            closeConnection();
+        }
+        return status;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Connection closed by the dashboard");
+            }
+            if (b != '\r') {
+                sb.append((char)b);
+            }
+            if (sb.length() > MAX_LINE_LENGTH) {
+                throw new IOException("Response line too long");
+            }
+        }
+        return sb.toString();
+    }
+
+    private void skip(long length) throws IOException {
+        while (length > 0) {
+            int n = in.read(skipBuffer, 0, (int)Math.min(length, skipBuffer.length));
+            if (n < 0) {
+                throw new IOException("Connection closed by the dashboard");
+            }
+            length -= n;
+        }
+    }
+
+    private void closeConnection() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+        socket = null;
+        connectedEndpoint = null;
+        in = null;
+        out = null;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
+import com.alibaba.csp.sentinel.command.vo.NodeVo;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.fastjson.JSON;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FetchJsonTreeCommandHandlerTest {
+
+    @Test
+    public void testStreamingJsonTree() throws Exception {
+        ContextUtil.enter("jsonTreeTestContext");
+        Entry outer = SphU.entry("jsonTreeOuter");
+        Entry inner = SphU.entry("jsonTreeInner");
+        inner.exit();
+        outer.exit();
+        ContextUtil.exit();
+
+        CommandResponse<StreamingCommandResult> response = new FetchJsonTreeCommandHandler()
+            .handle(new CommandRequest());
+        assertTrue(response.isSuccess());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getResult().writeTo(out, Charset.forName("UTF-8"));
+        String json = new String(out.toByteArray(), "UTF-8");
+
+        List<NodeVo> nodes = JSON.parseArray(json, NodeVo.class);
+        assertEquals(Constants.ROOT_ID, nodes.get(0).getResource());
+        int outerIndex = indexOf(nodes, "jsonTreeOuter");
+        int innerIndex = indexOf(nodes, "jsonTreeInner");
+        assertTrue(outerIndex > 0 && innerIndex == outerIndex + 1);
+        assertEquals(nodes.get(outerIndex).getId(), nodes.get(innerIndex).getParentId());
+    }
+
+    private static int indexOf(List<NodeVo> nodes, String resource) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (resource.equals(nodes.get(i).getResource())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
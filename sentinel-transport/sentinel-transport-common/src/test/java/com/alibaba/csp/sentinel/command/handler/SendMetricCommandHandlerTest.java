@@ -0,0 +1,136 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command.handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricRingBuffer;
+import com.alibaba.csp.sentinel.node.metric.MetricSearcher;
+import com.alibaba.csp.sentinel.node.metric.TieredMetricSearcher;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryDecoder;
+import com.alibaba.csp.sentinel.transport.metric.MetricBinaryFormat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SendMetricCommandHandlerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testBinaryAndCompressedFormats() throws Exception {
+        long time = 1700000000000L;
+        MetricRingBuffer ringBuffer = new MetricRingBuffer(10);
+        for (int second = 0; second < 6; second++) {
+            List<MetricNode> nodes = new ArrayList<>();
+            for (int r = 0; r < 50; r++) {
+                MetricNode node = new MetricNode();
+                node.setResource("res-" + r);
+                node.setPassQps(r + second);
+                node.setSuccessQps(r);
+                node.setRt(second);
+                nodes.add(node);
+            }
+            ringBuffer.write(time + second * 1000, nodes);
+        }
+        SendMetricCommandHandler handler = new SendMetricCommandHandler(
+            new TieredMetricSearcher(ringBuffer, (MetricSearcher)null));
+
+        String text = withoutSystemMetrics(new String(fetch(handler, null, null), UTF_8));
+        String[] lines = text.split("\n");
+        assertEquals(300, lines.length);
+
+        byte[] binary = fetch(handler, MetricBinaryFormat.FORMAT_BINARY, null);
+        assertTrue(MetricBinaryFormat.isBinary(binary, binary.length));
+        assertEquals(text, withoutSystemMetrics(decodeToText(new ByteArrayInputStream(binary))));
+        assertTrue(binary.length * 3 < text.length());
+
+        byte[] gzipBinary = fetch(handler, MetricBinaryFormat.FORMAT_BINARY, MetricBinaryFormat.COMPRESS_GZIP);
+        assertTrue(MetricBinaryFormat.isGzip(gzipBinary, gzipBinary.length));
+        assertEquals(text,
+            withoutSystemMetrics(decodeToText(new GZIPInputStream(new ByteArrayInputStream(gzipBinary)))));
+
+        byte[] gzipText = fetch(handler, null, MetricBinaryFormat.COMPRESS_GZIP);
+        ByteArrayOutputStream unzipped = new ByteArrayOutputStream();
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipText));
+        byte[] buf = new byte[1024];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            unzipped.write(buf, 0, n);
+        }
+        assertEquals(text, withoutSystemMetrics(new String(unzipped.toByteArray(), UTF_8)));
+    }
+
+    private static byte[] fetch(SendMetricCommandHandler handler, String format, String compress) throws Exception {
+        CommandRequest request = new CommandRequest();
+        request.addParam("startTime", "1700000000000");
+        request.addParam("endTime", "1700000010000");
+        if (format != null) {
+            request.addParam(MetricBinaryFormat.PARAM_FORMAT, format);
+        }
+        if (compress != null) {
+            request.addParam(MetricBinaryFormat.PARAM_COMPRESS, compress);
+        }
+        StreamingCommandResult result = handler.handle(request).getResult();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.writeTo(out, UTF_8);
+        return out.toByteArray();
+    }
+
+    /**
+     * Drop the system load and cpu usage, which are appended at the time of fetching.
+     */
+    private static String withoutSystemMetrics(String text) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : text.split("\n")) {
+            if (line.contains("|res-")) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decodeToText(InputStream in) throws Exception {
+        MetricBinaryDecoder decoder = new MetricBinaryDecoder(in);
+        StringBuilder sb = new StringBuilder();
+        while (decoder.next()) {
+            MetricNode node = new MetricNode();
+            node.setTimestamp(decoder.getTimestamp());
+            node.setResource(decoder.getResource());
+            node.setPassQps(decoder.getPassQps());
+            node.setBlockQps(decoder.getBlockQps());
+            node.setSuccessQps(decoder.getSuccessQps());
+            node.setExceptionQps(decoder.getExceptionQps());
+            node.setRt(decoder.getRt());
+            node.setOccupiedPassQps(decoder.getOccupiedPassQps());
+            node.setConcurrency(decoder.getConcurrency());
+            node.setClassification(decoder.getClassification());
+            sb.append(node.toThinString()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.metric;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricBinaryCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<MetricNode> nodes = new ArrayList<>();
+        long time = 1700000000000L;
+        for (int second = 0; second < 50; second++) {
+            for (int r = 0; r < 200; r++) {
+                nodes.add(node(time + second * 1000, "resource-" + r + "-中文", r * 1000L + second, r,
+                    second, -1, Long.MAX_VALUE - r));
+            }
+        }
+        // Timestamps are not necessarily ascending.
+        nodes.add(node(time - 5000, "resource-0-中文", 1, 2, 3, 4, 5));
+
+        byte[] bytes = encode(nodes);
+        assertTrue(MetricBinaryFormat.isBinary(bytes, bytes.length));
+        assertFalse(MetricBinaryFormat.isGzip(bytes, bytes.length));
+
+        MetricBinaryDecoder decoder = new MetricBinaryDecoder(new ByteArrayInputStream(bytes));
+        for (MetricNode expected : nodes) {
+            assertTrue(decoder.next());
+            assertEquals(expected.toThinString(), toNode(decoder).toThinString());
+        }
+        assertFalse(decoder.next());
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    public void testDecodeWithHead() throws Exception {
+        byte[] bytes = encode(Arrays.asList(node(1000, "a", 1, 2, 3, 4, 5), node(2000, "a", 6, 7, 8, 9, 10)));
+        byte[] head = Arrays.copyOf(bytes, 5);
+        MetricBinaryDecoder decoder = new MetricBinaryDecoder(
+            new ByteArrayInputStream(bytes, head.length, bytes.length - head.length), head, 0, head.length);
+        assertTrue(decoder.next());
+        assertEquals(1000, decoder.getTimestamp());
+        assertTrue(decoder.next());
+        assertEquals("a", decoder.getResource());
+        assertEquals(2000, decoder.getTimestamp());
+        assertEquals(10, decoder.getRt());
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    public void testIllegalContent() throws Exception {
+        try {
+            new MetricBinaryDecoder(new ByteArrayInputStream("1000|a|1|2|3|4|5".getBytes("UTF-8")));
+            fail("Text content should be rejected");
+        } catch (IOException expected) {
+        }
+
+        byte[] bytes = encode(Arrays.asList(node(1000, "a", 1, 2, 3, 4, 5)));
+        MetricBinaryDecoder decoder = new MetricBinaryDecoder(
+            new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3)));
+        try {
+            decoder.next();
+            fail("Truncated content should be rejected");
+        } catch (EOFException expected) {
+        }
+    }
+
+    private static byte[] encode(List<MetricNode> nodes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MetricBinaryEncoder encoder = new MetricBinaryEncoder(out);
+        for (MetricNode node : nodes) {
+            encoder.write(node);
+        }
+        encoder.finish();
+        return out.toByteArray();
+    }
+
+    private static MetricNode node(long timestamp, String resource, long pass, long block, long success,
+                                   long exception, long rt) {
+        MetricNode node = new MetricNode();
+        node.setTimestamp(timestamp);
+        node.setResource(resource);
+        node.setPassQps(pass);
+        node.setBlockQps(block);
+        node.setSuccessQps(success);
+        node.setExceptionQps(exception);
+        node.setRt(rt);
+        node.setOccupiedPassQps(pass / 2);
+        node.setConcurrency((int)(block % 100));
+        node.setClassification(1);
+        return node;
+    }
+
+    private static MetricNode toNode(MetricBinaryDecoder decoder) {
+        MetricNode node = new MetricNode();
+        node.setTimestamp(decoder.getTimestamp());
+        node.setResource(decoder.getResource());
+        node.setPassQps(decoder.getPassQps());
+        node.setBlockQps(decoder.getBlockQps());
+        node.setSuccessQps(decoder.getSuccessQps());
+        node.setExceptionQps(decoder.getExceptionQps());
+        node.setRt(decoder.getRt());
+        node.setOccupiedPassQps(decoder.getOccupiedPassQps());
+        node.setConcurrency(decoder.getConcurrency());
+        node.setClassification(decoder.getClassification());
+        return node;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.netty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * <p>An output stream which sends the written bytes as HTTP chunks of a fixed size.</p>
+ *
+ * <p>The stream must be written by a thread other than the event loop of the channel. It waits for the
+ * pending chunks to be sent once the channel is not writable, so that the memory of the response is bounded
+ * by the write buffer water mark of the channel.</p>
+ *
+ * @since 1.8.9
+ */
+final class HttpChunkedOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private static final long WRITE_TIMEOUT_MS = 30000;
+
+    private final ChannelHandlerContext ctx;
+
+    private ByteBuf buffer;
+    private boolean closed = false;
+
+    HttpChunkedOutputStream(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer();
+        buffer.writeByte(b);
+        if (!buffer.isWritable()) {
+            sendChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureBuffer();
+            int n = Math.min(len, buffer.writableBytes());
+            buffer.writeBytes(b, off, n);
+            off += n;
+            len -= n;
+            if (!buffer.isWritable()) {
+                sendChunk();
+            }
+        }
+    }
+
+    /**
+     * Send the buffered bytes as a chunk.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer != null && buffer.isReadable()) {
+            sendChunk();
+        }
+    }
+
+    /**
+     * Send the remaining bytes and the last chunk.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        await(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT));
+    }
+
+    /**
+     * Release the buffered bytes without sending them, e.g. when the content fails.
+     */
+    void discard() {
+        closed = true;
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+
+    private void ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (buffer == null) {
+            buffer = ctx.alloc().buffer(CHUNK_SIZE, CHUNK_SIZE);
+        }
+    }
+
+    private void sendChunk() throws IOException {
+        if (!ctx.channel().isActive()) {
+            throw new IOException("Channel closed");
+        }
+        ByteBuf chunk = buffer;
+        buffer = null;
+        ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(chunk));
+        if (!ctx.channel().isWritable()) {
+            await(future);
+        }
+    }
+
+    private static void await(ChannelFuture future) throws IOException {
+        if (!future.awaitUninterruptibly(WRITE_TIMEOUT_MS)) {
+            future.channel().close();
+            throw new IOException("Timeout when writing HTTP chunk");
+        }
+        if (!future.isSuccess()) {
+            throw new IOException("Failed to write HTTP chunk", future.cause());
+        }
+    }
+}
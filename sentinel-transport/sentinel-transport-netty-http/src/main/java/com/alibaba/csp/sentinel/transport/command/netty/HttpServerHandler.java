@@ -20,10 +20,17 @@ import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.command.codec.CodecRegistry;
@@ -36,11 +43,13 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
@@ -53,6 +62,7 @@ import io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 
 /**
  * Netty-based HTTP server handler for command center.
@@ -63,6 +73,13 @@ import static io.netty.handler.codec.http.HttpResponseStatus.OK;
  */
 public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
+    /**
+     * Streaming results are written by these threads rather than the event loop, as writing waits for the
+     * channel to be writable.
+     */
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private static final ExecutorService STREAMING_EXECUTOR = createStreamingExecutor();
+
     private final CodecRegistry codecRegistry = new CodecRegistry();
 
     @Override
@@ -126,6 +143,10 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
     private void writeResponse(CommandResponse response, ChannelHandlerContext ctx, boolean keepAlive)
         throws Exception {
+        if (response.isSuccess() && response.getResult() instanceof StreamingCommandResult) {
+            writeStreamingResponse((StreamingCommandResult)response.getResult(), ctx);
+            return;
+        }
         byte[] body;
         if (response.isSuccess()) {
             if (response.getResult() == null) {
@@ -165,6 +186,47 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
     }
 
+    /**
+     * Write the streaming result in chunked transfer encoding, and close the connection after the last chunk
+     * as other responses do.
+     */
+    private void writeStreamingResponse(final StreamingCommandResult result, final ChannelHandlerContext ctx) {
+        try {
+            STREAMING_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, OK);
+                    httpResponse.headers().set("Content-Type", "text/plain; charset=" + SentinelConfig.charset());
+                    httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+                    HttpUtil.setTransferEncodingChunked(httpResponse, true);
+                    ctx.write(httpResponse);
+
+                    HttpChunkedOutputStream out = new HttpChunkedOutputStream(ctx);
+                    try {
+                        result.writeTo(out, Charset.forName(SentinelConfig.charset()));
+                        out.close();
+                    } catch (Throwable e) {
+                        CommandCenterLog.warn("Error when writing streaming result", e);
+                        out.discard();
+                        ctx.close();
+                        return;
+                    }
+                    ctx.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            writeErrorResponse(SERVICE_UNAVAILABLE.code(), SERVER_BUSY_MESSAGE, ctx);
+        }
+    }
+
+    private static ExecutorService createStreamingExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(STREAMING_THREADS, STREAMING_THREADS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(STREAMING_QUEUE_SIZE),
+            new NamedThreadFactory("sentinel-netty-command-streaming", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private CommandRequest parseRequest(FullHttpRequest request) {
         QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.uri());
         CommandRequest serverRequest = new CommandRequest();
@@ -245,4 +307,8 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
     }
 
     private static final String SERVER_ERROR_MESSAGE = "Command server error";
+    private static final String SERVER_BUSY_MESSAGE = "Command server busy";
+
+    private static final int STREAMING_THREADS = 2;
+    private static final int STREAMING_QUEUE_SIZE = 64;
 }
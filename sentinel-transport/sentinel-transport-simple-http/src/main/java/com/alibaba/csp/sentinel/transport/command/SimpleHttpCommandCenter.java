@@ -16,9 +16,11 @@
 package com.alibaba.csp.sentinel.transport.command;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -37,6 +39,7 @@ import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.CommandCenter;
 import com.alibaba.csp.sentinel.transport.command.http.HttpEventTask;
+import com.alibaba.csp.sentinel.transport.command.http.NioHttpCommandServer;
 import com.alibaba.csp.sentinel.transport.config.TransportConfig;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
@@ -52,6 +55,11 @@ public class SimpleHttpCommandCenter implements CommandCenter {
     private static final int DEFAULT_SERVER_SO_TIMEOUT = 3000;
     private static final int DEFAULT_PORT = 8719;
 
+    /**
+     * Connections do not hold threads in NIO mode, so more pending commands could be queued.
+     */
+    private static final int NIO_COMMAND_QUEUE_SIZE = 1024;
+
     @SuppressWarnings("rawtypes")
     private static final Map<String, CommandHandler> handlerMap = new ConcurrentHashMap<String, CommandHandler>();
 
@@ -61,6 +69,7 @@ public class SimpleHttpCommandCenter implements CommandCenter {
     private ExecutorService bizExecutor;
 
     private ServerSocket socketReference;
+    private NioHttpCommandServer nioServer;
 
     @Override
     @SuppressWarnings("rawtypes")
@@ -73,8 +82,9 @@ public class SimpleHttpCommandCenter implements CommandCenter {
     @Override
     public void start() throws Exception {
         int nThreads = Runtime.getRuntime().availableProcessors();
+        final boolean nioMode = TransportConfig.isNioServerMode();
         this.bizExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
-            new ArrayBlockingQueue<Runnable>(10),
+            new ArrayBlockingQueue<Runnable>(nioMode ? NIO_COMMAND_QUEUE_SIZE : 10),
             new NamedThreadFactory("sentinel-command-center-service-executor", true),
             new RejectedExecutionHandler() {
                 @Override
@@ -97,6 +107,10 @@ public class SimpleHttpCommandCenter implements CommandCenter {
 
             @Override
             public void run() {
+                if (nioMode) {
+                    startNioServer();
+                    return;
+                }
                 boolean success = false;
                 ServerSocket serverSocket = getServerSocketFromBasePort(port);
 
@@ -118,6 +132,26 @@ public class SimpleHttpCommandCenter implements CommandCenter {
                 executor.shutdown();
             }
 
+            private void startNioServer() {
+                ServerSocketChannel serverChannel = getServerChannelFromBasePort(port);
+                port = PORT_UNINITIALIZED;
+                if (serverChannel != null) {
+                    try {
+                        nioServer = new NioHttpCommandServer(serverChannel, bizExecutor);
+                        port = nioServer.getLocalPort();
+                        CommandCenterLog.info("[CommandCenter] Begin listening at port " + port + " in NIO mode");
+                        executor.submit(nioServer);
+                    } catch (IOException e) {
+                        CommandCenterLog.warn("[CommandCenter] Failed to start NIO command server", e);
+                        closeQuietly(serverChannel);
+                        port = PORT_UNINITIALIZED;
+                    }
+                } else {
+                    CommandCenterLog.info("[CommandCenter] chooses port fail, http command center will not work");
+                }
+                TransportConfig.setRuntimePort(port);
+                executor.shutdown();
+            }
         };
 
         new Thread(serverInitTask).start();
@@ -149,8 +183,51 @@ public class SimpleHttpCommandCenter implements CommandCenter {
         return null;
     }
 
+    /**
+     * Get a server channel from an available port from a base port, in the same way as
+     * {@link #getServerSocketFromBasePort(int)}.
+     *
+     * @param basePort base port to start
+     * @return new bound channel with available port
+     */
+    private static ServerSocketChannel getServerChannelFromBasePort(int basePort) {
+        int tryCount = 0;
+        while (true) {
+            ServerSocketChannel channel = null;
+            try {
+                channel = ServerSocketChannel.open();
+                channel.socket().setReuseAddress(true);
+                channel.socket().bind(new InetSocketAddress(basePort + tryCount / 3), 100);
+                return channel;
+            } catch (IOException e) {
+                closeQuietly(channel);
+                tryCount++;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(30);
+                } catch (InterruptedException e1) {
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(ServerSocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore.
+            }
+        }
+    }
+
     @Override
     public void stop() throws Exception {
+        if (nioServer != null) {
+            nioServer.stop();
+            nioServer = null;
+        }
         if (socketReference != null) {
             try {
                 socketReference.close();
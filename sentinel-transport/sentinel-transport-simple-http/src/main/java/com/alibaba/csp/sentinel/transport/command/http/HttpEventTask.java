@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.transport.command.http;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
@@ -26,6 +27,7 @@ import com.alibaba.csp.sentinel.transport.util.HttpCommandUtils;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
@@ -52,6 +54,8 @@ public class HttpEventTask implements Runnable {
     public static final String SERVER_ERROR_MESSAGE = "Command server error";
     public static final String INVALID_COMMAND_MESSAGE = "Invalid command";
 
+    private static final int STREAMING_BUFFER_SIZE = 8192;
+
     private final Socket socket;
 
     private boolean writtenHead = false;
@@ -223,7 +227,7 @@ public class HttpEventTask implements Runnable {
         }
     }
 
-    private static boolean checkContentTypeSupported(String contentType) {
+    static boolean checkContentTypeSupported(String contentType) {
         int idx = contentType.indexOf(";");
         String type;
         if (idx > 0) {
@@ -308,6 +312,10 @@ public class HttpEventTask implements Runnable {
                 writeResponse(printWriter, StatusCode.OK, null);
                 return;
             }
+            if (response.getResult() instanceof StreamingCommandResult) {
+                writeStreamingResponse(printWriter, (StreamingCommandResult)response.getResult());
+                return;
+            }
             // Here we directly use `toString` to encode the result to plain text.
             byte[] buffer = response.getResult().toString().getBytes(SentinelConfig.charset());
             writeResponse(printWriter, StatusCode.OK, new String(buffer));
@@ -331,6 +339,19 @@ public class HttpEventTask implements Runnable {
         writtenHead = true;
     }
 
+    /**
+     * Write the streaming result without Content-Length, as the body is delimited by closing the connection.
+     */
+    private void writeStreamingResponse(PrintWriter out, StreamingCommandResult result) throws IOException {
+        out.print("HTTP/1.0 " + StatusCode.OK.toString() + "\r\n"
+            + "Connection: close\r\n\r\n");
+        out.flush();
+        writtenHead = true;
+        OutputStream body = new BufferedOutputStream(socket.getOutputStream(), STREAMING_BUFFER_SIZE);
+        result.writeTo(body, Charset.forName(SentinelConfig.charset()));
+        body.flush();
+    }
+
     /**
      * Parse raw HTTP request line to a {@link CommandRequest}.
      *
@@ -0,0 +1,380 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+import com.alibaba.csp.sentinel.transport.command.exception.RequestException;
+import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
+import com.alibaba.csp.sentinel.transport.util.HttpCommandUtils;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>A non-blocking HTTP command server based on a single selector thread.</p>
+ *
+ * <p>The selector thread accepts connections, parses requests and writes responses, while command
+ * handlers are executed by the given executor. Slow clients never hold an executor thread, and
+ * connections are kept alive between requests (HTTP/1.1 by default, or HTTP/1.0 with
+ * {@code Connection: keep-alive}). Idle connections are closed after a timeout.</p>
+ *
+ * @since 1.8.9
+ */
+public class NioHttpCommandServer implements Runnable {
+
+    public static final String SERVICE_BUSY_MESSAGE = "Command server busy";
+
+    /**
+     * Timeout of reading a partial request, the same as the socket timeout of the blocking server.
+     */
+    private static final long READ_TIMEOUT_MS = 3000;
+    private static final long KEEP_ALIVE_TIMEOUT_MS = 30000;
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService commandExecutor;
+    private final Queue<NioHttpConnection> pendingWrites = new ConcurrentLinkedQueue<NioHttpConnection>();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param serverChannel   a bound server channel
+     * @param commandExecutor executor of the command handlers
+     */
+    public NioHttpCommandServer(ServerSocketChannel serverChannel, ExecutorService commandExecutor)
+        throws IOException {
+        this.serverChannel = serverChannel;
+        this.commandExecutor = commandExecutor;
+        this.selector = Selector.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        long lastIdleCheck = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                if (!running) {
+                    break;
+                }
+                processPendingWrites();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handleKey(key);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastIdleCheck >= SELECT_TIMEOUT_MS) {
+                    closeIdleConnections(now);
+                    lastIdleCheck = now;
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (Throwable e) {
+                CommandCenterLog.warn("[NioHttpCommandServer] Error in selector loop", e);
+            }
+        }
+        closeAll();
+    }
+
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        NioHttpConnection connection = (NioHttpConnection)key.attachment();
+        try {
+            if (key.isReadable()) {
+                if (!connection.read()) {
+                    closeConnection(key, connection);
+                    return;
+                }
+                if (!connection.isProcessing()) {
+                    processRequest(key, connection);
+                }
+            } else if (key.isWritable()) {
+                writeResponse(key, connection);
+            }
+        } catch (IOException e) {
+            closeConnection(key, connection);
+        } catch (CancelledKeyException e) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new NioHttpConnection(channel));
+        } catch (IOException e) {
+            CommandCenterLog.info("[NioHttpCommandServer] Failed to accept connection", e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e1) {
+                    // Ignore.
+                }
+            }
+        }
+    }
+
+    private void processRequest(SelectionKey key, final NioHttpConnection connection) throws IOException {
+        final CommandRequest request;
+        try {
+            request = connection.tryParse();
+        } catch (RequestException e) {
+            CommandCenterLog.warn("[NioHttpCommandServer] Illegal request: " + e.getMessage());
+            connection.startResponse(e.getStatusCode(), e.getMessage());
+            key.interestOps(SelectionKey.OP_WRITE);
+            writeResponse(key, connection);
+            return;
+        }
+        if (request == null) {
+            return;
+        }
+        // Stop reading until the response has been written.
+        key.interestOps(0);
+        final long start = System.currentTimeMillis();
+        try {
+            commandExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    handleCommand(connection, request, start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            CommandCenterLog.info("[NioHttpCommandServer] Command rejected: " + connection.getRequestLine());
+            connection.setPendingResponse(StatusCode.SERVICE_UNAVAILABLE, SERVICE_BUSY_MESSAGE);
+            pendingWrites.offer(connection);
+            selector.wakeup();
+        }
+    }
+
+    private void handleCommand(final NioHttpConnection connection, CommandRequest request, long start) {
+        StatusCode statusCode;
+        CharSequence body;
+        try {
+            String commandName = HttpCommandUtils.getTarget(request);
+            CommandHandler<?> commandHandler = null;
+            if (StringUtil.isNotBlank(commandName)) {
+                commandHandler = SimpleHttpCommandCenter.getHandler(commandName);
+            }
+            if (StringUtil.isBlank(commandName)) {
+                statusCode = StatusCode.BAD_REQUEST;
+                body = HttpEventTask.INVALID_COMMAND_MESSAGE;
+            } else if (commandHandler == null) {
+                statusCode = StatusCode.BAD_REQUEST;
+                body = "Unknown command `" + commandName + '`';
+            } else {
+                CommandResponse<?> response = commandHandler.handle(request);
+                if (response.isSuccess() && response.getResult() instanceof StreamingCommandResult) {
+                    if (writeStreamingResult(connection, (StreamingCommandResult)response.getResult())) {
+                        logRequest(connection, start);
+                        return;
+                    }
+                    statusCode = StatusCode.INTERNAL_SERVER_ERROR;
+                    body = HttpEventTask.SERVER_ERROR_MESSAGE;
+                } else if (response.isSuccess()) {
+                    statusCode = StatusCode.OK;
+                    body = response.getResult() == null ? null : toCharSequence(response.getResult());
+                } else {
+                    statusCode = StatusCode.BAD_REQUEST;
+                    body = response.getException() == null ? HttpEventTask.SERVER_ERROR_MESSAGE
+                        : response.getException().getMessage();
+                }
+            }
+        } catch (Throwable e) {
+            CommandCenterLog.warn("[NioHttpCommandServer] CommandCenter error", e);
+            statusCode = StatusCode.INTERNAL_SERVER_ERROR;
+            body = HttpEventTask.SERVER_ERROR_MESSAGE;
+        }
+        connection.setPendingResponse(statusCode, body);
+        pendingWrites.offer(connection);
+        selector.wakeup();
+        logRequest(connection, start);
+    }
+
+    /**
+     * Write the streaming result through a bounded pipe to the selector thread. The command executor thread
+     * is blocked while the pipe is full, so that the memory of the response is bounded.
+     *
+     * @return false if the result failed before anything has been sent, so that an error response could be sent
+     */
+    private boolean writeStreamingResult(final NioHttpConnection connection, StreamingCommandResult result) {
+        NioStreamingBody body = new NioStreamingBody(connection, new Runnable() {
+            @Override
+            public void run() {
+                pendingWrites.offer(connection);
+                selector.wakeup();
+            }
+        });
+        try {
+            result.writeTo(body, Charset.forName(SentinelConfig.charset()));
+            body.close();
+            return true;
+        } catch (Throwable e) {
+            CommandCenterLog.warn("[NioHttpCommandServer] Error when writing streaming result", e);
+            if (!body.isStarted()) {
+                return false;
+            }
+            // The response has been started, so the only way to report the error is aborting the connection.
+            body.abort();
+            return true;
+        }
+    }
+
+    private void logRequest(NioHttpConnection connection, long start) {
+        CommandCenterLog.info("[NioHttpCommandServer] Deal a request: " + connection.getRequestLine()
+            + ", time cost: " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Results which are already character sequences (e.g. a {@link StringBuilder}) are encoded directly
+     * without being copied into a string.
+     */
+    private static CharSequence toCharSequence(Object result) {
+        if (result instanceof CharSequence) {
+            return (CharSequence)result;
+        }
+        return result.toString();
+    }
+
+    private void processPendingWrites() throws IOException {
+        NioHttpConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.getChannel().keyFor(selector);
+            if (key == null || !key.isValid()) {
+                connection.close();
+                continue;
+            }
+            try {
+                if (connection.isWriting()) {
+                    // A chunk of the streaming response has been handed off.
+                    if (connection.isWaitingForBody()) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        writeResponse(key, connection);
+                    }
+                } else if (connection.startResponse(null, null)) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    writeResponse(key, connection);
+                }
+            } catch (IOException e) {
+                closeConnection(key, connection);
+            }
+        }
+    }
+
+    private void writeResponse(SelectionKey key, NioHttpConnection connection) throws IOException {
+        if (!connection.write()) {
+            if (connection.isWaitingForBody()) {
+                // Resumed when the next chunk is handed off.
+                key.interestOps(0);
+            }
+            return;
+        }
+        if (connection.isCloseAfterWrite()) {
+            closeConnection(key, connection);
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        // Handle the pipelined request if any.
+        if (connection.hasPartialRequest()) {
+            processRequest(key, connection);
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (!(attachment instanceof NioHttpConnection)) {
+                continue;
+            }
+            NioHttpConnection connection = (NioHttpConnection)attachment;
+            if (connection.isProcessing() && !connection.isWriting()) {
+                // The command is still being handled.
+                continue;
+            }
+            long timeout = connection.isWriting() || !connection.hasPartialRequest()
+                ? KEEP_ALIVE_TIMEOUT_MS : READ_TIMEOUT_MS;
+            if (now - connection.getLastActiveTime() > timeout) {
+                closeConnection(key, connection);
+            }
+        }
+    }
+
+    private void closeConnection(SelectionKey key, NioHttpConnection connection) {
+        key.cancel();
+        connection.close();
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof NioHttpConnection) {
+                    ((NioHttpConnection)attachment).close();
+                }
+            }
+            selector.close();
+        } catch (Exception e) {
+            CommandCenterLog.warn("[NioHttpCommandServer] Error when closing the selector", e);
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            CommandCenterLog.warn("[NioHttpCommandServer] Error when closing the server channel", e);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.command.exception.RequestException;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>State of a connection of {@link NioHttpCommandServer}, which is only accessed by the selector thread
+ * except the response hand-off.</p>
+ *
+ * <p>Requests are parsed incrementally from the read buffer. Only one request of a connection is processed
+ * at a time, and pipelined requests are parsed after the response of the former one has been written.
+ * Response bodies are encoded chunk by chunk when the channel is writable, and sent in chunked transfer
+ * encoding (or delimited by closing the connection for HTTP/1.0) if they exceed a single chunk. Streaming
+ * responses are taken from a {@link NioStreamingBody} in the same way.</p>
+ *
+ * @since 1.8.9
+ */
+final class NioHttpConnection {
+
+    static final int BODY_CHUNK_SIZE = 8192;
+    static final int MAX_REQUEST_SIZE = 8 * 1024 * 1024;
+
+    private static final int INITIAL_READ_BUFFER_SIZE = 1024;
+    private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'\r', '\n', '0', '\r', '\n', '\r', '\n'};
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    private final SocketChannel channel;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+    private int scannedTo = 0;
+    private int headerEnd = -1;
+    private String requestLine;
+    private Map<String, String> headers;
+    private int contentLength = 0;
+
+    private boolean keepAlive;
+    private boolean http11;
+    private boolean processing;
+    private long lastActiveTime;
+
+    /**
+     * Set by the command executor, then taken by the selector thread.
+     */
+    private volatile PendingResponse pendingResponse;
+
+    private final ByteBuffer[] outBuffers = new ByteBuffer[3];
+    private CharBuffer bodySource;
+    private NioStreamingBody streamingBody;
+    private boolean waitingForBody;
+    private CharsetEncoder encoder;
+    private ByteBuffer encodeBuffer;
+    private ByteBuffer bodyBuffer;
+    private boolean writing;
+    private boolean chunked;
+    private boolean bodyFinished;
+    private boolean closeAfterWrite;
+
+    NioHttpConnection(SocketChannel channel) {
+        this.channel = channel;
+        this.lastActiveTime = System.currentTimeMillis();
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    boolean isProcessing() {
+        return processing;
+    }
+
+    boolean isWriting() {
+        return writing;
+    }
+
+    /**
+     * @return whether the streaming response is waiting for the next chunk from the command executor
+     */
+    boolean isWaitingForBody() {
+        return waitingForBody;
+    }
+
+    boolean hasPartialRequest() {
+        return readBuffer.position() > 0;
+    }
+
+    String getRequestLine() {
+        return requestLine;
+    }
+
+    /**
+     * Read available bytes from the channel.
+     *
+     * @return false if the peer has closed the connection
+     */
+    boolean read() throws IOException {
+        lastActiveTime = System.currentTimeMillis();
+        while (true) {
+            if (!readBuffer.hasRemaining()) {
+                if (readBuffer.capacity() >= MAX_REQUEST_SIZE) {
+                    // Let the parser reject it.
+                    return true;
+                }
+                ByteBuffer grown = ByteBuffer.allocate(Math.min(readBuffer.capacity() * 2, MAX_REQUEST_SIZE));
+                readBuffer.flip();
+                grown.put(readBuffer);
+                readBuffer = grown;
+            }
+            int n = channel.read(readBuffer);
+            if (n < 0) {
+                return false;
+            }
+            if (n == 0) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Try to parse a complete request from the read buffer.
+     *
+     * @return the parsed request, or null if not complete yet
+     * @throws RequestException if the request is illegal
+     */
+    CommandRequest tryParse() throws RequestException {
+        byte[] data = readBuffer.array();
+        int end = readBuffer.position();
+        if (headerEnd < 0) {
+            headerEnd = findHeaderEnd(data, scannedTo, end);
+            if (headerEnd < 0) {
+                scannedTo = Math.max(0, end - 3);
+                if (end >= MAX_REQUEST_SIZE) {
+                    throw new RequestException(StatusCode.REQUEST_ENTITY_TOO_LARGE, "Request header too large");
+                }
+                return null;
+            }
+            parseHead(data, headerEnd);
+        }
+        if (end - headerEnd < contentLength) {
+            return null;
+        }
+
+        CommandRequest request = HttpEventTask.processQueryString(requestLine);
+        if (contentLength > 0) {
+            String body = new String(data, headerEnd, contentLength, Charset.forName(SentinelConfig.charset()));
+            HttpEventTask.parseParams(body, request);
+        }
+        consume(headerEnd + contentLength);
+        return request;
+    }
+
+    private void parseHead(byte[] data, int headerEnd) throws RequestException {
+        int lineStart = 0;
+        int lineEnd = indexOf(data, (byte)'\n', 0, headerEnd);
+        requestLine = decodeLine(data, 0, lineEnd, Charset.forName(SentinelConfig.charset()));
+        headers = new HashMap<String, String>(8);
+        while (true) {
+            lineStart = lineEnd + 1;
+            lineEnd = indexOf(data, (byte)'\n', lineStart, headerEnd);
+            if (lineEnd < 0) {
+                break;
+            }
+            String line = decodeLine(data, lineStart, lineEnd, HEADER_CHARSET);
+            if (line.length() == 0) {
+                break;
+            }
+            int index = line.indexOf(':');
+            if (index < 1) {
+                continue;
+            }
+            String headerValue = line.substring(index + 1).trim();
+            if (headerValue.length() > 0) {
+                headers.put(line.substring(0, index).trim().toLowerCase(), headerValue);
+            }
+        }
+
+        http11 = requestLine.endsWith("HTTP/1.1");
+        String connection = headers.get("connection");
+        keepAlive = http11 ? !"close".equalsIgnoreCase(connection) : "keep-alive".equalsIgnoreCase(connection);
+        contentLength = 0;
+
+        if (requestLine.length() > 4 && StringUtil.equalsIgnoreCase("POST", requestLine.substring(0, 4))) {
+            String contentType = headers.get("content-type");
+            if (contentType != null && !HttpEventTask.checkContentTypeSupported(contentType)) {
+                throw new RequestException(StatusCode.UNSUPPORTED_MEDIA_TYPE,
+                    "Only form-encoded post request is supported");
+            }
+            try {
+                contentLength = Integer.parseInt(headers.get("content-length"));
+            } catch (Exception e) {
+                contentLength = 0;
+            }
+            if (contentLength < 1) {
+                throw new RequestException(StatusCode.LENGTH_REQUIRED, "No legal Content-Length");
+            }
+            if (contentLength > MAX_REQUEST_SIZE - headerEnd) {
+                throw new RequestException(StatusCode.REQUEST_ENTITY_TOO_LARGE, "Request body too large");
+            }
+        }
+    }
+
+    /**
+     * Drop the consumed bytes of the read buffer, and keep the pipelined ones.
+     */
+    private void consume(int length) {
+        readBuffer.flip();
+        readBuffer.position(length);
+        readBuffer.compact();
+        scannedTo = 0;
+        headerEnd = -1;
+        contentLength = 0;
+        headers = null;
+        processing = true;
+    }
+
+    /**
+     * Hand off the response from the command executor.
+     */
+    void setPendingResponse(StatusCode statusCode, CharSequence body) {
+        this.pendingResponse = new PendingResponse(statusCode, body, null);
+    }
+
+    /**
+     * Hand off the streaming response from the command executor, of which chunks are taken when the channel
+     * is writable.
+     */
+    void setPendingResponse(StatusCode statusCode, NioStreamingBody body) {
+        this.pendingResponse = new PendingResponse(statusCode, null, body);
+    }
+
+    /**
+     * Prepare the pending response for writing, or the response of an illegal request which should be
+     * sent before the connection is closed.
+     *
+     * @return false if there is no response to write
+     * @throws IOException if the streaming response has been aborted
+     */
+    boolean startResponse(StatusCode errorCode, String errorMessage) throws IOException {
+        PendingResponse response;
+        if (errorCode != null) {
+            response = new PendingResponse(errorCode, errorMessage, null);
+            keepAlive = false;
+            processing = true;
+        } else {
+            response = pendingResponse;
+            if (response == null) {
+                return false;
+            }
+        }
+        pendingResponse = null;
+        lastActiveTime = System.currentTimeMillis();
+
+        writing = true;
+        streamingBody = response.stream;
+        if (streamingBody == null) {
+            Charset charset = Charset.forName(SentinelConfig.charset());
+            encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (encodeBuffer == null) {
+                encodeBuffer = ByteBuffer.allocate(BODY_CHUNK_SIZE);
+            }
+            bodySource = response.body == null ? CharBuffer.allocate(0) : CharBuffer.wrap(response.body);
+        }
+        boolean complete = nextBody();
+
+        StringBuilder head = new StringBuilder(128);
+        head.append(http11 ? "HTTP/1.1 " : "HTTP/1.0 ").append(response.statusCode.toString()).append("\r\n");
+        if (complete) {
+            // The whole body fits in a single chunk.
+            chunked = false;
+            head.append("Content-Length: ").append(bodyBuffer.remaining()).append("\r\n");
+        } else if (http11) {
+            chunked = true;
+            head.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            // HTTP/1.0 clients do not support chunked encoding, so the body is delimited by closing.
+            chunked = false;
+            keepAlive = false;
+        }
+        head.append(keepAlive ? "Connection: keep-alive\r\n\r\n" : "Connection: close\r\n\r\n");
+        closeAfterWrite = !keepAlive;
+
+        outBuffers[0] = ByteBuffer.wrap(head.toString().getBytes(HEADER_CHARSET));
+        fillBody(complete);
+        return true;
+    }
+
+    /**
+     * Write the response as much as the channel accepts.
+     *
+     * @return true if the response has been completely written
+     */
+    boolean write() throws IOException {
+        waitingForBody = false;
+        while (true) {
+            channel.write(outBuffers);
+            if (outBuffers[0].hasRemaining() || outBuffers[1].hasRemaining() || outBuffers[2].hasRemaining()) {
+                return false;
+            }
+            lastActiveTime = System.currentTimeMillis();
+            if (bodyFinished) {
+                break;
+            }
+            boolean complete = nextBody();
+            outBuffers[0] = EMPTY_BUFFER;
+            fillBody(complete);
+            if (!complete && !bodyBuffer.hasRemaining()) {
+                // Nothing to send until the next chunk is handed off.
+                waitingForBody = true;
+                return false;
+            }
+        }
+        bodySource = null;
+        streamingBody = null;
+        encoder = null;
+        bodyBuffer = null;
+        writing = false;
+        processing = false;
+        return true;
+    }
+
+    boolean isCloseAfterWrite() {
+        return closeAfterWrite;
+    }
+
+    /**
+     * Prepare the next chunk of body in the body buffer (ready for reading). Text bodies are encoded into
+     * the encode buffer, while chunks of streaming bodies are sent as they are.
+     *
+     * The body buffer might be empty if the streaming body has no available chunk.
+     *
+     * @return true if the whole body has been prepared
+     */
+    private boolean nextBody() throws IOException {
+        if (streamingBody != null) {
+            return nextStreamingChunk();
+        }
+        if (encoder == null) {
+            // The streaming body has been finished.
+            bodyBuffer = EMPTY_BUFFER;
+            return true;
+        }
+        encodeBuffer.clear();
+        CoderResult result = encoder.encode(bodySource, encodeBuffer, true);
+        boolean complete = result.isUnderflow() && !bodySource.hasRemaining();
+        if (complete) {
+            complete = encoder.flush(encodeBuffer).isUnderflow();
+        }
+        encodeBuffer.flip();
+        bodyBuffer = encodeBuffer;
+        return complete;
+    }
+
+    private boolean nextStreamingChunk() throws IOException {
+        ByteBuffer chunk = streamingBody.poll();
+        if (chunk == null) {
+            bodyBuffer = EMPTY_BUFFER;
+            return false;
+        }
+        if (chunk == NioStreamingBody.END) {
+            streamingBody = null;
+            bodyBuffer = EMPTY_BUFFER;
+            return true;
+        }
+        bodyBuffer = chunk;
+        if (streamingBody.peek() == NioStreamingBody.END) {
+            // Look ahead, so that a single chunk body could be sent with Content-Length.
+            streamingBody.poll();
+            streamingBody = null;
+            return true;
+        }
+        return false;
+    }
+
+    private void fillBody(boolean complete) {
+        bodyFinished = complete;
+        if (chunked && bodyBuffer.hasRemaining()) {
+            String size = Integer.toHexString(bodyBuffer.remaining()) + "\r\n";
+            ByteBuffer prefix = ByteBuffer.wrap(size.getBytes(HEADER_CHARSET));
+            if (outBuffers[0].hasRemaining()) {
+                // The head has not been written yet.
+                ByteBuffer merged = ByteBuffer.allocate(outBuffers[0].remaining() + prefix.remaining());
+                merged.put(outBuffers[0]).put(prefix).flip();
+                outBuffers[0] = merged;
+            } else {
+                outBuffers[0] = prefix;
+            }
+            outBuffers[2] = ByteBuffer.wrap(complete ? LAST_CHUNK : CRLF);
+        } else if (chunked && complete) {
+            outBuffers[2] = ByteBuffer.wrap(LAST_CHUNK, 2, LAST_CHUNK.length - 2);
+        } else {
+            outBuffers[2] = EMPTY_BUFFER;
+        }
+        outBuffers[1] = bodyBuffer;
+    }
+
+    void close() {
+        if (streamingBody != null) {
+            streamingBody.abort();
+        }
+        PendingResponse response = pendingResponse;
+        if (response != null && response.stream != null) {
+            response.stream.abort();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Ignore.
+        }
+    }
+
+    private static int findHeaderEnd(byte[] data, int from, int end) {
+        for (int i = Math.max(from, 1); i < end; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            if (data[i - 1] == '\n') {
+                return i + 1;
+            }
+            if (i >= 2 && data[i - 1] == '\r' && data[i - 2] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] data, byte b, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decodeLine(byte[] data, int start, int end, Charset charset) {
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+        }
+        return new String(data, start, end - start, charset);
+    }
+
+    private static final class PendingResponse {
+        private final StatusCode statusCode;
+        private final CharSequence body;
+        private final NioStreamingBody stream;
+
+        PendingResponse(StatusCode statusCode, CharSequence body, NioStreamingBody stream) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.stream = stream;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A bounded pipe from the command executor, which writes a
+ * {@link com.alibaba.csp.sentinel.command.StreamingCommandResult}, to the selector thread of
+ * {@link NioHttpCommandServer}, which sends the content.</p>
+ *
+ * <p>Content is handed off in chunks of {@link NioHttpConnection#BODY_CHUNK_SIZE} bytes, and the writer
+ * blocks when {@link #MAX_PENDING_CHUNKS} chunks are waiting to be sent, so the memory of a response is
+ * bounded however large the result is. Text results are encoded by the writer thread as well.</p>
+ *
+ * @since 1.8.9
+ */
+final class NioStreamingBody extends OutputStream {
+
+    static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private static final int MAX_PENDING_CHUNKS = 2;
+    private static final long OFFER_TIMEOUT_MS = 30000;
+
+    private final BlockingQueue<ByteBuffer> chunks = new ArrayBlockingQueue<ByteBuffer>(MAX_PENDING_CHUNKS);
+    private final NioHttpConnection connection;
+    private final Runnable onChunk;
+
+    private byte[] buffer = new byte[NioHttpConnection.BODY_CHUNK_SIZE];
+    private int count = 0;
+    private boolean started = false;
+    private boolean closed = false;
+    private volatile boolean aborted = false;
+
+    /**
+     * @param connection connection of the response, which is started once the first chunk is available
+     * @param onChunk    callback of the writer thread when a chunk is available
+     */
+    NioStreamingBody(NioHttpConnection connection, Runnable onChunk) {
+        this.connection = connection;
+        this.onChunk = onChunk;
+    }
+
+    /**
+     * @return whether any chunk has been handed off
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buffer.length) {
+                handOff(false);
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte)b;
+        if (count == buffer.length) {
+            handOff(false);
+        }
+    }
+
+    /**
+     * Buffered content is sent together with the following chunk, so flushing does nothing.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+    }
+
+    /**
+     * Hand off the remaining content and mark the end of the body.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        ensureOpen();
+        handOff(true);
+        closed = true;
+    }
+
+    /**
+     * Abort the body from either side, e.g. the result failed or the connection has been closed.
+     */
+    void abort() {
+        aborted = true;
+        chunks.clear();
+    }
+
+    /**
+     * Take the next chunk by the selector thread.
+     *
+     * @return the next chunk, {@link #END} if the body has been finished, or null if not available yet
+     * @throws IOException if the body has been aborted
+     */
+    ByteBuffer poll() throws IOException {
+        if (aborted) {
+            throw new IOException("Streaming response aborted");
+        }
+        return chunks.poll();
+    }
+
+    /**
+     * Peek the next chunk by the selector thread without taking it.
+     */
+    ByteBuffer peek() {
+        return chunks.peek();
+    }
+
+    private void handOff(boolean last) throws IOException {
+        if (count > 0) {
+            offer(ByteBuffer.wrap(buffer, 0, count));
+            buffer = new byte[NioHttpConnection.BODY_CHUNK_SIZE];
+            count = 0;
+        }
+        if (last) {
+            offer(END);
+        }
+        if (!started) {
+            started = true;
+            connection.setPendingResponse(StatusCode.OK, this);
+        }
+        onChunk.run();
+    }
+
+    private void offer(ByteBuffer chunk) throws IOException {
+        try {
+            if (!chunks.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                aborted = true;
+                throw new IOException("Timeout when waiting for the streaming response to be sent");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted = true;
+            throw new IOException("Interrupted when writing the streaming response");
+        }
+        ensureOpen();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (aborted) {
+            throw new IOException("Streaming response aborted");
+        }
+        if (closed) {
+            throw new IOException("Streaming response closed");
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NioHttpCommandServerTest {
+
+    private static final int LARGE_RESULT_LINES = 5000;
+
+    private NioHttpCommandServer server;
+    private ExecutorService executor;
+    private Thread serverThread;
+
+    @Before
+    public void setUp() throws Exception {
+        SimpleHttpCommandCenter.registerCommand("nioEcho", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                return CommandResponse.ofSuccess("echo:" + request.getParam("v"));
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioLarge", new CommandHandler<StringBuilder>() {
+            @Override
+            public CommandResponse<StringBuilder> handle(CommandRequest request) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < LARGE_RESULT_LINES; i++) {
+                    sb.append("line-").append(i).append('\n');
+                }
+                return CommandResponse.ofSuccess(sb);
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioStream", new CommandHandler<StreamingCommandResult>() {
+            @Override
+            public CommandResponse<StreamingCommandResult> handle(CommandRequest request) {
+                final int lines = Integer.parseInt(request.getParam("lines"));
+                return CommandResponse.<StreamingCommandResult>ofSuccess(new StreamingCommandResult() {
+                    @Override
+                    public void writeTo(Writer writer) throws IOException {
+                        for (int i = 0; i < lines; i++) {
+                            writer.write("line-" + i + "-\u4e2d\ud83d\ude00\n");
+                        }
+                    }
+                });
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioStreamFail", new CommandHandler<StreamingCommandResult>() {
+            @Override
+            public CommandResponse<StreamingCommandResult> handle(CommandRequest request) {
+                return CommandResponse.<StreamingCommandResult>ofSuccess(new StreamingCommandResult() {
+                    @Override
+                    public void writeTo(Writer writer) throws IOException {
+                        throw new IOException("fail");
+                    }
+                });
+            }
+        });
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        executor = Executors.newFixedThreadPool(2);
+        server = new NioHttpCommandServer(channel, executor);
+        serverThread = new Thread(server);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        serverThread.join(5000);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testKeepAliveAndChunkedResponse() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            // Two pipelined requests on the same connection.
+            out.write(("GET /nioEcho?v=a HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /nioEcho?v=b HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes("UTF-8"));
+            out.flush();
+            assertEquals("echo:a", readResponse(in));
+            assertEquals("echo:b", readResponse(in));
+
+            out.write(("POST /nioEcho HTTP/1.1\r\nContent-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: 3\r\n\r\nv=c").getBytes("UTF-8"));
+            out.flush();
+            assertEquals("echo:c", readResponse(in));
+
+            out.write("GET /nioLarge HTTP/1.1\r\n\r\n".getBytes("UTF-8"));
+            out.flush();
+            String body = readResponse(in);
+            assertEquals(LARGE_RESULT_LINES, body.split("\n").length);
+            assertTrue(body.endsWith("line-" + (LARGE_RESULT_LINES - 1) + "\n"));
+
+            out.write("GET /absent HTTP/1.1\r\n\r\n".getBytes("UTF-8"));
+            out.flush();
+            assertEquals("Unknown command `absent`", readResponse(in));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testStreamingResponse() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            // Far larger than the bounded pipe of the streaming body.
+            int lines = 50000;
+            out.write(("GET /nioStream?lines=" + lines + " HTTP/1.1\r\n\r\n").getBytes("UTF-8"));
+            out.flush();
+            String[] body = readResponse(in).split("\n");
+            assertEquals(lines, body.length);
+            assertEquals("line-0-\u4e2d\ud83d\ude00", body[0]);
+            assertEquals("line-" + (lines - 1) + "-\u4e2d\ud83d\ude00", body[lines - 1]);
+
+            // Small results fit in a single chunk, and the connection is still alive.
+            out.write("GET /nioStream?lines=1 HTTP/1.1\r\n\r\n".getBytes("UTF-8"));
+            out.flush();
+            assertEquals("line-0-\u4e2d\ud83d\ude00\n", readResponse(in));
+
+            out.write("GET /nioStreamFail HTTP/1.1\r\n\r\n".getBytes("UTF-8"));
+            out.flush();
+            assertEquals(HttpEventTask.SERVER_ERROR_MESSAGE, readResponse(in));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testHttp10CloseDelimitedResponse() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write("GET /nioLarge HTTP/1.0\r\n\r\n".getBytes("UTF-8"));
+            String response = readAll(socket.getInputStream());
+            assertTrue(response.startsWith("HTTP/1.0 200 OK\r\n"));
+            assertTrue(response.contains("Connection: close\r\n"));
+            assertTrue(response.endsWith("line-" + (LARGE_RESULT_LINES - 1) + "\n"));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testIllegalPostRequest() throws Exception {
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        try {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write("POST /nioEcho HTTP/1.1\r\n\r\n".getBytes("UTF-8"));
+            String response = readAll(socket.getInputStream());
+            assertTrue(response.startsWith("HTTP/1.1 " + StatusCode.LENGTH_REQUIRED));
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Read a response with either Content-Length or chunked body, and return the body.
+     */
+    private static String readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        assertTrue(statusLine, statusLine.startsWith("HTTP/1.1 "));
+        int contentLength = -1;
+        boolean chunked = false;
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            String lower = line.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            } else if (lower.startsWith("transfer-encoding:")) {
+                chunked = lower.contains("chunked");
+            }
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (chunked) {
+            while (true) {
+                int size = Integer.parseInt(readLine(in), 16);
+                if (size == 0) {
+                    readLine(in);
+                    break;
+                }
+                readFully(in, body, size);
+                readLine(in);
+            }
+        } else {
+            readFully(in, body, contentLength);
+        }
+        return new String(body.toByteArray(), "UTF-8");
+    }
+
+    private static void readFully(InputStream in, ByteArrayOutputStream out, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of stream");
+            }
+            out.write(b);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                sb.append((char)b);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) >= 0) {
+            out.write(buf, 0, n);
+        }
+        return new String(out.toByteArray(), "UTF-8");
+    }
+}
@@ -18,13 +18,16 @@ package com.alibaba.csp.sentinel.transport.command;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingCommandResult;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.transport.command.http.StatusCode;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 /**
@@ -42,9 +45,9 @@ public class SentinelApiHandler {
 
     public void handle(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
         PrintWriter printWriter = null;
+        boolean streaming = false;
         try {
             long start = System.currentTimeMillis();
-            printWriter = httpServletResponse.getWriter();
             CommandCenterLog.debug("[SentinelApiHandler] request income: {}", httpServletRequest.getRequestURL());
             CommandRequest request = new CommandRequest();
             Map<String, String[]> parameterMap = httpServletRequest.getParameterMap();
@@ -55,13 +58,26 @@ public class SentinelApiHandler {
                 }
             }
             CommandResponse<?> response = commandHandler.handle(request);
-            handleResponse(response, httpServletResponse, printWriter);
+            if (response.isSuccess() && response.getResult() instanceof StreamingCommandResult) {
+                // The servlet container sends the content in chunks once its response buffer is full.
+                streaming = true;
+                httpServletResponse.setStatus(StatusCode.OK.getCode());
+                OutputStream out = httpServletResponse.getOutputStream();
+                ((StreamingCommandResult)response.getResult()).writeTo(out, Charset.forName(SentinelConfig.charset()));
+                out.flush();
+            } else {
+                printWriter = httpServletResponse.getWriter();
+                handleResponse(response, httpServletResponse, printWriter);
+            }
 
             long cost = System.currentTimeMillis() - start;
             CommandCenterLog.debug("[SentinelApiHandler] Deal request: {}, time cost: {} ms", httpServletRequest.getRequestURL(), cost);
         } catch (Throwable e) {
             CommandCenterLog.warn("[SentinelApiHandler] error", e);
             try {
+                if (printWriter == null && !streaming) {
+                    printWriter = httpServletResponse.getWriter();
+                }
                 if (printWriter != null) {
                     writeResponse(httpServletResponse, printWriter, StatusCode.INTERNAL_SERVER_ERROR, SERVER_ERROR_MESSAGE);
                 }